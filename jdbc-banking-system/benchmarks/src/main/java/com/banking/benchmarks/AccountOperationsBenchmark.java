@@ -0,0 +1,42 @@
+package com.banking.benchmarks;
+
+import com.banking.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BankingService money movements against the seeded database, on random accounts
+ * Sample time mode, so the JSON carries p50 / p99 / p99.9 next to the mean.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class AccountOperationsBenchmark {
+
+    private static final Money AMOUNT = Money.ofCents(100);
+
+    @Benchmark
+    public boolean deposit(BenchmarkDatabase db) {
+        return db.bankingService.deposit(db.randomAccount(), AMOUNT);
+    }
+
+    @Benchmark
+    public boolean withdraw(BenchmarkDatabase db) {
+        return db.bankingService.withdraw(db.randomAccount(), AMOUNT);
+    }
+
+    @Benchmark
+    public boolean transfer(BenchmarkDatabase db) {
+        int from = db.randomAccount();
+        return db.bankingService.transfer(from, db.otherAccount(from), AMOUNT);
+    }
+}
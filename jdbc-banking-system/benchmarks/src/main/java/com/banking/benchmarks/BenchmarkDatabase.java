@@ -0,0 +1,133 @@
+package com.banking.benchmarks;
+
+import com.banking.dao.AccountDAO;
+import com.banking.dao.CustomerDAO;
+import com.banking.dao.TransactionDAO;
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.CustomerInput;
+import com.banking.model.Money;
+import com.banking.service.BankingService;
+import com.banking.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark data in a schema of its own, named with -DDB_URL on the java command line (a local
+ * MySQL database loaded with sql/schema.sql); the forked benchmark JVMs inherit the setting. The
+ * schema from config.properties is never used, so seeding cannot touch real customers.
+ *
+ * Seeds one account per customer, for customers bench-0@bench.example ... bench-(accounts-1),
+ * and tops each account up to transactionsPerAccount ledger rows with small deposits. Existing
+ * benchmark rows are reused, so only the first run at a given size pays for seeding. Accounts
+ * start with a large balance so withdrawals and transfers never run out.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    private static final String EMAIL_DOMAIN = "@bench.example";
+    private static final Money OPENING_BALANCE = Money.ofCents(100_000_000);
+    private static final Money SEED_AMOUNT = Money.ofCents(100);
+    private static final int REGISTRATION_BATCH = 1_000;
+
+    @Param("1000")
+    public int accounts;
+
+    @Param("20")
+    public int transactionsPerAccount;
+
+    BankingService bankingService;
+    AccountDAO accountDAO;
+    TransactionDAO transactionDAO;
+    private int[] accountIds;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        DatabaseConnection database = DatabaseConnection.getInstance();
+        if (!database.isOverridden("DB_URL")) {
+            throw new IllegalStateException("Name the benchmark schema with -DDB_URL, e.g. -DDB_URL=jdbc:mysql://localhost:3306/banking_bench");
+        }
+        if (!database.testConnection()) {
+            throw new IllegalStateException("Database not reachable: start MySQL, load sql/schema.sql into " + database.getUrl());
+        }
+        bankingService = new BankingService();
+        accountDAO = new AccountDAO();
+        transactionDAO = new TransactionDAO();
+        CustomerDAO customerDAO = new CustomerDAO();
+
+        registerMissingCustomers(customerDAO);
+
+        accountIds = new int[accounts];
+        for (int i = 0; i < accounts; i++) {
+            Optional<Customer> customer = customerDAO.findByEmail(email(i));
+            if (customer.isEmpty()) {
+                throw new IllegalStateException("Benchmark customer missing: " + email(i));
+            }
+            int customerId = customer.get().getId();
+            List<Account> owned = accountDAO.findByCustomerId(customerId);
+            if (owned.isEmpty()) {
+                bankingService.createAccount(customerId, Account.SAVINGS, OPENING_BALANCE);
+                owned = accountDAO.findByCustomerId(customerId);
+            }
+            accountIds[i] = owned.get(0).getId();
+
+            int existing = transactionDAO.getTransactionSummary(accountIds[i]).getTotalTransactions();
+            for (int t = existing; t < transactionsPerAccount; t++) {
+                bankingService.deposit(accountIds[i], SEED_AMOUNT);
+            }
+        }
+    }
+
+    private void registerMissingCustomers(CustomerDAO customerDAO) {
+        for (int start = 0; start < accounts; start += REGISTRATION_BATCH) {
+            List<String> emails = new ArrayList<>();
+            for (int i = start; i < Math.min(start + REGISTRATION_BATCH, accounts); i++) {
+                emails.add(email(i));
+            }
+            Set<String> existing = customerDAO.findExistingEmails(emails);
+            if (existing == null) {
+                throw new IllegalStateException("Could not look up existing benchmark customers; see the log");
+            }
+            List<CustomerInput> missing = new ArrayList<>();
+            for (String email : emails) {
+                if (!existing.contains(email)) {
+                    missing.add(new CustomerInput("Bench Customer", 30, email, "5550000000"));
+                }
+            }
+            if (!missing.isEmpty()) {
+                bankingService.registerCustomers(missing);
+            }
+        }
+    }
+
+    private static String email(int index) {
+        return "bench-" + index + EMAIL_DOMAIN;
+    }
+
+    /**
+     * A seeded account picked uniformly at random
+     */
+    int randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+
+    /**
+     * A seeded account other than the given one
+     */
+    int otherAccount(int accountId) {
+        int other = randomAccount();
+        while (other == accountId && accountIds.length > 1) {
+            other = randomAccount();
+        }
+        return other;
+    }
+}
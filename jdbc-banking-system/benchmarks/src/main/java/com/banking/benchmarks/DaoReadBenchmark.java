@@ -0,0 +1,52 @@
+package com.banking.benchmarks;
+
+import com.banking.cache.EntityCaches;
+import com.banking.dao.TransactionDAO;
+import com.banking.model.Account;
+import com.banking.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAO reads against the seeded database, on random accounts
+ * findById is measured served by the entity cache and with the entry evicted first, so it goes
+ * to the database; the ledger reads are never cached.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class DaoReadBenchmark {
+
+    @Benchmark
+    public Optional<Account> findByIdCached(BenchmarkDatabase db) {
+        return db.accountDAO.findById(db.randomAccount());
+    }
+
+    @Benchmark
+    public Optional<Account> findByIdUncached(BenchmarkDatabase db) {
+        int accountId = db.randomAccount();
+        EntityCaches.ACCOUNTS.invalidate(accountId);
+        return db.accountDAO.findById(accountId);
+    }
+
+    @Benchmark
+    public List<Transaction> findByAccountId(BenchmarkDatabase db) {
+        return db.transactionDAO.findByAccountId(db.randomAccount());
+    }
+
+    @Benchmark
+    public TransactionDAO.TransactionSummary getTransactionSummary(BenchmarkDatabase db) {
+        return db.transactionDAO.getTransactionSummary(db.randomAccount());
+    }
+}
@@ -0,0 +1,84 @@
+package com.banking.benchmarks;
+
+import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.util.InputValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pure CPU paths of the model and validation code; no database needed
+ * Inputs are fields rather than constants so the JIT cannot fold the work away.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    public String amountText = "1234.56";
+    public String name = "  Jane   Oneil ";
+    public String email = "Jane.ONeil@Example.com";
+    public String contactNumber = "5551234567";
+    public int age = 42;
+    public Money balance = Money.ofCents(123_456);
+    public Money amount = Money.ofCents(789);
+    public Account account = new Account(1, 7, Account.SAVINGS, Money.ofCents(123_456), null);
+
+    @Benchmark
+    public Money parseMoney() {
+        return Money.parse(amountText);
+    }
+
+    @Benchmark
+    public String formatMoney() {
+        return balance.toString();
+    }
+
+    @Benchmark
+    public Money moneyArithmetic() {
+        return balance.plus(amount).minus(amount).plus(amount.negate());
+    }
+
+    @Benchmark
+    public boolean sufficientBalance() {
+        return account.hasSufficientBalance(amount);
+    }
+
+    @Benchmark
+    public Transaction newTransfer() {
+        return new Transaction(1, 2, amount);
+    }
+
+    @Benchmark
+    public boolean validateEmail() {
+        return InputValidator.isValidEmail(email);
+    }
+
+    @Benchmark
+    public String sanitizeName() {
+        return InputValidator.sanitizeName(name);
+    }
+
+    @Benchmark
+    public boolean validateCustomer() {
+        return InputValidator.validateCustomer(name, age, email, contactNumber).isValid();
+    }
+
+    @Benchmark
+    public boolean validateTransaction() {
+        return InputValidator.validateTransaction(1, 2, amount, Transaction.TRANSFER).isValid();
+    }
+}
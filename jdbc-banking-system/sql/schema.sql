@@ -20,6 +20,7 @@ CREATE TABLE IF NOT EXISTS accounts (
     account_type VARCHAR(20) NOT NULL,
     balance DECIMAL(15,2) NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0, -- bumped by every balance write; orders balance index updates
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
 );
 
@@ -28,9 +29,64 @@ CREATE TABLE IF NOT EXISTS transactions (
     id INT AUTO_INCREMENT PRIMARY KEY,
     from_account INT,
     to_account INT,
-    amount DECIMAL(15,2) NOT NULL,
-    type VARCHAR(20) NOT NULL, -- DEPOSIT, WITHDRAW, TRANSFER
+    amount_cents BIGINT NOT NULL,
+    type_code TINYINT UNSIGNED NOT NULL, -- 1 = DEPOSIT, 2 = WITHDRAW, 3 = TRANSFER, 4 = OPENING
     timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_transactions_from_ts (from_account, timestamp),
+    INDEX idx_transactions_to_ts (to_account, timestamp),
+    INDEX idx_transactions_ts (timestamp),
     FOREIGN KEY (from_account) REFERENCES accounts(id) ON DELETE SET NULL,
     FOREIGN KEY (to_account) REFERENCES accounts(id) ON DELETE SET NULL
-); 
\ No newline at end of file
+);
+
+-- Progress markers for incremental background jobs
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job_name VARCHAR(50) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Ledger ids an incremental job passed over before their insert committed; folded in once they
+-- appear, forgotten after an hour (rolled-back inserts never appear)
+CREATE TABLE IF NOT EXISTS job_id_gaps (
+    job_name VARCHAR(50) NOT NULL,
+    ledger_id BIGINT NOT NULL,
+    found_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (job_name, ledger_id)
+);
+
+-- Confirmed mismatches of the current reconciliation pass, kept so a resumed pass reports them all
+CREATE TABLE IF NOT EXISTS reconciliation_mismatches (
+    account_id INT PRIMARY KEY,
+    stored_balance DECIMAL(15,2) NOT NULL,
+    ledger_balance DECIMAL(15,2) NOT NULL,
+    found_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- End-of-day balances, written only for accounts with postings that day
+CREATE TABLE IF NOT EXISTS balance_checkpoints (
+    account_id INT NOT NULL,
+    checkpoint_date DATE NOT NULL,
+    balance DECIMAL(15,2) NOT NULL,
+    PRIMARY KEY (account_id, checkpoint_date),
+    FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+);
+
+-- Daily transaction totals per type and account type, filled incrementally from the ledger
+CREATE TABLE IF NOT EXISTS transaction_rollups (
+    rollup_date DATE NOT NULL,
+    type_code TINYINT UNSIGNED NOT NULL, -- 1 = DEPOSIT, 2 = WITHDRAW, 3 = TRANSFER, 4 = OPENING
+    account_type VARCHAR(20) NOT NULL, -- of the debited account for transfers
+    txn_count BIGINT NOT NULL,
+    volume_cents BIGINT NOT NULL,
+    PRIMARY KEY (rollup_date, type_code, account_type)
+);
+
+-- Writes to cached entities, tailed by every node to evict stale cache entries
+CREATE TABLE IF NOT EXISTS entity_changes (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type TINYINT UNSIGNED NOT NULL, -- 1 = ACCOUNT, 2 = CUSTOMER, 3 = CUSTOMER_ACCOUNTS, 4 = ACCOUNT_POSTING
+    entity_id INT NOT NULL,
+    changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_entity_changes_time (changed_at)
+);
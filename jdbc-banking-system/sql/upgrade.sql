@@ -0,0 +1,95 @@
+-- Bring a database created from an earlier sql/schema.sql up to date
+-- Safe to run more than once. The transactions table keeps its layout; legacy ledgers are
+-- moved to the compact format online with LedgerMigrationTool.
+
+USE banking_system;
+
+-- Progress markers for incremental background jobs
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job_name VARCHAR(50) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Ledger ids an incremental job passed over before their insert committed; folded in once they
+-- appear, forgotten after an hour (rolled-back inserts never appear)
+CREATE TABLE IF NOT EXISTS job_id_gaps (
+    job_name VARCHAR(50) NOT NULL,
+    ledger_id BIGINT NOT NULL,
+    found_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (job_name, ledger_id)
+);
+
+-- Confirmed mismatches of the current reconciliation pass, kept so a resumed pass reports them all
+CREATE TABLE IF NOT EXISTS reconciliation_mismatches (
+    account_id INT PRIMARY KEY,
+    stored_balance DECIMAL(15,2) NOT NULL,
+    ledger_balance DECIMAL(15,2) NOT NULL,
+    found_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- End-of-day balances, written only for accounts with postings that day
+CREATE TABLE IF NOT EXISTS balance_checkpoints (
+    account_id INT NOT NULL,
+    checkpoint_date DATE NOT NULL,
+    balance DECIMAL(15,2) NOT NULL,
+    PRIMARY KEY (account_id, checkpoint_date),
+    FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+);
+
+-- Daily transaction totals per type and account type, filled incrementally from the ledger
+CREATE TABLE IF NOT EXISTS transaction_rollups (
+    rollup_date DATE NOT NULL,
+    type_code TINYINT UNSIGNED NOT NULL, -- 1 = DEPOSIT, 2 = WITHDRAW, 3 = TRANSFER, 4 = OPENING
+    account_type VARCHAR(20) NOT NULL, -- of the debited account for transfers
+    txn_count BIGINT NOT NULL,
+    volume_cents BIGINT NOT NULL,
+    PRIMARY KEY (rollup_date, type_code, account_type)
+);
+
+-- Writes to cached entities, tailed by every node to evict stale cache entries
+CREATE TABLE IF NOT EXISTS entity_changes (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type TINYINT UNSIGNED NOT NULL, -- 1 = ACCOUNT, 2 = CUSTOMER, 3 = CUSTOMER_ACCOUNTS, 4 = ACCOUNT_POSTING
+    entity_id INT NOT NULL,
+    changed_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_entity_changes_time (changed_at)
+);
+
+DROP PROCEDURE IF EXISTS add_column_if_missing;
+DROP PROCEDURE IF EXISTS add_index_if_missing;
+
+DELIMITER //
+CREATE PROCEDURE add_column_if_missing(IN table_name_in VARCHAR(64), IN column_name_in VARCHAR(64), IN definition_in VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.COLUMNS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = table_name_in AND COLUMN_NAME = column_name_in) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', table_name_in, ' ADD COLUMN ', column_name_in, ' ', definition_in);
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+
+CREATE PROCEDURE add_index_if_missing(IN table_name_in VARCHAR(64), IN index_name_in VARCHAR(64), IN columns_in VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.STATISTICS
+                   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = table_name_in AND INDEX_NAME = index_name_in) THEN
+        SET @ddl = CONCAT('CREATE INDEX ', index_name_in, ' ON ', table_name_in, ' (', columns_in, ')');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+DELIMITER ;
+
+-- Row version bumped by every balance write; orders balance index updates
+CALL add_column_if_missing('accounts', 'version', 'BIGINT NOT NULL DEFAULT 0');
+
+-- Ledger indexes used by history, as-of and checkpoint queries
+CALL add_index_if_missing('transactions', 'idx_transactions_from_ts', 'from_account, timestamp');
+CALL add_index_if_missing('transactions', 'idx_transactions_to_ts', 'to_account, timestamp');
+CALL add_index_if_missing('transactions', 'idx_transactions_ts', 'timestamp');
+
+DROP PROCEDURE add_column_if_missing;
+DROP PROCEDURE add_index_if_missing;
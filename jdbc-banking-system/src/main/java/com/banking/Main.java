@@ -1,12 +1,27 @@
 package com.banking;
 
+import com.banking.analytics.ColumnarLedger;
+import com.banking.dao.LedgerFormat;
+import com.banking.dao.SchemaDAO;
+import com.banking.dao.TransactionRollupDAO;
+import com.banking.metrics.FlightRecorderSummary;
 import com.banking.model.Account;
 import com.banking.model.Customer;
+import com.banking.model.Money;
 import com.banking.model.Transaction;
+import com.banking.model.TransactionRollup;
+import com.banking.model.TransactionType;
+import com.banking.monitoring.MonitoringServer;
 import com.banking.service.BankingService;
+import com.banking.service.MeteredBankingService;
 import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Scanner;
 
@@ -16,11 +31,18 @@ import java.util.Scanner;
  */
 public class Main {
     
-    private static final BankingService bankingService = new BankingService();
+    private static final BankingService bankingService = new MeteredBankingService();
     private static final Scanner scanner = new Scanner(System.in);
     private static final String ADMIN_PASSWORD = "admin123";
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    // Live Flight Recorder summary: printed this many times, this far apart
+    private static final int SUMMARY_REFRESHES = 5;
+    private static final long SUMMARY_REFRESH_MILLIS = 2_000;
 
     public static void main(String[] args) {
+        // Interactive session: DAO and service messages are echoed to the terminal
+        Log.setInteractive(true);
+        
         System.out.println("🏦 Welcome to Java OOP Banking System! 🏦");
         System.out.println("==========================================");
         
@@ -32,7 +54,23 @@ public class Main {
         }
         
         System.out.println("✅ Database connection successful!");
+        
+        if (!LedgerFormat.current().matchesSchema()) {
+            System.out.println("❌ LEDGER_FORMAT does not match the transactions table! Please check your configuration.");
+            return;
+        }
+        List<String> missingSchema = new SchemaDAO().findMissing();
+        if (missingSchema == null || !missingSchema.isEmpty()) {
+            System.out.println("❌ Database schema is out of date! Run sql/upgrade.sql" +
+                               (missingSchema != null ? " (missing " + String.join(", ", missingSchema) + ")" : ""));
+            return;
+        }
         System.out.println();
+        bankingService.startIndexWarmup();
+        bankingService.startChangeLogPolling();
+        bankingService.startTransactionRollups();
+        MonitoringServer monitoringServer = new MonitoringServer(bankingService.getProfileCache());
+        monitoringServer.start();
         
         // Main application loop
         while (true) {
@@ -64,6 +102,7 @@ public class Main {
                 case 8:
                     System.out.println("\n👋 Thank you for using Java OOP Banking System!");
                     System.out.println("   Goodbye! 🙏");
+                    monitoringServer.stop();
                     scanner.close();
                     return;
                 default:
@@ -210,9 +249,12 @@ public class Main {
             System.out.println("3. 📋 All Transactions");
             System.out.println("4. 🕒 Recent Transactions");
             System.out.println("5. 👤 Customer Details with Accounts");
-            System.out.println("6. ⬅️  Back to Main Menu");
+            System.out.println("6. 📈 Ledger Analytics");
+            System.out.println("7. 🕰️  Balance As Of Date");
+            System.out.println("8. 📆 Transaction Volume Report");
+            System.out.println("9. ⬅️  Back to Main Menu");
             
-            int choice = getValidChoice(1, 6);
+            int choice = getValidChoice(1, 9);
             
             switch (choice) {
                 case 1:
@@ -231,6 +273,15 @@ public class Main {
                     viewCustomerDetails();
                     break;
                 case 6:
+                    ledgerAnalytics();
+                    break;
+                case 7:
+                    balanceAsOf();
+                    break;
+                case 8:
+                    transactionVolumeReport();
+                    break;
+                case 9:
                     return;
             }
         }
@@ -251,19 +302,35 @@ public class Main {
             System.out.println("\n🔐 ADMIN PANEL");
             System.out.println("==============");
             System.out.println("1. 📊 System Statistics");
-            System.out.println("2. 🗑️  Delete All Data (DANGER!)");
-            System.out.println("3. ⬅️  Back to Main Menu");
+            System.out.println("2. 📅 Run Balance Checkpoints");
+            System.out.println("3. 📆 Run Transaction Rollup");
+            System.out.println("4. 🧮 Reconcile Ledger");
+            System.out.println("5. 🛰️  Live Flight Recorder Summary");
+            System.out.println("6. 🗑️  Delete All Data (DANGER!)");
+            System.out.println("7. ⬅️  Back to Main Menu");
             
-            int choice = getValidChoice(1, 3);
+            int choice = getValidChoice(1, 7);
             
             switch (choice) {
                 case 1:
                     systemStatistics();
                     break;
                 case 2:
-                    deleteAllData();
+                    runBalanceCheckpoints();
                     break;
                 case 3:
+                    runTransactionRollup();
+                    break;
+                case 4:
+                    reconcileLedger();
+                    break;
+                case 5:
+                    flightRecorderSummary();
+                    break;
+                case 6:
+                    deleteAllData();
+                    break;
+                case 7:
                     return;
             }
         }
@@ -457,7 +524,7 @@ public class Main {
         }
         
         System.out.print("Enter initial balance: $");
-        BigDecimal initialBalance = getValidBigDecimal();
+        Money initialBalance = getValidAmount();
         
         boolean success = bankingService.createAccount(customerId, accountType, initialBalance);
         if (success) {
@@ -517,7 +584,9 @@ public class Main {
         int accountId = getValidInteger();
         
         var balance = bankingService.checkBalance(accountId);
-        if (balance.isEmpty()) {
+        if (balance.isPresent()) {
+            System.out.println("💰 Account Balance: $" + balance.get());
+        } else {
             System.out.println("❌ Account not found!");
         }
     }
@@ -543,7 +612,7 @@ public class Main {
         int accountId = getValidInteger();
         
         System.out.print("Enter amount to deposit: $");
-        BigDecimal amount = getValidBigDecimal();
+        Money amount = getValidAmount();
         
         boolean success = bankingService.deposit(accountId, amount);
         if (success) {
@@ -559,7 +628,7 @@ public class Main {
         int accountId = getValidInteger();
         
         System.out.print("Enter amount to withdraw: $");
-        BigDecimal amount = getValidBigDecimal();
+        Money amount = getValidAmount();
         
         boolean success = bankingService.withdraw(accountId, amount);
         if (success) {
@@ -578,7 +647,7 @@ public class Main {
         int toAccountId = getValidInteger();
         
         System.out.print("Enter amount to transfer: $");
-        BigDecimal amount = getValidBigDecimal();
+        Money amount = getValidAmount();
         
         boolean success = bankingService.transfer(fromAccountId, toAccountId, amount);
         if (success) {
@@ -659,12 +728,182 @@ public class Main {
         bankingService.displayCustomerDetails(customerId);
     }
 
+    private static void ledgerAnalytics() {
+        System.out.println("\n📈 LEDGER ANALYTICS");
+        System.out.println("===================");
+        
+        ColumnarLedger ledger = bankingService.getLedgerReplica();
+        long start = System.nanoTime();
+        ColumnarLedger.TypeTotals byType = ledger.totalsByType();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        ColumnarLedger.DailyTotals byDay = ledger.totalsByDay(today.minusDays(6), today, 0);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        
+        System.out.println("Rows in replica: " + (ledger.size() - ledger.getDeletedRows()) +
+                           " (rows still committing appear on a later refresh)");
+        for (TransactionType type : TransactionType.values()) {
+            System.out.println("   " + type + ": " + byType.getCount(type) + " transaction(s), $" +
+                               Money.ofCents(byType.getTotalCents(type)));
+        }
+        
+        System.out.println("Last 7 days (UTC):");
+        for (int i = 0; i < byDay.getDayCount(); i++) {
+            System.out.println("   " + LocalDate.ofEpochDay(byDay.getFirstEpochDay() + i) + ": " +
+                               byDay.getCount(i) + " transaction(s), $" + Money.ofCents(byDay.getTotalCents(i)));
+        }
+        System.out.println("Computed in " + elapsedMicros + " µs");
+    }
+
+    private static void balanceAsOf() {
+        System.out.println("\n🕰️  BALANCE AS OF DATE");
+        System.out.println("=====================");
+        
+        System.out.print("Enter account ID: ");
+        int accountId = getValidInteger();
+        
+        System.out.print("Enter date and time (yyyy-MM-dd HH:mm): ");
+        LocalDateTime asOf = getValidDateTime();
+        
+        var balance = bankingService.getBalanceAsOf(accountId, asOf);
+        if (balance.isPresent()) {
+            System.out.println("💰 Balance of account " + accountId + " at " + asOf + ": $" + balance.get());
+        } else {
+            System.out.println("❌ Account not found, or no balance checkpoint covers that date yet!");
+            System.out.println("   Run the balance checkpoints from the admin panel and try again.");
+        }
+    }
+
+    private static void transactionVolumeReport() {
+        System.out.println("\n📆 TRANSACTION VOLUME REPORT");
+        System.out.println("============================");
+        
+        System.out.println("1. Daily  2. Weekly  3. Monthly");
+        System.out.print("Select period: ");
+        TransactionRollupDAO.Period period = TransactionRollupDAO.Period.values()[getValidChoice(1, 3) - 1];
+        
+        System.out.print("From date (yyyy-MM-dd): ");
+        LocalDate from = getValidDate();
+        System.out.print("To date (yyyy-MM-dd): ");
+        LocalDate to = getValidDate();
+        
+        List<TransactionRollup> rows = bankingService.getTransactionReport(period, from, to);
+        if (rows.isEmpty()) {
+            System.out.println("No transactions in this period");
+            return;
+        }
+        
+        LocalDate current = null;
+        for (TransactionRollup row : rows) {
+            if (!row.getPeriodStart().equals(current)) {
+                current = row.getPeriodStart();
+                System.out.println(period + " starting " + current + ":");
+            }
+            System.out.println("   " + row.getTransactionType() + " / " + row.getAccountType() + ": " +
+                               row.getCount() + " transaction(s), $" + row.getVolume());
+        }
+    }
+
     // ==================== SYSTEM OPERATIONS ====================
 
     private static void systemStatistics() {
         bankingService.displaySystemStatistics();
     }
 
+    private static void runBalanceCheckpoints() {
+        System.out.println("\n📅 BALANCE CHECKPOINTS");
+        System.out.println("=====================");
+        
+        int days = bankingService.runBalanceCheckpoints();
+        System.out.println("✅ Processed " + days + " day(s)");
+    }
+
+    private static void runTransactionRollup() {
+        System.out.println("\n📆 TRANSACTION ROLLUP");
+        System.out.println("====================");
+        
+        long covered = bankingService.runTransactionRollup();
+        if (covered < 0) {
+            System.out.println("❌ Rollup stopped on an error; run it again to resume");
+        } else {
+            System.out.println("✅ Rolled up " + covered + " ledger id(s)");
+        }
+    }
+
+    private static void reconcileLedger() {
+        System.out.println("\n🧮 RECONCILE LEDGER");
+        System.out.println("==================");
+        
+        System.out.print("Rebuild mismatched balances from the ledger? (yes/no): ");
+        boolean rebuild = "yes".equalsIgnoreCase(scanner.nextLine().trim());
+        
+        if (rebuild && !bankingService.isOpeningBalanceBackfillDone()) {
+            System.out.println("⚠️  Accounts opened before opening balances were logged must be backfilled first,");
+            System.out.println("   or a rebuild would wipe their opening balance.");
+            System.out.print("Highest account ID opened before the upgrade (0 if none): ");
+            int logged = bankingService.backfillOpeningBalances(getValidInteger());
+            if (logged < 0) {
+                System.out.println("❌ Backfill failed; balances will not be rebuilt");
+            } else {
+                System.out.println("✅ Logged " + logged + " opening balance(s)");
+            }
+        }
+        
+        var report = bankingService.reconcileLedger(rebuild);
+        System.out.println("✅ Checked " + report.getAccountsChecked() + " account(s) in " +
+                           report.getRangesChecked() + " range(s), " + report.getElapsedMillis() + " ms");
+        if (!report.isComplete()) {
+            System.out.println("⚠️  Pass incomplete (" + report.getFailedRanges() + " failed range(s)); run again to resume");
+        }
+        if (report.getMismatches().isEmpty()) {
+            System.out.println("✅ All balances match the ledger");
+        } else {
+            System.out.println("❌ Mismatches: " + report.getMismatches().size());
+            report.getMismatches().forEach(m -> System.out.println("   Account " + m.getAccountId() +
+                    ": stored $" + m.getStoredBalance() + ", ledger $" + m.getLedgerBalance()));
+            if (report.isRebuildRefused()) {
+                System.out.println("⚠️  Nothing rebuilt: opening balances have not been backfilled");
+            } else if (rebuild) {
+                System.out.println("🔧 Rebuilt " + report.getBalancesRebuilt() + " balance(s)");
+                if (report.getRebuildsSkipped() > 0) {
+                    System.out.println("⚠️  Skipped " + report.getRebuildsSkipped() + " account(s) with no opening balance in the ledger");
+                }
+            }
+        }
+    }
+
+    private static void flightRecorderSummary() {
+        System.out.println("\n🛰️  LIVE FLIGHT RECORDER SUMMARY");
+        System.out.println("===============================");
+        
+        FlightRecorderSummary summary = FlightRecorderSummary.getInstance();
+        if (!summary.isRunning()) {
+            if (!summary.start()) {
+                return;
+            }
+            System.out.println("✅ Streaming started; it keeps collecting in the background");
+        }
+        
+        for (int i = 0; i < SUMMARY_REFRESHES; i++) {
+            System.out.println();
+            summary.displaySummary();
+            try {
+                Thread.sleep(SUMMARY_REFRESH_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        
+        System.out.print("\nReset the summary (r), stop streaming (s) or keep it running (Enter): ");
+        String answer = scanner.nextLine().trim();
+        if ("r".equalsIgnoreCase(answer)) {
+            summary.reset();
+        } else if ("s".equalsIgnoreCase(answer)) {
+            summary.stop();
+            System.out.println("✅ Streaming stopped");
+        }
+    }
+
     private static void deleteAllData() {
         System.out.println("\n⚠️  DANGER: DELETE ALL DATA");
         System.out.println("==========================");
@@ -716,16 +955,36 @@ public class Main {
         }
     }
 
-    private static BigDecimal getValidBigDecimal() {
+    private static Money getValidAmount() {
         while (true) {
             try {
-                return new BigDecimal(scanner.nextLine());
-            } catch (NumberFormatException e) {
+                return Money.parse(scanner.nextLine());
+            } catch (NumberFormatException | ArithmeticException e) {
                 System.out.print("❌ Please enter a valid amount: ");
             }
         }
     }
 
+    private static LocalDate getValidDate() {
+        while (true) {
+            try {
+                return LocalDate.parse(scanner.nextLine().trim());
+            } catch (DateTimeParseException e) {
+                System.out.print("❌ Please enter a valid date (yyyy-MM-dd): ");
+            }
+        }
+    }
+
+    private static LocalDateTime getValidDateTime() {
+        while (true) {
+            try {
+                return LocalDateTime.parse(scanner.nextLine().trim(), DATE_TIME_FORMAT);
+            } catch (DateTimeParseException e) {
+                System.out.print("❌ Please enter a valid date and time (yyyy-MM-dd HH:mm): ");
+            }
+        }
+    }
+
     private static void displayCustomer(Customer customer) {
         System.out.println("👤 Customer ID: " + customer.getId());
         System.out.println("   Name: " + customer.getName());
@@ -748,10 +1007,10 @@ public class Main {
         System.out.println("📝 Transaction ID: " + transaction.getId());
         System.out.println("   Type: " + transaction.getType());
         System.out.println("   Amount: $" + transaction.getAmount());
-        if (transaction.getFromAccountId() != null) {
+        if (transaction.hasFromAccount()) {
             System.out.println("   From Account: " + transaction.getFromAccountId());
         }
-        if (transaction.getToAccountId() != null) {
+        if (transaction.hasToAccount()) {
             System.out.println("   To Account: " + transaction.getToAccountId());
         }
         System.out.println("   Timestamp: " + transaction.getTimestamp());
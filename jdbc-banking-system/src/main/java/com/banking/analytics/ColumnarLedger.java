@@ -0,0 +1,543 @@
+package com.banking.analytics;
+
+import com.banking.dao.LedgerRowHandler;
+import com.banking.dao.TransactionDAO;
+import com.banking.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory columnar replica of the transactions ledger
+ * Rows live in primitive column chunks so report scans run in parallel without touching MySQL
+ *
+ * A single writer appends (initial load and incremental refresh); any number of readers
+ * scan concurrently up to the last published row count. Rows below that count are never
+ * written again: deleting a row publishes a copy of its chunk with the row tombstoned, and
+ * readers work on the chunk array they picked up when they started.
+ *
+ * Ids are assigned at insert but become visible at commit, so an id skipped by a scan may still
+ * appear. Skipped ids are kept as gaps and looked up again on every refresh until their row shows
+ * up (it is appended then) or they expire as rolled-back inserts. Rows deleted from the ledger are
+ * found by comparing id-range counts every few refreshes and are kept as tombstones that the
+ * aggregations skip.
+ */
+public class ColumnarLedger implements LedgerRowHandler {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // A skipped id still without a row after this long belongs to a rolled-back insert
+    private static final long GAP_EXPIRY_MILLIS = 3_600_000L;
+    // Gap ids looked up per query
+    private static final int GAP_LOOKUP_BATCH = 1_000;
+    // Refreshes between checks for deleted rows
+    private static final int DELETE_CHECK_INTERVAL = 12;
+    // Type code of a deleted row; one past the real codes
+    private static final byte DELETED = TransactionType.MAX_CODE + 1;
+
+    private final TransactionDAO transactionDAO;
+    private final ForkJoinPool pool;
+
+    // Column chunks; the array grows by doubling and is replaced, never changed, once published
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    // Published row count; written after the row's columns so readers see complete rows
+    private volatile int size;
+    private int deletedRows;
+    private int maxAccountId;
+    private int lastTransactionId;
+    private int refreshes;
+    // Skipped ids below lastTransactionId, with the time they were first skipped
+    private final TreeMap<Integer, Long> gaps = new TreeMap<>();
+    private ScheduledExecutorService refresher;
+
+    public ColumnarLedger() {
+        this(new TransactionDAO(), ForkJoinPool.commonPool());
+    }
+
+    public ColumnarLedger(TransactionDAO transactionDAO, ForkJoinPool pool) {
+        this.transactionDAO = transactionDAO;
+        this.pool = pool;
+    }
+
+    // ==================== LOADING ====================
+
+    /**
+     * Pull the rows of earlier gaps that have committed since, then every ledger row newer than
+     * the last one seen, and every few calls drop rows that were deleted from the ledger
+     * The first call performs the full load; later calls only fetch the delta
+     *
+     * @return number of rows appended
+     */
+    public synchronized int refresh() {
+        int before = size;
+        fillGaps();
+        transactionDAO.scanSince(lastTransactionId, this);
+        if (++refreshes % DELETE_CHECK_INTERVAL == 0) {
+            removeDeletedRows();
+        }
+        return size - before;
+    }
+
+    // Look up the gap ids again; rows that show up are appended and their gap closed by onRow
+    private void fillGaps() {
+        long expired = System.currentTimeMillis() - GAP_EXPIRY_MILLIS;
+        gaps.values().removeIf(firstSkipped -> firstSkipped < expired);
+        List<Integer> pending = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < pending.size(); from += GAP_LOOKUP_BATCH) {
+            if (transactionDAO.scanIds(pending.subList(from, Math.min(from + GAP_LOOKUP_BATCH, pending.size())), this) < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tombstone replica rows whose ledger row is gone
+     * One count covers the whole replica; only when it is short are chunks counted, and only a
+     * chunk that is short has its ids read back.
+     *
+     * @return number of rows removed
+     */
+    public synchronized int removeDeletedRows() {
+        int rows = size;
+        if (rows == 0) {
+            return 0;
+        }
+        long stored = transactionDAO.countRange(0, lastTransactionId);
+        if (stored < 0 || stored >= rows - deletedRows) {
+            return 0;
+        }
+
+        int removed = 0;
+        for (int c = 0; c < chunkCount(rows); c++) {
+            int end = Math.min(CHUNK_SIZE, rows - (c << CHUNK_BITS));
+            Chunk chunk = chunks[c];
+            // Late rows from gaps are appended out of id order, so the id range is scanned for
+            int firstId = Integer.MAX_VALUE;
+            int lastId = Integer.MIN_VALUE;
+            int live = 0;
+            for (int i = 0; i < end; i++) {
+                if (chunk.types[i] != DELETED) {
+                    firstId = Math.min(firstId, chunk.ids[i]);
+                    lastId = Math.max(lastId, chunk.ids[i]);
+                    live++;
+                }
+            }
+            if (live == 0) {
+                continue;
+            }
+            long count = transactionDAO.countRange(firstId, lastId);
+            if (count < 0) {
+                break;
+            }
+            if (count >= live) {
+                continue;
+            }
+
+            int base = firstId;
+            BitSet present = new BitSet();
+            transactionDAO.scanSince(firstId - 1, lastId,
+                    (id, fromAccount, toAccount, amountCents, typeCode, timestampMillis) -> present.set(id - base));
+            Chunk copy = null;
+            for (int i = 0; i < end; i++) {
+                if (chunk.types[i] != DELETED && !present.get(chunk.ids[i] - base)) {
+                    if (copy == null) {
+                        copy = chunk.withTombstones();
+                    }
+                    copy.amounts[i] = 0;
+                    copy.types[i] = DELETED;
+                    removed++;
+                }
+            }
+            if (copy != null) {
+                Chunk[] next = chunks.clone();
+                next[c] = copy;
+                chunks = next;
+            }
+        }
+        deletedRows += removed;
+        return removed;
+    }
+
+    /**
+     * Keep the replica current by refreshing on a background daemon thread
+     */
+    public synchronized void startAutoRefresh(long periodMillis) {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-replica-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopAutoRefresh() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    /**
+     * Append one row (called by the streaming scan)
+     */
+    @Override
+    public synchronized void onRow(int id, int fromAccount, int toAccount, long amountCents, byte typeCode, long timestampMillis) {
+        if (id <= lastTransactionId && gaps.remove(id) == null) {
+            return; // already held
+        }
+        if (id > lastTransactionId) {
+            long now = System.currentTimeMillis();
+            for (int skipped = lastTransactionId + 1; skipped < id; skipped++) {
+                gaps.put(skipped, now);
+            }
+            lastTransactionId = id;
+        }
+
+        int row = size;
+        int c = row >>> CHUNK_BITS;
+        if (c == chunks.length) {
+            growChunks(c + 1);
+        }
+        Chunk chunk = chunks[c];
+        int offset = row & CHUNK_MASK;
+        chunk.ids[offset] = id;
+        chunk.fromAccounts[offset] = fromAccount;
+        chunk.toAccounts[offset] = toAccount;
+        chunk.amounts[offset] = amountCents;
+        chunk.types[offset] = typeCode;
+        chunk.timestamps[offset] = timestampMillis;
+
+        maxAccountId = Math.max(maxAccountId, Math.max(fromAccount, toAccount));
+        size = row + 1;
+    }
+
+    private void growChunks(int required) {
+        int capacity = Math.max(required, chunks.length * 2);
+        Chunk[] next = Arrays.copyOf(chunks, capacity);
+        for (int i = chunks.length; i < capacity; i++) {
+            next[i] = new Chunk();
+        }
+        chunks = next;
+    }
+
+    // ==================== AGGREGATIONS ====================
+
+    /**
+     * Count and total amount per transaction type
+     */
+    public TypeTotals totalsByType() {
+        int rows = size; // read before the chunks, so they hold every counted row
+        long[] result = pool.invoke(new TypeTotalsTask(rows, chunks, 0, chunkCount(rows)));
+        return new TypeTotals(result);
+    }
+
+    /**
+     * Count and total amount per day for the days from..to (inclusive), days computed with the
+     * given UTC offset
+     */
+    public DailyTotals totalsByDay(LocalDate from, LocalDate to, int utcOffsetSeconds) {
+        long firstDay = from.toEpochDay();
+        int days = (int) Math.max(0, to.toEpochDay() - firstDay + 1);
+        int rows = size;
+        if (rows == 0 || days == 0) {
+            return new DailyTotals(firstDay, new long[days], new long[days]);
+        }
+        long offsetMillis = utcOffsetSeconds * 1000L;
+        long[] result = pool.invoke(new DailyTask(rows, chunks, 0, chunkCount(rows), firstDay, days, offsetMillis));
+        return new DailyTotals(firstDay, Arrays.copyOfRange(result, 0, days), Arrays.copyOfRange(result, days, days * 2));
+    }
+
+    /**
+     * Net ledger movement per account, indexed by account id
+     * Deposits and received transfers count positive, withdrawals and sent transfers negative
+     */
+    public long[] netByAccount() {
+        int rows = size;
+        return pool.invoke(new NetByAccountTask(rows, chunks, 0, chunkCount(rows), maxAccountId + 1));
+    }
+
+    // Rows held, including deleted ones not yet compacted away
+    public int size() {
+        return size;
+    }
+
+    public synchronized int getDeletedRows() {
+        return deletedRows;
+    }
+
+    public synchronized int getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    // Skipped ids still waiting for their row
+    public synchronized int getPendingGaps() {
+        return gaps.size();
+    }
+
+    private static int chunkCount(int rows) {
+        return (rows + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+    }
+
+    // ==================== PARALLEL SCAN TASKS ====================
+
+    /**
+     * Splits chunk ranges until a leaf holds roughly four tasks' worth per worker
+     * Each leaf fills one primitive accumulator that parents merge element-wise
+     */
+    private abstract class ScanTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        final int rows;
+        final Chunk[] chunks;
+        final int fromChunk;
+        final int toChunk;
+
+        ScanTask(int rows, Chunk[] chunks, int fromChunk, int toChunk) {
+            this.rows = rows;
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected long[] compute() {
+            int leafChunks = Math.max(1, chunkCount(rows) / (pool.getParallelism() * 4));
+            if (toChunk - fromChunk <= leafChunks) {
+                long[] acc = newAccumulator();
+                for (int c = fromChunk; c < toChunk; c++) {
+                    int end = Math.min(CHUNK_SIZE, rows - (c << CHUNK_BITS));
+                    scan(chunks[c], end, acc);
+                }
+                return acc;
+            }
+            int mid = (fromChunk + toChunk) >>> 1;
+            ScanTask left = split(fromChunk, mid);
+            ScanTask right = split(mid, toChunk);
+            left.fork();
+            long[] rightResult = right.compute();
+            return merge(left.join(), rightResult);
+        }
+
+        long[] merge(long[] a, long[] b) {
+            for (int i = 0; i < a.length; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        }
+
+        abstract long[] newAccumulator();
+
+        abstract void scan(Chunk chunk, int end, long[] acc);
+
+        abstract ScanTask split(int from, int to);
+    }
+
+    // Layout: [count per code..., cents per code...], deleted rows under their own code
+    private class TypeTotalsTask extends ScanTask {
+        private static final long serialVersionUID = 1L;
+
+        TypeTotalsTask(int rows, Chunk[] chunks, int from, int to) {
+            super(rows, chunks, from, to);
+        }
+
+        @Override
+        long[] newAccumulator() {
+            return new long[(DELETED + 1) * 2];
+        }
+
+        @Override
+        void scan(Chunk chunk, int end, long[] acc) {
+            byte[] t = chunk.types;
+            long[] a = chunk.amounts;
+            int base = DELETED + 1;
+            for (int i = 0; i < end; i++) {
+                int code = t[i];
+                acc[code]++;
+                acc[base + code] += a[i];
+            }
+        }
+
+        @Override
+        ScanTask split(int from, int to) {
+            return new TypeTotalsTask(rows, chunks, from, to);
+        }
+    }
+
+    // Layout: [count per day..., cents per day...]
+    private class DailyTask extends ScanTask {
+        private static final long serialVersionUID = 1L;
+
+        final long firstDay;
+        final int days;
+        final long offsetMillis;
+
+        DailyTask(int rows, Chunk[] chunks, int from, int to, long firstDay, int days, long offsetMillis) {
+            super(rows, chunks, from, to);
+            this.firstDay = firstDay;
+            this.days = days;
+            this.offsetMillis = offsetMillis;
+        }
+
+        @Override
+        long[] newAccumulator() {
+            return new long[days * 2];
+        }
+
+        @Override
+        void scan(Chunk chunk, int end, long[] acc) {
+            long[] ts = chunk.timestamps;
+            long[] a = chunk.amounts;
+            byte[] t = chunk.types;
+            for (int i = 0; i < end; i++) {
+                if (t[i] == DELETED) {
+                    continue;
+                }
+                long day = Math.floorDiv(ts[i] + offsetMillis, MILLIS_PER_DAY) - firstDay;
+                if (day < 0 || day >= days) {
+                    continue;
+                }
+                acc[(int) day]++;
+                acc[days + (int) day] += a[i];
+            }
+        }
+
+        @Override
+        ScanTask split(int from, int to) {
+            return new DailyTask(rows, chunks, from, to, firstDay, days, offsetMillis);
+        }
+    }
+
+    private class NetByAccountTask extends ScanTask {
+        private static final long serialVersionUID = 1L;
+
+        final int accounts;
+
+        NetByAccountTask(int rows, Chunk[] chunks, int from, int to, int accounts) {
+            super(rows, chunks, from, to);
+            this.accounts = accounts;
+        }
+
+        @Override
+        long[] newAccumulator() {
+            return new long[accounts];
+        }
+
+        @Override
+        void scan(Chunk chunk, int end, long[] acc) {
+            int[] from = chunk.fromAccounts;
+            int[] to = chunk.toAccounts;
+            long[] a = chunk.amounts;
+            for (int i = 0; i < end; i++) {
+                // Account 0 means "no account" and simply collects the unused side; deleted rows
+                // have no amount
+                acc[from[i]] -= a[i];
+                acc[to[i]] += a[i];
+            }
+        }
+
+        @Override
+        ScanTask split(int from, int to) {
+            return new NetByAccountTask(rows, chunks, from, to, accounts);
+        }
+    }
+
+    // ==================== STORAGE ====================
+
+    /**
+     * One chunk of rows, a primitive array per column
+     * Rows are only appended past the published size; a tombstoned copy shares the columns that
+     * deletion does not touch.
+     */
+    private static final class Chunk {
+        final int[] ids;
+        final int[] fromAccounts;
+        final int[] toAccounts;
+        final long[] amounts;
+        final long[] timestamps;
+        final byte[] types;
+
+        Chunk() {
+            this(new int[CHUNK_SIZE], new int[CHUNK_SIZE], new int[CHUNK_SIZE],
+                 new long[CHUNK_SIZE], new long[CHUNK_SIZE], new byte[CHUNK_SIZE]);
+        }
+
+        private Chunk(int[] ids, int[] fromAccounts, int[] toAccounts, long[] amounts, long[] timestamps, byte[] types) {
+            this.ids = ids;
+            this.fromAccounts = fromAccounts;
+            this.toAccounts = toAccounts;
+            this.amounts = amounts;
+            this.timestamps = timestamps;
+            this.types = types;
+        }
+
+        // Copy with its own amount and type columns, to be tombstoned before it is published
+        Chunk withTombstones() {
+            return new Chunk(ids, fromAccounts, toAccounts, amounts.clone(), timestamps, types.clone());
+        }
+    }
+
+    // ==================== RESULT TYPES ====================
+
+    /**
+     * Per-type totals
+     */
+    public static class TypeTotals {
+        private final long[] values;
+
+        TypeTotals(long[] values) {
+            this.values = values;
+        }
+
+        public long getCount(TransactionType type) {
+            return values[type.code()];
+        }
+
+        public long getTotalCents(TransactionType type) {
+            return values[DELETED + 1 + type.code()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("TypeTotals{");
+            for (TransactionType type : TransactionType.values()) {
+                sb.append(type).append('=').append(getCount(type)).append('/').append(getTotalCents(type)).append(' ');
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    /**
+     * Per-day totals over the requested days, starting at firstEpochDay
+     */
+    public static class DailyTotals {
+        private final long firstEpochDay;
+        private final long[] counts;
+        private final long[] cents;
+
+        DailyTotals(long firstEpochDay, long[] counts, long[] cents) {
+            this.firstEpochDay = firstEpochDay;
+            this.counts = counts;
+            this.cents = cents;
+        }
+
+        public long getFirstEpochDay() { return firstEpochDay; }
+        public int getDayCount() { return counts.length; }
+        public long getCount(int dayIndex) { return counts[dayIndex]; }
+        public long getTotalCents(int dayIndex) { return cents[dayIndex]; }
+    }
+}
@@ -0,0 +1,50 @@
+package com.banking.cache;
+
+/**
+ * Kinds of cached entity that a write can change
+ * The code is what the entity_changes table stores.
+ */
+public enum CachedEntity {
+    ACCOUNT(1),
+    CUSTOMER(2),
+    CUSTOMER_ACCOUNTS(3),  // membership of a customer's account list
+    ACCOUNT_POSTING(4);    // a ledger posting: the account changed and was active that day
+
+    private final int code;
+
+    CachedEntity(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static CachedEntity fromCode(int code) {
+        for (CachedEntity entity : values()) {
+            if (entity.code == code) {
+                return entity;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Drop every cached entry derived from this entity
+     */
+    public void evict(int id) {
+        switch (this) {
+            case ACCOUNT:
+            case ACCOUNT_POSTING:
+                EntityCaches.ACCOUNTS.invalidate(id);
+                break;
+            case CUSTOMER:
+                EntityCaches.CUSTOMERS.invalidate(id);
+                EntityCaches.CUSTOMER_ACCOUNT_IDS.invalidate(id);
+                break;
+            case CUSTOMER_ACCOUNTS:
+                EntityCaches.CUSTOMER_ACCOUNT_IDS.invalidate(id);
+                break;
+        }
+    }
+}
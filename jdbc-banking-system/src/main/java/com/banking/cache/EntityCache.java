@@ -0,0 +1,386 @@
+package com.banking.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache with W-TinyLFU admission and eviction
+ *
+ * New entries land in a small LRU window (1% of capacity). Entries pushed out of the window compete
+ * with the LRU victim of the main region's probation segment, and only the one the frequency sketch
+ * has seen more often stays, so a burst of one-off reads cannot flush popular entries. A hit in
+ * probation promotes the entry to the protected segment (80% of the main region).
+ *
+ * Lookups never take the lock: the entry is read from a concurrent map and the access is appended
+ * to a small per-thread-stripe buffer, which whoever next gets the lock replays into the sketch and
+ * queues. A full buffer drops accesses, which only blurs the frequency estimate. Writes, evictions
+ * and invalidations take the lock.
+ *
+ * Entries expire a fixed time after they were written, bounding how stale a value written by
+ * another process can get when no change log evicts it.
+ *
+ * Read-through loads run outside the lock; a load that raced with an invalidation of the same key
+ * is returned to the caller but not cached, so a local write is never followed by a stale read.
+ */
+public class EntityCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    // Invalidation counters per key stripe, checked around read-through loads
+    private static final int STRIPES = 1024;
+
+    // Access buffers: one per thread stripe, replayed under the lock once one fills up
+    private static final int READ_BUFFERS = 16;
+    private static final int READ_BUFFER_SIZE = 64;
+
+    private final String name;
+    private final int maximumSize;
+    private final int maxWindow;
+    private final int maxProtected;
+    private final long expireAfterWriteNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Read without the lock, changed only under it
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final Node<K, V>[] queues = newQueues();
+    private final int[] queueSizes = new int[3];
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<>(READ_BUFFERS * READ_BUFFER_SIZE);
+    private final AtomicInteger[] readBufferCounts = new AtomicInteger[READ_BUFFERS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param expireAfterWriteMillis lifetime of an entry after it is written; 0 keeps entries until
+     *                               they are evicted or invalidated
+     */
+    public EntityCache(String name, int maximumSize, long expireAfterWriteMillis) {
+        this.name = name;
+        this.maximumSize = Math.max(2, maximumSize);
+        this.maxWindow = Math.max(1, this.maximumSize / 100);
+        this.maxProtected = (int) ((this.maximumSize - maxWindow) * 0.8);
+        this.expireAfterWriteNanos = Math.max(0, expireAfterWriteMillis) * 1_000_000;
+        this.sketch = new FrequencySketch(this.maximumSize);
+        for (int i = 0; i < READ_BUFFERS; i++) {
+            readBufferCounts[i] = new AtomicInteger();
+        }
+        for (int i = 0; i < queues.length; i++) {
+            Node<K, V> sentinel = new Node<>(null, null, i);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            queues[i] = sentinel;
+        }
+    }
+
+    // ==================== LOOKUP ====================
+
+    /**
+     * Cached value, or null when absent
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        recordAccess(key);
+        if (node == null || isExpired(node)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /**
+     * Cached value, loading and caching it on a miss; a null from the loader is not cached
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stripe = stripe(key);
+        long before = invalidations.get(stripe);
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            lock.lock();
+            try {
+                if (invalidations.get(stripe) == before) {
+                    putLocked(key, loaded);
+                }
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return loaded;
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            putLocked(key, value);
+            drainReadBuffers();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Invalidation count to pass to putIfNotInvalidatedSince(), read before querying the database
+     * Used when the keys of a load are only known once it returns, such as rows of a list query
+     */
+    public long stamp() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Cache a loaded value unless anything was invalidated since the stamp was taken
+     */
+    public void putIfNotInvalidatedSince(K key, V value, long stamp) {
+        lock.lock();
+        try {
+            if (invalidationCount.get() == stamp) {
+                putLocked(key, value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== INVALIDATION ====================
+
+    public void invalidate(K key) {
+        invalidations.incrementAndGet(stripe(key));
+        invalidationCount.incrementAndGet();
+        lock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            invalidations.incrementAndGet(i);
+        }
+        invalidationCount.incrementAndGet();
+        lock.lock();
+        try {
+            data.clear();
+            drainReadBuffers();
+            for (int i = 0; i < queues.length; i++) {
+                queues[i].prev = queues[i];
+                queues[i].next = queues[i];
+                queueSizes[i] = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== STATISTICS ====================
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidationCount.get();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d entries, hit rate %.1f%% (%d hits, %d misses), %d evictions, %d invalidations",
+                           name, size(), maximumSize, getHitRate() * 100, getHits(), getMisses(),
+                           getEvictions(), getInvalidations());
+    }
+
+    // ==================== POLICY ====================
+
+    private boolean isExpired(Node<K, V> node) {
+        return expireAfterWriteNanos > 0 && System.nanoTime() - node.writtenAt >= expireAfterWriteNanos;
+    }
+
+    // Buffer the access for the policy; replay the buffers if this one is full and the lock is free
+    private void recordAccess(K key) {
+        int buffer = (int) Thread.currentThread().getId() & (READ_BUFFERS - 1);
+        int index = readBufferCounts[buffer].getAndIncrement();
+        if (index < READ_BUFFER_SIZE) {
+            readBuffer.lazySet(buffer * READ_BUFFER_SIZE + index, key);
+        }
+        if (index >= READ_BUFFER_SIZE - 1 && lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffers() {
+        for (int buffer = 0; buffer < READ_BUFFERS; buffer++) {
+            int count = Math.min(readBufferCounts[buffer].getAndSet(0), READ_BUFFER_SIZE);
+            for (int i = 0; i < count; i++) {
+                K key = (K) readBuffer.getAndSet(buffer * READ_BUFFER_SIZE + i, null);
+                if (key == null) {
+                    continue;
+                }
+                sketch.increment(key);
+                Node<K, V> node = data.get(key);
+                if (node != null && node.prev != null) {
+                    onHit(node);
+                }
+            }
+        }
+    }
+
+    private void putLocked(K key, V value) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.value = value;
+            node.writtenAt = System.nanoTime();
+            onHit(node);
+            return;
+        }
+
+        node = new Node<>(key, value, WINDOW);
+        data.put(key, node);
+        linkLast(node);
+
+        // Overflow from the window becomes a candidate at the tail of probation
+        while (queueSizes[WINDOW] > maxWindow) {
+            Node<K, V> candidate = queues[WINDOW].next;
+            unlink(candidate);
+            candidate.queue = PROBATION;
+            linkLast(candidate);
+        }
+        evictFromMain();
+    }
+
+    /**
+     * Bring the cache back under its maximum by letting each newest probation entry duel the oldest
+     */
+    private void evictFromMain() {
+        while (data.size() > maximumSize) {
+            Node<K, V> victim = queues[PROBATION].next;
+            Node<K, V> candidate = queues[PROBATION].prev;
+
+            Node<K, V> evict;
+            if (victim == queues[PROBATION]) {
+                // Probation is empty; fall back to the oldest protected, then window, entry
+                evict = queueSizes[PROTECTED] > 0 ? queues[PROTECTED].next : queues[WINDOW].next;
+            } else if (victim == candidate) {
+                evict = victim;
+            } else {
+                evict = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+            }
+
+            unlink(evict);
+            data.remove(evict.key);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void onHit(Node<K, V> node) {
+        unlink(node);
+        if (node.queue == PROBATION) {
+            node.queue = PROTECTED;
+            linkLast(node);
+            // Keep the protected segment within bounds by demoting its oldest entry
+            while (queueSizes[PROTECTED] > maxProtected) {
+                Node<K, V> demoted = queues[PROTECTED].next;
+                unlink(demoted);
+                demoted.queue = PROBATION;
+                linkLast(demoted);
+            }
+        } else {
+            linkLast(node);
+        }
+    }
+
+    private void linkLast(Node<K, V> node) {
+        Node<K, V> sentinel = queues[node.queue];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+        queueSizes[node.queue]++;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        queueSizes[node.queue]--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newQueues() {
+        return (Node<K, V>[]) new Node<?, ?>[3];
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        // Read by lookups without the lock
+        volatile V value;
+        volatile long writtenAt;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int queue) {
+            this.key = key;
+            this.value = value;
+            this.queue = queue;
+            this.writtenAt = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.banking.cache;
+
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.util.DatabaseConnection;
+
+import java.util.List;
+
+/**
+ * Process-wide entity caches shared by every DAO instance
+ * Each DAO that writes a cached table evicts the affected keys after the write succeeds.
+ *
+ * Writes made by other processes are only seen once the change log evicts them or the entry
+ * expires, so the caches are off unless CHANGE_LOG_ENABLED is set.
+ *
+ * Sized with ENTITY_CACHE_SIZE in config.properties (entries per cache; default 100000 with the
+ * change log, otherwise 0, which disables them). Entries expire ENTITY_CACHE_TTL_SECONDS after
+ * they were written (default 60; 0 never expires).
+ */
+public final class EntityCaches {
+
+    // Read here rather than from ChangeLogDAO.ENABLED, so the cache package does not load the DAOs
+    private static final boolean CHANGE_LOG = Boolean.parseBoolean(
+            DatabaseConnection.getInstance().getProperty("CHANGE_LOG_ENABLED", "false"));
+
+    private static final int SIZE = Integer.parseInt(
+            DatabaseConnection.getInstance().getProperty("ENTITY_CACHE_SIZE", CHANGE_LOG ? "100000" : "0"));
+
+    private static final long TTL_MILLIS = 1000 * Long.parseLong(
+            DatabaseConnection.getInstance().getProperty("ENTITY_CACHE_TTL_SECONDS", "60"));
+
+    public static final boolean ENABLED = SIZE > 0;
+
+    // Accounts by account id
+    public static final EntityCache<Integer, Account> ACCOUNTS = new EntityCache<>("accounts", SIZE, TTL_MILLIS);
+    // Account ids of a customer, in created_at order; the accounts themselves come from ACCOUNTS
+    public static final EntityCache<Integer, List<Integer>> CUSTOMER_ACCOUNT_IDS = new EntityCache<>("customer-accounts", SIZE, TTL_MILLIS);
+    // Customers by customer id
+    public static final EntityCache<Integer, Customer> CUSTOMERS = new EntityCache<>("customers", SIZE, TTL_MILLIS);
+
+    private EntityCaches() {
+    }
+
+    public static List<EntityCache<?, ?>> all() {
+        return List.of(ACCOUNTS, CUSTOMER_ACCOUNT_IDS, CUSTOMERS);
+    }
+}
@@ -0,0 +1,80 @@
+package com.banking.cache;
+
+/**
+ * Approximate access frequency of keys: a count-min sketch of four rows of 4-bit counters
+ * Counters saturate at 15 and are all halved once the sample size is reached, so old
+ * popularity fades and the sketch tracks recent frequency.
+ *
+ * Not thread-safe; EntityCache calls it under its lock.
+ */
+final class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    // Sixteen 4-bit counters per long
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int counters = Integer.highestOneBit(Math.max(64, maximumSize) - 1) << 1;
+        this.table = new long[Math.max(1, counters / 16) * ROWS];
+        this.tableMask = table.length / ROWS - 1;
+        this.sampleSize = 10 * Math.max(64, maximumSize);
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int min = 15;
+        for (int row = 0; row < ROWS; row++) {
+            int counter = counterIndex(hash, row);
+            min = Math.min(min, (int) ((table[slot(counter, row)] >>> ((counter & 15) << 2)) & 0xF));
+        }
+        return min;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < ROWS; row++) {
+            int counter = counterIndex(hash, row);
+            int slot = slot(counter, row);
+            int shift = (counter & 15) << 2;
+            if (((table[slot] >>> shift) & 0xF) < 15) {
+                table[slot] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    // Halve every counter: shift each nibble right and clear the bit that crossed a nibble boundary
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        }
+        additions /= 2;
+    }
+
+    private int counterIndex(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & (tableMask * 16 + 15);
+    }
+
+    private int slot(int counter, int row) {
+        return row * (tableMask + 1) + (counter >>> 4);
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -1,22 +1,48 @@
 package com.banking.dao;
 
+import com.banking.cache.CachedEntity;
+import com.banking.cache.EntityCaches;
+import com.banking.index.BalanceIndex;
+import com.banking.metrics.Metrics;
 import com.banking.model.Account;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
 import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
 
-import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Data Access Object for Account entity
  * Demonstrates DAO pattern, prepared statements, and proper resource management
  */
 public class AccountDAO {
+
+    private static final Log LOG = Log.get(AccountDAO.class);
     
+    // Shared by every DAO instance, like the entity caches, since any of them can change a balance
+    static final BalanceIndex BALANCE_INDEX = new BalanceIndex();
+
+    static {
+        BALANCE_INDEX.setListener(SegmentDAO.SEGMENT_INDEX);
+    }
+
+    // Ids per IN (...) list when hydrating
+    private static final int MULTI_GET_CHUNK = 500;
+
+    // Re-read passes over accounts written during the startup scan before giving up on quiescence
+    private static final int BALANCE_INDEX_REREAD_ROUNDS = 5;
+
     private final DatabaseConnection dbConnection;
+    private final TransactionDAO transactionDAO = new TransactionDAO();
 
     public AccountDAO() {
         this.dbConnection = DatabaseConnection.getInstance();
@@ -24,45 +50,64 @@ public class AccountDAO {
 
     /**
      * Create a new account in the database
+     * The opening balance is logged as an OPENING ledger row in the same transaction, so the ledger
+     * fully explains the balance from the start without counting it as a deposit.
      */
     public boolean createAccount(Account account) {
         String sql = "INSERT INTO accounts (customer_id, account_type, balance, created_at) VALUES (?, ?, ?, ?)";
         
-        try (Connection connection = dbConnection.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setInt(1, account.getCustomerId());
-            pstmt.setString(2, account.getAccountType());
-            pstmt.setBigDecimal(3, account.getBalance());
-            pstmt.setTimestamp(4, Timestamp.valueOf(account.getCreatedAt()));
-            
-            int affectedRows = pstmt.executeUpdate();
-            
-            if (affectedRows > 0) {
+        Transaction opening = inTransaction("Error creating account", connection -> {
+            try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, account.getCustomerId());
+                pstmt.setString(2, account.getAccountType());
+                pstmt.setBigDecimal(3, account.getBalance().toBigDecimal());
+                pstmt.setTimestamp(4, Timestamp.valueOf(account.getCreatedAt()));
+                pstmt.executeUpdate();
+                
                 // Get the generated ID
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        account.setId(generatedKeys.getInt(1));
-                        System.out.println("✅ Account created successfully with ID: " + account.getId());
-                        return true;
+                    if (!generatedKeys.next()) {
+                        return null;
                     }
+                    account.setId(generatedKeys.getInt(1));
+                }
+            } catch (SQLException e) {
+                if (e.getErrorCode() == 1452) { // Foreign key constraint error
+                    LOG.error("Customer ID does not exist!");
                 }
+                throw e;
             }
             
-        } catch (SQLException e) {
-            System.err.println("❌ Error creating account: " + e.getMessage());
-            if (e.getErrorCode() == 1452) { // Foreign key constraint error
-                System.err.println("❌ Customer ID does not exist!");
-            }
-        }
+            ChangeLogDAO.record(connection, CachedEntity.CUSTOMER_ACCOUNTS, account.getCustomerId());
+            Transaction row = new Transaction(account.getId(), account.getBalance(), Transaction.OPENING);
+            row.setTimestamp(account.getCreatedAt());
+            transactionDAO.insert(connection, row);
+            return row;
+        });
         
-        return false;
+        if (opening == null) {
+            return false;
+        }
+        EntityCaches.CUSTOMER_ACCOUNT_IDS.invalidate(account.getCustomerId());
+        StatisticsDAO.accountCreated(account.getAccountType());
+        BALANCE_INDEX.put(account.getId(), account.getCustomerId(), account.getAccountType(),
+                          account.getBalanceCents(), account.getVersion());
+        transactionDAO.logged(opening);
+        LOG.info("Account created successfully", "accountId", account.getId());
+        return true;
     }
 
     /**
-     * Find account by ID
+     * Find account by ID (read through the shared account cache)
      */
     public Optional<Account> findById(int accountId) {
+        Account account = EntityCaches.ENABLED
+                ? EntityCaches.ACCOUNTS.get(accountId, this::selectById)
+                : selectById(accountId);
+        return Optional.ofNullable(account).map(AccountDAO::copyOf);
+    }
+
+    private Account selectById(int accountId) {
         String sql = "SELECT * FROM accounts WHERE id = ?";
         
         try (Connection connection = dbConnection.getConnection();
@@ -72,21 +117,82 @@ public class AccountDAO {
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToAccount(rs));
+                    return mapResultSetToAccount(rs);
                 }
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding account by ID: " + e.getMessage());
+            LOG.error("Error finding account by ID", "error", e.getMessage());
         }
         
-        return Optional.empty();
+        return null;
+    }
+
+    /**
+     * Get several accounts by id in chunked IN (...) queries, in the order given; missing ids are skipped
+     */
+    public List<Account> findByIds(List<Integer> accountIds) {
+        Map<Integer, Account> byId = new HashMap<>();
+
+        for (int start = 0; start < accountIds.size(); start += MULTI_GET_CHUNK) {
+            List<Integer> chunk = accountIds.subList(start, Math.min(start + MULTI_GET_CHUNK, accountIds.size()));
+            String sql = "SELECT * FROM accounts WHERE id IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (Connection connection = dbConnection.getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Account account = mapResultSetToAccount(rs);
+                        byId.put(account.getId(), account);
+                    }
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error finding accounts by ID", "error", e.getMessage());
+            }
+        }
+
+        List<Account> accounts = new ArrayList<>();
+        for (int accountId : accountIds) {
+            Account account = byId.get(accountId);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
     }
 
     /**
      * Get all accounts for a customer
+     * Served from the cached id list when every account is cached; otherwise one query refills both
      */
     public List<Account> findByCustomerId(int customerId) {
+        if (EntityCaches.ENABLED) {
+            List<Integer> accountIds = EntityCaches.CUSTOMER_ACCOUNT_IDS.getIfPresent(customerId);
+            if (accountIds != null) {
+                List<Account> cached = new ArrayList<>();
+                for (int accountId : accountIds) {
+                    Account account = EntityCaches.ACCOUNTS.getIfPresent(accountId);
+                    if (account == null) {
+                        cached = null;
+                        break;
+                    }
+                    cached.add(copyOf(account));
+                }
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+
+        long idsStamp = EntityCaches.CUSTOMER_ACCOUNT_IDS.stamp();
+        long accountsStamp = EntityCaches.ACCOUNTS.stamp();
         List<Account> accounts = new ArrayList<>();
         String sql = "SELECT * FROM accounts WHERE customer_id = ? ORDER BY created_at";
         
@@ -102,7 +208,17 @@ public class AccountDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding accounts by customer ID: " + e.getMessage());
+            LOG.error("Error finding accounts by customer ID", "error", e.getMessage());
+            return accounts;
+        }
+
+        if (EntityCaches.ENABLED) {
+            List<Integer> accountIds = new ArrayList<>();
+            for (Account account : accounts) {
+                accountIds.add(account.getId());
+                EntityCaches.ACCOUNTS.putIfNotInvalidatedSince(account.getId(), copyOf(account), accountsStamp);
+            }
+            EntityCaches.CUSTOMER_ACCOUNT_IDS.putIfNotInvalidatedSince(customerId, List.copyOf(accountIds), idsStamp);
         }
         
         return accounts;
@@ -124,7 +240,7 @@ public class AccountDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error retrieving all accounts: " + e.getMessage());
+            LOG.error("Error retrieving all accounts", "error", e.getMessage());
         }
         
         return accounts;
@@ -133,181 +249,252 @@ public class AccountDAO {
     /**
      * Update account balance
      */
-    public boolean updateBalance(int accountId, BigDecimal newBalance) {
-        String sql = "UPDATE accounts SET balance = ? WHERE id = ?";
+    public boolean updateBalance(int accountId, Money newBalance) {
+        String sql = "UPDATE accounts SET balance = ?, version = version + 1 WHERE id = ?";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
-            pstmt.setBigDecimal(1, newBalance);
+            pstmt.setBigDecimal(1, newBalance.toBigDecimal());
             pstmt.setInt(2, accountId);
             
-            int affectedRows = pstmt.executeUpdate();
+            int affectedRows = ChangeLogDAO.executeLogged(connection, pstmt, CachedEntity.ACCOUNT, accountId);
             
             if (affectedRows > 0) {
-                System.out.println("✅ Account balance updated successfully!");
+                EntityCaches.ACCOUNTS.invalidate(accountId);
+                refreshBalanceEntry(accountId); // re-read for the committed version
+                LOG.info("Account balance updated successfully!");
                 return true;
             } else {
-                System.out.println("❌ Account not found for balance update!");
+                LOG.warn("Account not found for balance update!", "accountId", accountId);
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error updating account balance: " + e.getMessage());
+            LOG.error("Error updating account balance", "error", e.getMessage());
         }
         
         return false;
     }
 
     /**
-     * Deposit money to account
+     * Deposit money to account, logging the deposit in the same transaction
+     *
+     * @return the account with its new balance, or empty when it does not exist or the deposit failed
      */
-    public boolean deposit(int accountId, BigDecimal amount) {
-        String sql = "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+    public Optional<Account> deposit(int accountId, Money amount) {
+        Transaction deposit = new Transaction(accountId, amount, Transaction.DEPOSIT);
         
-        try (Connection connection = dbConnection.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setBigDecimal(1, amount);
-            pstmt.setInt(2, accountId);
-            
-            int affectedRows = pstmt.executeUpdate();
-            
-            if (affectedRows > 0) {
-                System.out.println("✅ Deposit successful! Amount: $" + amount);
-                return true;
-            } else {
-                System.out.println("❌ Account not found for deposit!");
+        Account account = inTransaction("Error processing deposit", connection -> {
+            Account locked = lockAccounts(connection, accountId).get(accountId);
+            if (locked == null) {
+                LOG.warn("Account not found for deposit!", "accountId", accountId);
+                return null;
             }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error processing deposit: " + e.getMessage());
-        }
+            addToBalance(connection, accountId, amount);
+            ChangeLogDAO.record(connection, CachedEntity.ACCOUNT_POSTING, accountId);
+            transactionDAO.insert(connection, deposit);
+            locked.setBalance(locked.getBalance().plus(amount));
+            locked.setVersion(locked.getVersion() + 1);
+            return locked;
+        });
         
-        return false;
+        if (account == null) {
+            return Optional.empty();
+        }
+        EntityCaches.ACCOUNTS.invalidate(accountId);
+        BALANCE_INDEX.setBalance(accountId, account.getBalanceCents(), account.getVersion());
+        transactionDAO.logged(deposit);
+        LOG.info("Deposit successful!", "accountId", accountId, "amount", amount);
+        return Optional.of(account);
     }
 
     /**
-     * Withdraw money from account
+     * Withdraw money from account, logging the withdrawal in the same transaction
+     *
+     * @return the account with its new balance, or empty when it does not exist, its balance is
+     *         short or the withdrawal failed
      */
-    public boolean withdraw(int accountId, BigDecimal amount) {
-        // First check if account has sufficient balance
-        Optional<Account> accountOpt = findById(accountId);
-        if (accountOpt.isEmpty()) {
-            System.out.println("❌ Account not found!");
-            return false;
-        }
+    public Optional<Account> withdraw(int accountId, Money amount) {
+        Transaction withdrawal = new Transaction(accountId, amount, Transaction.WITHDRAW);
         
-        Account account = accountOpt.get();
-        if (!account.hasSufficientBalance(amount)) {
-            System.out.println("❌ Insufficient balance! Current balance: $" + account.getBalance());
-            return false;
-        }
-        
-        String sql = "UPDATE accounts SET balance = balance - ? WHERE id = ?";
-        
-        try (Connection connection = dbConnection.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setBigDecimal(1, amount);
-            pstmt.setInt(2, accountId);
-            
-            int affectedRows = pstmt.executeUpdate();
-            
-            if (affectedRows > 0) {
-                System.out.println("✅ Withdrawal successful! Amount: $" + amount);
-                return true;
+        // The balance is checked on the locked row, so two concurrent withdrawals cannot both pass
+        // it against the same starting balance
+        Account account = inTransaction("Error processing withdrawal", connection -> {
+            Account locked = lockAccounts(connection, accountId).get(accountId);
+            if (locked == null) {
+                LOG.warn("Account not found!", "accountId", accountId);
+                return null;
             }
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error processing withdrawal: " + e.getMessage());
-        }
+            if (!locked.hasSufficientBalance(amount)) {
+                LOG.warn("Insufficient balance!", "accountId", accountId, "balance", locked.getBalance());
+                return null;
+            }
+            addToBalance(connection, accountId, amount.negate());
+            ChangeLogDAO.record(connection, CachedEntity.ACCOUNT_POSTING, accountId);
+            transactionDAO.insert(connection, withdrawal);
+            locked.setBalance(locked.getBalance().minus(amount));
+            locked.setVersion(locked.getVersion() + 1);
+            return locked;
+        });
         
-        return false;
+        if (account == null) {
+            return Optional.empty();
+        }
+        EntityCaches.ACCOUNTS.invalidate(accountId);
+        BALANCE_INDEX.setBalance(accountId, account.getBalanceCents(), account.getVersion());
+        transactionDAO.logged(withdrawal);
+        LOG.info("Withdrawal successful!", "accountId", accountId, "amount", amount);
+        return Optional.of(account);
     }
 
     /**
-     * Transfer money between accounts
+     * Transfer money between accounts, logging the transfer in the same transaction
+     *
+     * @return both accounts with their new balances, source first, or an empty list when either
+     *         does not exist, the source balance is short or the transfer failed
      */
-    public boolean transfer(int fromAccountId, int toAccountId, BigDecimal amount) {
-        Connection connection = null;
-        try {
-            connection = dbConnection.getConnection();
-            connection.setAutoCommit(false); // Start transaction
-            
-            // Check if both accounts exist and have sufficient balance
-            Optional<Account> fromAccountOpt = findById(fromAccountId);
-            Optional<Account> toAccountOpt = findById(toAccountId);
-            
-            if (fromAccountOpt.isEmpty() || toAccountOpt.isEmpty()) {
-                System.out.println("❌ One or both accounts not found!");
-                return false;
+    public List<Account> transfer(int fromAccountId, int toAccountId, Money amount) {
+        Transaction transfer = new Transaction(fromAccountId, toAccountId, amount);
+        
+        List<Account> accounts = inTransaction("Error processing transfer", connection -> {
+            Map<Integer, Account> locked = lockAccounts(connection, fromAccountId, toAccountId);
+            Account from = locked.get(fromAccountId);
+            Account to = locked.get(toAccountId);
+            if (from == null || to == null) {
+                LOG.warn("Transfer rejected: account not found!", "fromAccountId", fromAccountId, "toAccountId", toAccountId);
+                return null;
             }
-            
-            Account fromAccount = fromAccountOpt.get();
-            if (!fromAccount.hasSufficientBalance(amount)) {
-                System.out.println("❌ Insufficient balance in source account!");
-                return false;
+            if (!from.hasSufficientBalance(amount)) {
+                LOG.warn("Transfer rejected: insufficient balance in source account!",
+                         "fromAccountId", fromAccountId, "balance", from.getBalance());
+                return null;
             }
-            
-            // Perform withdrawal from source account
-            String withdrawSql = "UPDATE accounts SET balance = balance - ? WHERE id = ?";
-            try (PreparedStatement withdrawStmt = connection.prepareStatement(withdrawSql)) {
-                withdrawStmt.setBigDecimal(1, amount);
-                withdrawStmt.setInt(2, fromAccountId);
-                
-                int withdrawRows = withdrawStmt.executeUpdate();
-                if (withdrawRows == 0) {
+            addToBalance(connection, fromAccountId, amount.negate());
+            addToBalance(connection, toAccountId, amount);
+            ChangeLogDAO.record(connection, CachedEntity.ACCOUNT_POSTING, fromAccountId);
+            ChangeLogDAO.record(connection, CachedEntity.ACCOUNT_POSTING, toAccountId);
+            transactionDAO.insert(connection, transfer);
+            from.setBalance(from.getBalance().minus(amount));
+            from.setVersion(from.getVersion() + 1);
+            to.setBalance(to.getBalance().plus(amount));
+            to.setVersion(to.getVersion() + 1);
+            return List.of(from, to);
+        });
+        
+        if (accounts == null) {
+            return List.of();
+        }
+        EntityCaches.ACCOUNTS.invalidate(fromAccountId);
+        EntityCaches.ACCOUNTS.invalidate(toAccountId);
+        for (Account account : accounts) {
+            BALANCE_INDEX.setBalance(account.getId(), account.getBalanceCents(), account.getVersion());
+        }
+        transactionDAO.logged(transfer);
+        LOG.info("Transfer successful!", "fromAccountId", fromAccountId, "toAccountId", toAccountId, "amount", amount);
+        return accounts;
+    }
+
+    // ==================== POSTING TRANSACTIONS ====================
+
+    /**
+     * Work done inside one database transaction
+     */
+    @FunctionalInterface
+    private interface TransactionWork<T> {
+        /**
+         * @return the result to commit, or null to roll back
+         */
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Run work in one transaction on its own connection
+     * Retried once when the transaction was picked as a deadlock victim or the ledger table was
+     * swapped to the compact layout under this node.
+     *
+     * @return the work's result, or null when it was rolled back or failed
+     */
+    private <T> T inTransaction(String errorMessage, TransactionWork<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            Connection connection = null;
+            try {
+                connection = dbConnection.getConnection();
+                connection.setAutoCommit(false); // Start transaction
+                T result = work.run(connection);
+                if (result != null) {
+                    connection.commit();
+                } else {
                     connection.rollback();
-                    System.out.println("❌ Failed to withdraw from source account!");
-                    return false;
                 }
-            }
-            
-            // Perform deposit to destination account
-            String depositSql = "UPDATE accounts SET balance = balance + ? WHERE id = ?";
-            try (PreparedStatement depositStmt = connection.prepareStatement(depositSql)) {
-                depositStmt.setBigDecimal(1, amount);
-                depositStmt.setInt(2, toAccountId);
+                return result;
                 
-                int depositRows = depositStmt.executeUpdate();
-                if (depositRows == 0) {
-                    connection.rollback();
-                    System.out.println("❌ Failed to deposit to destination account!");
-                    return false;
+            } catch (SQLException e) {
+                try {
+                    if (connection != null) {
+                        connection.rollback(); // Rollback on error
+                    }
+                } catch (SQLException rollbackEx) {
+                    e.addSuppressed(rollbackEx);
                 }
-            }
-            
-            connection.commit(); // Commit transaction
-            System.out.println("✅ Transfer successful! Amount: $" + amount);
-            return true;
-            
-        } catch (SQLException e) {
-            try {
-                if (connection != null) {
-                    connection.rollback(); // Rollback on error
+                boolean deadlock = e.getErrorCode() == 1213;
+                boolean retry = attempt == 1 && (deadlock || LedgerFormat.recheckAfter(e));
+                if (!retry) {
+                    LOG.error(errorMessage, "error", e.getMessage());
+                    return null;
+                }
+                Metrics.recordRetry(deadlock ? Metrics.DEADLOCK : Metrics.LEDGER_SWAP);
+            } finally {
+                try {
+                    if (connection != null) {
+                        connection.setAutoCommit(true); // Reset auto-commit
+                        connection.close();
+                    }
+                } catch (SQLException e) {
+                    LOG.error("Error closing connection", "error", e.getMessage());
                 }
-            } catch (SQLException rollbackEx) {
-                System.err.println("❌ Error rolling back transaction: " + rollbackEx.getMessage());
             }
-            System.err.println("❌ Error processing transfer: " + e.getMessage());
-        } finally {
-            try {
-                if (connection != null) {
-                    connection.setAutoCommit(true); // Reset auto-commit
-                    connection.close();
+        }
+    }
+
+    /**
+     * Lock the given account rows until the transaction ends and return them by id
+     * Rows are locked in id order, so opposite transfers between the same two accounts queue on
+     * the same lock instead of deadlocking.
+     */
+    private Map<Integer, Account> lockAccounts(Connection connection, int... accountIds) throws SQLException {
+        String sql = "SELECT * FROM accounts WHERE id IN (" +
+                    String.join(", ", Collections.nCopies(accountIds.length, "?")) + ") ORDER BY id FOR UPDATE";
+        Map<Integer, Account> accounts = new HashMap<>();
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < accountIds.length; i++) {
+                pstmt.setInt(i + 1, accountIds[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Account account = mapResultSetToAccount(rs);
+                    accounts.put(account.getId(), account);
                 }
-            } catch (SQLException e) {
-                System.err.println("❌ Error closing connection: " + e.getMessage());
             }
         }
         
-        return false;
+        return accounts;
+    }
+
+    private static void addToBalance(Connection connection, int accountId, Money delta) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE id = ?")) {
+            pstmt.setBigDecimal(1, delta.toBigDecimal());
+            pstmt.setInt(2, accountId);
+            pstmt.executeUpdate();
+        }
     }
 
     /**
      * Delete account by ID
      */
     public boolean deleteAccount(int accountId) {
+        // Owner and type are needed to evict the customer's cached account list and keep the counts
+        Optional<Account> existing = findById(accountId);
         String sql = "DELETE FROM accounts WHERE id = ?";
         
         try (Connection connection = dbConnection.getConnection();
@@ -315,19 +502,28 @@ public class AccountDAO {
             
             pstmt.setInt(1, accountId);
             
-            int affectedRows = pstmt.executeUpdate();
+            int affectedRows = ChangeLogDAO.executeLogged(connection, pstmt, CachedEntity.ACCOUNT, accountId);
             
             if (affectedRows > 0) {
-                System.out.println("✅ Account deleted successfully!");
+                EntityCaches.ACCOUNTS.invalidate(accountId);
+                BALANCE_INDEX.remove(accountId);
+                if (existing.isPresent()) {
+                    EntityCaches.CUSTOMER_ACCOUNT_IDS.invalidate(existing.get().getCustomerId());
+                    StatisticsDAO.accountDeleted(existing.get().getAccountType());
+                } else {
+                    EntityCaches.CUSTOMER_ACCOUNT_IDS.invalidateAll();
+                    StatisticsDAO.markStale();
+                }
+                LOG.info("Account deleted successfully!", "accountId", accountId);
                 return true;
             } else {
-                System.out.println("❌ Account not found for deletion!");
+                LOG.warn("Account not found for deletion!", "accountId", accountId);
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error deleting account: " + e.getMessage());
+            LOG.error("Error deleting account", "error", e.getMessage());
             if (e.getErrorCode() == 1451) { // Foreign key constraint error
-                System.err.println("❌ Cannot delete account with existing transactions!");
+                LOG.error("Cannot delete account with existing transactions!");
             }
         }
         
@@ -353,7 +549,7 @@ public class AccountDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding accounts by type: " + e.getMessage());
+            LOG.error("Error finding accounts by type", "error", e.getMessage());
         }
         
         return accounts;
@@ -374,22 +570,170 @@ public class AccountDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting account count: " + e.getMessage());
+            LOG.error("Error getting account count", "error", e.getMessage());
         }
         
         return 0;
     }
 
+    // ==================== BALANCE INDEX ====================
+
+    /**
+     * Load the balance index from one streaming scan
+     * Accounts written through the DAOs while the scan runs are re-read afterwards, until a pass
+     * sees no further writes (or BALANCE_INDEX_REREAD_ROUNDS passes have run).
+     */
+    public void buildBalanceIndex() {
+        String sql = "SELECT id, customer_id, account_type, balance, version FROM accounts";
+        BALANCE_INDEX.beginLoad();
+        boolean complete = false;
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(Integer.MIN_VALUE); // MySQL row-by-row streaming
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    BALANCE_INDEX.load(rs.getInt(1), rs.getInt(2), rs.getString(3), Money.of(rs.getBigDecimal(4)).getCents(), rs.getLong(5));
+                }
+            }
+            complete = true;
+
+        } catch (SQLException e) {
+            LOG.error("Error scanning account balances", "error", e.getMessage());
+        }
+
+        for (int round = 0; complete && round < BALANCE_INDEX_REREAD_ROUNDS; round++) {
+            Set<Integer> touched = BALANCE_INDEX.drainTouched();
+            if (touched.isEmpty()) {
+                break;
+            }
+            for (int accountId : touched) {
+                refreshBalanceEntry(accountId);
+            }
+        }
+
+        BALANCE_INDEX.endLoad(complete);
+    }
+
+    /**
+     * Re-read one account into the balance index, e.g. after another node changed it
+     */
+    public void refreshBalanceEntry(int accountId) {
+        Account account = selectById(accountId);
+        if (account != null) {
+            BALANCE_INDEX.load(account.getId(), account.getCustomerId(), account.getAccountType(),
+                               account.getBalanceCents(), account.getVersion());
+        } else {
+            BALANCE_INDEX.remove(accountId);
+        }
+    }
+
+    public BalanceIndex getBalanceIndex() {
+        return BALANCE_INDEX;
+    }
+
+    /**
+     * Accounts with the highest balances, highest first; served from the balance index once loaded
+     *
+     * @param accountType only this type, or null for all
+     */
+    public List<BalanceIndex.Entry> findTopByBalance(int limit, String accountType) {
+        if (BALANCE_INDEX.isReady()) {
+            return BALANCE_INDEX.top(limit, accountType);
+        }
+
+        String sql = "SELECT id, customer_id, account_type, balance FROM accounts " +
+                    (accountType != null ? "WHERE account_type = ? " : "") +
+                    "ORDER BY balance DESC, id DESC LIMIT ?";
+        List<BalanceIndex.Entry> entries = new ArrayList<>();
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            int parameter = 1;
+            if (accountType != null) {
+                pstmt.setString(parameter++, accountType);
+            }
+            pstmt.setInt(parameter, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(mapResultSetToBalanceEntry(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error finding top accounts by balance", "error", e.getMessage());
+        }
+
+        return entries;
+    }
+
+    /**
+     * Accounts with min <= balance <= max, lowest first; served from the balance index once loaded
+     */
+    public List<BalanceIndex.Entry> findByBalanceRange(Money min, Money max, int limit) {
+        if (BALANCE_INDEX.isReady()) {
+            return BALANCE_INDEX.range(min.getCents(), max.getCents(), limit);
+        }
+
+        String sql = "SELECT id, customer_id, account_type, balance FROM accounts " +
+                    "WHERE balance BETWEEN ? AND ? ORDER BY balance, id LIMIT ?";
+        List<BalanceIndex.Entry> entries = new ArrayList<>();
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setBigDecimal(1, min.toBigDecimal());
+            pstmt.setBigDecimal(2, max.toBigDecimal());
+            pstmt.setInt(3, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(mapResultSetToBalanceEntry(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error finding accounts by balance range", "error", e.getMessage());
+        }
+
+        return entries;
+    }
+
+    private static BalanceIndex.Entry mapResultSetToBalanceEntry(ResultSet rs) throws SQLException {
+        return new BalanceIndex.Entry(
+            rs.getInt("id"),
+            rs.getInt("customer_id"),
+            rs.getString("account_type"),
+            Money.of(rs.getBigDecimal("balance")).getCents()
+        );
+    }
+
+    /**
+     * Cached accounts are shared, so callers always get their own copy
+     */
+    private static Account copyOf(Account account) {
+        Account copy = new Account(account.getId(), account.getCustomerId(), account.getAccountType(),
+                                   account.getBalance(), account.getCreatedAt());
+        copy.setVersion(account.getVersion());
+        return copy;
+    }
+
     /**
      * Map ResultSet to Account object
      */
     private Account mapResultSetToAccount(ResultSet rs) throws SQLException {
-        return new Account(
+        Account account = new Account(
             rs.getInt("id"),
             rs.getInt("customer_id"),
             rs.getString("account_type"),
-            rs.getBigDecimal("balance"),
+            Money.of(rs.getBigDecimal("balance")),
             rs.getTimestamp("created_at").toLocalDateTime()
         );
+        account.setVersion(rs.getLong("version"));
+        return account;
     }
 } 
\ No newline at end of file
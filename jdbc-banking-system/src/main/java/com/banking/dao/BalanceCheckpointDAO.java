@@ -0,0 +1,150 @@
+package com.banking.dao;
+
+import com.banking.model.Money;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Data Access Object for end-of-day balance checkpoints
+ * A checkpoint holds an account's balance at the end of a day on which it had postings
+ */
+public class BalanceCheckpointDAO {
+
+    private static final Log LOG = Log.get(BalanceCheckpointDAO.class);
+
+    private final DatabaseConnection dbConnection;
+    private final LedgerFormat format;
+
+    public BalanceCheckpointDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.format = LedgerFormat.current();
+    }
+
+    /**
+     * Write checkpoints for every account with postings on the given day
+     * Each balance is the account's previous checkpoint plus that day's net postings. An account
+     * seen for the first time is anchored on its ledger net before the day, which is empty when
+     * checkpoints are written day by day from the first ledger day.
+     *
+     * @return number of checkpoints written, or -1 on error
+     */
+    public int checkpointDay(LocalDate day) {
+        String cents = format.amountCents();
+        String sql = "INSERT INTO balance_checkpoints (account_id, checkpoint_date, balance) " +
+                    "SELECT day_net.account_id, ?, " +
+                    "COALESCE(" +
+                    "(SELECT c.balance FROM balance_checkpoints c " +
+                    "WHERE c.account_id = day_net.account_id AND c.checkpoint_date < ? " +
+                    "ORDER BY c.checkpoint_date DESC LIMIT 1), " +
+                    "(SELECT COALESCE(SUM(CASE WHEN t.to_account = acc.id THEN " + format.amountCents("t") +
+                    " ELSE -" + format.amountCents("t") + " END), 0) / 100 " +
+                    "FROM transactions t WHERE (t.from_account = acc.id OR t.to_account = acc.id) AND t.timestamp < ?)" +
+                    ") + day_net.net_cents / 100 " +
+                    "FROM (SELECT account_id, SUM(delta) AS net_cents FROM (" +
+                    "SELECT to_account AS account_id, " + cents + " AS delta FROM transactions " +
+                    "WHERE to_account IS NOT NULL AND timestamp >= ? AND timestamp < ? " +
+                    "UNION ALL " +
+                    "SELECT from_account, -" + cents + " FROM transactions " +
+                    "WHERE from_account IS NOT NULL AND timestamp >= ? AND timestamp < ?" +
+                    ") postings GROUP BY account_id) day_net " +
+                    "JOIN accounts acc ON acc.id = day_net.account_id " +
+                    "ON DUPLICATE KEY UPDATE balance = VALUES(balance)";
+
+        Timestamp dayStart = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp dayEnd = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setDate(1, Date.valueOf(day));
+            pstmt.setDate(2, Date.valueOf(day));
+            pstmt.setTimestamp(3, dayStart);
+            pstmt.setTimestamp(4, dayStart);
+            pstmt.setTimestamp(5, dayEnd);
+            pstmt.setTimestamp(6, dayStart);
+            pstmt.setTimestamp(7, dayEnd);
+
+            return pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error writing balance checkpoints", "day", day, "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get the day of the oldest ledger row, empty when the ledger is empty or cannot be read
+     */
+    public Optional<LocalDate> findFirstLedgerDay() {
+        String sql = "SELECT MIN(timestamp) FROM transactions";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                return Optional.of(rs.getTimestamp(1).toLocalDateTime().toLocalDate());
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error finding the first ledger day", "error", e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Find the latest checkpoint for an account dated strictly before the given day
+     */
+    public Optional<Checkpoint> findLatestBefore(int accountId, LocalDate day) {
+        String sql = "SELECT checkpoint_date, balance FROM balance_checkpoints " +
+                    "WHERE account_id = ? AND checkpoint_date < ? ORDER BY checkpoint_date DESC LIMIT 1";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, accountId);
+            pstmt.setDate(2, Date.valueOf(day));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new Checkpoint(accountId, rs.getDate(1).toLocalDate(), Money.of(rs.getBigDecimal(2))));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error finding balance checkpoint", "error", e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Balance checkpoint class
+     */
+    public static class Checkpoint {
+        private final int accountId;
+        private final LocalDate date;
+        private final Money balance;
+
+        public Checkpoint(int accountId, LocalDate date, Money balance) {
+            this.accountId = accountId;
+            this.date = date;
+            this.balance = balance != null ? balance : Money.ZERO;
+        }
+
+        public int getAccountId() { return accountId; }
+        public LocalDate getDate() { return date; }
+        public Money getBalance() { return balance; }
+
+        @Override
+        public String toString() {
+            return String.format("Checkpoint{accountId=%d, date=%s, balance=%s}", accountId, date, balance);
+        }
+    }
+}
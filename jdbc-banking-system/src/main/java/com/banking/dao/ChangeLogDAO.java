@@ -0,0 +1,230 @@
+package com.banking.dao;
+
+import com.banking.cache.CachedEntity;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object for the entity_changes table
+ * Every write to a cached entity appends (entity, id) in the same database transaction; other
+ * application nodes tail the table by sequence number and evict the matching cache keys.
+ *
+ * Enabled with CHANGE_LOG_ENABLED=true in config.properties, on every node sharing the database.
+ */
+public class ChangeLogDAO {
+
+    private static final Log LOG = Log.get(ChangeLogDAO.class);
+
+    public static final boolean ENABLED = Boolean.parseBoolean(
+            DatabaseConnection.getInstance().getProperty("CHANGE_LOG_ENABLED", "false"));
+
+    private final DatabaseConnection dbConnection;
+
+    public ChangeLogDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    // ==================== WRITE SIDE ====================
+
+    /**
+     * Append a change on the caller's connection, inside the caller's transaction
+     */
+    static void record(Connection connection, CachedEntity entity, int id) throws SQLException {
+        if (!ENABLED) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO entity_changes (entity_type, entity_id) VALUES (?, ?)")) {
+            pstmt.setByte(1, (byte) entity.code());
+            pstmt.setInt(2, id);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Execute a write statement and, when it changed rows, record the changed ids in the same
+     * transaction. Without the change log this is a plain executeUpdate().
+     *
+     * @return the statement's update count
+     */
+    static int executeLogged(Connection connection, PreparedStatement pstmt, CachedEntity entity, int... ids) throws SQLException {
+        if (!ENABLED) {
+            return pstmt.executeUpdate();
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            int affectedRows = pstmt.executeUpdate();
+            if (affectedRows > 0) {
+                for (int id : ids) {
+                    record(connection, entity, id);
+                }
+            }
+            connection.commit();
+            return affectedRows;
+        } catch (SQLException e) {
+            rollback(connection, e);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Execute an INSERT prepared with RETURN_GENERATED_KEYS and record every generated id in the
+     * same transaction
+     */
+    static int executeLoggedInsert(Connection connection, PreparedStatement pstmt, CachedEntity entity) throws SQLException {
+        if (!ENABLED) {
+            return pstmt.executeUpdate();
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            int affectedRows = pstmt.executeUpdate();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                while (generatedKeys.next()) {
+                    record(connection, entity, generatedKeys.getInt(1));
+                }
+            }
+            connection.commit();
+            return affectedRows;
+        } catch (SQLException e) {
+            rollback(connection, e);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // A failed rollback is attached to the original error instead of replacing it
+    private static void rollback(Connection connection, SQLException cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackEx) {
+            cause.addSuppressed(rollbackEx);
+        }
+    }
+
+    // ==================== READ SIDE ====================
+
+    /**
+     * Get the newest sequence number, 0 when the table is empty, or -1 on error
+     */
+    public long getLatestSeq() {
+        String sql = "SELECT COALESCE(MAX(seq), 0) FROM entity_changes";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading change log position", "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Read changes after a sequence number, oldest first; null on error
+     * Lag is measured against the database clock so node clock skew does not distort it.
+     */
+    public List<Change> readSince(long afterSeq, int limit) {
+        return read("seq > ? ORDER BY seq LIMIT ?", List.of(afterSeq, (long) limit));
+    }
+
+    /**
+     * Read the changes with the given sequence numbers, e.g. ones skipped while uncommitted;
+     * numbers without a row are left out. Null on error
+     */
+    public List<Change> readSeqs(List<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return read("seq IN (" + String.join(", ", Collections.nCopies(seqs.size(), "?")) + ") ORDER BY seq", seqs);
+    }
+
+    private List<Change> read(String condition, List<Long> parameters) {
+        String sql = "SELECT seq, entity_type, entity_id, " +
+                    "TIMESTAMPDIFF(MICROSECOND, changed_at, NOW(3)) DIV 1000 AS lag_ms " +
+                    "FROM entity_changes WHERE " + condition;
+        List<Change> changes = new ArrayList<>();
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setLong(i + 1, parameters.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new Change(
+                        rs.getLong("seq"),
+                        CachedEntity.fromCode(rs.getInt("entity_type")),
+                        rs.getInt("entity_id"),
+                        rs.getLong("lag_ms")
+                    ));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading change log", "error", e.getMessage());
+            return null;
+        }
+
+        return changes;
+    }
+
+    /**
+     * Delete changes older than the retention period
+     *
+     * @return rows deleted, or -1 on error
+     */
+    public int purgeOlderThan(int hours) {
+        String sql = "DELETE FROM entity_changes WHERE changed_at < NOW(3) - INTERVAL ? HOUR";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, hours);
+            return pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error purging change log", "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * One change log row
+     */
+    public static class Change {
+        private final long seq;
+        private final CachedEntity entity;
+        private final int entityId;
+        private final long lagMillis;
+
+        public Change(long seq, CachedEntity entity, int entityId, long lagMillis) {
+            this.seq = seq;
+            this.entity = entity;
+            this.entityId = entityId;
+            this.lagMillis = lagMillis;
+        }
+
+        public long getSeq() { return seq; }
+        public CachedEntity getEntity() { return entity; }  // null for codes this version does not know
+        public int getEntityId() { return entityId; }
+        public long getLagMillis() { return lagMillis; }
+    }
+}
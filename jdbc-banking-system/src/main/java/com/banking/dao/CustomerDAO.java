@@ -1,23 +1,49 @@
 package com.banking.dao;
 
+import com.banking.cache.CachedEntity;
+import com.banking.cache.EntityCaches;
+import com.banking.index.CustomerSearchIndex;
+import com.banking.index.ScalableBloomFilter;
 import com.banking.model.Customer;
 import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Data Access Object for Customer entity
  * Demonstrates DAO pattern, prepared statements, and proper resource management
  */
 public class CustomerDAO {
+
+    private static final Log LOG = Log.get(CustomerDAO.class);
     
+    // Most ranked matches a name search hydrates
+    private static final int SEARCH_RESULT_LIMIT = 200;
+    // Ids per IN (...) list when hydrating
+    private static final int MULTI_GET_CHUNK = 500;
+    // Email filter sizing; further stages are added as the customer base grows
+    private static final int EMAIL_FILTER_CAPACITY = 1 << 20;
+    private static final double EMAIL_FILTER_FALSE_POSITIVE_RATE = 0.01;
+
     private final DatabaseConnection dbConnection;
+    private final CustomerSearchIndex searchIndex;
+    private final ScalableBloomFilter emailFilter;
 
     public CustomerDAO() {
         this.dbConnection = DatabaseConnection.getInstance();
+        this.searchIndex = new CustomerSearchIndex();
+        this.emailFilter = new ScalableBloomFilter(EMAIL_FILTER_CAPACITY, EMAIL_FILTER_FALSE_POSITIVE_RATE);
     }
 
     /**
@@ -34,23 +60,27 @@ public class CustomerDAO {
             pstmt.setString(3, customer.getEmail());
             pstmt.setString(4, customer.getContactNumber());
             
-            int affectedRows = pstmt.executeUpdate();
+            int affectedRows = ChangeLogDAO.executeLoggedInsert(connection, pstmt, CachedEntity.CUSTOMER);
             
             if (affectedRows > 0) {
                 // Get the generated ID
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         customer.setId(generatedKeys.getInt(1));
-                        System.out.println("✅ Customer created successfully with ID: " + customer.getId());
+                        searchIndex.put(customer.getId(), customer.getName(), customer.getEmail(), customer.getContactNumber());
+                        addToEmailFilter(customer.getEmail());
+                        SegmentDAO.SEGMENT_INDEX.putCustomer(customer.getId(), customer.getAge());
+                        StatisticsDAO.customersCreated(1);
+                        LOG.info("Customer created successfully", "customerId", customer.getId());
                         return true;
                     }
                 }
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error creating customer: " + e.getMessage());
+            LOG.error("Error creating customer", "error", e.getMessage());
             if (e.getErrorCode() == 1062) { // Duplicate entry error
-                System.err.println("❌ Customer with this email already exists!");
+                LOG.error("Customer with this email already exists!");
             }
         }
         
@@ -58,9 +88,63 @@ public class CustomerDAO {
     }
 
     /**
-     * Find customer by ID
+     * Insert customers with one multi-row INSERT and set their generated ids
+     * The statement is all-or-nothing: one duplicate email rejects every row
+     */
+    public boolean createCustomers(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return true;
+        }
+        String sql = "INSERT INTO customers (name, age, email, contact_number) VALUES " +
+                    String.join(", ", Collections.nCopies(customers.size(), "(?, ?, ?, ?)"));
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            int parameter = 1;
+            for (Customer customer : customers) {
+                pstmt.setString(parameter++, customer.getName());
+                pstmt.setInt(parameter++, customer.getAge());
+                pstmt.setString(parameter++, customer.getEmail());
+                pstmt.setString(parameter++, customer.getContactNumber());
+            }
+
+            ChangeLogDAO.executeLoggedInsert(connection, pstmt, CachedEntity.CUSTOMER);
+
+            // A multi-row INSERT gets one consecutive id range, returned in row order
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                int row = 0;
+                while (generatedKeys.next() && row < customers.size()) {
+                    customers.get(row++).setId(generatedKeys.getInt(1));
+                }
+            }
+
+            for (Customer customer : customers) {
+                searchIndex.put(customer.getId(), customer.getName(), customer.getEmail(), customer.getContactNumber());
+                addToEmailFilter(customer.getEmail());
+                SegmentDAO.SEGMENT_INDEX.putCustomer(customer.getId(), customer.getAge());
+            }
+            StatisticsDAO.customersCreated(customers.size());
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error creating customers", "count", customers.size(), "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Find customer by ID (read through the shared customer cache)
      */
     public Optional<Customer> findById(int customerId) {
+        Customer customer = EntityCaches.ENABLED
+                ? EntityCaches.CUSTOMERS.get(customerId, this::selectById)
+                : selectById(customerId);
+        return Optional.ofNullable(customer).map(CustomerDAO::copyOf);
+    }
+
+    private Customer selectById(int customerId) {
         String sql = "SELECT * FROM customers WHERE id = ?";
         
         try (Connection connection = dbConnection.getConnection();
@@ -70,15 +154,15 @@ public class CustomerDAO {
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToCustomer(rs));
+                    return mapResultSetToCustomer(rs);
                 }
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding customer by ID: " + e.getMessage());
+            LOG.error("Error finding customer by ID", "error", e.getMessage());
         }
         
-        return Optional.empty();
+        return null;
     }
 
     /**
@@ -99,7 +183,7 @@ public class CustomerDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding customer by email: " + e.getMessage());
+            LOG.error("Error finding customer by email", "error", e.getMessage());
         }
         
         return Optional.empty();
@@ -121,7 +205,7 @@ public class CustomerDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error retrieving all customers: " + e.getMessage());
+            LOG.error("Error retrieving all customers", "error", e.getMessage());
         }
         
         return customers;
@@ -142,19 +226,23 @@ public class CustomerDAO {
             pstmt.setString(4, customer.getContactNumber());
             pstmt.setInt(5, customer.getId());
             
-            int affectedRows = pstmt.executeUpdate();
+            int affectedRows = ChangeLogDAO.executeLogged(connection, pstmt, CachedEntity.CUSTOMER, customer.getId());
             
             if (affectedRows > 0) {
-                System.out.println("✅ Customer updated successfully!");
+                EntityCaches.CUSTOMERS.invalidate(customer.getId());
+                searchIndex.put(customer.getId(), customer.getName(), customer.getEmail(), customer.getContactNumber());
+                addToEmailFilter(customer.getEmail());
+                SegmentDAO.SEGMENT_INDEX.putCustomer(customer.getId(), customer.getAge());
+                LOG.info("Customer updated successfully!");
                 return true;
             } else {
-                System.out.println("❌ Customer not found for update!");
+                LOG.warn("Customer not found for update!");
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error updating customer: " + e.getMessage());
+            LOG.error("Error updating customer", "error", e.getMessage());
             if (e.getErrorCode() == 1062) { // Duplicate entry error
-                System.err.println("❌ Customer with this email already exists!");
+                LOG.error("Customer with this email already exists!");
             }
         }
         
@@ -165,6 +253,9 @@ public class CustomerDAO {
      * Delete customer by ID
      */
     public boolean deleteCustomer(int customerId) {
+        // ON DELETE CASCADE removes the accounts too; read them first so caches, indexes and
+        // counts can follow
+        Map<Integer, String> accountTypes = findAccountTypes(customerId);
         String sql = "DELETE FROM customers WHERE id = ?";
         
         try (Connection connection = dbConnection.getConnection();
@@ -172,19 +263,30 @@ public class CustomerDAO {
             
             pstmt.setInt(1, customerId);
             
-            int affectedRows = pstmt.executeUpdate();
+            int affectedRows = ChangeLogDAO.executeLogged(connection, pstmt, CachedEntity.CUSTOMER, customerId);
             
             if (affectedRows > 0) {
-                System.out.println("✅ Customer deleted successfully!");
+                evictDeletedCustomer(customerId, accountTypes != null ? accountTypes.keySet() : null);
+                searchIndex.remove(customerId);
+                SegmentDAO.SEGMENT_INDEX.removeCustomer(customerId);
+                StatisticsDAO.customerDeleted();
+                if (accountTypes != null) {
+                    for (String accountType : accountTypes.values()) {
+                        StatisticsDAO.accountDeleted(accountType);
+                    }
+                } else {
+                    StatisticsDAO.markStale();
+                }
+                LOG.info("Customer deleted successfully!");
                 return true;
             } else {
-                System.out.println("❌ Customer not found for deletion!");
+                LOG.warn("Customer not found for deletion!");
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error deleting customer: " + e.getMessage());
+            LOG.error("Error deleting customer", "error", e.getMessage());
             if (e.getErrorCode() == 1451) { // Foreign key constraint error
-                System.err.println("❌ Cannot delete customer with existing accounts!");
+                LOG.error("Cannot delete customer with existing accounts!");
             }
         }
         
@@ -192,9 +294,81 @@ public class CustomerDAO {
     }
 
     /**
-     * Search customers by name (partial match)
+     * Account type by account id for every account of a customer; null on error
+     */
+    private Map<Integer, String> findAccountTypes(int customerId) {
+        String sql = "SELECT id, account_type FROM accounts WHERE customer_id = ?";
+        Map<Integer, String> accountTypes = new HashMap<>();
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, customerId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    accountTypes.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading customer accounts", "error", e.getMessage());
+            return null;
+        }
+
+        return accountTypes;
+    }
+
+    /**
+     * Find customers by ID in one round trip per chunk, returned in the order of the given ids
+     */
+    public List<Customer> findByIds(List<Integer> customerIds) {
+        Map<Integer, Customer> byId = new HashMap<>();
+
+        for (int start = 0; start < customerIds.size(); start += MULTI_GET_CHUNK) {
+            List<Integer> chunk = customerIds.subList(start, Math.min(start + MULTI_GET_CHUNK, customerIds.size()));
+            String sql = "SELECT * FROM customers WHERE id IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (Connection connection = dbConnection.getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Customer customer = mapResultSetToCustomer(rs);
+                        byId.put(customer.getId(), customer);
+                    }
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error finding customers by ID", "error", e.getMessage());
+            }
+        }
+
+        List<Customer> customers = new ArrayList<>();
+        for (int customerId : customerIds) {
+            Customer customer = byId.get(customerId);
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * Search customers by name, email or contact number (partial match)
+     * Served from the trigram index once it is loaded, best matches first; short queries and
+     * searches during startup fall back to a LIKE scan on name
      */
     public List<Customer> searchByName(String name) {
+        if (searchIndex.canServe(name)) {
+            return findByIds(searchIndex.search(name, SEARCH_RESULT_LIMIT));
+        }
+
         List<Customer> customers = new ArrayList<>();
         String sql = "SELECT * FROM customers WHERE name LIKE ? ORDER BY name";
         
@@ -210,14 +384,132 @@ public class CustomerDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error searching customers by name: " + e.getMessage());
+            LOG.error("Error searching customers by name", "error", e.getMessage());
         }
         
         return customers;
     }
 
+    /**
+     * Stream every customer row in id order
+     *
+     * @return true if the scan reached the end of the table
+     */
+    public boolean scanAll(CustomerRowHandler handler) {
+        String sql = "SELECT id, name, email, contact_number FROM customers ORDER BY id";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(Integer.MIN_VALUE); // MySQL row-by-row streaming
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.onRow(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error scanning customers", "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Load the search index and the email filter from one full scan
+     * Writes made through this DAO while the scan runs are kept in preference to scanned rows
+     */
+    public void buildIndexes() {
+        searchIndex.beginLoad();
+        emailFilter.clear();
+
+        boolean complete = scanAll((id, name, email, contactNumber) -> {
+            searchIndex.onRow(id, name, email, contactNumber);
+            addToEmailFilter(email);
+        });
+
+        searchIndex.endLoad(complete);
+        emailFilter.setReady(complete);
+    }
+
+    /**
+     * Re-read one customer into the search index, email filter and segment bitmaps after another node changed it
+     */
+    public void refreshIndexEntry(int customerId) {
+        Customer customer = selectById(customerId);
+        if (customer != null) {
+            searchIndex.put(customer.getId(), customer.getName(), customer.getEmail(), customer.getContactNumber());
+            addToEmailFilter(customer.getEmail());
+            SegmentDAO.SEGMENT_INDEX.putCustomer(customer.getId(), customer.getAge());
+        } else {
+            searchIndex.remove(customerId);
+            SegmentDAO.SEGMENT_INDEX.removeCustomer(customerId);
+            // Deleted on another node: its accounts went with it, but only the customer was logged
+            evictDeletedCustomer(customerId, null);
+        }
+    }
+
+    public CustomerSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public ScalableBloomFilter getEmailFilter() {
+        return emailFilter;
+    }
+
+    /**
+     * Pre-insert check: which of the given emails may already belong to a customer, lower-cased;
+     * null on error
+     * Emails the filter proves new are left out of the IN (...) list. The filter only knows the
+     * writes this DAO has seen, so a customer just added by another node can slip through; the
+     * unique key on customers.email then rejects the insert.
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        List<String> candidates = new ArrayList<>();
+        for (String email : emails) {
+            if (mayHaveEmail(email)) {
+                candidates.add(email);
+            }
+        }
+
+        Set<String> existing = new HashSet<>();
+        for (int start = 0; start < candidates.size(); start += MULTI_GET_CHUNK) {
+            List<String> chunk = candidates.subList(start, Math.min(start + MULTI_GET_CHUNK, candidates.size()));
+            String sql = "SELECT email FROM customers WHERE email IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (Connection connection = dbConnection.getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString(1).toLowerCase(Locale.ROOT));
+                    }
+                }
+                for (String email : chunk) {
+                    if (!existing.contains(email.toLowerCase(Locale.ROOT))) {
+                        recordEmailFilterMiss(email);
+                    }
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error checking existing emails", "error", e.getMessage());
+                return null;
+            }
+        }
+
+        return existing;
+    }
+
     /**
      * Check if customer exists by email
+     * Always asks the database; see mayHaveEmail() for the cheap pre-insert check.
      */
     public boolean existsByEmail(String email) {
         String sql = "SELECT COUNT(*) FROM customers WHERE email = ?";
@@ -234,7 +526,7 @@ public class CustomerDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error checking customer existence: " + e.getMessage());
+            LOG.error("Error checking customer existence", "error", e.getMessage());
         }
         
         return false;
@@ -255,12 +547,87 @@ public class CustomerDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting customer count: " + e.getMessage());
+            LOG.error("Error getting customer count", "error", e.getMessage());
         }
         
         return 0;
     }
 
+    /**
+     * Evict a deleted customer and the accounts removed with it by ON DELETE CASCADE from the
+     * caches and the balance index
+     *
+     * @param accountIds the accounts read before the delete, or null when they could not be read
+     */
+    private static void evictDeletedCustomer(int customerId, Collection<Integer> accountIds) {
+        EntityCaches.CUSTOMERS.invalidate(customerId);
+        Set<Integer> removed = new HashSet<>();
+        if (accountIds != null) {
+            removed.addAll(accountIds);
+        }
+        List<Integer> cachedIds = EntityCaches.CUSTOMER_ACCOUNT_IDS.getIfPresent(customerId);
+        if (cachedIds != null) {
+            removed.addAll(cachedIds);
+        }
+        if (accountIds == null) {
+            removed.addAll(AccountDAO.BALANCE_INDEX.removeCustomer(customerId));
+        }
+        for (int accountId : removed) {
+            EntityCaches.ACCOUNTS.invalidate(accountId);
+            AccountDAO.BALANCE_INDEX.remove(accountId);
+        }
+        EntityCaches.CUSTOMER_ACCOUNT_IDS.invalidate(customerId);
+    }
+
+    /**
+     * Cached customers are shared, so callers always get their own copy
+     */
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getAge(),
+                            customer.getEmail(), customer.getContactNumber());
+    }
+
+    /**
+     * Pre-insert check: false only when the email filter proves this DAO never saw the email
+     * Not an answer to "does the customer exist": customers added by other nodes are missing from
+     * the filter, so the unique key on customers.email remains the real guard against duplicates.
+     */
+    public boolean mayHaveEmail(String email) {
+        String key = emailFilterKey(email);
+        return key == null || !emailFilter.isReady() || emailFilter.mightContain(key);
+    }
+
+    private void addToEmailFilter(String email) {
+        String key = emailFilterKey(email);
+        if (key != null) {
+            emailFilter.add(key);
+        }
+    }
+
+    private void recordEmailFilterMiss(String email) {
+        String key = emailFilterKey(email);
+        if (key != null && emailFilter.isReady()) {
+            emailFilter.recordFalsePositive();
+        }
+    }
+
+    /**
+     * Filter key matching the case-insensitive email column, or null when the email cannot be
+     * normalized safely (the column collation also folds accents, so non-ASCII skips the filter)
+     */
+    private static String emailFilterKey(String email) {
+        if (email == null) {
+            return null;
+        }
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) > 0x7F) {
+                return null;
+            }
+        }
+        return key;
+    }
+
     /**
      * Map ResultSet to Customer object
      */
@@ -0,0 +1,118 @@
+package com.banking.dao;
+
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.CustomerProfile;
+import com.banking.model.Money;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Data Access Object for the CustomerProfile aggregate
+ * Customer, accounts and per-account activity totals come back from a single statement
+ */
+public class CustomerProfileDAO {
+
+    private static final Log LOG = Log.get(CustomerProfileDAO.class);
+
+    private final DatabaseConnection dbConnection;
+    private final LedgerFormat format;
+
+    public CustomerProfileDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.format = LedgerFormat.current();
+    }
+
+    /**
+     * Load a customer's profile
+     * The ledger is read as one row per account leg (credit to to_account, debit from from_account)
+     * for this customer's accounts only, then grouped per account and joined back onto the accounts.
+     */
+    public Optional<CustomerProfile> findProfile(int customerId) {
+        String cents = format.amountCents("t");
+        String code = format.typeCode();
+        String sql = "SELECT c.id, c.name, c.age, c.email, c.contact_number, " +
+                    "a.id AS account_id, a.account_type, a.balance, a.created_at, " +
+                    "COALESCE(s.total_transactions, 0) AS total_transactions, " +
+                    "COALESCE(s.total_deposits, 0) AS total_deposits, " +
+                    "COALESCE(s.total_withdrawals, 0) AS total_withdrawals, " +
+                    "COALESCE(s.total_sent, 0) AS total_sent, " +
+                    "COALESCE(s.total_received, 0) AS total_received " +
+                    "FROM customers c " +
+                    "LEFT JOIN accounts a ON a.customer_id = c.id " +
+                    "LEFT JOIN (" +
+                    "  SELECT leg.account_id, COUNT(*) AS total_transactions, " +
+                    "  SUM(CASE WHEN leg.credit = 1 AND leg.type_code = 1 THEN leg.cents ELSE 0 END) AS total_deposits, " +
+                    "  SUM(CASE WHEN leg.credit = 0 AND leg.type_code = 2 THEN leg.cents ELSE 0 END) AS total_withdrawals, " +
+                    "  SUM(CASE WHEN leg.credit = 0 AND leg.type_code = 3 THEN leg.cents ELSE 0 END) AS total_sent, " +
+                    "  SUM(CASE WHEN leg.credit = 1 AND leg.type_code = 3 THEN leg.cents ELSE 0 END) AS total_received " +
+                    "  FROM (" +
+                    "    SELECT t.to_account AS account_id, 1 AS credit, " + code + " AS type_code, " + cents + " AS cents " +
+                    "    FROM transactions t JOIN accounts ta ON ta.id = t.to_account WHERE ta.customer_id = ? " +
+                    "    UNION ALL " +
+                    "    SELECT t.from_account AS account_id, 0 AS credit, " + code + " AS type_code, " + cents + " AS cents " +
+                    "    FROM transactions t JOIN accounts fa ON fa.id = t.from_account WHERE fa.customer_id = ?" +
+                    "  ) leg GROUP BY leg.account_id" +
+                    ") s ON s.account_id = a.id " +
+                    "WHERE c.id = ? ORDER BY a.id";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, customerId);
+            pstmt.setInt(2, customerId);
+            pstmt.setInt(3, customerId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Customer customer = null;
+                List<CustomerProfile.AccountSummary> accounts = new ArrayList<>();
+
+                while (rs.next()) {
+                    if (customer == null) {
+                        customer = new Customer(
+                            rs.getInt("id"),
+                            rs.getString("name"),
+                            rs.getInt("age"),
+                            rs.getString("email"),
+                            rs.getString("contact_number")
+                        );
+                    }
+
+                    int accountId = rs.getInt("account_id");
+                    if (rs.wasNull()) {
+                        continue; // customer without accounts
+                    }
+                    Account account = new Account(
+                        accountId,
+                        customerId,
+                        rs.getString("account_type"),
+                        Money.of(rs.getBigDecimal("balance")),
+                        rs.getTimestamp("created_at").toLocalDateTime()
+                    );
+                    accounts.add(new CustomerProfile.AccountSummary(
+                        account,
+                        rs.getInt("total_transactions"),
+                        Money.ofCents(rs.getLong("total_deposits")),
+                        Money.ofCents(rs.getLong("total_withdrawals")),
+                        Money.ofCents(rs.getLong("total_sent")),
+                        Money.ofCents(rs.getLong("total_received"))
+                    ));
+                }
+
+                if (customer != null) {
+                    return Optional.of(new CustomerProfile(customer, accounts));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error loading customer profile", "error", e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,19 @@
+package com.banking.dao;
+
+/**
+ * Callback for streaming customer scans
+ * Receives the searchable columns of each customers row without building Customer objects
+ */
+@FunctionalInterface
+public interface CustomerRowHandler {
+
+    /**
+     * Handle one customer row
+     *
+     * @param id            customer id
+     * @param name          customer name
+     * @param email         email address
+     * @param contactNumber contact number
+     */
+    void onRow(int id, String name, String email, String contactNumber);
+}
@@ -0,0 +1,96 @@
+package com.banking.dao;
+
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+
+/**
+ * Data Access Object for background job progress markers
+ * Lets incremental jobs resume from where the previous run stopped
+ */
+public class JobWatermarkDAO {
+
+    private static final Log LOG = Log.get(JobWatermarkDAO.class);
+
+    private final DatabaseConnection dbConnection;
+
+    public JobWatermarkDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Get the stored position for a job, or defaultValue when it has never run
+     */
+    public long getWatermark(String jobName, long defaultValue) {
+        String sql = "SELECT position FROM job_watermarks WHERE job_name = ?";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setString(1, jobName);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading job watermark", "error", e.getMessage());
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Store the position a job has completed up to
+     */
+    public boolean saveWatermark(String jobName, long position) {
+        try (Connection connection = dbConnection.getConnection()) {
+
+            saveWatermark(connection, jobName, position);
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error saving job watermark", "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Read a job's position on the caller's connection and lock it until that transaction ends,
+     * so concurrent runs of the same job on several nodes take turns
+     */
+    static long lockWatermark(Connection connection, String jobName, long defaultValue) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT IGNORE INTO job_watermarks (job_name, position) VALUES (?, ?)")) {
+            pstmt.setString(1, jobName);
+            pstmt.setLong(2, defaultValue);
+            pstmt.executeUpdate();
+        }
+
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "SELECT position FROM job_watermarks WHERE job_name = ? FOR UPDATE")) {
+            pstmt.setString(1, jobName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Store a position on the caller's connection, so it commits together with the work it covers
+     */
+    static void saveWatermark(Connection connection, String jobName, long position) throws SQLException {
+        String sql = "INSERT INTO job_watermarks (job_name, position) VALUES (?, ?) " +
+                    "ON DUPLICATE KEY UPDATE position = VALUES(position)";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, jobName);
+            pstmt.setLong(2, position);
+            pstmt.executeUpdate();
+        }
+    }
+}
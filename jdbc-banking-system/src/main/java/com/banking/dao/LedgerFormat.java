@@ -0,0 +1,177 @@
+package com.banking.dao;
+
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+
+/**
+ * Physical format of the transactions table
+ * LEGACY stores DECIMAL amounts and VARCHAR types, COMPACT stores BIGINT cents and TINYINT type
+ * codes. DUAL_WRITE reads the legacy table and mirrors every write into the compact shadow table
+ * while LedgerMigrationTool copies history across.
+ *
+ * Selected with the LEDGER_FORMAT setting in config.properties. Without it a node uses COMPACT,
+ * the layout sql/schema.sql creates, unless the transactions table still has the legacy layout of
+ * databases created before the compact format. Once LedgerMigrationTool has swapped the tables,
+ * LEGACY and DUAL_WRITE nodes notice on their next failed ledger write, retry it, and carry on
+ * as COMPACT until they are restarted with LEDGER_FORMAT=COMPACT.
+ */
+public enum LedgerFormat {
+    LEGACY,
+    DUAL_WRITE,
+    COMPACT;
+
+    private static final Log LOG = Log.get(LedgerFormat.class);
+
+    // Compact copy of the ledger that exists only while a migration is in progress
+    public static final String SHADOW_TABLE = "transactions_compact";
+
+    private static volatile LedgerFormat current;
+
+    // Set when the transactions table turns out to be compact although this node was not told so
+    private static volatile boolean swapped;
+
+    public static LedgerFormat current() {
+        if (current == null) {
+            String configured = DatabaseConnection.getInstance().getProperty("LEDGER_FORMAT", null);
+            current = configured != null ? valueOf(configured.toUpperCase()) : detect();
+        }
+        return current;
+    }
+
+    // Format of an unconfigured node: LEGACY only when the table is known to be legacy
+    private static LedgerFormat detect() {
+        Layout layout = Layout.read();
+        if (layout != null && layout.legacyTable) {
+            LOG.info("LEDGER_FORMAT is not set and the transactions table is legacy; using LEGACY");
+            return LEGACY;
+        }
+        return COMPACT;
+    }
+
+    public boolean readsCompact() {
+        return this == COMPACT || swapped;
+    }
+
+    public boolean mirrorsToShadow() {
+        return this == DUAL_WRITE && !swapped;
+    }
+
+    // Amount in cents as a SQL expression, optionally qualified with a table alias
+    public String amountCents(String alias) {
+        String prefix = alias != null ? alias + "." : "";
+        return readsCompact() ? prefix + "amount_cents" : "CAST(" + prefix + "amount * 100 AS SIGNED)";
+    }
+
+    public String amountCents() {
+        return amountCents(null);
+    }
+
+    // Type code as a SQL expression
+    public String typeCode() {
+        return readsCompact() ? "type_code" : legacyTypeCode("type");
+    }
+
+    // Column list that mapResultSetToTransaction understands
+    public String selectColumns() {
+        return "id, from_account, to_account, " + amountCents() + " AS amount_cents, " +
+               typeCode() + " AS type_code, timestamp";
+    }
+
+    static String legacyTypeCode(String column) {
+        return "CASE " + column + " WHEN 'DEPOSIT' THEN 1 WHEN 'WITHDRAW' THEN 2 WHEN 'TRANSFER' THEN 3 " +
+               "WHEN 'OPENING' THEN 4 ELSE 0 END";
+    }
+
+    // ==================== SCHEMA CHECKS ====================
+
+    /**
+     * Check that the transactions table has the columns this format uses, so a misconfigured
+     * node stops at startup instead of failing every ledger write
+     */
+    public boolean matchesSchema() {
+        Layout layout = Layout.read();
+        if (layout == null) {
+            return false;
+        }
+        boolean legacyTable = layout.legacyTable;
+        boolean compactTable = layout.compactTable;
+        boolean shadowTable = layout.shadowTable;
+
+        if (this == COMPACT && !compactTable) {
+            LOG.error("LEDGER_FORMAT=COMPACT but the transactions table has no amount_cents column; " +
+                      "set LEDGER_FORMAT=LEGACY or migrate with LedgerMigrationTool");
+            return false;
+        }
+        if (this != COMPACT && !legacyTable) {
+            if (compactTable) {
+                LOG.warn("The transactions table is already compact; set LEDGER_FORMAT=COMPACT", "format", this);
+                swapped = true;
+                return true;
+            }
+            LOG.error("The transactions table has no amount column", "format", this);
+            return false;
+        }
+        if (this == DUAL_WRITE && !shadowTable) {
+            LOG.error("LEDGER_FORMAT=DUAL_WRITE but " + SHADOW_TABLE + " does not exist; run LedgerMigrationTool prepare");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Which ledger tables exist, read from information_schema
+     */
+    private static class Layout {
+        boolean legacyTable;
+        boolean compactTable;
+        boolean shadowTable;
+
+        // null when the layout cannot be read
+        static Layout read() {
+            String sql = "SELECT TABLE_NAME, COLUMN_NAME FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN ('transactions', ?) " +
+                        "AND COLUMN_NAME IN ('amount', 'amount_cents')";
+            Layout layout = new Layout();
+
+            try (Connection connection = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+                pstmt.setString(1, SHADOW_TABLE);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        boolean shadow = SHADOW_TABLE.equalsIgnoreCase(rs.getString(1));
+                        boolean cents = "amount_cents".equalsIgnoreCase(rs.getString(2));
+                        layout.shadowTable |= shadow && cents;
+                        layout.legacyTable |= !shadow && !cents;
+                        layout.compactTable |= !shadow && cents;
+                    }
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error reading the ledger table layout", "error", e.getMessage());
+                return null;
+            }
+
+            return layout;
+        }
+    }
+
+    /**
+     * Called when a ledger statement fails: if this node still uses the legacy layout and the
+     * failure is a missing column or table, re-check whether the tables were swapped
+     *
+     * @return true when the format changed, so the statement is worth retrying
+     */
+    static boolean recheckAfter(SQLException e) {
+        LedgerFormat format = current();
+        boolean missingColumnOrTable = e.getErrorCode() == 1054 || e.getErrorCode() == 1146;
+        if (format == COMPACT || swapped || !missingColumnOrTable) {
+            return false;
+        }
+        format.matchesSchema();
+        return swapped;
+    }
+}
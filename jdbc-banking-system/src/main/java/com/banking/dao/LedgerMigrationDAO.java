@@ -0,0 +1,207 @@
+package com.banking.dao;
+
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.util.Arrays;
+
+/**
+ * Data Access Object for the legacy-to-compact ledger migration
+ * Copies and verifies the transactions table in id chunks, then swaps tables atomically
+ */
+public class LedgerMigrationDAO {
+
+    private static final Log LOG = Log.get(LedgerMigrationDAO.class);
+
+    private static final String SHADOW = LedgerFormat.SHADOW_TABLE;
+
+    private final DatabaseConnection dbConnection;
+
+    public LedgerMigrationDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Create the compact shadow table (same layout as schema.sql)
+     */
+    public boolean createShadowTable() {
+        String sql = "CREATE TABLE IF NOT EXISTS " + SHADOW + " (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "from_account INT, " +
+                    "to_account INT, " +
+                    "amount_cents BIGINT NOT NULL, " +
+                    "type_code TINYINT UNSIGNED NOT NULL, " +
+                    "timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "INDEX idx_transactions_from_ts (from_account, timestamp), " +
+                    "INDEX idx_transactions_to_ts (to_account, timestamp), " +
+                    "INDEX idx_transactions_ts (timestamp), " +
+                    "FOREIGN KEY (from_account) REFERENCES accounts(id) ON DELETE SET NULL, " +
+                    "FOREIGN KEY (to_account) REFERENCES accounts(id) ON DELETE SET NULL)";
+
+        try (Connection connection = dbConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+
+            stmt.executeUpdate(sql);
+            LOG.info("Shadow table is ready", "table", SHADOW);
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error creating shadow table", "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the highest id in the legacy table
+     */
+    public int getMaxLegacyId() {
+        String sql = "SELECT COALESCE(MAX(id), 0) FROM transactions";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading ledger size", "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Copy legacy rows with ids in (afterId, upToId] into the shadow table
+     * Rows already mirrored by dual writes are skipped, so chunks can be re-run safely.
+     *
+     * @return rows copied, or -1 on error
+     */
+    public int copyChunk(int afterId, int upToId) {
+        String sql = "INSERT IGNORE INTO " + SHADOW +
+                    " (id, from_account, to_account, amount_cents, type_code, timestamp) " +
+                    "SELECT id, from_account, to_account, CAST(amount * 100 AS SIGNED), " +
+                    LedgerFormat.legacyTypeCode("type") + ", timestamp " +
+                    "FROM transactions WHERE id > ? AND id <= ?";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+            return pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error copying ledger rows", "afterId", afterId, "upToId", upToId, "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Delete shadow rows with ids in (afterId, upToId], so copying that range again replaces them
+     * instead of skipping them
+     *
+     * @return rows deleted, or -1 on error
+     */
+    public int deleteShadowRange(int afterId, int upToId) {
+        String sql = "DELETE FROM " + SHADOW + " WHERE id > ? AND id <= ?";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+            return pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error deleting shadow rows", "afterId", afterId, "upToId", upToId, "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compare row count, amount total and type code total of a chunk in both tables
+     */
+    public boolean verifyChunk(int afterId, int upToId) {
+        try (Connection connection = dbConnection.getConnection()) {
+            return verifyRange(connection, afterId, upToId);
+        } catch (SQLException e) {
+            LOG.error("Error verifying ledger rows", "afterId", afterId, "upToId", upToId, "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    // One aggregate per table, as a write-locked table may appear only once in a statement
+    private boolean verifyRange(Connection connection, int afterId, int upToId) throws SQLException {
+        long[] legacy = aggregate(connection, "SELECT COUNT(*), COALESCE(SUM(CAST(amount * 100 AS SIGNED)), 0), " +
+                                 "COALESCE(SUM(" + LedgerFormat.legacyTypeCode("type") + "), 0) " +
+                                 "FROM transactions WHERE id > ? AND id <= ?", afterId, upToId);
+        long[] compact = aggregate(connection, "SELECT COUNT(*), COALESCE(SUM(amount_cents), 0), " +
+                                  "COALESCE(SUM(type_code), 0) FROM " + SHADOW + " WHERE id > ? AND id <= ?", afterId, upToId);
+        return Arrays.equals(legacy, compact);
+    }
+
+    // Row count, amount total and type code total of a chunk
+    private long[] aggregate(Connection connection, String sql, int afterId, int upToId) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return new long[] { rs.getLong(1), rs.getLong(2), rs.getLong(3) };
+            }
+        }
+    }
+
+    /**
+     * Copy the rows after afterId, verify them and swap the tables, all while both tables are
+     * write-locked, so no writer can add a legacy row that misses the copy; the legacy table is
+     * kept as transactions_legacy
+     * Writers block for the duration of the tail copy, so run copy first to keep the tail short.
+     * Nodes still on LEGACY or DUAL_WRITE detect the swap on their next ledger write and retry it
+     * in the compact layout (see LedgerFormat). Renaming locked tables needs MySQL 8.0.13 or later.
+     *
+     * @return tail rows copied, or -1 when nothing was swapped
+     */
+    public int cutover(int afterId) {
+        String copySql = "INSERT IGNORE INTO " + SHADOW +
+                        " (id, from_account, to_account, amount_cents, type_code, timestamp) " +
+                        "SELECT id, from_account, to_account, CAST(amount * 100 AS SIGNED), " +
+                        LedgerFormat.legacyTypeCode("type") + ", timestamp " +
+                        "FROM transactions WHERE id > ?";
+
+        try (Connection connection = dbConnection.getConnection();
+             Statement stmt = connection.createStatement()) {
+
+            stmt.execute("LOCK TABLES transactions WRITE, " + SHADOW + " WRITE");
+            try {
+                int copied;
+                try (PreparedStatement pstmt = connection.prepareStatement(copySql)) {
+                    pstmt.setInt(1, afterId);
+                    copied = pstmt.executeUpdate();
+                }
+                if (!verifyRange(connection, afterId, Integer.MAX_VALUE)) {
+                    LOG.error("Ledger tail differs after copying; tables not swapped", "afterId", afterId);
+                    return -1;
+                }
+                stmt.executeUpdate("RENAME TABLE transactions TO transactions_legacy, " + SHADOW + " TO transactions");
+                LOG.info("Compact ledger is now the transactions table", "tailRows", copied);
+                return copied;
+            } finally {
+                stmt.execute("UNLOCK TABLES");
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error swapping ledger tables", "error", e.getMessage());
+        }
+
+        return -1;
+    }
+}
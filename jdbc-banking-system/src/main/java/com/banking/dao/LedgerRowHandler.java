@@ -0,0 +1,21 @@
+package com.banking.dao;
+
+/**
+ * Callback for streaming ledger scans
+ * Receives each transactions row as primitives so bulk readers allocate nothing per row
+ */
+@FunctionalInterface
+public interface LedgerRowHandler {
+
+    /**
+     * Handle one ledger row
+     *
+     * @param id              transaction id
+     * @param fromAccount     source account id, 0 when absent
+     * @param toAccount       destination account id, 0 when absent
+     * @param amountCents     amount in minor units
+     * @param typeCode        {@link com.banking.model.TransactionType} code
+     * @param timestampMillis posting time as epoch milliseconds
+     */
+    void onRow(int id, int fromAccount, int toAccount, long amountCents, byte typeCode, long timestampMillis);
+}
@@ -0,0 +1,387 @@
+package com.banking.dao;
+
+import com.banking.cache.CachedEntity;
+import com.banking.cache.EntityCaches;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for ledger reconciliation
+ * Compares stored balances with the ledger one account id range at a time
+ */
+public class ReconciliationDAO {
+
+    private static final Log LOG = Log.get(ReconciliationDAO.class);
+
+    private final DatabaseConnection dbConnection;
+    private final LedgerFormat format;
+
+    public ReconciliationDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.format = LedgerFormat.current();
+    }
+
+    /**
+     * Get the lowest and highest account ids, or null when there are no accounts
+     */
+    public int[] getAccountIdRange() {
+        String sql = "SELECT MIN(id), MAX(id) FROM accounts";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            if (rs.next() && rs.getObject(1) != null) {
+                return new int[] {rs.getInt(1), rs.getInt(2)};
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading account id range", "error", e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Get stored and ledger-derived balances for accounts with ids in [fromId, toId]
+     * The ledger side is aggregated in MySQL using the per-account indexes, so each call
+     * reads only the postings of that id range.
+     *
+     * @return the checks, or null on error
+     */
+    public List<BalanceCheck> findBalanceChecks(int fromId, int toId) {
+        List<BalanceCheck> checks = new ArrayList<>();
+        String cents = format.amountCents();
+        String sql = "SELECT a.id, CAST(a.balance * 100 AS SIGNED) AS balance_cents, COALESCE(n.net_cents, 0) AS ledger_cents, " +
+                    "COALESCE(n.ledger_rows, 0) AS ledger_rows, COALESCE(n.openings, 0) AS openings, a.created_at " +
+                    "FROM accounts a " +
+                    "LEFT JOIN (SELECT account_id, SUM(delta) AS net_cents, COUNT(*) AS ledger_rows, SUM(is_opening) AS openings FROM (" +
+                    "SELECT to_account AS account_id, " + cents + " AS delta, " +
+                    "CASE WHEN " + format.typeCode() + " = " + TransactionType.OPENING.code() + " THEN 1 ELSE 0 END AS is_opening " +
+                    "FROM transactions WHERE to_account BETWEEN ? AND ? " +
+                    "UNION ALL " +
+                    "SELECT from_account, -" + cents + ", 0 FROM transactions WHERE from_account BETWEEN ? AND ?" +
+                    ") postings GROUP BY account_id) n ON n.account_id = a.id " +
+                    "WHERE a.id BETWEEN ? AND ? ORDER BY a.id";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            for (int i = 0; i < 3; i++) {
+                pstmt.setInt(i * 2 + 1, fromId);
+                pstmt.setInt(i * 2 + 2, toId);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp createdAt = rs.getTimestamp(6);
+                    checks.add(new BalanceCheck(rs.getInt(1), Money.ofCents(rs.getLong(2)), Money.ofCents(rs.getLong(3)),
+                                                rs.getLong(4), rs.getLong(5) > 0,
+                                                createdAt != null ? createdAt.toLocalDateTime() : null));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reconciling accounts", "fromId", fromId, "toId", toId, "error", e.getMessage());
+            return null;
+        }
+
+        return checks;
+    }
+
+    /**
+     * Log the stored balance of each account that has no ledger rows at all as its OPENING row,
+     * dated when the account was opened
+     * Each account is locked and re-checked first, so a posting that landed since the check
+     * leaves it alone; an account with any ledger row is never touched here.
+     *
+     * @return number of opening balances logged, or -1 on error
+     */
+    public int logOpeningBalances(List<BalanceCheck> candidates) {
+        String lockSql = "SELECT balance, created_at FROM accounts WHERE id = ? FOR UPDATE";
+        String rowsSql = "SELECT EXISTS (SELECT 1 FROM transactions WHERE to_account = ?) " +
+                        "OR EXISTS (SELECT 1 FROM transactions WHERE from_account = ?)";
+        TransactionDAO transactionDAO = new TransactionDAO();
+        List<Transaction> logged = new ArrayList<>();
+
+        try (Connection connection = dbConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement(lockSql);
+                 PreparedStatement rows = connection.prepareStatement(rowsSql)) {
+
+                for (BalanceCheck check : candidates) {
+                    int accountId = check.getAccountId();
+                    try {
+                        Transaction opening = null;
+                        lock.setInt(1, accountId);
+                        try (ResultSet rs = lock.executeQuery()) {
+                            if (rs.next()) {
+                                opening = new Transaction(accountId, Money.of(rs.getBigDecimal(1)), Transaction.OPENING);
+                                Timestamp createdAt = rs.getTimestamp(2);
+                                if (createdAt != null) {
+                                    opening.setTimestamp(createdAt.toLocalDateTime());
+                                }
+                            }
+                        }
+                        if (opening != null) {
+                            rows.setInt(1, accountId);
+                            rows.setInt(2, accountId);
+                            try (ResultSet rs = rows.executeQuery()) {
+                                if (rs.next() && rs.getBoolean(1)) {
+                                    opening = null;
+                                }
+                            }
+                        }
+                        if (opening != null) {
+                            transactionDAO.insert(connection, opening);
+                        }
+                        connection.commit();
+                        if (opening != null) {
+                            logged.add(opening);
+                        }
+                    } catch (SQLException e) {
+                        try {
+                            connection.rollback();
+                        } catch (SQLException rollbackEx) {
+                            e.addSuppressed(rollbackEx);
+                        }
+                        throw e;
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error logging opening balances", "error", e.getMessage());
+            return -1;
+        } finally {
+            logged.forEach(transactionDAO::logged);
+        }
+
+        return logged.size();
+    }
+
+    /**
+     * Overwrite mismatched balances with their ledger values, one account per transaction
+     *
+     * The account row is locked before its ledger net is recomputed. A posting updates the balance
+     * and logs its ledger row in one transaction under that same lock, so each posting is either
+     * fully counted or not started; only a balance that still disagrees with its ledger is written.
+     *
+     * @return number of balances rebuilt, or -1 on error
+     */
+    public int rebuildBalances(List<BalanceCheck> mismatches) {
+        String cents = format.amountCents();
+        String lockSql = "SELECT balance FROM accounts WHERE id = ? FOR UPDATE";
+        String netSql = "SELECT COALESCE(SUM(CASE WHEN to_account = ? THEN " + cents + " ELSE -" + cents + " END), 0) " +
+                       "FROM transactions WHERE from_account = ? OR to_account = ?";
+        String updateSql = "UPDATE accounts SET balance = ?, version = version + 1 WHERE id = ?";
+        List<Integer> rebuiltIds = new ArrayList<>();
+
+        try (Connection connection = dbConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement(lockSql);
+                 PreparedStatement net = connection.prepareStatement(netSql);
+                 PreparedStatement update = connection.prepareStatement(updateSql)) {
+
+                for (BalanceCheck check : mismatches) {
+                    int accountId = check.getAccountId();
+                    try {
+                        Money stored = null;
+                        lock.setInt(1, accountId);
+                        try (ResultSet rs = lock.executeQuery()) {
+                            if (rs.next()) {
+                                stored = Money.of(rs.getBigDecimal(1));
+                            }
+                        }
+                        if (stored != null) {
+                            net.setInt(1, accountId);
+                            net.setInt(2, accountId);
+                            net.setInt(3, accountId);
+                            Money ledger = Money.ZERO;
+                            try (ResultSet rs = net.executeQuery()) {
+                                if (rs.next()) {
+                                    ledger = Money.ofCents(rs.getLong(1));
+                                }
+                            }
+                            if (!stored.equals(ledger)) {
+                                update.setBigDecimal(1, ledger.toBigDecimal());
+                                update.setInt(2, accountId);
+                                update.executeUpdate();
+                                ChangeLogDAO.record(connection, CachedEntity.ACCOUNT, accountId);
+                                rebuiltIds.add(accountId);
+                            }
+                        }
+                        connection.commit();
+                    } catch (SQLException e) {
+                        rebuiltIds.remove(Integer.valueOf(accountId));
+                        try {
+                            connection.rollback();
+                        } catch (SQLException rollbackEx) {
+                            e.addSuppressed(rollbackEx);
+                        }
+                        throw e;
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error rebuilding balances", "error", e.getMessage());
+            return -1;
+        } finally {
+            AccountDAO accountDAO = new AccountDAO();
+            for (int accountId : rebuiltIds) {
+                EntityCaches.ACCOUNTS.invalidate(accountId);
+                accountDAO.refreshBalanceEntry(accountId);
+            }
+        }
+
+        return rebuiltIds.size();
+    }
+
+    // ==================== SAVED MISMATCHES ====================
+
+    /**
+     * Replace the saved mismatches of accounts with ids in [fromId, toId], so a pass that is
+     * resumed later can still report what its earlier runs found
+     */
+    public boolean saveMismatches(int fromId, int toId, List<BalanceCheck> mismatches) {
+        String deleteSql = "DELETE FROM reconciliation_mismatches WHERE account_id BETWEEN ? AND ?";
+        String insertSql = "INSERT INTO reconciliation_mismatches (account_id, stored_balance, ledger_balance) VALUES (?, ?, ?)";
+
+        try (Connection connection = dbConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(deleteSql);
+                 PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                delete.setInt(1, fromId);
+                delete.setInt(2, toId);
+                delete.executeUpdate();
+                for (BalanceCheck check : mismatches) {
+                    insert.setInt(1, check.getAccountId());
+                    insert.setBigDecimal(2, check.getStoredBalance().toBigDecimal());
+                    insert.setBigDecimal(3, check.getLedgerBalance().toBigDecimal());
+                    insert.addBatch();
+                }
+                if (!mismatches.isEmpty()) {
+                    insert.executeBatch();
+                }
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error saving reconciliation mismatches", "fromId", fromId, "toId", toId, "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the saved mismatches of accounts with ids up to and including upToId
+     *
+     * @return the mismatches, or null on error
+     */
+    public List<BalanceCheck> findSavedMismatches(int upToId) {
+        List<BalanceCheck> mismatches = new ArrayList<>();
+        String sql = "SELECT account_id, stored_balance, ledger_balance FROM reconciliation_mismatches " +
+                    "WHERE account_id <= ? ORDER BY account_id";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, upToId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    mismatches.add(new BalanceCheck(rs.getInt(1), Money.of(rs.getBigDecimal(2)), Money.of(rs.getBigDecimal(3))));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading reconciliation mismatches", "error", e.getMessage());
+            return null;
+        }
+
+        return mismatches;
+    }
+
+    /**
+     * Forget the saved mismatches before a fresh pass
+     */
+    public boolean clearSavedMismatches() {
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement("DELETE FROM reconciliation_mismatches")) {
+
+            pstmt.executeUpdate();
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error clearing reconciliation mismatches", "error", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Stored vs ledger balance for one account
+     */
+    public static class BalanceCheck {
+        private final int accountId;
+        private final Money storedBalance;
+        private final Money ledgerBalance;
+        private final long ledgerRows;
+        private final boolean openingLogged;
+        private final LocalDateTime openedAt;
+
+        public BalanceCheck(int accountId, Money storedBalance, Money ledgerBalance) {
+            this(accountId, storedBalance, ledgerBalance, -1, true, null);
+        }
+
+        public BalanceCheck(int accountId, Money storedBalance, Money ledgerBalance, long ledgerRows,
+                            boolean openingLogged, LocalDateTime openedAt) {
+            this.accountId = accountId;
+            this.storedBalance = storedBalance != null ? storedBalance : Money.ZERO;
+            this.ledgerBalance = ledgerBalance != null ? ledgerBalance : Money.ZERO;
+            this.ledgerRows = ledgerRows;
+            this.openingLogged = openingLogged;
+            this.openedAt = openedAt;
+        }
+
+        public int getAccountId() { return accountId; }
+        public Money getStoredBalance() { return storedBalance; }
+        public Money getLedgerBalance() { return ledgerBalance; }
+        public LocalDateTime getOpenedAt() { return openedAt; }
+
+        // Ledger rows touching the account, -1 when not known (e.g. saved mismatches)
+        public long getLedgerRows() { return ledgerRows; }
+
+        // Whether the ledger holds the account's OPENING row; one opened before opening balances
+        // were logged has none, and its ledger net is missing that balance
+        public boolean isOpeningLogged() { return openingLogged; }
+
+        public boolean isBalanced() {
+            return storedBalance.equals(ledgerBalance);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BalanceCheck{accountId=%d, stored=%s, ledger=%s}", accountId, storedBalance, ledgerBalance);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.banking.dao;
+
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Data Access Object for the startup schema check
+ * Databases created from an earlier sql/schema.sql lack the tables and columns added since;
+ * sql/upgrade.sql adds them, and this check stops a node that would otherwise fail on first use.
+ */
+public class SchemaDAO {
+
+    private static final Log LOG = Log.get(SchemaDAO.class);
+
+    // Tables the application expects besides customers, accounts and transactions
+    private static final List<String> REQUIRED_TABLES = List.of(
+            "job_watermarks", "job_id_gaps", "reconciliation_mismatches", "balance_checkpoints",
+            "transaction_rollups", "entity_changes");
+
+    // Columns added to existing tables, as table.column
+    private static final List<String> REQUIRED_COLUMNS = List.of("accounts.version");
+
+    private final DatabaseConnection dbConnection;
+
+    public SchemaDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Get the required tables and columns missing from the database
+     *
+     * @return missing table and table.column names (empty when up to date), or null on error
+     */
+    public List<String> findMissing() {
+        String sql = "SELECT TABLE_NAME, COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()";
+        Set<String> missing = new LinkedHashSet<>(REQUIRED_TABLES);
+        missing.addAll(REQUIRED_COLUMNS);
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                String table = rs.getString(1).toLowerCase();
+                missing.remove(table);
+                missing.remove(table + "." + rs.getString(2).toLowerCase());
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading the database schema", "error", e.getMessage());
+            return null;
+        }
+
+        return new ArrayList<>(missing);
+    }
+}
@@ -0,0 +1,101 @@
+package com.banking.dao;
+
+import com.banking.index.SegmentIndex;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Loads the segmentation bitmaps
+ * Account type, owner and balance tier follow the balance index; this DAO loads customer ages
+ * and the recent activity that the other DAOs, and the change log for other nodes, keep current.
+ */
+public class SegmentDAO {
+
+    private static final Log LOG = Log.get(SegmentDAO.class);
+
+    // Shared by every DAO instance, like the balance index it follows
+    static final SegmentIndex SEGMENT_INDEX = new SegmentIndex();
+
+    private final DatabaseConnection dbConnection;
+
+    public SegmentDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Load customer ages with one streaming scan
+     * Must run before the balance index loads, so accounts land in their owner's age band.
+     */
+    public void loadCustomerAges() {
+        String sql = "SELECT id, age FROM customers";
+        SEGMENT_INDEX.beginCustomerLoad();
+        boolean complete = false;
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(Integer.MIN_VALUE); // MySQL row-by-row streaming
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    SEGMENT_INDEX.loadCustomer(rs.getInt(1), rs.getInt(2));
+                }
+            }
+            complete = true;
+
+        } catch (SQLException e) {
+            LOG.error("Error scanning customer ages", "error", e.getMessage());
+        }
+
+        SEGMENT_INDEX.endCustomerLoad(complete);
+    }
+
+    /**
+     * Load which accounts had transactions on each day of the activity window
+     * Activity marks are idempotent, so transactions logged during the scan need no special care.
+     */
+    public void loadRecentActivity() {
+        String sql = "SELECT from_account, to_account, timestamp FROM transactions WHERE timestamp >= ?";
+        LocalDate firstDay = LocalDate.now().minusDays(SegmentIndex.MAX_ACTIVITY_DAYS - 1);
+        boolean complete = false;
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(Integer.MIN_VALUE); // MySQL row-by-row streaming
+            pstmt.setTimestamp(1, Timestamp.valueOf(firstDay.atStartOfDay()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    // getInt reads a missing leg as 0, which recordActivity skips
+                    long day = rs.getTimestamp(3).toLocalDateTime().toLocalDate().toEpochDay();
+                    SEGMENT_INDEX.recordActivity(rs.getInt(1), rs.getInt(2), day);
+                }
+            }
+            complete = true;
+
+        } catch (SQLException e) {
+            LOG.error("Error scanning recent activity", "error", e.getMessage());
+        }
+
+        SEGMENT_INDEX.endActivityLoad(complete);
+    }
+
+    /**
+     * Mark an account active today, e.g. after another node posted to it
+     */
+    public void recordActivity(int accountId) {
+        SEGMENT_INDEX.recordActivity(accountId, 0, LocalDate.now().toEpochDay());
+    }
+
+    public SegmentIndex getSegmentIndex() {
+        return SEGMENT_INDEX;
+    }
+
+    public boolean isReady() {
+        return SEGMENT_INDEX.isReady(AccountDAO.BALANCE_INDEX);
+    }
+}
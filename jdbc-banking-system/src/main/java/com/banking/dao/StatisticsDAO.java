@@ -0,0 +1,201 @@
+package com.banking.dao;
+
+import com.banking.model.Account;
+import com.banking.model.SystemStatistics;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Row counts for the statistics screen without scanning tables on every view
+ *
+ * The counts are taken with a single grouped query. After that, the DAO create and delete paths
+ * bump in-process counters and a read is baseline + writes since the baseline, so it costs no
+ * database work. The baseline is retaken every STATS_REFRESH_SECONDS (default 60; 0 keeps it until
+ * restart, which is only right for a single node that is the database's only writer).
+ *
+ * The counters are bumped after their write commits, so the count query and the counter snapshot
+ * cannot be taken atomically without locking every write. A write committing between the two is
+ * counted twice, and writes by other nodes are missing; both last only until the next recount.
+ */
+public class StatisticsDAO {
+
+    private static final Log LOG = Log.get(StatisticsDAO.class);
+
+    private static final String CUSTOMERS = "customers";
+    private static final String TRANSACTIONS = "transactions";
+
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(Long.parseLong(
+            DatabaseConnection.getInstance().getProperty("STATS_REFRESH_SECONDS", "60")));
+    // Count queries run before settling for one that raced a write
+    private static final int BASELINE_ATTEMPTS = 3;
+
+    // Writes since startup, keyed by CUSTOMERS, TRANSACTIONS or an account type
+    private static final ConcurrentHashMap<String, LongAdder> DELTAS = new ConcurrentHashMap<>();
+    private static volatile boolean stale;
+
+    private final DatabaseConnection dbConnection;
+    private volatile Baseline baseline;
+
+    public StatisticsDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    // ==================== WRITE SIDE ====================
+
+    static void customersCreated(int count) {
+        add(CUSTOMERS, count);
+    }
+
+    static void customerDeleted() {
+        add(CUSTOMERS, -1);
+    }
+
+    static void accountCreated(String accountType) {
+        add(accountType, 1);
+    }
+
+    static void accountDeleted(String accountType) {
+        add(accountType, -1);
+    }
+
+    static void transactionCreated() {
+        add(TRANSACTIONS, 1);
+    }
+
+    static void transactionDeleted() {
+        add(TRANSACTIONS, -1);
+    }
+
+    // A write whose effect on the counts is unknown; the next read recounts
+    static void markStale() {
+        stale = true;
+    }
+
+    private static void add(String key, long delta) {
+        DELTAS.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    // ==================== READ SIDE ====================
+
+    /**
+     * Get the current counts; queries the database only when no baseline exists yet or it has expired
+     *
+     * @return the counts, or null if no baseline could be loaded
+     */
+    public SystemStatistics getStatistics() {
+        if (stale) {
+            stale = false;
+            baseline = null;
+        }
+        Baseline current = baseline;
+        if (current == null || (REFRESH_NANOS > 0 && System.nanoTime() - current.takenAt > REFRESH_NANOS)) {
+            Baseline fresh = loadBaseline();
+            if (fresh != null) {
+                baseline = fresh;
+                current = fresh;
+            } else if (current == null) {
+                return null;
+            }
+        }
+        return current.plus(snapshotDeltas());
+    }
+
+    /**
+     * Drop the baseline so the next read recounts, e.g. after rows were changed outside the DAOs
+     */
+    public void refresh() {
+        baseline = null;
+    }
+
+    /**
+     * Count customers, transactions and accounts per type in one round trip
+     * The deltas are read first: a write racing the query can be counted twice until the next
+     * baseline, but none is lost. The query is retried until no delta moved while it ran, so
+     * only a write still between its commit and its counter bump is counted twice.
+     */
+    private Baseline loadBaseline() {
+        String sql = "SELECT '" + CUSTOMERS + "' AS counter, COUNT(*) AS total FROM customers " +
+                    "UNION ALL SELECT account_type, COUNT(*) FROM accounts GROUP BY account_type " +
+                    "UNION ALL SELECT '" + TRANSACTIONS + "', COUNT(*) FROM transactions";
+        Map<String, Long> deltasBefore;
+        long takenAt;
+        Map<String, Long> counts = new HashMap<>();
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            for (int attempt = 1; ; attempt++) {
+                deltasBefore = snapshotDeltas();
+                takenAt = System.nanoTime();
+                counts.clear();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        counts.put(rs.getString("counter"), rs.getLong("total"));
+                    }
+                }
+                if (attempt == BASELINE_ATTEMPTS || deltasBefore.equals(snapshotDeltas())) {
+                    break;
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error loading system statistics", "error", e.getMessage());
+            return null;
+        }
+
+        deltasBefore.forEach((key, delta) -> counts.merge(key, -delta, Long::sum));
+        return new Baseline(counts, takenAt, LocalDateTime.now());
+    }
+
+    private static Map<String, Long> snapshotDeltas() {
+        Map<String, Long> snapshot = new HashMap<>();
+        DELTAS.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Database counts minus the deltas already applied when they were taken
+     */
+    private static final class Baseline {
+        private final Map<String, Long> counts;
+        private final long takenAt;
+        private final LocalDateTime countedAt;
+
+        Baseline(Map<String, Long> counts, long takenAt, LocalDateTime countedAt) {
+            this.counts = counts;
+            this.takenAt = takenAt;
+            this.countedAt = countedAt;
+        }
+
+        SystemStatistics plus(Map<String, Long> deltas) {
+            Map<String, Long> totals = new HashMap<>(counts);
+            deltas.forEach((key, delta) -> totals.merge(key, delta, Long::sum));
+
+            Map<String, Long> accountsByType = new LinkedHashMap<>();
+            accountsByType.put(Account.SAVINGS, 0L);
+            accountsByType.put(Account.CURRENT, 0L);
+            accountsByType.put(Account.FIXED_DEPOSIT, 0L);
+            totals.forEach((key, total) -> {
+                if (!key.equals(CUSTOMERS) && !key.equals(TRANSACTIONS)) {
+                    accountsByType.put(key, Math.max(0, total));
+                }
+            });
+
+            return new SystemStatistics(
+                Math.max(0, totals.getOrDefault(CUSTOMERS, 0L)),
+                Math.max(0, totals.getOrDefault(TRANSACTIONS, 0L)),
+                accountsByType,
+                countedAt
+            );
+        }
+    }
+}
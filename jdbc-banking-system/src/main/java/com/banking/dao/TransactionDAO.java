@@ -1,12 +1,16 @@
 package com.banking.dao;
 
+import com.banking.metrics.Metrics;
+import com.banking.model.Money;
 import com.banking.model.Transaction;
+import com.banking.model.TransactionType;
 import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
 
-import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,53 +19,164 @@ import java.util.Optional;
  * Demonstrates DAO pattern, prepared statements, and proper resource management
  */
 public class TransactionDAO {
+
+    private static final Log LOG = Log.get(TransactionDAO.class);
     
     private final DatabaseConnection dbConnection;
+    private final LedgerFormat format;
 
     public TransactionDAO() {
         this.dbConnection = DatabaseConnection.getInstance();
+        this.format = LedgerFormat.current();
     }
 
     /**
      * Create a new transaction in the database
+     * While a format migration is running the row is mirrored into the shadow table in the same transaction
      */
     public boolean createTransaction(Transaction transaction) {
-        String sql = "INSERT INTO transactions (from_account, to_account, amount, type, timestamp) VALUES (?, ?, ?, ?, ?)";
+        return createTransaction(transaction, false);
+    }
+
+    private boolean createTransaction(Transaction transaction, boolean retried) {
+        boolean mirror = format.mirrorsToShadow();
+        Connection connection = null;
         
-        try (Connection connection = dbConnection.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setObject(1, transaction.getFromAccountId());
-            pstmt.setObject(2, transaction.getToAccountId());
-            pstmt.setBigDecimal(3, transaction.getAmount());
-            pstmt.setString(4, transaction.getType());
-            pstmt.setTimestamp(5, Timestamp.valueOf(transaction.getTimestamp()));
-            
-            int affectedRows = pstmt.executeUpdate();
+        try {
+            connection = dbConnection.getConnection();
+            if (mirror) {
+                connection.setAutoCommit(false);
+            }
             
-            if (affectedRows > 0) {
-                // Get the generated ID
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        transaction.setId(generatedKeys.getInt(1));
-                        System.out.println("✅ Transaction logged successfully with ID: " + transaction.getId());
-                        return true;
-                    }
-                }
+            insert(connection, transaction);
+            if (mirror) {
+                connection.commit();
             }
+            logged(transaction);
+            return true;
             
         } catch (SQLException e) {
-            System.err.println("❌ Error creating transaction: " + e.getMessage());
+            rollbackQuietly(connection, mirror);
+            // The tables were swapped to the compact layout under this node, or the swap picked this
+            // mirrored write as its deadlock victim: write the row again
+            boolean swappedUnderUs = LedgerFormat.recheckAfter(e);
+            if (swappedUnderUs || (mirror && !retried && e.getErrorCode() == 1213)) {
+                Metrics.recordRetry(swappedUnderUs ? Metrics.LEDGER_SWAP : Metrics.DEADLOCK);
+                closeMirrorConnection(connection, mirror);
+                connection = null;
+                return createTransaction(transaction, true);
+            }
+            LOG.error("Error creating transaction", "error", e.getMessage());
+        } finally {
+            closeMirrorConnection(connection, mirror);
         }
         
         return false;
     }
 
+    /**
+     * Insert a ledger row on the caller's connection, inside the caller's transaction, and set its id
+     * While a format migration is running the row is mirrored into the shadow table too. Call
+     * logged() once the transaction has committed.
+     */
+    void insert(Connection connection, Transaction transaction) throws SQLException {
+        String sql = format.readsCompact()
+                ? "INSERT INTO transactions (from_account, to_account, amount_cents, type_code, timestamp) VALUES (?, ?, ?, ?, ?)"
+                : "INSERT INTO transactions (from_account, to_account, amount, type, timestamp) VALUES (?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            setAccountId(pstmt, 1, transaction.getFromAccountId());
+            setAccountId(pstmt, 2, transaction.getToAccountId());
+            if (format.readsCompact()) {
+                pstmt.setLong(3, transaction.getAmountCents());
+                pstmt.setByte(4, transaction.getTransactionType().code());
+            } else {
+                pstmt.setBigDecimal(3, transaction.getAmount().toBigDecimal());
+                pstmt.setString(4, transaction.getType());
+            }
+            pstmt.setTimestamp(5, Timestamp.valueOf(transaction.getTimestamp()));
+            pstmt.executeUpdate();
+            
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("No id generated for the transaction row");
+                }
+                transaction.setId(generatedKeys.getInt(1));
+            }
+        }
+        
+        if (format.mirrorsToShadow()) {
+            insertShadowCopy(connection, transaction);
+        }
+    }
+
+    /**
+     * Count a ledger row whose transaction has committed
+     */
+    void logged(Transaction transaction) {
+        StatisticsDAO.transactionCreated();
+        recordActivity(transaction);
+        LOG.info("Transaction logged successfully", "transactionId", transaction.getId());
+    }
+
+    // Write the compact copy of a freshly inserted legacy row under the same id
+    private void insertShadowCopy(Connection connection, Transaction transaction) throws SQLException {
+        String sql = "INSERT INTO " + LedgerFormat.SHADOW_TABLE +
+                    " (id, from_account, to_account, amount_cents, type_code, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, transaction.getId());
+            setAccountId(pstmt, 2, transaction.getFromAccountId());
+            setAccountId(pstmt, 3, transaction.getToAccountId());
+            pstmt.setLong(4, transaction.getAmountCents());
+            pstmt.setByte(5, transaction.getTransactionType().code());
+            pstmt.setTimestamp(6, Timestamp.valueOf(transaction.getTimestamp()));
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Both legs of a transaction count as activity for the segment bitmaps
+    private static void recordActivity(Transaction transaction) {
+        SegmentDAO.SEGMENT_INDEX.recordActivity(transaction.getFromAccountId(), transaction.getToAccountId(),
+                                                transaction.getTimestamp().toLocalDate().toEpochDay());
+    }
+
+    private static void setAccountId(PreparedStatement pstmt, int index, int accountId) throws SQLException {
+        if (accountId > 0) {
+            pstmt.setInt(index, accountId);
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection, boolean inTransaction) {
+        try {
+            if (connection != null && inTransaction) {
+                connection.rollback();
+            }
+        } catch (SQLException rollbackEx) {
+            LOG.error("Error rolling back transaction", "error", rollbackEx.getMessage());
+        }
+    }
+
+    private static void closeMirrorConnection(Connection connection, boolean inTransaction) {
+        try {
+            if (connection != null) {
+                if (inTransaction) {
+                    connection.setAutoCommit(true); // Reset auto-commit
+                }
+                connection.close();
+            }
+        } catch (SQLException e) {
+            LOG.error("Error closing connection", "error", e.getMessage());
+        }
+    }
+
     /**
      * Find transaction by ID
      */
     public Optional<Transaction> findById(int transactionId) {
-        String sql = "SELECT * FROM transactions WHERE id = ?";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions WHERE id = ?";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -75,7 +190,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding transaction by ID: " + e.getMessage());
+            LOG.error("Error finding transaction by ID", "error", e.getMessage());
         }
         
         return Optional.empty();
@@ -86,7 +201,7 @@ public class TransactionDAO {
      */
     public List<Transaction> findByAccountId(int accountId) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE from_account = ? OR to_account = ? ORDER BY timestamp DESC";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions WHERE from_account = ? OR to_account = ? ORDER BY timestamp DESC";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -101,7 +216,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding transactions by account ID: " + e.getMessage());
+            LOG.error("Error finding transactions by account ID", "error", e.getMessage());
         }
         
         return transactions;
@@ -112,7 +227,7 @@ public class TransactionDAO {
      */
     public List<Transaction> findAll() {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions ORDER BY timestamp DESC";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions ORDER BY timestamp DESC";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql);
@@ -123,7 +238,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error retrieving all transactions: " + e.getMessage());
+            LOG.error("Error retrieving all transactions", "error", e.getMessage());
         }
         
         return transactions;
@@ -134,12 +249,17 @@ public class TransactionDAO {
      */
     public List<Transaction> findByType(String type) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE type = ? ORDER BY timestamp DESC";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions WHERE " +
+                    (format.readsCompact() ? "type_code = ?" : "type = ?") + " ORDER BY timestamp DESC";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
-            pstmt.setString(1, type);
+            if (format.readsCompact()) {
+                pstmt.setByte(1, TransactionType.codeOf(type));
+            } else {
+                pstmt.setString(1, type);
+            }
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -148,7 +268,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding transactions by type: " + e.getMessage());
+            LOG.error("Error finding transactions by type", "error", e.getMessage());
         }
         
         return transactions;
@@ -159,7 +279,7 @@ public class TransactionDAO {
      */
     public List<Transaction> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE timestamp BETWEEN ? AND ? ORDER BY timestamp DESC";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions WHERE timestamp BETWEEN ? AND ? ORDER BY timestamp DESC";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -174,7 +294,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding transactions by date range: " + e.getMessage());
+            LOG.error("Error finding transactions by date range", "error", e.getMessage());
         }
         
         return transactions;
@@ -183,14 +303,15 @@ public class TransactionDAO {
     /**
      * Get transactions with amount greater than specified value
      */
-    public List<Transaction> findByAmountGreaterThan(BigDecimal amount) {
+    public List<Transaction> findByAmountGreaterThan(Money amount) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE amount > ? ORDER BY amount DESC, timestamp DESC";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions WHERE " + format.amountCents() +
+                    " > ? ORDER BY amount_cents DESC, timestamp DESC";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
-            pstmt.setBigDecimal(1, amount);
+            pstmt.setLong(1, amount.getCents());
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -199,7 +320,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding transactions by amount: " + e.getMessage());
+            LOG.error("Error finding transactions by amount", "error", e.getMessage());
         }
         
         return transactions;
@@ -210,7 +331,7 @@ public class TransactionDAO {
      */
     public List<Transaction> findRecentTransactions(int limit) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions ORDER BY timestamp DESC LIMIT ?";
+        String sql = "SELECT " + format.selectColumns() + " FROM transactions ORDER BY timestamp DESC LIMIT ?";
         
         try (Connection connection = dbConnection.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -224,7 +345,7 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error finding recent transactions: " + e.getMessage());
+            LOG.error("Error finding recent transactions", "error", e.getMessage());
         }
         
         return transactions;
@@ -234,12 +355,14 @@ public class TransactionDAO {
      * Get transaction summary for an account
      */
     public TransactionSummary getTransactionSummary(int accountId) {
+        String cents = format.amountCents();
+        String code = format.typeCode();
         String sql = "SELECT " +
                     "COUNT(*) as total_transactions, " +
-                    "SUM(CASE WHEN type = 'DEPOSIT' THEN amount ELSE 0 END) as total_deposits, " +
-                    "SUM(CASE WHEN type = 'WITHDRAW' THEN amount ELSE 0 END) as total_withdrawals, " +
-                    "SUM(CASE WHEN type = 'TRANSFER' AND from_account = ? THEN amount ELSE 0 END) as total_sent, " +
-                    "SUM(CASE WHEN type = 'TRANSFER' AND to_account = ? THEN amount ELSE 0 END) as total_received " +
+                    "SUM(CASE WHEN " + code + " = 1 THEN " + cents + " ELSE 0 END) as total_deposits, " +
+                    "SUM(CASE WHEN " + code + " = 2 THEN " + cents + " ELSE 0 END) as total_withdrawals, " +
+                    "SUM(CASE WHEN " + code + " = 3 AND from_account = ? THEN " + cents + " ELSE 0 END) as total_sent, " +
+                    "SUM(CASE WHEN " + code + " = 3 AND to_account = ? THEN " + cents + " ELSE 0 END) as total_received " +
                     "FROM transactions WHERE from_account = ? OR to_account = ?";
         
         try (Connection connection = dbConnection.getConnection();
@@ -254,19 +377,57 @@ public class TransactionDAO {
                 if (rs.next()) {
                     return new TransactionSummary(
                         rs.getInt("total_transactions"),
-                        rs.getBigDecimal("total_deposits"),
-                        rs.getBigDecimal("total_withdrawals"),
-                        rs.getBigDecimal("total_sent"),
-                        rs.getBigDecimal("total_received")
+                        Money.ofCents(rs.getLong("total_deposits")),
+                        Money.ofCents(rs.getLong("total_withdrawals")),
+                        Money.ofCents(rs.getLong("total_sent")),
+                        Money.ofCents(rs.getLong("total_received"))
                     );
                 }
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting transaction summary: " + e.getMessage());
+            LOG.error("Error getting transaction summary", "error", e.getMessage());
         }
         
-        return new TransactionSummary(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+        return new TransactionSummary(0, Money.ZERO, Money.ZERO, Money.ZERO, Money.ZERO);
+    }
+
+    /**
+     * Get the net balance change of an account over [from, to]
+     * Credits count positive and debits negative; a null bound leaves that side open
+     */
+    public Money getNetChange(int accountId, LocalDateTime from, LocalDateTime to) {
+        String cents = format.amountCents();
+        String sql = "SELECT COALESCE(SUM(CASE WHEN to_account = ? THEN " + cents + " ELSE -" + cents + " END), 0) " +
+                    "FROM transactions WHERE (from_account = ? OR to_account = ?)" +
+                    (from != null ? " AND timestamp >= ?" : "") +
+                    (to != null ? " AND timestamp <= ?" : "");
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            int index = 1;
+            pstmt.setInt(index++, accountId);
+            pstmt.setInt(index++, accountId);
+            pstmt.setInt(index++, accountId);
+            if (from != null) {
+                pstmt.setTimestamp(index++, Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                pstmt.setTimestamp(index, Timestamp.valueOf(to));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Money.ofCents(rs.getLong(1));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error getting net balance change", "error", e.getMessage());
+        }
+
+        return Money.ZERO;
     }
 
     /**
@@ -274,28 +435,110 @@ public class TransactionDAO {
      */
     public boolean deleteTransaction(int transactionId) {
         String sql = "DELETE FROM transactions WHERE id = ?";
+        boolean mirror = format.mirrorsToShadow();
+        Connection connection = null;
         
-        try (Connection connection = dbConnection.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try {
+            connection = dbConnection.getConnection();
+            if (mirror) {
+                connection.setAutoCommit(false);
+            }
             
-            pstmt.setInt(1, transactionId);
+            int affectedRows;
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setInt(1, transactionId);
+                affectedRows = pstmt.executeUpdate();
+            }
             
-            int affectedRows = pstmt.executeUpdate();
+            if (mirror) {
+                try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM " + LedgerFormat.SHADOW_TABLE + " WHERE id = ?")) {
+                    pstmt.setInt(1, transactionId);
+                    pstmt.executeUpdate();
+                }
+                connection.commit();
+            }
             
             if (affectedRows > 0) {
-                System.out.println("✅ Transaction deleted successfully!");
+                StatisticsDAO.transactionDeleted();
+                LOG.info("Transaction deleted successfully!");
                 return true;
             } else {
-                System.out.println("❌ Transaction not found for deletion!");
+                LOG.warn("Transaction not found for deletion!");
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error deleting transaction: " + e.getMessage());
+            rollbackQuietly(connection, mirror);
+            if (LedgerFormat.recheckAfter(e)) {
+                closeMirrorConnection(connection, mirror);
+                connection = null;
+                return deleteTransaction(transactionId);
+            }
+            LOG.error("Error deleting transaction", "error", e.getMessage());
+        } finally {
+            closeMirrorConnection(connection, mirror);
         }
         
         return false;
     }
 
+    /**
+     * Delete every transaction that touches one of the given accounts, in one statement, e.g. to
+     * remove a test fixture
+     *
+     * @return number of transactions deleted, or -1 on error
+     */
+    public int deleteByAccountIds(int... accountIds) {
+        if (accountIds.length == 0) {
+            return 0;
+        }
+        String ids = String.join(", ", Collections.nCopies(accountIds.length, "?"));
+        String condition = " WHERE from_account IN (" + ids + ") OR to_account IN (" + ids + ")";
+        boolean mirror = format.mirrorsToShadow();
+        Connection connection = null;
+
+        try {
+            connection = dbConnection.getConnection();
+            if (mirror) {
+                connection.setAutoCommit(false);
+                // The shadow copy first: its rows are found by the same account ids
+                deleteWhere(connection, "DELETE FROM " + LedgerFormat.SHADOW_TABLE + condition, accountIds);
+            }
+            int deleted = deleteWhere(connection, "DELETE FROM transactions" + condition, accountIds);
+            if (mirror) {
+                connection.commit();
+            }
+            for (int i = 0; i < deleted; i++) {
+                StatisticsDAO.transactionDeleted();
+            }
+            LOG.info("Transactions deleted", "accounts", accountIds.length, "rows", deleted);
+            return deleted;
+
+        } catch (SQLException e) {
+            rollbackQuietly(connection, mirror);
+            if (LedgerFormat.recheckAfter(e)) {
+                closeMirrorConnection(connection, mirror);
+                connection = null;
+                return deleteByAccountIds(accountIds);
+            }
+            LOG.error("Error deleting transactions", "error", e.getMessage());
+        } finally {
+            closeMirrorConnection(connection, mirror);
+        }
+
+        return -1;
+    }
+
+    // Both IN lists take the same ids
+    private static int deleteWhere(Connection connection, String sql, int[] accountIds) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < accountIds.length; i++) {
+                pstmt.setInt(i + 1, accountIds[i]);
+                pstmt.setInt(accountIds.length + i + 1, accountIds[i]);
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+
     /**
      * Get transaction count
      */
@@ -311,22 +554,132 @@ public class TransactionDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("❌ Error getting transaction count: " + e.getMessage());
+            LOG.error("Error getting transaction count", "error", e.getMessage());
         }
         
         return 0;
     }
 
+    /**
+     * Stream ledger rows with id greater than afterId, in id order
+     * Conversion to epoch millis (and to cents and type codes on the legacy format) happens in SQL
+     * so no row objects are built
+     *
+     * @return the highest id seen, or afterId when nothing new was found
+     */
+    public int scanSince(int afterId, LedgerRowHandler handler) {
+        return scanSince(afterId, Integer.MAX_VALUE, handler);
+    }
+
+    /**
+     * Stream ledger rows with ids in (afterId, upToId], in id order
+     *
+     * @return id of the last row delivered, or afterId when none
+     */
+    public int scanSince(int afterId, int upToId, LedgerRowHandler handler) {
+        String sql = "SELECT id, from_account, to_account, " +
+                    format.amountCents() + " AS amount_cents, " +
+                    format.typeCode() + " AS type_code, " +
+                    "CAST(UNIX_TIMESTAMP(timestamp) * 1000 AS SIGNED) AS ts_millis " +
+                    "FROM transactions WHERE id > ? AND id <= ? ORDER BY id";
+        int lastId = afterId;
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, upToId);
+            pstmt.setFetchSize(Integer.MIN_VALUE); // MySQL row-by-row streaming
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    lastId = rs.getInt(1);
+                    handler.onRow(lastId, rs.getInt(2), rs.getInt(3), rs.getLong(4), rs.getByte(5), rs.getLong(6));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error scanning ledger", "error", e.getMessage());
+        }
+
+        return lastId;
+    }
+
+    /**
+     * Stream the ledger rows with the given ids, in id order; ids without a row are skipped
+     *
+     * @return number of rows delivered, or -1 on error
+     */
+    public int scanIds(List<Integer> ids, LedgerRowHandler handler) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "SELECT id, from_account, to_account, " +
+                    format.amountCents() + " AS amount_cents, " +
+                    format.typeCode() + " AS type_code, " +
+                    "CAST(UNIX_TIMESTAMP(timestamp) * 1000 AS SIGNED) AS ts_millis " +
+                    "FROM transactions WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") ORDER BY id";
+        int delivered = 0;
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.onRow(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getLong(4), rs.getByte(5), rs.getLong(6));
+                    delivered++;
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading ledger rows by id", "error", e.getMessage());
+            return -1;
+        }
+
+        return delivered;
+    }
+
+    /**
+     * Number of ledger rows with ids in [fromId, toId]
+     *
+     * @return the count, or -1 on error
+     */
+    public long countRange(int fromId, int toId) {
+        String sql = "SELECT COUNT(*) FROM transactions WHERE id BETWEEN ? AND ?";
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, fromId);
+            pstmt.setInt(2, toId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error counting ledger rows", "error", e.getMessage());
+        }
+
+        return -1;
+    }
+
     /**
      * Map ResultSet to Transaction object
      */
     private Transaction mapResultSetToTransaction(ResultSet rs) throws SQLException {
         return new Transaction(
             rs.getInt("id"),
-            rs.getObject("from_account", Integer.class),
-            rs.getObject("to_account", Integer.class),
-            rs.getBigDecimal("amount"),
-            rs.getString("type"),
+            rs.getInt("from_account"),
+            rs.getInt("to_account"),
+            Money.ofCents(rs.getLong("amount_cents")),
+            TransactionType.fromCode(rs.getByte("type_code")),
             rs.getTimestamp("timestamp").toLocalDateTime()
         );
     }
@@ -336,25 +689,25 @@ public class TransactionDAO {
      */
     public static class TransactionSummary {
         private final int totalTransactions;
-        private final BigDecimal totalDeposits;
-        private final BigDecimal totalWithdrawals;
-        private final BigDecimal totalSent;
-        private final BigDecimal totalReceived;
+        private final Money totalDeposits;
+        private final Money totalWithdrawals;
+        private final Money totalSent;
+        private final Money totalReceived;
 
-        public TransactionSummary(int totalTransactions, BigDecimal totalDeposits, 
-                                BigDecimal totalWithdrawals, BigDecimal totalSent, BigDecimal totalReceived) {
+        public TransactionSummary(int totalTransactions, Money totalDeposits, 
+                                Money totalWithdrawals, Money totalSent, Money totalReceived) {
             this.totalTransactions = totalTransactions;
-            this.totalDeposits = totalDeposits != null ? totalDeposits : BigDecimal.ZERO;
-            this.totalWithdrawals = totalWithdrawals != null ? totalWithdrawals : BigDecimal.ZERO;
-            this.totalSent = totalSent != null ? totalSent : BigDecimal.ZERO;
-            this.totalReceived = totalReceived != null ? totalReceived : BigDecimal.ZERO;
+            this.totalDeposits = totalDeposits != null ? totalDeposits : Money.ZERO;
+            this.totalWithdrawals = totalWithdrawals != null ? totalWithdrawals : Money.ZERO;
+            this.totalSent = totalSent != null ? totalSent : Money.ZERO;
+            this.totalReceived = totalReceived != null ? totalReceived : Money.ZERO;
         }
 
         public int getTotalTransactions() { return totalTransactions; }
-        public BigDecimal getTotalDeposits() { return totalDeposits; }
-        public BigDecimal getTotalWithdrawals() { return totalWithdrawals; }
-        public BigDecimal getTotalSent() { return totalSent; }
-        public BigDecimal getTotalReceived() { return totalReceived; }
+        public Money getTotalDeposits() { return totalDeposits; }
+        public Money getTotalWithdrawals() { return totalWithdrawals; }
+        public Money getTotalSent() { return totalSent; }
+        public Money getTotalReceived() { return totalReceived; }
 
         @Override
         public String toString() {
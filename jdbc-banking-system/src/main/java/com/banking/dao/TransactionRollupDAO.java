@@ -0,0 +1,275 @@
+package com.banking.dao;
+
+import com.banking.model.Money;
+import com.banking.model.TransactionRollup;
+import com.banking.model.TransactionType;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object for the transaction_rollups table
+ * Ledger rows are folded into per-day totals in id order; the job watermark is the highest ledger
+ * id already folded in and moves in the same database transaction as the totals, so every row is
+ * counted exactly once even when a run fails halfway or two nodes run the job at the same time.
+ * Ids passed over before their insert committed are kept in job_id_gaps and folded when they show up.
+ */
+public class TransactionRollupDAO {
+
+    private static final Log LOG = Log.get(TransactionRollupDAO.class);
+
+    /**
+     * Reporting granularity; weeks start on Monday
+     */
+    public enum Period {
+        DAY("rollup_date"),
+        WEEK("rollup_date - INTERVAL WEEKDAY(rollup_date) DAY"),
+        MONTH("rollup_date - INTERVAL (DAYOFMONTH(rollup_date) - 1) DAY");
+
+        private final String periodStart;
+
+        Period(String periodStart) {
+            this.periodStart = periodStart;
+        }
+    }
+
+    private final DatabaseConnection dbConnection;
+    private final LedgerFormat format;
+
+    public TransactionRollupDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.format = LedgerFormat.current();
+    }
+
+    /**
+     * Fold the next ledger rows after the job's watermark, up to maxChunk ids, into the rollup
+     * table and advance the watermark
+     * Ids in the chunk without a visible row belong to inserts that have not committed yet (or
+     * rolled back). They are recorded as gaps and left out, so rollupGaps folds them once they
+     * commit; every other row is already committed and never changes.
+     *
+     * @return number of ledger ids covered (0 when caught up), or -1 on error
+     */
+    public long rollupNext(String jobName, long maxChunk) {
+        Connection connection = null;
+
+        try {
+            connection = dbConnection.getConnection();
+            connection.setAutoCommit(false);
+
+            long position = JobWatermarkDAO.lockWatermark(connection, jobName, 0);
+            long upTo = Math.min(getMaxId(connection), position + maxChunk);
+            if (upTo <= position) {
+                connection.commit();
+                return 0;
+            }
+
+            recordGaps(connection, jobName, findMissingIds(connection, position, upTo));
+            try (PreparedStatement pstmt = connection.prepareStatement(foldSql(
+                    "t.id > ? AND t.id <= ? AND NOT EXISTS " +
+                    "(SELECT 1 FROM job_id_gaps g WHERE g.job_name = ? AND g.ledger_id = t.id)"))) {
+                pstmt.setLong(1, position);
+                pstmt.setLong(2, upTo);
+                pstmt.setString(3, jobName);
+                pstmt.executeUpdate();
+            }
+            JobWatermarkDAO.saveWatermark(connection, jobName, upTo);
+            connection.commit();
+            return upTo - position;
+
+        } catch (SQLException e) {
+            rollback(connection);
+            LOG.error("Error rolling up transactions", "error", e.getMessage());
+        } finally {
+            close(connection);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Fold the gap rows that have committed since their chunk was rolled up, and forget gaps
+     * older than expireSeconds, whose inserts were rolled back
+     *
+     * @return number of late rows folded, or -1 on error
+     */
+    public int rollupGaps(String jobName, long expireSeconds) {
+        String lateSql = "SELECT g.ledger_id FROM job_id_gaps g JOIN transactions t ON t.id = g.ledger_id " +
+                        "WHERE g.job_name = ?";
+        String expireSql = "DELETE FROM job_id_gaps WHERE job_name = ? AND found_at < NOW() - INTERVAL ? SECOND " +
+                          "AND NOT EXISTS (SELECT 1 FROM transactions t WHERE t.id = ledger_id)";
+        Connection connection = null;
+
+        try {
+            connection = dbConnection.getConnection();
+            connection.setAutoCommit(false);
+            JobWatermarkDAO.lockWatermark(connection, jobName, 0);
+
+            List<Long> late = new ArrayList<>();
+            try (PreparedStatement pstmt = connection.prepareStatement(lateSql)) {
+                pstmt.setString(1, jobName);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        late.add(rs.getLong(1));
+                    }
+                }
+            }
+
+            // Folded and forgotten by id, so a gap that commits meanwhile waits for the next run
+            if (!late.isEmpty()) {
+                String ids = String.join(", ", Collections.nCopies(late.size(), "?"));
+                try (PreparedStatement fold = connection.prepareStatement(foldSql("t.id IN (" + ids + ")"));
+                     PreparedStatement forget = connection.prepareStatement(
+                             "DELETE FROM job_id_gaps WHERE job_name = ? AND ledger_id IN (" + ids + ")")) {
+                    forget.setString(1, jobName);
+                    for (int i = 0; i < late.size(); i++) {
+                        fold.setLong(i + 1, late.get(i));
+                        forget.setLong(i + 2, late.get(i));
+                    }
+                    fold.executeUpdate();
+                    forget.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement pstmt = connection.prepareStatement(expireSql)) {
+                pstmt.setString(1, jobName);
+                pstmt.setLong(2, expireSeconds);
+                int expired = pstmt.executeUpdate();
+                if (expired > 0) {
+                    LOG.info("Forgot ledger id gaps that never filled", "job", jobName, "gaps", expired);
+                }
+            }
+            connection.commit();
+            return late.size();
+
+        } catch (SQLException e) {
+            rollback(connection);
+            LOG.error("Error rolling up late transactions", "error", e.getMessage());
+        } finally {
+            close(connection);
+        }
+
+        return -1;
+    }
+
+    // Fold the ledger rows matching the condition into the rollup table
+    private String foldSql(String condition) {
+        return "INSERT INTO transaction_rollups (rollup_date, type_code, account_type, txn_count, volume_cents) " +
+               "SELECT DATE(t.timestamp), " + format.typeCode() + ", COALESCE(a.account_type, 'UNKNOWN'), " +
+               "COUNT(*), SUM(" + format.amountCents("t") + ") " +
+               "FROM transactions t LEFT JOIN accounts a ON a.id = COALESCE(t.from_account, t.to_account) " +
+               "WHERE " + condition + " " +
+               "GROUP BY 1, 2, 3 " +
+               "ON DUPLICATE KEY UPDATE txn_count = txn_count + VALUES(txn_count), " +
+               "volume_cents = volume_cents + VALUES(volume_cents)";
+    }
+
+    private static long getMaxId(Connection connection) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM transactions");
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Ids in (afterId, upToId] without a visible ledger row
+    private static List<Long> findMissingIds(Connection connection, long afterId, long upToId) throws SQLException {
+        List<Long> missing = new ArrayList<>();
+        long expected = afterId + 1;
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "SELECT id FROM transactions WHERE id > ? AND id <= ? ORDER BY id")) {
+            pstmt.setLong(1, afterId);
+            pstmt.setLong(2, upToId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    for (; expected < id; expected++) {
+                        missing.add(expected);
+                    }
+                    expected = id + 1;
+                }
+            }
+        }
+        for (; expected <= upToId; expected++) {
+            missing.add(expected);
+        }
+        return missing;
+    }
+
+    private static void recordGaps(Connection connection, String jobName, List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT IGNORE INTO job_id_gaps (job_name, ledger_id) VALUES (?, ?)")) {
+            for (long id : ids) {
+                pstmt.setString(1, jobName);
+                pstmt.setLong(2, id);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            if (connection != null) {
+                connection.rollback();
+            }
+        } catch (SQLException rollbackEx) {
+            LOG.error("Error rolling back rollup", "error", rollbackEx.getMessage());
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            if (connection != null) {
+                connection.setAutoCommit(true);
+                connection.close();
+            }
+        } catch (SQLException e) {
+            LOG.error("Error closing connection", "error", e.getMessage());
+        }
+    }
+
+    /**
+     * Totals per period, transaction type and account type for the days from..to (inclusive),
+     * oldest period first
+     */
+    public List<TransactionRollup> findRollups(Period period, LocalDate from, LocalDate to) {
+        String sql = "SELECT " + period.periodStart + " AS period_start, type_code, account_type, " +
+                    "SUM(txn_count) AS txn_count, SUM(volume_cents) AS volume_cents " +
+                    "FROM transaction_rollups WHERE rollup_date BETWEEN ? AND ? " +
+                    "GROUP BY period_start, type_code, account_type " +
+                    "ORDER BY period_start, type_code, account_type";
+        List<TransactionRollup> rollups = new ArrayList<>();
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rollups.add(new TransactionRollup(
+                        rs.getDate("period_start").toLocalDate(),
+                        TransactionType.fromCode(rs.getInt("type_code")),
+                        rs.getString("account_type"),
+                        rs.getLong("txn_count"),
+                        Money.ofCents(rs.getLong("volume_cents"))
+                    ));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading transaction rollups", "error", e.getMessage());
+        }
+
+        return rollups;
+    }
+}
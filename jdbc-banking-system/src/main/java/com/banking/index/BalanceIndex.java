@@ -0,0 +1,301 @@
+package com.banking.index;
+
+import com.banking.model.Money;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of account balances
+ * Accounts are kept in concurrent skip lists ordered by (balance, id), one over all accounts and
+ * one per account type, giving top-N and balance range queries without touching the database,
+ * plus one log-bucketed histogram per account type.
+ *
+ * The DAO applies every balance change after it commits as an absolute balance together with the
+ * account row's version, which every balance write bumps. An entry only moves to a newer version,
+ * so updates that arrive out of order or race a re-read never roll it back. Changes to one
+ * account are applied atomically; a reader can catch an account mid-move and miss it for that
+ * one query.
+ */
+public class BalanceIndex {
+
+    private final ConcurrentHashMap<Integer, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> byBalance = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Entry>> byTypeAndBalance = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LogHistogram> histograms = new ConcurrentHashMap<>();
+    private volatile Listener listener;
+
+    // Ids written through the DAO while the startup scan runs; re-read once it finishes
+    private volatile Set<Integer> touchedDuringLoad;
+    private volatile boolean ready;
+
+    // ==================== LOADING ====================
+
+    /**
+     * Called before the startup scan
+     */
+    public synchronized void beginLoad() {
+        ready = false;
+        touchedDuringLoad = ConcurrentHashMap.newKeySet();
+        byId.clear();
+        byBalance.clear();
+        byTypeAndBalance.values().forEach(ConcurrentSkipListSet::clear);
+        histograms.values().forEach(LogHistogram::clear);
+        Listener current = listener;
+        if (current != null) {
+            current.onClear();
+        }
+    }
+
+    /**
+     * Row from the startup scan or from a re-read of a touched account
+     */
+    public void load(int accountId, int customerId, String accountType, long balanceCents, long version) {
+        replace(accountId, new Entry(accountId, customerId, accountType, balanceCents, version));
+    }
+
+    /**
+     * Take the ids written since the last call; the caller re-reads them and calls load()
+     * (or remove() for accounts that no longer exist) until nothing new was written
+     */
+    public Set<Integer> drainTouched() {
+        Set<Integer> touched = touchedDuringLoad;
+        if (touched == null) {
+            return Collections.emptySet();
+        }
+        Set<Integer> drained = new HashSet<>(touched);
+        touched.removeAll(drained);
+        return drained;
+    }
+
+    /**
+     * Called once loading has finished; queries are served from here on if it completed
+     */
+    public synchronized void endLoad(boolean complete) {
+        touchedDuringLoad = null;
+        ready = complete;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    /**
+     * Follow every change to the indexed accounts, e.g. to maintain derived indexes
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void put(int accountId, int customerId, String accountType, long balanceCents, long version) {
+        touch(accountId);
+        replace(accountId, new Entry(accountId, customerId, accountType, balanceCents, version));
+    }
+
+    /**
+     * Set an indexed account's balance as of the given row version, keeping its owner and type
+     */
+    public void setBalance(int accountId, long balanceCents, long version) {
+        touch(accountId);
+        byId.computeIfPresent(accountId, (id, old) ->
+                version > old.version ? move(old, old.withBalance(balanceCents, version)) : old);
+    }
+
+    public void remove(int accountId) {
+        touch(accountId);
+        byId.computeIfPresent(accountId, (id, old) -> move(old, null));
+    }
+
+    /**
+     * Remove every account of a customer, for when only the owner is known; scans the whole index
+     *
+     * @return ids of the removed accounts
+     */
+    public List<Integer> removeCustomer(int customerId) {
+        List<Integer> removed = new ArrayList<>();
+        for (Entry entry : byId.values()) {
+            if (entry.customerId == customerId) {
+                remove(entry.accountId);
+                removed.add(entry.accountId);
+            }
+        }
+        return removed;
+    }
+
+    private void touch(int accountId) {
+        Set<Integer> touched = touchedDuringLoad;
+        if (touched != null) {
+            touched.add(accountId);
+        }
+    }
+
+    private void replace(int accountId, Entry entry) {
+        byId.compute(accountId, (id, old) -> old == null || entry.version > old.version ? move(old, entry) : old);
+    }
+
+    // Runs inside the per-id compute, so moves of one account never interleave
+    private Entry move(Entry old, Entry updated) {
+        if (old != null) {
+            byBalance.remove(old);
+            byType(old.accountType).remove(old);
+            histogram(old.accountType).remove(old.balanceCents);
+        }
+        if (updated != null) {
+            byBalance.add(updated);
+            byType(updated.accountType).add(updated);
+            histogram(updated.accountType).record(updated.balanceCents);
+        }
+        Listener current = listener;
+        if (current != null && (old != null || updated != null)) {
+            current.onChange(old, updated);
+        }
+        return updated;
+    }
+
+    private ConcurrentSkipListSet<Entry> byType(String accountType) {
+        return byTypeAndBalance.computeIfAbsent(accountType, type -> new ConcurrentSkipListSet<>());
+    }
+
+    private LogHistogram histogram(String accountType) {
+        return histograms.computeIfAbsent(accountType, type -> new LogHistogram());
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Accounts with the highest balances, highest first
+     *
+     * @param accountType only this type, or null for all
+     */
+    public List<Entry> top(int limit, String accountType) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 1024));
+        NavigableSet<Entry> entries = accountType == null ? byBalance : byTypeAndBalance.get(accountType);
+        if (entries == null) {
+            return result;
+        }
+        for (Entry entry : entries.descendingSet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Accounts with minCents <= balance <= maxCents, lowest first
+     */
+    public List<Entry> range(long minCents, long maxCents, int limit) {
+        List<Entry> result = new ArrayList<>();
+        if (minCents > maxCents) {
+            return result;
+        }
+        NavigableSet<Entry> slice = byBalance.subSet(
+                new Entry(Integer.MIN_VALUE, 0, null, minCents), true,
+                new Entry(Integer.MAX_VALUE, 0, null, maxCents), true);
+        for (Entry entry : slice) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Balance histogram for one account type, or null if no account of that type was ever indexed
+     */
+    public LogHistogram getHistogram(String accountType) {
+        return histograms.get(accountType);
+    }
+
+    public Map<String, LogHistogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    public int getIndexedCount() {
+        return byId.size();
+    }
+
+    /**
+     * Called inside the per-account update, so calls for one account arrive in order
+     */
+    public interface Listener {
+        // old is null for a new account, updated is null for a removed one
+        void onChange(Entry old, Entry updated);
+
+        void onClear();
+    }
+
+    /**
+     * One indexed account, ordered by balance and then id
+     */
+    public static final class Entry implements Comparable<Entry> {
+        private final int accountId;
+        private final int customerId;
+        private final String accountType;
+        private final long balanceCents;
+        // Version of the account row this balance was read from
+        private final long version;
+
+        public Entry(int accountId, int customerId, String accountType, long balanceCents) {
+            this(accountId, customerId, accountType, balanceCents, 0);
+        }
+
+        public Entry(int accountId, int customerId, String accountType, long balanceCents, long version) {
+            this.accountId = accountId;
+            this.customerId = customerId;
+            this.accountType = accountType;
+            this.balanceCents = balanceCents;
+            this.version = version;
+        }
+
+        Entry withBalance(long newBalanceCents, long newVersion) {
+            return new Entry(accountId, customerId, accountType, newBalanceCents, newVersion);
+        }
+
+        public int getAccountId() { return accountId; }
+        public int getCustomerId() { return customerId; }
+        public String getAccountType() { return accountType; }
+        public long getBalanceCents() { return balanceCents; }
+        public long getVersion() { return version; }
+
+        public Money getBalance() {
+            return Money.ofCents(balanceCents);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byCents = Long.compare(balanceCents, other.balanceCents);
+            return byCents != 0 ? byCents : Integer.compare(accountId, other.accountId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+            Entry other = (Entry) o;
+            return accountId == other.accountId && balanceCents == other.balanceCents;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Integer.hashCode(accountId) + Long.hashCode(balanceCents);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Entry{accountId=%d, customerId=%d, type='%s', balance=%s}",
+                               accountId, customerId, accountType, getBalance());
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.banking.index;
+
+import com.banking.dao.CustomerRowHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over customer name, email and contact number
+ * Every trigram maps to a compressed posting list of customer ids; an infix query intersects the
+ * lists of its trigrams, starting from the shortest, and confirms each candidate against the
+ * indexed text. Confirmation means postings never need to be rewritten on update or delete:
+ * stale ids simply fail the check and are dropped at the next compaction.
+ *
+ * Results are ranked: name prefix, name word start, elsewhere in the name, email, contact number.
+ */
+public class CustomerSearchIndex implements CustomerRowHandler {
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private static final char FIELD_SEPARATOR = '\n';
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    // Lower-cased "name\nemail\ncontact" per customer id, null when absent
+    private String[] documents = new String[1024];
+    private int documentCount;
+
+    // Ids written through the DAO while the initial scan is running win over scanned rows
+    private Set<Integer> touchedDuringLoad;
+    private volatile boolean ready;
+
+    // ==================== LOADING ====================
+
+    /**
+     * Called before the startup scan
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringLoad = new HashSet<>();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Row from the startup scan; ignored when the DAO already wrote a newer version
+     */
+    @Override
+    public void onRow(int id, String name, String email, String contactNumber) {
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringLoad == null || !touchedDuringLoad.contains(id)) {
+                putLocked(id, name, email, contactNumber);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called once the startup scan has finished; searches are served from here on if it completed
+     */
+    public void endLoad(boolean complete) {
+        lock.writeLock().lock();
+        try {
+            touchedDuringLoad = null;
+            ready = complete;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    public void put(int id, String name, String email, String contactNumber) {
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringLoad != null) {
+                touchedDuringLoad.add(id);
+            }
+            putLocked(id, name, email, contactNumber);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringLoad != null) {
+                touchedDuringLoad.add(id);
+            }
+            if (id < documents.length && documents[id] != null) {
+                documents[id] = null;
+                documentCount--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== SEARCH ====================
+
+    /**
+     * Whether the index can answer this query (loaded and long enough to form a trigram)
+     */
+    public boolean canServe(String query) {
+        return ready && query != null && normalize(query).length() >= MIN_QUERY_LENGTH;
+    }
+
+    /**
+     * Ids of customers whose name, email or contact number contains the query, best matches first
+     */
+    public List<Integer> search(String query, int limit) {
+        String needle = normalize(query);
+        List<Integer> result = new ArrayList<>();
+        if (needle.length() < MIN_QUERY_LENGTH || limit <= 0) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = postingsFor(needle);
+            if (lists == null) {
+                return result;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.estimatedSize(), b.estimatedSize()));
+
+            // Rank in the high bits so one sort orders by rank, then id
+            long[] ranked = new long[16];
+            int matches = 0;
+            for (int id : lists[0].toSortedArray()) {
+                if (!inAll(lists, id)) {
+                    continue;
+                }
+                int rank = rank(id, needle);
+                if (rank < 0) {
+                    continue;
+                }
+                if (matches == ranked.length) {
+                    ranked = Arrays.copyOf(ranked, matches * 2);
+                }
+                ranked[matches++] = ((long) rank << 32) | id;
+            }
+
+            Arrays.sort(ranked, 0, matches);
+            for (int i = 0; i < Math.min(limit, matches); i++) {
+                result.add((int) ranked[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    // ==================== STATISTICS ====================
+
+    public int getIndexedCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTrigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getPostingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                bytes += list.byteSize();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    private void putLocked(int id, String name, String email, String contactNumber) {
+        String document = normalize(name) + FIELD_SEPARATOR + normalize(email) + FIELD_SEPARATOR + normalize(contactNumber);
+        if (id >= documents.length) {
+            documents = Arrays.copyOf(documents, Math.max(id + 1, documents.length * 2));
+        }
+        if (documents[id] == null) {
+            documentCount++;
+        }
+        documents[id] = document;
+
+        // Trigrams never span a field separator, so each field is indexed on its own
+        for (int i = 0; i + MIN_QUERY_LENGTH <= document.length(); i++) {
+            if (document.charAt(i) == FIELD_SEPARATOR || document.charAt(i + 1) == FIELD_SEPARATOR
+                    || document.charAt(i + 2) == FIELD_SEPARATOR) {
+                continue;
+            }
+            long key = trigram(document, i);
+            postings.computeIfAbsent(key, k -> new PostingList()).add(id, doc -> stillIndexed(doc, key));
+        }
+    }
+
+    private PostingList[] postingsFor(String needle) {
+        Map<Long, PostingList> distinct = new HashMap<>();
+        for (int i = 0; i + MIN_QUERY_LENGTH <= needle.length(); i++) {
+            long key = trigram(needle, i);
+            PostingList list = postings.get(key);
+            if (list == null) {
+                return null;
+            }
+            distinct.put(key, list);
+        }
+        return distinct.values().toArray(new PostingList[0]);
+    }
+
+    private static boolean inAll(PostingList[] lists, int id) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rank of the best match in a document, or -1 when the document no longer matches
+     */
+    private int rank(int id, String needle) {
+        String document = id < documents.length ? documents[id] : null;
+        if (document == null) {
+            return -1;
+        }
+        int position = document.indexOf(needle);
+        if (position < 0) {
+            return -1;
+        }
+
+        int nameEnd = document.indexOf(FIELD_SEPARATOR);
+        if (position < nameEnd) {
+            if (position == 0) {
+                return 0;
+            }
+            return document.charAt(position - 1) == ' ' ? 1 : 2;
+        }
+        return position < document.indexOf(FIELD_SEPARATOR, nameEnd + 1) ? 3 : 4;
+    }
+
+    private boolean stillIndexed(int id, long key) {
+        String document = id < documents.length ? documents[id] : null;
+        if (document == null) {
+            return false;
+        }
+        for (int i = 0; i + MIN_QUERY_LENGTH <= document.length(); i++) {
+            if (trigram(document, i) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,116 @@
+package com.banking.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative amounts in cents over logarithmic buckets
+ * Each power of two is split into four sub-buckets, so a bucket's width is at most a quarter of its
+ * lower bound. Values can be removed again, which lets the histogram follow a changing population.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // One bucket per value below SUB_BUCKETS (zero and negatives in bucket 0), then SUB_BUCKETS per power of two
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalCents = new LongAdder();
+
+    public void record(long cents) {
+        counts.incrementAndGet(bucketOf(cents));
+        totalCount.increment();
+        totalCents.add(cents);
+    }
+
+    public void remove(long cents) {
+        counts.decrementAndGet(bucketOf(cents));
+        totalCount.decrement();
+        totalCents.add(-cents);
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalCents.reset();
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getTotalCents() {
+        return totalCents.sum();
+    }
+
+    /**
+     * Non-empty buckets, lowest first
+     */
+    public List<Bucket> getBuckets() {
+        List<Bucket> buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                buckets.add(new Bucket(lowerBound(i), i + 1 < counts.length() ? lowerBound(i + 1) : Long.MAX_VALUE, count));
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Approximate amount below which the given fraction of values fall (lower bound of its bucket)
+     */
+    public long getValueAtQuantile(double quantile) {
+        long target = (long) Math.ceil(Math.max(0, Math.min(1, quantile)) * getCount());
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target && seen > 0) {
+                return lowerBound(i);
+            }
+        }
+        return 0;
+    }
+
+    static int bucketOf(long cents) {
+        if (cents < SUB_BUCKETS) {
+            return (int) Math.max(0, cents);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(cents);
+        int sub = (int) ((cents >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BUCKET_BITS));
+    }
+
+    /**
+     * Values in [lowCents, highCents)
+     */
+    public static class Bucket {
+        private final long lowCents;
+        private final long highCents;
+        private final long count;
+
+        public Bucket(long lowCents, long highCents, long count) {
+            this.lowCents = lowCents;
+            this.highCents = highCents;
+            this.count = count;
+        }
+
+        public long getLowCents() { return lowCents; }
+        public long getHighCents() { return highCents; }
+        public long getCount() { return count; }
+    }
+}
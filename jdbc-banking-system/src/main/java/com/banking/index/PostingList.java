@@ -0,0 +1,179 @@
+package com.banking.index;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed list of ids for one search key
+ * Ids are kept ascending as variable-length deltas in blocks of BLOCK_SIZE; each block starts with
+ * an absolute id recorded in a skip table so membership checks only decode one block.
+ * Ids that arrive out of order wait in a small pending buffer until the next compaction.
+ *
+ * Not thread-safe; the owning index guards access.
+ */
+final class PostingList {
+
+    private static final int BLOCK_SIZE = 128;
+    private static final int MAX_PENDING = 64;
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int size;
+    private int last = -1;
+
+    // Skip table: first id and byte offset of every block
+    private int[] blockIds = new int[1];
+    private int[] blockOffsets = new int[1];
+
+    private int[] pending = new int[0];
+    private int pendingCount;
+
+    /**
+     * Add an id; duplicates are tolerated and removed at compaction or read time
+     *
+     * @param keep ids to retain if this call triggers a compaction
+     */
+    void add(int id, IntPredicate keep) {
+        if (id == last) {
+            return;
+        }
+        if (id > last) {
+            append(id);
+            return;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(4, pendingCount * 2));
+        }
+        pending[pendingCount++] = id;
+        if (pendingCount >= MAX_PENDING) {
+            compact(keep);
+        }
+    }
+
+    /**
+     * Upper bound of the number of ids, used to order intersections
+     */
+    int estimatedSize() {
+        return size + pendingCount;
+    }
+
+    int byteSize() {
+        return length + (blockIds.length + blockOffsets.length + pending.length) * Integer.BYTES;
+    }
+
+    boolean contains(int id) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (pending[i] == id) {
+                return true;
+            }
+        }
+        if (size == 0 || id < blockIds[0] || id > last) {
+            return false;
+        }
+
+        int block = Arrays.binarySearch(blockIds, 0, blockCount(), id);
+        if (block >= 0) {
+            return true;
+        }
+        block = -block - 2;
+
+        int[] position = {blockOffsets[block]};
+        int current = readVarInt(position);
+        int remaining = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE) - 1;
+        while (remaining-- > 0 && current < id) {
+            current += readVarInt(position);
+        }
+        return current == id;
+    }
+
+    /**
+     * Decode every id, ascending and without duplicates
+     */
+    int[] toSortedArray() {
+        int[] result = new int[size + pendingCount];
+        int[] position = {0};
+        int current = 0;
+        for (int i = 0; i < size; i++) {
+            int value = readVarInt(position);
+            current = i % BLOCK_SIZE == 0 ? value : current + value;
+            result[i] = current;
+        }
+        if (pendingCount == 0) {
+            return result;
+        }
+
+        System.arraycopy(pending, 0, result, size, pendingCount);
+        Arrays.sort(result);
+        int unique = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (unique == 0 || result[i] != result[unique - 1]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    /**
+     * Fold pending ids into the compressed blocks, dropping ids that fail the predicate
+     */
+    void compact(IntPredicate keep) {
+        int[] ids = toSortedArray();
+        data = new byte[Math.max(8, length)];
+        length = 0;
+        size = 0;
+        last = -1;
+        blockIds = new int[1];
+        blockOffsets = new int[1];
+        pending = new int[0];
+        pendingCount = 0;
+        for (int id : ids) {
+            if (keep.test(id)) {
+                append(id);
+            }
+        }
+    }
+
+    private void append(int id) {
+        if (size % BLOCK_SIZE == 0) {
+            int block = blockCount();
+            if (block == blockIds.length) {
+                blockIds = Arrays.copyOf(blockIds, block * 2);
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockIds[block] = id;
+            blockOffsets[block] = length;
+            writeVarInt(id);
+        } else {
+            writeVarInt(id - last);
+        }
+        last = id;
+        size++;
+    }
+
+    private int blockCount() {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private int readVarInt(int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
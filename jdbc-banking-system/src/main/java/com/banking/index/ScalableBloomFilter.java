@@ -0,0 +1,219 @@
+package com.banking.index;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter over string keys
+ * Starts with one fixed-size stage; when a stage reaches its capacity a new stage with twice the
+ * capacity and half the false-positive rate is added, so the compound rate stays below the target
+ * however many keys arrive. Keys cannot be removed; a removed key only costs a false positive.
+ *
+ * Lookups are lock-free; adds are serialized.
+ */
+public class ScalableBloomFilter {
+
+    private static final double LN2_SQUARED = Math.log(2) * Math.log(2);
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final int initialCapacity;
+    private final double targetFalsePositiveRate;
+
+    private volatile Stage[] stages;
+    private volatile boolean ready;
+
+    // Outcome counters for the observed false-positive rate
+    private final AtomicLong definiteNegatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public ScalableBloomFilter(int initialCapacity, double targetFalsePositiveRate) {
+        this.initialCapacity = Math.max(1024, initialCapacity);
+        this.targetFalsePositiveRate = targetFalsePositiveRate;
+        clear();
+    }
+
+    /**
+     * Drop every key and mark the filter as not ready, before a rebuild
+     */
+    public synchronized void clear() {
+        // First stage gets P * (1 - r) so the geometric series of stage rates sums to P
+        stages = new Stage[] {new Stage(initialCapacity, targetFalsePositiveRate * (1 - TIGHTENING_RATIO))};
+        ready = false;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Whether lookups reflect every stored key; callers must treat a filter that is not ready as "maybe"
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void add(String key) {
+        long hash = hash(key);
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.contains(hash)) {
+                return;
+            }
+        }
+
+        Stage last = current[current.length - 1];
+        if (last.count >= last.capacity) {
+            last = new Stage((int) Math.min(Integer.MAX_VALUE / 2, (long) last.capacity * 2),
+                             last.falsePositiveRate * TIGHTENING_RATIO);
+            Stage[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = last;
+            stages = grown;
+        }
+        last.add(hash);
+    }
+
+    /**
+     * False means the key was definitely never added; true means it may have been
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        for (Stage stage : stages) {
+            if (stage.contains(hash)) {
+                return true;
+            }
+        }
+        definiteNegatives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Report that a positive answer turned out to be wrong
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    // ==================== STATISTICS ====================
+
+    public long getElementCount() {
+        long count = 0;
+        for (Stage stage : stages) {
+            count += stage.count;
+        }
+        return count;
+    }
+
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    public long getByteSize() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * False-positive rate implied by the current fill of every stage
+     */
+    public double getEstimatedFalsePositiveRate() {
+        double allMiss = 1.0;
+        for (Stage stage : stages) {
+            allMiss *= 1 - stage.currentFalsePositiveRate();
+        }
+        return 1 - allMiss;
+    }
+
+    /**
+     * False positives over all lookups of absent keys that were checked against the database
+     */
+    public double getObservedFalsePositiveRate() {
+        long wrong = falsePositives.get();
+        long total = wrong + definiteNegatives.get();
+        return total == 0 ? 0 : (double) wrong / total;
+    }
+
+    public long getDefiniteNegatives() {
+        return definiteNegatives.get();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.get();
+    }
+
+    // ==================== INTERNALS ====================
+
+    // 64-bit FNV-1a followed by the MurmurHash3 finalizer
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One fixed-size Bloom filter; probe positions come from double hashing of the 64-bit hash
+     */
+    private static final class Stage {
+        final int capacity;
+        final double falsePositiveRate;
+        final int hashCount;
+        final long bitCount;
+        final AtomicLongArray bits;
+        volatile int count;
+
+        Stage(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / LN2_SQUARED);
+            this.bits = new AtomicLongArray((int) ((optimalBits + 63) >>> 6));
+            this.bitCount = (long) bits.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                } while ((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+            }
+            count++;
+        }
+
+        boolean contains(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double currentFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < bits.length(); i++) {
+                set += Long.bitCount(bits.get(i));
+            }
+            return Math.pow((double) set / bitCount, hashCount);
+        }
+    }
+}
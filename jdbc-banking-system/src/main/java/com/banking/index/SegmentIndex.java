@@ -0,0 +1,433 @@
+package com.banking.index;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap indexes for account and customer segmentation
+ * One compressed bitmap of account ids per account type, owner age band, balance tier and activity
+ * day, plus bitmaps of customer ids per age band. A segment such as "savings accounts of 26-35 year
+ * olds with no activity in 30 days" is a couple of bitmap operations:
+ *
+ *   accountsOfType(SAVINGS).and(accountsInAgeBand(AGE_26_35)).andNot(activeAccounts(30, today))
+ *
+ * Account type, owner and balance arrive through the balance index listener; customer ages and
+ * activity are fed by the DAOs and, for other nodes' writes, the change log. Every query returns
+ * a private copy the caller may combine freely.
+ */
+public class SegmentIndex implements BalanceIndex.Listener {
+
+    // Longest activity window a query can ask for
+    public static final int MAX_ACTIVITY_DAYS = 30;
+
+    public enum AgeBand {
+        AGE_18_25(25),
+        AGE_26_35(35),
+        AGE_36_50(50),
+        AGE_51_65(65),
+        AGE_66_PLUS(Integer.MAX_VALUE);
+
+        private final int maxAge;
+
+        AgeBand(int maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public static AgeBand of(int age) {
+            for (AgeBand band : values()) {
+                if (age <= band.maxAge) {
+                    return band;
+                }
+            }
+            return AGE_66_PLUS;
+        }
+    }
+
+    public enum BalanceTier {
+        UNDER_1K(100_000L),
+        FROM_1K_TO_10K(1_000_000L),
+        FROM_10K_TO_100K(10_000_000L),
+        FROM_100K(Long.MAX_VALUE);
+
+        private final long upperCentsExclusive;
+
+        BalanceTier(long upperCentsExclusive) {
+            this.upperCentsExclusive = upperCentsExclusive;
+        }
+
+        public static BalanceTier of(long balanceCents) {
+            for (BalanceTier tier : values()) {
+                if (balanceCents < tier.upperCentsExclusive) {
+                    return tier;
+                }
+            }
+            return FROM_100K;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Accounts
+    private final RoaringBitmap allAccounts = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> accountsByType = new HashMap<>();
+    private final EnumMap<AgeBand, RoaringBitmap> accountsByAgeBand = new EnumMap<>(AgeBand.class);
+    private final EnumMap<BalanceTier, RoaringBitmap> accountsByTier = new EnumMap<>(BalanceTier.class);
+    private int[] ownerOf = new int[1024];
+    // Accounts whose owner's age is not known yet
+    private final RoaringBitmap unbandedAccounts = new RoaringBitmap();
+
+    // Customers; band codes are ordinal + 1, 0 while the age is unknown
+    private final RoaringBitmap allCustomers = new RoaringBitmap();
+    private final EnumMap<AgeBand, RoaringBitmap> customersByAgeBand = new EnumMap<>(AgeBand.class);
+    private byte[] bandOf = new byte[1024];
+    private Set<Integer> customersTouchedDuringLoad;
+    private boolean customersLoaded;
+
+    // Accounts with at least one transaction, per epoch day
+    private final NavigableMap<Long, RoaringBitmap> activityByDay = new TreeMap<>();
+    private boolean activityLoaded;
+
+    public SegmentIndex() {
+        for (AgeBand band : AgeBand.values()) {
+            accountsByAgeBand.put(band, new RoaringBitmap());
+            customersByAgeBand.put(band, new RoaringBitmap());
+        }
+        for (BalanceTier tier : BalanceTier.values()) {
+            accountsByTier.put(tier, new RoaringBitmap());
+        }
+    }
+
+    // ==================== ACCOUNTS ====================
+
+    @Override
+    public void onChange(BalanceIndex.Entry old, BalanceIndex.Entry updated) {
+        if (old != null && updated != null && sameSegments(old, updated)) {
+            return; // a posting within the balance tier, the usual case
+        }
+        lock.writeLock().lock();
+        try {
+            if (old != null) {
+                int id = old.getAccountId();
+                allAccounts.remove(id);
+                RoaringBitmap ofType = accountsByType.get(old.getAccountType());
+                if (ofType != null) {
+                    ofType.remove(id);
+                }
+                accountsByTier.get(BalanceTier.of(old.getBalanceCents())).remove(id);
+                AgeBand band = bandOfCustomer(old.getCustomerId());
+                if (band != null) {
+                    accountsByAgeBand.get(band).remove(id);
+                }
+                unbandedAccounts.remove(id);
+            }
+            if (updated != null) {
+                int id = updated.getAccountId();
+                allAccounts.add(id);
+                accountsByType.computeIfAbsent(updated.getAccountType(), type -> new RoaringBitmap()).add(id);
+                accountsByTier.get(BalanceTier.of(updated.getBalanceCents())).add(id);
+                AgeBand band = bandOfCustomer(updated.getCustomerId());
+                if (band != null) {
+                    accountsByAgeBand.get(band).add(id);
+                } else {
+                    unbandedAccounts.add(id);
+                }
+                if (id >= ownerOf.length) {
+                    ownerOf = Arrays.copyOf(ownerOf, Math.max(id + 1, ownerOf.length * 2));
+                }
+                ownerOf[id] = updated.getCustomerId();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean sameSegments(BalanceIndex.Entry old, BalanceIndex.Entry updated) {
+        return old.getAccountId() == updated.getAccountId()
+                && old.getCustomerId() == updated.getCustomerId()
+                && old.getAccountType().equals(updated.getAccountType())
+                && BalanceTier.of(old.getBalanceCents()) == BalanceTier.of(updated.getBalanceCents());
+    }
+
+    @Override
+    public void onClear() {
+        lock.writeLock().lock();
+        try {
+            allAccounts.clear();
+            unbandedAccounts.clear();
+            accountsByType.clear();
+            accountsByAgeBand.values().forEach(RoaringBitmap::clear);
+            accountsByTier.values().forEach(RoaringBitmap::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== CUSTOMERS ====================
+
+    /**
+     * Called before the customer age scan
+     */
+    public void beginCustomerLoad() {
+        lock.writeLock().lock();
+        try {
+            customersTouchedDuringLoad = new HashSet<>();
+            customersLoaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Row from the customer age scan; ignored when the DAO already wrote a newer age
+     */
+    public void loadCustomer(int customerId, int age) {
+        lock.writeLock().lock();
+        try {
+            if (customersTouchedDuringLoad == null || !customersTouchedDuringLoad.contains(customerId)) {
+                setAgeLocked(customerId, age);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endCustomerLoad(boolean complete) {
+        lock.writeLock().lock();
+        try {
+            customersTouchedDuringLoad = null;
+            customersLoaded = complete;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putCustomer(int customerId, int age) {
+        lock.writeLock().lock();
+        try {
+            if (customersTouchedDuringLoad != null) {
+                customersTouchedDuringLoad.add(customerId);
+            }
+            setAgeLocked(customerId, age);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCustomer(int customerId) {
+        lock.writeLock().lock();
+        try {
+            if (customersTouchedDuringLoad != null) {
+                customersTouchedDuringLoad.add(customerId);
+            }
+            AgeBand band = bandOfCustomer(customerId);
+            if (band != null) {
+                customersByAgeBand.get(band).remove(customerId);
+                bandOf[customerId] = 0;
+                // Accounts still indexed lose their band with the owner, as in setAgeLocked
+                RoaringBitmap inBand = accountsByAgeBand.get(band);
+                inBand.copy().forEach(accountId -> {
+                    if (ownerOf[accountId] == customerId) {
+                        inBand.remove(accountId);
+                        unbandedAccounts.add(accountId);
+                    }
+                });
+            }
+            allCustomers.remove(customerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A band change moves the customer's accounts too. A first age only has to look at accounts
+    // without a band (normally none); an actual band change scans all accounts, which is rare.
+    private void setAgeLocked(int customerId, int age) {
+        AgeBand band = AgeBand.of(age);
+        AgeBand previous = bandOfCustomer(customerId);
+        allCustomers.add(customerId);
+        if (band == previous) {
+            return;
+        }
+
+        if (customerId >= bandOf.length) {
+            bandOf = Arrays.copyOf(bandOf, Math.max(customerId + 1, bandOf.length * 2));
+        }
+        bandOf[customerId] = (byte) (band.ordinal() + 1);
+        if (previous != null) {
+            customersByAgeBand.get(previous).remove(customerId);
+        }
+        customersByAgeBand.get(band).add(customerId);
+
+        RoaringBitmap candidates = previous == null ? unbandedAccounts.copy() : allAccounts;
+        candidates.forEach(accountId -> {
+            if (ownerOf[accountId] == customerId) {
+                if (previous != null) {
+                    accountsByAgeBand.get(previous).remove(accountId);
+                }
+                unbandedAccounts.remove(accountId);
+                accountsByAgeBand.get(band).add(accountId);
+            }
+        });
+    }
+
+    private AgeBand bandOfCustomer(int customerId) {
+        if (customerId < 0 || customerId >= bandOf.length || bandOf[customerId] == 0) {
+            return null;
+        }
+        return AgeBand.values()[bandOf[customerId] - 1];
+    }
+
+    // ==================== ACTIVITY ====================
+
+    /**
+     * Mark both legs of a transaction active on a day, under one lock; ids of 0 or less (a missing
+     * leg) are skipped. Older days than the activity window are dropped.
+     */
+    public void recordActivity(int fromAccountId, int toAccountId, long epochDay) {
+        lock.writeLock().lock();
+        try {
+            RoaringBitmap active = activityByDay.computeIfAbsent(epochDay, day -> new RoaringBitmap());
+            if (fromAccountId > 0) {
+                active.add(fromAccountId);
+            }
+            if (toAccountId > 0) {
+                active.add(toAccountId);
+            }
+            activityByDay.headMap(activityByDay.lastKey() - MAX_ACTIVITY_DAYS, true).clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endActivityLoad(boolean complete) {
+        lock.writeLock().lock();
+        try {
+            activityLoaded = complete;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Customers, activity and (through the balance index) accounts have all been loaded
+     */
+    public boolean isReady(BalanceIndex balanceIndex) {
+        lock.readLock().lock();
+        try {
+            return customersLoaded && activityLoaded && balanceIndex.isReady();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap allAccounts() {
+        return copyOf(allAccounts);
+    }
+
+    public RoaringBitmap accountsOfType(String accountType) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = accountsByType.get(accountType);
+            return bitmap != null ? bitmap.copy() : new RoaringBitmap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap accountsInAgeBand(AgeBand band) {
+        return copyOf(accountsByAgeBand.get(band));
+    }
+
+    public RoaringBitmap accountsInBalanceTier(BalanceTier tier) {
+        return copyOf(accountsByTier.get(tier));
+    }
+
+    /**
+     * Accounts with a transaction on any of the last days days (today included)
+     */
+    public RoaringBitmap activeAccounts(int days, long todayEpochDay) {
+        if (days < 1 || days > MAX_ACTIVITY_DAYS) {
+            throw new IllegalArgumentException("Activity window must be 1-" + MAX_ACTIVITY_DAYS + " days");
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap active = new RoaringBitmap();
+            for (RoaringBitmap day : activityByDay.subMap(todayEpochDay - days, false, todayEpochDay, true).values()) {
+                active = active.or(day);
+            }
+            return active.and(allAccounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public RoaringBitmap allCustomers() {
+        return copyOf(allCustomers);
+    }
+
+    public RoaringBitmap customersInAgeBand(AgeBand band) {
+        return copyOf(customersByAgeBand.get(band));
+    }
+
+    /**
+     * Owners of the given accounts
+     */
+    public RoaringBitmap ownersOf(RoaringBitmap accounts) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap owners = new RoaringBitmap();
+            accounts.forEach(accountId -> {
+                if (accountId < ownerOf.length && allAccounts.contains(accountId)) {
+                    owners.add(ownerOf[accountId]);
+                }
+            });
+            return owners;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = allAccounts.getSizeInBytes() + allCustomers.getSizeInBytes()
+                    + ownerOf.length * 4L + bandOf.length;
+            for (RoaringBitmap bitmap : accountsByType.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : accountsByAgeBand.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : accountsByTier.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : customersByAgeBand.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : activityByDay.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap copyOf(RoaringBitmap bitmap) {
+        lock.readLock().lock();
+        try {
+            return bitmap.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
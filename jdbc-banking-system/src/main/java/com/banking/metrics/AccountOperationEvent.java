@@ -0,0 +1,29 @@
+package com.banking.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a money movement through the service
+ * Only operations slower than the threshold are recorded unless a recording lowers it; while
+ * the event is disabled, creating and ending it costs next to nothing.
+ */
+@Category({"Banking", "Operations"})
+@Threshold("1 ms")
+@StackTrace(false)
+public abstract class AccountOperationEvent extends jdk.jfr.Event {
+
+    public static final String SUCCESS = "SUCCESS";
+    public static final String REJECTED = "REJECTED";
+    public static final String ERROR = "ERROR";
+
+    @Label("Amount (cents)")
+    public long amountCents;
+
+    @Label("Outcome")
+    @Description("SUCCESS, REJECTED (validation or insufficient funds) or ERROR (exception)")
+    public String outcome;
+}
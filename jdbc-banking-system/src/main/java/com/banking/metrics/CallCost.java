@@ -0,0 +1,126 @@
+package com.banking.metrics;
+
+/**
+ * Database work done by one call on this thread: connection checkouts, statements executed and
+ * round trips to the server
+ *
+ * A round trip is a connect, a statement execution, a commit or rollback, or a session change
+ * such as setAutoCommit; statements are prepared on the client, so preparing one is free. Scopes
+ * nest: when a scope ends its counts are added to the enclosing one. Deadlocks and lock wait
+ * timeouts hit by the call are counted too, even when the DAO swallows the SQLException. Work
+ * done on other threads (e.g. the parallel customer registration) is not counted.
+ */
+public final class CallCost {
+
+    private static final ThreadLocal<CallCost> CURRENT = new ThreadLocal<>();
+
+    private final CallCost parent;
+    private int connections;
+    private int statements;
+    private int roundTrips;
+    private int deadlocks;
+    private int lockWaitTimeouts;
+    private boolean ended;
+
+    private CallCost(CallCost parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Start counting on this thread; every begin() must be paired with end() in a finally block
+     */
+    public static CallCost begin() {
+        CallCost cost = new CallCost(CURRENT.get());
+        CURRENT.set(cost);
+        return cost;
+    }
+
+    /**
+     * Stop counting, add the counts to the enclosing scope, and return this scope
+     */
+    public CallCost end() {
+        if (ended) {
+            return this;
+        }
+        ended = true;
+        if (CURRENT.get() == this) {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+        if (parent != null) {
+            parent.connections += connections;
+            parent.statements += statements;
+            parent.roundTrips += roundTrips;
+            parent.deadlocks += deadlocks;
+            parent.lockWaitTimeouts += lockWaitTimeouts;
+        }
+        return this;
+    }
+
+    // ==================== RECORDING (MeteredConnection) ====================
+
+    static void connectionCheckedOut() {
+        CallCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.connections++;
+            cost.roundTrips++;
+        }
+    }
+
+    static void statementExecuted() {
+        CallCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.statements++;
+            cost.roundTrips++;
+        }
+    }
+
+    static void roundTrip() {
+        CallCost cost = CURRENT.get();
+        if (cost != null) {
+            cost.roundTrips++;
+        }
+    }
+
+    static void sqlError(String kind) {
+        CallCost cost = CURRENT.get();
+        if (cost == null) {
+            return;
+        }
+        if (kind.equals(Metrics.DEADLOCK)) {
+            cost.deadlocks++;
+        } else if (kind.equals(Metrics.LOCK_WAIT_TIMEOUT)) {
+            cost.lockWaitTimeouts++;
+        }
+    }
+
+    // ==================== RESULTS ====================
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public int getDeadlocks() {
+        return deadlocks;
+    }
+
+    public int getLockWaitTimeouts() {
+        return lockWaitTimeouts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CallCost{connections=%d, statements=%d, roundTrips=%d}", connections, statements, roundTrips);
+    }
+}
@@ -0,0 +1,15 @@
+package com.banking.metrics;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for BankingService.deposit
+ */
+@Name("com.banking.Deposit")
+@Label("Deposit")
+public class DepositEvent extends AccountOperationEvent {
+
+    @Label("Account Id")
+    public int accountId;
+}
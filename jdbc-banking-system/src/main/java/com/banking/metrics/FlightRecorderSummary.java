@@ -0,0 +1,153 @@
+package com.banking.metrics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live per-operation summary read back from Flight Recorder inside the process
+ * Streams this application's events with the thresholds lowered to zero, next to the JVM's GC and
+ * CPU load events, so a slow period can be matched against collections or CPU saturation.
+ */
+public final class FlightRecorderSummary {
+
+    private static final String[] OPERATION_EVENTS = {"com.banking.Deposit", "com.banking.Withdraw", "com.banking.Transfer"};
+    private static final String SQL_EVENT = "com.banking.SqlExecution";
+    private static final Duration MAX_AGE = Duration.ofMinutes(2);
+
+    private static FlightRecorderSummary instance;
+
+    private final ConcurrentHashMap<String, Aggregate> operations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Aggregate> statements = new ConcurrentHashMap<>();
+    private final LatencyHistogram gcPauses = new LatencyHistogram();
+    private volatile double jvmCpuLoad;
+    private volatile double machineCpuLoad;
+    private volatile LocalDateTime since;
+    private RecordingStream stream;
+
+    private FlightRecorderSummary() {
+    }
+
+    public static synchronized FlightRecorderSummary getInstance() {
+        if (instance == null) {
+            instance = new FlightRecorderSummary();
+        }
+        return instance;
+    }
+
+    // ==================== STREAM ====================
+
+    /**
+     * Start streaming if not already running; false if Flight Recorder is unavailable
+     */
+    public synchronized boolean start() {
+        if (stream != null) {
+            return true;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.setMaxAge(MAX_AGE);
+            for (String name : OPERATION_EVENTS) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+                recording.onEvent(name, this::onOperation);
+            }
+            recording.enable(SQL_EVENT).withThreshold(Duration.ZERO);
+            recording.onEvent(SQL_EVENT, this::onStatement);
+            recording.enable("jdk.GarbageCollection");
+            recording.onEvent("jdk.GarbageCollection", event -> gcPauses.record(event.getDuration("sumOfPauses").toNanos()));
+            recording.enable("jdk.CPULoad").withPeriod(Duration.ofSeconds(1));
+            recording.onEvent("jdk.CPULoad", event -> {
+                jvmCpuLoad = event.getFloat("jvmUser") + event.getFloat("jvmSystem");
+                machineCpuLoad = event.getFloat("machineTotal");
+            });
+            reset();
+            recording.startAsync();
+            stream = recording;
+            return true;
+        } catch (IllegalStateException | SecurityException e) {
+            System.err.println("❌ Error starting Flight Recorder stream: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    public void reset() {
+        operations.clear();
+        statements.clear();
+        gcPauses.reset();
+        since = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private void onOperation(RecordedEvent event) {
+        String key = event.getEventType().getLabel() + " " + event.getString("outcome");
+        operations.computeIfAbsent(key, k -> new Aggregate())
+                  .record(event.getDuration().toNanos(), !AccountOperationEvent.SUCCESS.equals(event.getString("outcome")));
+    }
+
+    private void onStatement(RecordedEvent event) {
+        statements.computeIfAbsent(event.getString("daoMethod"), k -> new Aggregate())
+                  .record(event.getDuration().toNanos(), !event.getBoolean("succeeded"));
+    }
+
+    // ==================== DISPLAY ====================
+
+    public void displaySummary() {
+        System.out.println("Since " + since + " | JVM CPU " + percent(jvmCpuLoad) +
+                           " | machine CPU " + percent(machineCpuLoad) +
+                           " | GC pauses " + gcPauses.getCount() + " (max " + millis(gcPauses.getMaxNanos()) + ")");
+        displayTable("Operation", operations);
+        displayTable("DAO SQL", statements);
+    }
+
+    private static void displayTable(String title, Map<String, Aggregate> aggregates) {
+        System.out.println();
+        System.out.printf("%-40s %8s %7s %10s %10s %10s%n", title, "Count", "Errors", "Avg ms", "P99 ms", "Max ms");
+        if (aggregates.isEmpty()) {
+            System.out.println("   (no events yet)");
+            return;
+        }
+        new TreeMap<>(aggregates).forEach((name, aggregate) -> {
+            LatencyHistogram latency = aggregate.latency;
+            System.out.printf("%-40s %8d %7d %10s %10s %10s%n", name, latency.getCount(), aggregate.errors.sum(),
+                              millis((long) latency.getMeanNanos()), millis(latency.getValueAtPercentile(99)),
+                              millis(latency.getMaxNanos()));
+        });
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private static String percent(double load) {
+        return String.format("%.0f%%", load * 100);
+    }
+
+    private static final class Aggregate {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean failed) {
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+}
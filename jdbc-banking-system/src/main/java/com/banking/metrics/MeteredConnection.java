@@ -0,0 +1,318 @@
+package com.banking.metrics;
+
+import com.banking.tracing.Span;
+import com.banking.tracing.Tracer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * JDBC connection wrapper that times the DAO method holding it
+ *
+ * A checkout is attributed to the nearest com.banking.dao method on the caller's stack. Its
+ * latency runs from asking for the connection until close(); the time to get the connection and
+ * the time spent in execute, commit and rollback calls are recorded separately, and each of those
+ * calls is reported to Flight Recorder as a SqlExecutionEvent and offered to the SlowQueryLog with
+ * its bind values. Any SQLException thrown through the wrapper marks the checkout as failed, even
+ * if the DAO catches it, and is counted by kind (deadlock, lock wait timeout, ...).
+ *
+ * Checkouts, statements and other round trips are also added to the CallCost of the running
+ * service call. Inside a sampled trace the checkout is a span, with the connect and each of those calls as
+ * child spans.
+ */
+public final class MeteredConnection implements InvocationHandler {
+
+    private static final String DAO_PACKAGE = "com.banking.dao.";
+    private static final String METRICS_PACKAGE = "com.banking.metrics.";
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    // Connection calls other than commit and rollback that go to the server
+    private static final Set<String> SESSION_CHANGES = Set.of(
+            "setAutoCommit", "setTransactionIsolation", "setReadOnly", "setCatalog", "setSchema",
+            "setSavepoint", "releaseSavepoint", "isValid");
+
+    private final Connection delegate;
+    private final String operation;
+    // Null when METRICS_ENABLED=false and the wrapper is only here for the slow query log
+    private final OperationMetrics metrics;
+    private final long checkoutStart;
+    private final Span span;
+    private volatile boolean failed;
+    private volatile boolean closed;
+
+    private MeteredConnection(Connection delegate, String operation, OperationMetrics metrics, long checkoutStart,
+                              Span span) {
+        this.delegate = delegate;
+        this.operation = operation;
+        this.metrics = metrics;
+        this.checkoutStart = checkoutStart;
+        this.span = span;
+    }
+
+    /**
+     * Source of raw connections, e.g. DriverManager
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Open a connection from the source and wrap it for the calling DAO method
+     */
+    public static Connection open(ConnectionSource source) throws SQLException {
+        String operation = callerName();
+        OperationMetrics metrics = Metrics.ENABLED ? Metrics.dao(operation) : null;
+        Span span = Tracer.span(operation, "dao");
+        long start = System.nanoTime();
+        Connection connection;
+        Span connect = Tracer.span("connect", "sql");
+        try {
+            connection = source.open();
+        } catch (SQLException | RuntimeException e) {
+            connect.setFailed(true);
+            connect.close();
+            span.setFailed(true);
+            span.close();
+            if (metrics != null) {
+                long elapsed = System.nanoTime() - start;
+                metrics.recordConnectionAcquire(elapsed, true);
+                metrics.record(elapsed, true);
+                if (e instanceof SQLException) {
+                    Metrics.recordSqlError((SQLException) e);
+                }
+            }
+            throw e;
+        }
+        connect.close();
+        if (metrics != null) {
+            long elapsed = System.nanoTime() - start;
+            metrics.recordConnectionAcquire(elapsed, false);
+            Metrics.connectionOpened(elapsed);
+        }
+        CallCost.connectionCheckedOut();
+        return (Connection) Proxy.newProxyInstance(MeteredConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new MeteredConnection(connection, operation, metrics, start, span));
+    }
+
+    // "AccountDAO.deposit" for the nearest DAO frame, else the nearest frame outside the connection code
+    private static String callerName() {
+        return WALKER.walk(frames -> {
+            String nearest = null;
+            for (Iterator<StackWalker.StackFrame> it = frames.iterator(); it.hasNext(); ) {
+                StackWalker.StackFrame frame = it.next();
+                String className = frame.getClassName();
+                if (className.startsWith(METRICS_PACKAGE) || frame.getMethodName().equals("getConnection")) {
+                    continue;
+                }
+                String name = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                if (className.startsWith(DAO_PACKAGE)) {
+                    return name;
+                }
+                if (nearest == null) {
+                    nearest = name;
+                }
+            }
+            return nearest != null ? nearest : "unknown";
+        });
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("close")) {
+            close();
+            return null;
+        }
+        if (SESSION_CHANGES.contains(name)) {
+            CallCost.roundTrip();
+        }
+        Object result = name.equals("commit") || name.equals("rollback")
+                ? execute(delegate, method, args, null, null, 0)
+                : call(delegate, method, args);
+        if (result instanceof Statement) {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            Statement statement = (Statement) result;
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return Proxy.newProxyInstance(MeteredConnection.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql, proxy));
+        }
+        return result;
+    }
+
+    private void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            delegate.close();
+        } catch (SQLException e) {
+            throw fail(e);
+        } finally {
+            if (metrics != null) {
+                metrics.record(System.nanoTime() - checkoutStart, failed);
+                Metrics.connectionClosed();
+            }
+            span.setFailed(failed);
+            span.close();
+        }
+    }
+
+    private <T extends Throwable> T fail(T cause) {
+        if (cause instanceof SQLException) {
+            failed = true;
+            if (metrics != null) {
+                Metrics.recordSqlError((SQLException) cause);
+            }
+        }
+        return cause;
+    }
+
+    // A call that goes to the database: timed as SQL execution, reported to Flight Recorder and
+    // offered to the slow query log
+    private Object execute(Object target, Method method, Object[] args, String sql, Object[] values, int batchRows)
+            throws Throwable {
+        SqlExecutionEvent event = new SqlExecutionEvent();
+        event.begin();
+        Span statementSpan = Tracer.span(method.getName(), "sql");
+        if (method.getName().startsWith("execute")) {
+            CallCost.statementExecuted();
+        } else {
+            CallCost.roundTrip();
+        }
+        long start = System.nanoTime();
+        Object result = null;
+        boolean succeeded = false;
+        try {
+            result = call(target, method, args);
+            succeeded = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long rows = rowsAffected(result);
+            if (metrics != null) {
+                metrics.recordSqlExecution(elapsed, !succeeded);
+            }
+            SlowQueryLog.record(operation, method.getName(), sql, values, batchRows, rows, elapsed, succeeded);
+            if (statementSpan.isSampled()) {
+                statementSpan.tag("sql", sql).tag("rows", rows).setFailed(!succeeded);
+                statementSpan.close();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.daoMethod = operation;
+                event.call = method.getName();
+                event.sql = sql;
+                event.rowsAffected = rows;
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+
+    private Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw fail(e.getCause());
+        }
+    }
+
+    private static long rowsAffected(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        long total = -1;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                total = Math.max(total, 0) + Math.max(count, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total = Math.max(total, 0) + Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Statement wrapper; remembers the bind values for the slow query log
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final Object connectionProxy;
+        // Bind values by parameter index; copied on each execute since the DAO may rebind and reuse
+        private Object[] values = new Object[0];
+        private int highestIndex;
+        private Object[] firstBatchValues;
+        private int batchRows;
+
+        StatementHandler(Statement statement, String preparedSql, Object connectionProxy) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connectionProxy;
+            }
+            if (SlowQueryLog.ENABLED) {
+                remember(name, args);
+            }
+            if (!name.startsWith("execute")) {
+                return call(statement, method, args);
+            }
+            // Plain statements carry their SQL in the execute call itself
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                Object[] first = firstBatchValues;
+                int rows = batchRows;
+                firstBatchValues = null;
+                batchRows = 0;
+                return execute(statement, method, args, sql, first, rows);
+            }
+            return execute(statement, method, args, sql, boundValues(), 0);
+        }
+
+        private void remember(String name, Object[] args) {
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                if (index >= values.length) {
+                    values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+                }
+                values[index] = name.equals("setNull") ? null : args[1];
+                highestIndex = Math.max(highestIndex, index);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(values, null);
+                highestIndex = 0;
+            } else if (name.equals("addBatch")) {
+                if (firstBatchValues == null) {
+                    firstBatchValues = boundValues();
+                }
+                batchRows++;
+            } else if (name.equals("clearBatch")) {
+                firstBatchValues = null;
+                batchRows = 0;
+            }
+        }
+
+        private Object[] boundValues() {
+            return highestIndex > 0 ? Arrays.copyOf(values, highestIndex + 1) : null;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.banking.metrics;
+
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide registry of operation metrics
+ * Every operation is registered as an MBean under com.banking:type=Service or com.banking:type=DAO
+ * the first time it runs, so jconsole or any JMX client can watch it.
+ *
+ * Also keeps the process-wide database counters: connections in use, SQL errors by kind,
+ * transactions retried by reason and how far ledger rows trail the balance changes they record.
+ *
+ * Configured with METRICS_ENABLED (default true) and METRICS_WINDOW_SECONDS (default 60).
+ */
+public final class Metrics {
+
+    private static final Log LOG = Log.get(Metrics.class);
+
+    public static final boolean ENABLED = Boolean.parseBoolean(
+            DatabaseConnection.getInstance().getProperty("METRICS_ENABLED", "true"));
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(Math.max(1, Long.parseLong(
+            DatabaseConnection.getInstance().getProperty("METRICS_WINDOW_SECONDS", "60"))));
+
+    private static final String DOMAIN = "com.banking";
+
+    private static final ConcurrentHashMap<String, OperationMetrics> SERVICE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, OperationMetrics> DAO = new ConcurrentHashMap<>();
+
+    // No pool: every checkout opens a connection, so in use is also the number open
+    private static final AtomicInteger CONNECTIONS_IN_USE = new AtomicInteger();
+    private static final LongAdder CONNECTIONS_OPENED = new LongAdder();
+    private static final LatencyHistogram CONNECTION_ACQUIRE = new LatencyHistogram();
+
+    public static final String DEADLOCK = "deadlock";
+    public static final String LOCK_WAIT_TIMEOUT = "lock_wait_timeout";
+    public static final String CONNECTION = "connection";
+    public static final String OTHER = "other";
+    private static final Map<String, LongAdder> SQL_ERRORS = new LinkedHashMap<>();
+
+    // Retry reasons besides DEADLOCK
+    public static final String LEDGER_SWAP = "ledger_swap";
+    private static final Map<String, LongAdder> RETRIES = new LinkedHashMap<>();
+
+    static {
+        for (String kind : new String[]{DEADLOCK, LOCK_WAIT_TIMEOUT, CONNECTION, OTHER}) {
+            SQL_ERRORS.put(kind, new LongAdder());
+        }
+        for (String reason : new String[]{DEADLOCK, LEDGER_SWAP}) {
+            RETRIES.put(reason, new LongAdder());
+        }
+    }
+
+    public enum Layer {
+        SERVICE("Service"),
+        DAO("DAO");
+
+        private final String jmxType;
+
+        Layer(String jmxType) {
+            this.jmxType = jmxType;
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Metrics of a BankingService operation, e.g. "deposit"
+     */
+    public static OperationMetrics service(String operation) {
+        return SERVICE.computeIfAbsent(operation, name -> create(Layer.SERVICE, name));
+    }
+
+    /**
+     * Metrics of a DAO method, e.g. "AccountDAO.deposit"
+     */
+    public static OperationMetrics dao(String method) {
+        return DAO.computeIfAbsent(method, name -> create(Layer.DAO, name));
+    }
+
+    /**
+     * Every operation seen so far, service operations first, each layer by name
+     */
+    public static List<OperationMetrics> all() {
+        List<OperationMetrics> all = new ArrayList<>(SERVICE.values());
+        all.addAll(DAO.values());
+        all.sort(Comparator.comparing(OperationMetrics::getLayer).thenComparing(OperationMetrics::getName));
+        return all;
+    }
+
+    // ==================== DATABASE ====================
+
+    static void connectionOpened(long acquireNanos) {
+        CONNECTIONS_IN_USE.incrementAndGet();
+        CONNECTIONS_OPENED.increment();
+        CONNECTION_ACQUIRE.record(acquireNanos);
+    }
+
+    static void connectionClosed() {
+        CONNECTIONS_IN_USE.decrementAndGet();
+    }
+
+    /**
+     * Count a SQLException thrown by the driver under its kind
+     */
+    static void recordSqlError(SQLException e) {
+        String kind = sqlErrorKind(e);
+        SQL_ERRORS.get(kind).increment();
+        CallCost.sqlError(kind);
+    }
+
+    // MySQL reports deadlocks as 1213 / SQLSTATE 40001 and lock wait timeouts as 1205
+    static String sqlErrorKind(SQLException e) {
+        String state = e.getSQLState();
+        if (e.getErrorCode() == 1213 || "40001".equals(state)) {
+            return DEADLOCK;
+        }
+        if (e.getErrorCode() == 1205) {
+            return LOCK_WAIT_TIMEOUT;
+        }
+        if (state != null && state.startsWith("08")) {
+            return CONNECTION;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Count a database transaction that is run again, after a deadlock or a ledger table swap
+     */
+    public static void recordRetry(String reason) {
+        RETRIES.get(reason).increment();
+    }
+
+    public static int getConnectionsInUse() {
+        return CONNECTIONS_IN_USE.get();
+    }
+
+    public static long getConnectionsOpened() {
+        return CONNECTIONS_OPENED.sum();
+    }
+
+    public static LatencyHistogram getConnectionAcquire() {
+        return CONNECTION_ACQUIRE;
+    }
+
+    /**
+     * SQL errors so far by kind: deadlock, lock_wait_timeout, connection and other
+     */
+    public static Map<String, Long> getSqlErrors() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        SQL_ERRORS.forEach((kind, count) -> counts.put(kind, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Transactions retried so far by reason: deadlock and ledger_swap
+     */
+    public static Map<String, Long> getRetries() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        RETRIES.forEach((reason, count) -> counts.put(reason, count.sum()));
+        return counts;
+    }
+
+    private static OperationMetrics create(Layer layer, String name) {
+        OperationMetrics metrics = new OperationMetrics(layer, name, WINDOW_NANOS);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + layer.jmxType + ",name=" + name.replaceAll("[,=:\"*?\\s]", "_"));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException e) {
+            LOG.error("Error registering metrics", "operation", name, "error", e.getMessage());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,261 @@
+package com.banking.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome counters for one service operation or DAO method
+ * DAO methods additionally split their time into waiting for a connection and running SQL;
+ * service operations count the connections, statements and round trips of each call.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+
+    private final Metrics.Layer layer;
+    private final String name;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // SQL calls timed on a DAO method's connection (statements, commits, rollbacks)
+    private final LongAdder sqlCalls = new LongAdder();
+    // Statements counted by the cost of service calls
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder costedCalls = new LongAdder();
+    private final AtomicLong maxConnections = new AtomicLong();
+    private final AtomicLong maxStatements = new AtomicLong();
+    private final AtomicLong maxRoundTrips = new AtomicLong();
+    private final RollingLatency latency;
+    // Since startup, for scrapers that compute their own rates
+    private final LatencyHistogram total = new LatencyHistogram();
+    // Only kept for operations that check out connections
+    private final RollingLatency connectionAcquire;
+    private final RollingLatency sqlExecution;
+
+    OperationMetrics(Metrics.Layer layer, String name, long windowNanos) {
+        this.layer = layer;
+        this.name = name;
+        this.latency = new RollingLatency(windowNanos);
+        boolean jdbc = layer == Metrics.Layer.DAO;
+        this.connectionAcquire = jdbc ? new RollingLatency(windowNanos) : null;
+        this.sqlExecution = jdbc ? new RollingLatency(windowNanos) : null;
+    }
+
+    public Metrics.Layer getLayer() {
+        return layer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // ==================== RECORDING ====================
+
+    public void record(long nanos, boolean failed) {
+        (failed ? errors : successes).increment();
+        latency.record(nanos, failed);
+        total.record(nanos);
+    }
+
+    public void recordConnectionAcquire(long nanos, boolean failed) {
+        if (connectionAcquire != null) {
+            connectionAcquire.record(nanos, failed);
+        }
+    }
+
+    public void recordSqlExecution(long nanos, boolean failed) {
+        sqlCalls.increment();
+        if (sqlExecution != null) {
+            sqlExecution.record(nanos, failed);
+        }
+    }
+
+    /**
+     * Database work of one service call
+     */
+    public void recordCost(CallCost cost) {
+        costedCalls.increment();
+        connections.add(cost.getConnections());
+        statements.add(cost.getStatements());
+        roundTrips.add(cost.getRoundTrips());
+        maxConnections.accumulateAndGet(cost.getConnections(), Math::max);
+        maxStatements.accumulateAndGet(cost.getStatements(), Math::max);
+        maxRoundTrips.accumulateAndGet(cost.getRoundTrips(), Math::max);
+    }
+
+    // ==================== SNAPSHOTS ====================
+
+    public RollingLatency.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    public LatencyHistogram getTotalLatency() {
+        return total;
+    }
+
+    public RollingLatency.Snapshot getConnectionAcquire() {
+        return connectionAcquire != null ? connectionAcquire.snapshot() : null;
+    }
+
+    public RollingLatency.Snapshot getSqlExecution() {
+        return sqlExecution != null ? sqlExecution.snapshot() : null;
+    }
+
+    // ==================== MBEAN ====================
+
+    @Override
+    public long getCount() {
+        return successes.sum() + errors.sum();
+    }
+
+    @Override
+    public long getSuccessCount() {
+        return successes.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getRatePerSecond() {
+        return latency.snapshot().getRatePerSecond();
+    }
+
+    @Override
+    public double getErrorRatePerSecond() {
+        return latency.snapshot().getFailureRatePerSecond();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.snapshot().getHistogram().getMeanNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentile(latency, 50);
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentile(latency, 99);
+    }
+
+    @Override
+    public double getP999Micros() {
+        return percentile(latency, 99.9);
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.snapshot().getHistogram().getMaxNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getConnectionAcquireP50Micros() {
+        return percentile(connectionAcquire, 50);
+    }
+
+    @Override
+    public double getConnectionAcquireP99Micros() {
+        return percentile(connectionAcquire, 99);
+    }
+
+    @Override
+    public double getConnectionAcquireP999Micros() {
+        return percentile(connectionAcquire, 99.9);
+    }
+
+    @Override
+    public long getSqlCallCount() {
+        return sqlCalls.sum();
+    }
+
+    @Override
+    public long getStatementCount() {
+        return statements.sum();
+    }
+
+    @Override
+    public double getSqlExecutionP50Micros() {
+        return percentile(sqlExecution, 50);
+    }
+
+    @Override
+    public double getSqlExecutionP99Micros() {
+        return percentile(sqlExecution, 99);
+    }
+
+    @Override
+    public double getSqlExecutionP999Micros() {
+        return percentile(sqlExecution, 99.9);
+    }
+
+    @Override
+    public long getConnectionCount() {
+        return connections.sum();
+    }
+
+    @Override
+    public long getRoundTripCount() {
+        return roundTrips.sum();
+    }
+
+    @Override
+    public double getConnectionsPerCall() {
+        return perCall(connections);
+    }
+
+    @Override
+    public double getStatementsPerCall() {
+        return perCall(statements);
+    }
+
+    @Override
+    public double getRoundTripsPerCall() {
+        return perCall(roundTrips);
+    }
+
+    @Override
+    public long getMaxConnectionsPerCall() {
+        return maxConnections.get();
+    }
+
+    @Override
+    public long getMaxStatementsPerCall() {
+        return maxStatements.get();
+    }
+
+    @Override
+    public long getMaxRoundTripsPerCall() {
+        return maxRoundTrips.get();
+    }
+
+    private double perCall(LongAdder total) {
+        long calls = costedCalls.sum();
+        return calls == 0 ? 0 : (double) total.sum() / calls;
+    }
+
+    @Override
+    public void resetLatencies() {
+        latency.reset();
+        if (connectionAcquire != null) {
+            connectionAcquire.reset();
+            sqlExecution.reset();
+        }
+    }
+
+    private static double percentile(RollingLatency rolling, double percentile) {
+        if (rolling == null) {
+            return 0;
+        }
+        return rolling.snapshot().getHistogram().getValueAtPercentile(percentile) / 1_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OperationMetrics{layer=%s, name='%s', count=%d, errors=%d}",
+                           layer, name, getCount(), getErrorCount());
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.metrics;
+
+/**
+ * JMX view of one operation
+ * Counts are since startup; latencies and rates cover the last one to two METRICS_WINDOW_SECONDS.
+ * Latencies are in microseconds. The connection acquire and SQL execution attributes are 0 for
+ * service operations; the per-call connection, statement and round trip attributes are 0 for DAO
+ * methods.
+ */
+public interface OperationMetricsMBean {
+
+    long getCount();
+
+    long getSuccessCount();
+
+    long getErrorCount();
+
+    double getRatePerSecond();
+
+    double getErrorRatePerSecond();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    double getConnectionAcquireP50Micros();
+
+    double getConnectionAcquireP99Micros();
+
+    double getConnectionAcquireP999Micros();
+
+    long getSqlCallCount();
+
+    double getSqlExecutionP50Micros();
+
+    double getSqlExecutionP99Micros();
+
+    double getSqlExecutionP999Micros();
+
+    long getStatementCount();
+
+    long getConnectionCount();
+
+    long getRoundTripCount();
+
+    double getConnectionsPerCall();
+
+    double getStatementsPerCall();
+
+    double getRoundTripsPerCall();
+
+    long getMaxConnectionsPerCall();
+
+    long getMaxStatementsPerCall();
+
+    long getMaxRoundTripsPerCall();
+
+    /**
+     * Clear the recent latencies; counts since startup are kept
+     */
+    void resetLatencies();
+}
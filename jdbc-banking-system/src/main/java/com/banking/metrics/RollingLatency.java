@@ -0,0 +1,105 @@
+package com.banking.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures over the recent past
+ * Recordings go to the current interval; at the end of each interval it becomes the previous one
+ * and the one before is dropped. A snapshot covers the previous and current interval, so it always
+ * spans between one and two intervals and an old spike ages out instead of hiding a new one.
+ */
+public class RollingLatency {
+
+    private final long intervalNanos;
+    private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+    private volatile Interval current = new Interval();
+    private volatile Interval previous = new Interval();
+
+    public RollingLatency(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+    }
+
+    public void record(long nanos, boolean failed) {
+        Interval interval = roll(System.nanoTime());
+        interval.latency.record(nanos);
+        if (failed) {
+            interval.failures.increment();
+        }
+    }
+
+    /**
+     * Previous and current interval combined
+     */
+    public Snapshot snapshot() {
+        long now = System.nanoTime();
+        Interval latest = roll(now);
+        Interval before = previous;
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(before.latency);
+        merged.add(latest.latency);
+        long failures = before.failures.sum() + latest.failures.sum();
+        double seconds = Math.max(1e-3, (now - intervalStart.get() + intervalNanos) / 1e9);
+        return new Snapshot(merged, failures, seconds);
+    }
+
+    public void reset() {
+        previous.clear();
+        current.clear();
+    }
+
+    // Move to a new interval if the current one is over; returns the interval to record into
+    private Interval roll(long now) {
+        long start = intervalStart.get();
+        long elapsed = now - start;
+        if (elapsed >= intervalNanos && intervalStart.compareAndSet(start, now - elapsed % intervalNanos)) {
+            Interval ended = current;
+            Interval reused = previous;
+            reused.clear();
+            if (elapsed >= 2 * intervalNanos) {
+                // Idle for more than an interval: nothing recent is worth keeping
+                ended.clear();
+            }
+            previous = ended;
+            current = reused;
+        }
+        return current;
+    }
+
+    private static final class Interval {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        void clear() {
+            latency.reset();
+            failures.reset();
+        }
+    }
+
+    /**
+     * Recordings over the last one to two intervals
+     */
+    public static final class Snapshot {
+        private final LatencyHistogram histogram;
+        private final long failures;
+        private final double seconds;
+
+        Snapshot(LatencyHistogram histogram, long failures, double seconds) {
+            this.histogram = histogram;
+            this.failures = failures;
+            this.seconds = seconds;
+        }
+
+        public LatencyHistogram getHistogram() { return histogram; }
+        public long getFailures() { return failures; }
+        public double getSeconds() { return seconds; }
+
+        public double getRatePerSecond() {
+            return histogram.getCount() / seconds;
+        }
+
+        public double getFailureRatePerSecond() {
+            return failures / seconds;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.banking.metrics;
+
+import com.banking.util.AsyncRotatingFile;
+import com.banking.util.DatabaseConnection;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log of statements slower than SLOW_QUERY_THRESHOLD_MS, with their bind values
+ *
+ * Faster statements are sampled at up to SLOW_QUERY_SAMPLES_PER_SECOND so the log also shows what
+ * normal looks like. Values bound to columns in SLOW_QUERY_MASK_COLUMNS, and any value that looks
+ * like an email address, are masked. Lines are formatted and written by a background thread to
+ * SLOW_QUERY_LOG_FILE, rotated every SLOW_QUERY_LOG_MAX_MB and keeping SLOW_QUERY_LOG_FILES files.
+ */
+public final class SlowQueryLog {
+
+    private static final DatabaseConnection CONFIG = DatabaseConnection.getInstance();
+
+    public static final boolean ENABLED = Boolean.parseBoolean(CONFIG.getProperty("SLOW_QUERY_LOG_ENABLED", "true"));
+
+    private static final long THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.parseLong(CONFIG.getProperty("SLOW_QUERY_THRESHOLD_MS", "200")));
+    private static final double SAMPLES_PER_SECOND = Double.parseDouble(CONFIG.getProperty("SLOW_QUERY_SAMPLES_PER_SECOND", "1"));
+    private static final Set<String> MASKED_COLUMNS = Set.of(
+            CONFIG.getProperty("SLOW_QUERY_MASK_COLUMNS", "name,email,contact_number").toLowerCase(Locale.ROOT).split("\\s*,\\s*"));
+
+    private static final int MAX_SQL_CHARS = 2000;
+    private static final int MAX_VALUE_CHARS = 64;
+    private static final int MAX_LOGGED_VALUES = 50;
+    private static final String MASK = "****";
+
+    private static final AsyncRotatingFile FILE = ENABLED ? new AsyncRotatingFile(
+            Path.of(CONFIG.getProperty("SLOW_QUERY_LOG_FILE", "logs/slow-query.log")),
+            Long.parseLong(CONFIG.getProperty("SLOW_QUERY_LOG_MAX_MB", "10")) * 1024 * 1024,
+            Integer.parseInt(CONFIG.getProperty("SLOW_QUERY_LOG_FILES", "5"))) : null;
+
+    // Earliest System.nanoTime() at which the next sample may be taken
+    private static final AtomicLong NEXT_SAMPLE = new AtomicLong(System.nanoTime());
+    private static final long SAMPLE_INTERVAL_NANOS = SAMPLES_PER_SECOND > 0 ? (long) (1e9 / SAMPLES_PER_SECOND) : 0;
+
+    // Which placeholders of a statement are bound to masked columns, by SQL text
+    private static final int MAX_CACHED_STATEMENTS = 1024;
+    private static final ConcurrentHashMap<String, boolean[]> MASKED_PLACEHOLDERS = new ConcurrentHashMap<>();
+
+    private SlowQueryLog() {
+    }
+
+    /**
+     * Log one statement if it was slow or is picked as a sample; called on the request thread,
+     * so all it does there is the threshold check and a queue offer
+     *
+     * @param values  bind values by parameter index (index 0 unused), or null
+     * @param batchRows rows in an executed batch, 0 otherwise; values are then those of its first row
+     */
+    static void record(String daoMethod, String call, String sql, Object[] values, int batchRows,
+                       long rowsAffected, long elapsedNanos, boolean succeeded) {
+        if (!ENABLED) {
+            return;
+        }
+        String kind;
+        if (elapsedNanos >= THRESHOLD_NANOS) {
+            kind = "SLOW";
+        } else if (takeSample()) {
+            kind = "SAMPLE";
+        } else {
+            return;
+        }
+        LocalDateTime at = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        FILE.append(() -> format(at, kind, daoMethod, call, sql, values, batchRows, rowsAffected, elapsedNanos, succeeded));
+    }
+
+    private static boolean takeSample() {
+        if (SAMPLE_INTERVAL_NANOS == 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long next = NEXT_SAMPLE.get();
+        return now - next >= 0 && NEXT_SAMPLE.compareAndSet(next, now + SAMPLE_INTERVAL_NANOS);
+    }
+
+    // ==================== FORMATTING (writer thread) ====================
+
+    private static String format(LocalDateTime at, String kind, String daoMethod, String call, String sql, Object[] values,
+                                 int batchRows, long rowsAffected, long elapsedNanos, boolean succeeded) {
+        StringBuilder line = new StringBuilder(256);
+        line.append(at).append(' ').append(kind)
+            .append(String.format(" %.3fms ", elapsedNanos / 1_000_000.0))
+            .append(daoMethod).append(' ').append(call)
+            .append(succeeded ? " ok" : " error")
+            .append(" rows=").append(rowsAffected);
+        if (batchRows > 0) {
+            line.append(" batch=").append(batchRows);
+        }
+        if (sql != null) {
+            String text = sql.replaceAll("\\s+", " ");
+            line.append(" sql=\"").append(text.length() > MAX_SQL_CHARS ? text.substring(0, MAX_SQL_CHARS) + "..." : text).append('"');
+        }
+        if (values != null && values.length > 1) {
+            boolean[] masked = sql != null ? maskedPlaceholders(sql) : new boolean[0];
+            line.append(" params=[");
+            int shown = Math.min(values.length - 1, MAX_LOGGED_VALUES);
+            for (int i = 1; i <= shown; i++) {
+                if (i > 1) {
+                    line.append(", ");
+                }
+                boolean mask = i - 1 < masked.length && masked[i - 1];
+                line.append(formatValue(values[i], mask));
+            }
+            if (values.length - 1 > shown) {
+                line.append(", ...(+").append(values.length - 1 - shown).append(')');
+            }
+            line.append(']');
+        }
+        return line.toString();
+    }
+
+    private static String formatValue(Object value, boolean mask) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof byte[]) {
+            return "<" + ((byte[]) value).length + " bytes>";
+        }
+        String text = value.toString();
+        if (mask || text.indexOf('@') > 0) {
+            return MASK;
+        }
+        if (value instanceof CharSequence) {
+            String shown = text.length() > MAX_VALUE_CHARS ? text.substring(0, MAX_VALUE_CHARS) + "..." : text;
+            return "'" + shown.replace("'", "''") + "'";
+        }
+        return text;
+    }
+
+    // ==================== PLACEHOLDER COLUMNS ====================
+
+    private static boolean[] maskedPlaceholders(String sql) {
+        boolean[] cached = MASKED_PLACEHOLDERS.get(sql);
+        if (cached == null) {
+            cached = findMaskedPlaceholders(sql);
+            if (MASKED_PLACEHOLDERS.size() < MAX_CACHED_STATEMENTS) {
+                MASKED_PLACEHOLDERS.put(sql, cached);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Column each placeholder is bound to, as far as it can be read from the SQL: the column list
+     * of an INSERT ... VALUES, or the column before =, <, >, LIKE or IN (...) elsewhere
+     */
+    static boolean[] findMaskedPlaceholders(String sql) {
+        String[] insertColumns = insertColumns(sql);
+        int placeholders = 0;
+        boolean[] masked = new boolean[16];
+        boolean inString = false;
+        int valuesStart = insertColumns != null ? sql.toUpperCase(Locale.ROOT).indexOf("VALUES") : -1;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            }
+            if (inString || c != '?') {
+                continue;
+            }
+            String column = valuesStart >= 0 && i > valuesStart
+                    ? insertColumns[placeholders % insertColumns.length]
+                    : comparedColumn(sql, i);
+            if (placeholders == masked.length) {
+                masked = Arrays.copyOf(masked, masked.length * 2);
+            }
+            masked[placeholders++] = column != null && MASKED_COLUMNS.contains(column);
+        }
+        return Arrays.copyOf(masked, placeholders);
+    }
+
+    private static String[] insertColumns(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        int values = upper.indexOf("VALUES");
+        if (!upper.stripLeading().startsWith("INSERT") || values < 0) {
+            return null;
+        }
+        int open = sql.indexOf('(');
+        int close = open >= 0 ? sql.indexOf(')', open) : -1;
+        if (open < 0 || close < 0 || close > values) {
+            return null;
+        }
+        String[] columns = sql.substring(open + 1, close).split(",");
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = normalize(columns[i]);
+        }
+        return columns;
+    }
+
+    // Walk back from a placeholder over "?", ",", "(" and an operator to the column name
+    private static String comparedColumn(String sql, int placeholder) {
+        int i = placeholder - 1;
+        while (i >= 0 && (Character.isWhitespace(sql.charAt(i)) || "?,(".indexOf(sql.charAt(i)) >= 0)) {
+            i--;
+        }
+        int end = i + 1;
+        while (i >= 0 && "=<>!".indexOf(sql.charAt(i)) >= 0) {
+            i--;
+        }
+        if (i + 1 == end) {
+            // No operator symbol: expect IN or LIKE
+            int wordEnd = i + 1;
+            while (i >= 0 && Character.isLetter(sql.charAt(i))) {
+                i--;
+            }
+            String word = sql.substring(i + 1, wordEnd).toUpperCase(Locale.ROOT);
+            if (!word.equals("IN") && !word.equals("LIKE")) {
+                return null;
+            }
+        }
+        while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+            i--;
+        }
+        int columnEnd = i + 1;
+        while (i >= 0 && (Character.isLetterOrDigit(sql.charAt(i)) || "_.`".indexOf(sql.charAt(i)) >= 0)) {
+            i--;
+        }
+        return columnEnd > i + 1 ? normalize(sql.substring(i + 1, columnEnd)) : null;
+    }
+
+    private static String normalize(String column) {
+        String name = column.trim().replace("`", "").toLowerCase(Locale.ROOT);
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
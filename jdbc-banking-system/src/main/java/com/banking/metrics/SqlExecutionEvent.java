@@ -0,0 +1,37 @@
+package com.banking.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one statement execution, commit or rollback made by a DAO method
+ * Carries the SQL text with its placeholders, never the bound values.
+ */
+@Name("com.banking.SqlExecution")
+@Label("SQL Execution")
+@Category({"Banking", "JDBC"})
+@Threshold("5 ms")
+@StackTrace(false)
+public class SqlExecutionEvent extends jdk.jfr.Event {
+
+    @Label("DAO Method")
+    public String daoMethod;
+
+    @Label("Call")
+    @Description("JDBC method, e.g. executeUpdate, executeBatch or commit")
+    public String call;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows Affected")
+    @Description("Update count, summed over a batch; -1 for queries and unknown counts")
+    public long rowsAffected;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
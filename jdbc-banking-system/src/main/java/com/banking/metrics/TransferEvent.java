@@ -0,0 +1,18 @@
+package com.banking.metrics;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for BankingService.transfer
+ */
+@Name("com.banking.Transfer")
+@Label("Transfer")
+public class TransferEvent extends AccountOperationEvent {
+
+    @Label("From Account Id")
+    public int fromAccountId;
+
+    @Label("To Account Id")
+    public int toAccountId;
+}
@@ -0,0 +1,15 @@
+package com.banking.metrics;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for BankingService.withdraw
+ */
+@Name("com.banking.Withdraw")
+@Label("Withdraw")
+public class WithdrawEvent extends AccountOperationEvent {
+
+    @Label("Account Id")
+    public int accountId;
+}
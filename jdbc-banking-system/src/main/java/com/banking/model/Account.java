@@ -1,6 +1,5 @@
 package com.banking.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -12,8 +11,10 @@ public class Account {
     private int id;
     private int customerId;
     private String accountType;
-    private BigDecimal balance;
+    private long balanceCents;
     private LocalDateTime createdAt;
+    // Row version, bumped by every balance write
+    private long version;
 
     // Account types as constants
     public static final String SAVINGS = "SAVINGS";
@@ -22,24 +23,23 @@ public class Account {
 
     // Default constructor
     public Account() {
-        this.balance = BigDecimal.ZERO;
         this.createdAt = LocalDateTime.now();
     }
 
     // Parameterized constructor
-    public Account(int customerId, String accountType, BigDecimal balance) {
+    public Account(int customerId, String accountType, Money balance) {
         this.customerId = customerId;
         this.accountType = accountType;
-        this.balance = balance != null ? balance : BigDecimal.ZERO;
+        this.balanceCents = balance != null ? balance.getCents() : 0;
         this.createdAt = LocalDateTime.now();
     }
 
     // Full constructor with ID
-    public Account(int id, int customerId, String accountType, BigDecimal balance, LocalDateTime createdAt) {
+    public Account(int id, int customerId, String accountType, Money balance, LocalDateTime createdAt) {
         this.id = id;
         this.customerId = customerId;
         this.accountType = accountType;
-        this.balance = balance != null ? balance : BigDecimal.ZERO;
+        this.balanceCents = balance != null ? balance.getCents() : 0;
         this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
     }
 
@@ -68,12 +68,24 @@ public class Account {
         this.accountType = accountType;
     }
 
-    public BigDecimal getBalance() {
-        return balance;
+    public Money getBalance() {
+        return Money.ofCents(balanceCents);
     }
 
-    public void setBalance(BigDecimal balance) {
-        this.balance = balance != null ? balance : BigDecimal.ZERO;
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    public void setBalance(Money balance) {
+        this.balanceCents = balance != null ? balance.getCents() : 0;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -92,25 +104,25 @@ public class Account {
                 accountType.equals(FIXED_DEPOSIT));
     }
 
-    public boolean hasSufficientBalance(BigDecimal amount) {
-        return balance != null && amount != null && balance.compareTo(amount) >= 0;
+    public boolean hasSufficientBalance(Money amount) {
+        return amount != null && balanceCents >= amount.getCents();
     }
 
-    public void deposit(BigDecimal amount) {
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) > 0) {
-            this.balance = this.balance.add(amount);
+    public void deposit(Money amount) {
+        if (amount != null && amount.isPositive()) {
+            this.balanceCents = Math.addExact(balanceCents, amount.getCents());
         }
     }
 
-    public boolean withdraw(BigDecimal amount) {
-        if (amount != null && amount.compareTo(BigDecimal.ZERO) > 0 && hasSufficientBalance(amount)) {
-            this.balance = this.balance.subtract(amount);
+    public boolean withdraw(Money amount) {
+        if (amount != null && amount.isPositive() && hasSufficientBalance(amount)) {
+            this.balanceCents -= amount.getCents();
             return true;
         }
         return false;
     }
 
-    public boolean transfer(Account targetAccount, BigDecimal amount) {
+    public boolean transfer(Account targetAccount, Money amount) {
         if (targetAccount != null && withdraw(amount)) {
             targetAccount.deposit(amount);
             return true;
@@ -122,8 +134,7 @@ public class Account {
     public boolean isValid() {
         return customerId > 0 && 
                isValidAccountType() && 
-               balance != null && 
-               balance.compareTo(BigDecimal.ZERO) >= 0;
+               balanceCents >= 0;
     }
 
     // Override methods for proper object behavior
@@ -134,19 +145,19 @@ public class Account {
         Account account = (Account) obj;
         return id == account.id && 
                customerId == account.customerId && 
+               balanceCents == account.balanceCents && 
                Objects.equals(accountType, account.accountType) && 
-               Objects.equals(balance, account.balance) && 
                Objects.equals(createdAt, account.createdAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, customerId, accountType, balance, createdAt);
+        return Objects.hash(id, customerId, accountType, balanceCents, createdAt);
     }
 
     @Override
     public String toString() {
         return String.format("Account{id=%d, customerId=%d, accountType='%s', balance=%s, createdAt=%s}", 
-                           id, customerId, accountType, balance, createdAt);
+                           id, customerId, accountType, getBalance(), createdAt);
     }
 } 
\ No newline at end of file
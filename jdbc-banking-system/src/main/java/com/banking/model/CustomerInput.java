@@ -0,0 +1,41 @@
+package com.banking.model;
+
+/**
+ * Raw customer registration data, as received from a partner batch or a form
+ * Nothing is validated or sanitized yet
+ */
+public class CustomerInput {
+    private final String name;
+    private final int age;
+    private final String email;
+    private final String contactNumber;
+
+    public CustomerInput(String name, int age, String email, String contactNumber) {
+        this.name = name;
+        this.age = age;
+        this.email = email;
+        this.contactNumber = contactNumber;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getContactNumber() {
+        return contactNumber;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CustomerInput{name='%s', age=%d, email='%s', contactNumber='%s'}",
+                           name, age, email, contactNumber);
+    }
+}
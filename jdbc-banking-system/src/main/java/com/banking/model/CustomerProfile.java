@@ -0,0 +1,82 @@
+package com.banking.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Customer profile aggregate: the customer, every account and each account's activity summary
+ * Loaded in one query so the profile costs the same however many accounts the customer holds
+ */
+public class CustomerProfile {
+    private final Customer customer;
+    private final List<AccountSummary> accounts;
+    private final Money totalBalance;
+
+    public CustomerProfile(Customer customer, List<AccountSummary> accounts) {
+        this.customer = customer;
+        this.accounts = Collections.unmodifiableList(accounts);
+
+        long totalCents = 0;
+        for (AccountSummary summary : accounts) {
+            totalCents = Math.addExact(totalCents, summary.getAccount().getBalanceCents());
+        }
+        this.totalBalance = Money.ofCents(totalCents);
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public List<AccountSummary> getAccounts() {
+        return accounts;
+    }
+
+    public Money getTotalBalance() {
+        return totalBalance;
+    }
+
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CustomerProfile{customerId=%d, accounts=%d, totalBalance=%s}",
+                           customer.getId(), accounts.size(), totalBalance);
+    }
+
+    /**
+     * One account with its lifetime transaction totals
+     */
+    public static class AccountSummary {
+        private final Account account;
+        private final int totalTransactions;
+        private final Money totalDeposits;
+        private final Money totalWithdrawals;
+        private final Money totalSent;
+        private final Money totalReceived;
+
+        public AccountSummary(Account account, int totalTransactions, Money totalDeposits,
+                              Money totalWithdrawals, Money totalSent, Money totalReceived) {
+            this.account = account;
+            this.totalTransactions = totalTransactions;
+            this.totalDeposits = totalDeposits != null ? totalDeposits : Money.ZERO;
+            this.totalWithdrawals = totalWithdrawals != null ? totalWithdrawals : Money.ZERO;
+            this.totalSent = totalSent != null ? totalSent : Money.ZERO;
+            this.totalReceived = totalReceived != null ? totalReceived : Money.ZERO;
+        }
+
+        public Account getAccount() { return account; }
+        public int getTotalTransactions() { return totalTransactions; }
+        public Money getTotalDeposits() { return totalDeposits; }
+        public Money getTotalWithdrawals() { return totalWithdrawals; }
+        public Money getTotalSent() { return totalSent; }
+        public Money getTotalReceived() { return totalReceived; }
+
+        @Override
+        public String toString() {
+            return String.format("AccountSummary{accountId=%d, total=%d, deposits=%s, withdrawals=%s, sent=%s, received=%s}",
+                               account.getId(), totalTransactions, totalDeposits, totalWithdrawals, totalSent, totalReceived);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.banking.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable money amount stored as a long count of minor units (cents)
+ * Arithmetic is overflow-checked; conversion to DECIMAL(15,2) happens only at the JDBC edge
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    // Factory methods
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Convert from a decimal value
+     *
+     * @throws ArithmeticException if the value has more than two decimals or does not fit
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return ofCents(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parse user input such as "125" or "125.50"
+     *
+     * @throws NumberFormatException if the text is not a number
+     * @throws ArithmeticException   if the value has more than two decimals or does not fit
+     */
+    public static Money parse(String text) {
+        return of(new BigDecimal(text.trim()));
+    }
+
+    // Accessors
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    // Overflow-checked arithmetic
+    public Money plus(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return other.cents == 0 ? this : ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    // Comparisons
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public boolean isAtLeast(Money other) {
+        return cents >= other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    // Override methods for proper object behavior
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return cents == ((Money) obj).cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        long whole = cents / 100;
+        long fraction = Math.abs(cents % 100);
+        String sign = cents < 0 && whole == 0 ? "-" : "";
+        return sign + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
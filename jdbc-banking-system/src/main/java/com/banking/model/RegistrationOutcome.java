@@ -0,0 +1,63 @@
+package com.banking.model;
+
+/**
+ * Result of registering one customer from a batch
+ */
+public class RegistrationOutcome {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE_IN_BATCH,
+        EMAIL_EXISTS,
+        FAILED
+    }
+
+    private final int index;
+    private final Status status;
+    private final int customerId;
+    private final String message;
+
+    public RegistrationOutcome(int index, Status status, int customerId, String message) {
+        this.index = index;
+        this.status = status;
+        this.customerId = customerId;
+        this.message = message;
+    }
+
+    public static RegistrationOutcome created(int index, int customerId) {
+        return new RegistrationOutcome(index, Status.CREATED, customerId, null);
+    }
+
+    public static RegistrationOutcome rejected(int index, Status status, String message) {
+        return new RegistrationOutcome(index, status, 0, message);
+    }
+
+    // Position of the row in the submitted batch
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    // Assigned id when CREATED, otherwise 0
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isCreated() {
+        return status == Status.CREATED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RegistrationOutcome{index=%d, status=%s, customerId=%d, message='%s'}",
+                           index, status, customerId, message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.banking.model;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Point-in-time row counts for the statistics screen
+ * Accounts per type always include the three standard types, with 0 when none exist.
+ */
+public class SystemStatistics {
+    private final long customerCount;
+    private final long transactionCount;
+    private final Map<String, Long> accountsByType;
+    private final long accountCount;
+    private final LocalDateTime countedAt;
+
+    public SystemStatistics(long customerCount, long transactionCount, Map<String, Long> accountsByType,
+                            LocalDateTime countedAt) {
+        this.customerCount = customerCount;
+        this.transactionCount = transactionCount;
+        this.accountsByType = Collections.unmodifiableMap(accountsByType);
+        this.accountCount = accountsByType.values().stream().mapToLong(Long::longValue).sum();
+        this.countedAt = countedAt;
+    }
+
+    public long getCustomerCount() {
+        return customerCount;
+    }
+
+    public long getAccountCount() {
+        return accountCount;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public Map<String, Long> getAccountsByType() {
+        return accountsByType;
+    }
+
+    public long getAccountCount(String accountType) {
+        return accountsByType.getOrDefault(accountType, 0L);
+    }
+
+    // When the counts were last taken from the database; later writes are applied as deltas
+    public LocalDateTime getCountedAt() {
+        return countedAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SystemStatistics{customers=%d, accounts=%d, transactions=%d, accountsByType=%s}",
+                           customerCount, accountCount, transactionCount, accountsByType);
+    }
+}
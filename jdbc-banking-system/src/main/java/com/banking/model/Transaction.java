@@ -1,6 +1,5 @@
 package com.banking.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -10,46 +9,47 @@ import java.util.Objects;
  */
 public class Transaction {
     private int id;
-    private Integer fromAccountId;
-    private Integer toAccountId;
-    private BigDecimal amount;
-    private String type;
+    private int fromAccountId;   // 0 when the transaction has no source account
+    private int toAccountId;     // 0 when the transaction has no destination account
+    private long amountCents;
+    private TransactionType type;
     private LocalDateTime timestamp;
 
     // Transaction types as constants
     public static final String DEPOSIT = "DEPOSIT";
     public static final String WITHDRAW = "WITHDRAW";
     public static final String TRANSFER = "TRANSFER";
+    public static final String OPENING = "OPENING";
 
     // Default constructor
     public Transaction() {
         this.timestamp = LocalDateTime.now();
     }
 
-    // Constructor for deposit/withdraw transactions
-    public Transaction(Integer accountId, BigDecimal amount, String type) {
-        this.fromAccountId = type.equals(WITHDRAW) ? accountId : null;
-        this.toAccountId = type.equals(DEPOSIT) ? accountId : null;
-        this.amount = amount;
-        this.type = type;
+    // Constructor for deposit/withdraw/opening balance transactions
+    public Transaction(int accountId, Money amount, String type) {
+        this.fromAccountId = type.equals(WITHDRAW) ? accountId : 0;
+        this.toAccountId = type.equals(DEPOSIT) || type.equals(OPENING) ? accountId : 0;
+        this.amountCents = amount != null ? amount.getCents() : 0;
+        this.type = TransactionType.fromName(type);
         this.timestamp = LocalDateTime.now();
     }
 
     // Constructor for transfer transactions
-    public Transaction(Integer fromAccountId, Integer toAccountId, BigDecimal amount) {
+    public Transaction(int fromAccountId, int toAccountId, Money amount) {
         this.fromAccountId = fromAccountId;
         this.toAccountId = toAccountId;
-        this.amount = amount;
-        this.type = TRANSFER;
+        this.amountCents = amount != null ? amount.getCents() : 0;
+        this.type = TransactionType.TRANSFER;
         this.timestamp = LocalDateTime.now();
     }
 
     // Full constructor with ID
-    public Transaction(int id, Integer fromAccountId, Integer toAccountId, BigDecimal amount, String type, LocalDateTime timestamp) {
+    public Transaction(int id, int fromAccountId, int toAccountId, Money amount, TransactionType type, LocalDateTime timestamp) {
         this.id = id;
         this.fromAccountId = fromAccountId;
         this.toAccountId = toAccountId;
-        this.amount = amount;
+        this.amountCents = amount != null ? amount.getCents() : 0;
         this.type = type;
         this.timestamp = timestamp != null ? timestamp : LocalDateTime.now();
     }
@@ -63,36 +63,52 @@ public class Transaction {
         this.id = id;
     }
 
-    public Integer getFromAccountId() {
+    public int getFromAccountId() {
         return fromAccountId;
     }
 
-    public void setFromAccountId(Integer fromAccountId) {
+    public void setFromAccountId(int fromAccountId) {
         this.fromAccountId = fromAccountId;
     }
 
-    public Integer getToAccountId() {
+    public boolean hasFromAccount() {
+        return fromAccountId > 0;
+    }
+
+    public int getToAccountId() {
         return toAccountId;
     }
 
-    public void setToAccountId(Integer toAccountId) {
+    public void setToAccountId(int toAccountId) {
         this.toAccountId = toAccountId;
     }
 
-    public BigDecimal getAmount() {
-        return amount;
+    public boolean hasToAccount() {
+        return toAccountId > 0;
+    }
+
+    public Money getAmount() {
+        return Money.ofCents(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
 
-    public void setAmount(BigDecimal amount) {
-        this.amount = amount;
+    public void setAmount(Money amount) {
+        this.amountCents = amount != null ? amount.getCents() : 0;
     }
 
     public String getType() {
+        return type != null ? type.name() : null;
+    }
+
+    public TransactionType getTransactionType() {
         return type;
     }
 
     public void setType(String type) {
-        this.type = type;
+        this.type = TransactionType.fromName(type);
     }
 
     public LocalDateTime getTimestamp() {
@@ -105,36 +121,42 @@ public class Transaction {
 
     // Business logic methods
     public boolean isValidType() {
-        return type != null && 
-               (type.equals(DEPOSIT) || 
-                type.equals(WITHDRAW) || 
-                type.equals(TRANSFER));
+        return type != null;
     }
 
     public boolean isValidAmount() {
-        return amount != null && amount.compareTo(BigDecimal.ZERO) > 0;
+        return amountCents > 0;
     }
 
     public boolean isTransfer() {
-        return TRANSFER.equals(type);
+        return type == TransactionType.TRANSFER;
     }
 
     public boolean isDeposit() {
-        return DEPOSIT.equals(type);
+        return type == TransactionType.DEPOSIT;
     }
 
     public boolean isWithdraw() {
-        return WITHDRAW.equals(type);
+        return type == TransactionType.WITHDRAW;
+    }
+
+    public boolean isOpening() {
+        return type == TransactionType.OPENING;
     }
 
     public String getDescription() {
+        if (type == null) {
+            return "Unknown transaction type";
+        }
         switch (type) {
             case DEPOSIT:
-                return String.format("Deposit of $%s to account %d", amount, toAccountId);
+                return String.format("Deposit of $%s to account %d", getAmount(), toAccountId);
             case WITHDRAW:
-                return String.format("Withdrawal of $%s from account %d", amount, fromAccountId);
+                return String.format("Withdrawal of $%s from account %d", getAmount(), fromAccountId);
             case TRANSFER:
-                return String.format("Transfer of $%s from account %d to account %d", amount, fromAccountId, toAccountId);
+                return String.format("Transfer of $%s from account %d to account %d", getAmount(), fromAccountId, toAccountId);
+            case OPENING:
+                return String.format("Opening balance of $%s in account %d", getAmount(), toAccountId);
             default:
                 return "Unknown transaction type";
         }
@@ -142,17 +164,21 @@ public class Transaction {
 
     // Validation methods
     public boolean isValid() {
+        if (isOpening()) {
+            // An account can be opened empty
+            return amountCents >= 0 && hasToAccount() && !hasFromAccount();
+        }
         if (!isValidType() || !isValidAmount()) {
             return false;
         }
 
         switch (type) {
             case DEPOSIT:
-                return toAccountId != null && fromAccountId == null;
+                return hasToAccount() && !hasFromAccount();
             case WITHDRAW:
-                return fromAccountId != null && toAccountId == null;
+                return hasFromAccount() && !hasToAccount();
             case TRANSFER:
-                return fromAccountId != null && toAccountId != null && !fromAccountId.equals(toAccountId);
+                return hasFromAccount() && hasToAccount() && fromAccountId != toAccountId;
             default:
                 return false;
         }
@@ -164,22 +190,22 @@ public class Transaction {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Transaction that = (Transaction) obj;
-        return id == that.id && 
-               Objects.equals(fromAccountId, that.fromAccountId) && 
-               Objects.equals(toAccountId, that.toAccountId) && 
-               Objects.equals(amount, that.amount) && 
-               Objects.equals(type, that.type) && 
+        return id == that.id &&
+               fromAccountId == that.fromAccountId &&
+               toAccountId == that.toAccountId &&
+               amountCents == that.amountCents &&
+               type == that.type &&
                Objects.equals(timestamp, that.timestamp);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, fromAccountId, toAccountId, amount, type, timestamp);
+        return Objects.hash(id, fromAccountId, toAccountId, amountCents, type, timestamp);
     }
 
     @Override
     public String toString() {
-        return String.format("Transaction{id=%d, fromAccountId=%s, toAccountId=%s, amount=%s, type='%s', timestamp=%s}", 
-                           id, fromAccountId, toAccountId, amount, type, timestamp);
+        return String.format("Transaction{id=%d, fromAccountId=%d, toAccountId=%d, amount=%s, type='%s', timestamp=%s}",
+                           id, fromAccountId, toAccountId, getAmount(), getType(), timestamp);
     }
-} 
\ No newline at end of file
+}
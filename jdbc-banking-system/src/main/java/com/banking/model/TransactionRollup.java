@@ -0,0 +1,50 @@
+package com.banking.model;
+
+import java.time.LocalDate;
+
+/**
+ * Transaction count and volume for one reporting period, transaction type and account type
+ */
+public class TransactionRollup {
+    private final LocalDate periodStart;
+    private final TransactionType transactionType;
+    private final String accountType;
+    private final long count;
+    private final Money volume;
+
+    public TransactionRollup(LocalDate periodStart, TransactionType transactionType, String accountType,
+                             long count, Money volume) {
+        this.periodStart = periodStart;
+        this.transactionType = transactionType;
+        this.accountType = accountType;
+        this.count = count;
+        this.volume = volume;
+    }
+
+    // First day of the day, week (Monday) or month
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public String getAccountType() {
+        return accountType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getVolume() {
+        return volume;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransactionRollup{periodStart=%s, type=%s, accountType='%s', count=%d, volume=%s}",
+                           periodStart, transactionType, accountType, count, volume);
+    }
+}
@@ -0,0 +1,67 @@
+package com.banking.model;
+
+/**
+ * Transaction type enumeration with compact numeric codes
+ * Lets columnar and aggregate code carry a byte instead of the type name
+ */
+public enum TransactionType {
+    DEPOSIT((byte) 1),
+    WITHDRAW((byte) 2),
+    TRANSFER((byte) 3),
+    // Balance an account was opened with; kept apart so it does not count as a deposit
+    OPENING((byte) 4);
+
+    // Highest code in use, handy for sizing code-indexed arrays
+    public static final int MAX_CODE = 4;
+
+    private final byte code;
+
+    TransactionType(byte code) {
+        this.code = code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    // Resolve a stored type name without throwing on unknown values
+    public static TransactionType fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name) {
+            case Transaction.DEPOSIT:
+                return DEPOSIT;
+            case Transaction.WITHDRAW:
+                return WITHDRAW;
+            case Transaction.TRANSFER:
+                return TRANSFER;
+            case Transaction.OPENING:
+                return OPENING;
+            default:
+                return null;
+        }
+    }
+
+    // Resolve a stored type code; an unknown code means a corrupt or newer ledger row
+    public static TransactionType fromCode(int code) {
+        switch (code) {
+            case 1:
+                return DEPOSIT;
+            case 2:
+                return WITHDRAW;
+            case 3:
+                return TRANSFER;
+            case 4:
+                return OPENING;
+            default:
+                throw new IllegalArgumentException("Unknown transaction type code: " + code);
+        }
+    }
+
+    // Type name to code, 0 for unknown names
+    public static byte codeOf(String name) {
+        TransactionType type = fromName(name);
+        return type != null ? type.code : 0;
+    }
+}
@@ -0,0 +1,362 @@
+package com.banking.monitoring;
+
+import com.banking.cache.EntityCache;
+import com.banking.cache.EntityCaches;
+import com.banking.metrics.LatencyHistogram;
+import com.banking.metrics.Metrics;
+import com.banking.metrics.OperationMetrics;
+import com.banking.service.CustomerProfileCache;
+import com.banking.util.DatabaseConnection;
+import com.banking.util.Log;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded HTTP endpoint for Prometheus and health probes, on the JDK's built-in server
+ *
+ * GET /metrics serves the Prometheus text format: operation counts and latency buckets per service
+ * operation and DAO method, database connections, SQL errors by kind (deadlocks, lock wait
+ * timeouts) and cache hit ratios. GET /health answers from the last
+ * DatabaseConnection.testConnection result for HEALTH_CACHE_SECONDS, so probes do not each open a
+ * database session.
+ *
+ * Listens on MONITORING_HOST:MONITORING_PORT (default 127.0.0.1:9404; port 0 disables it). The
+ * endpoint has no authentication, so binding a reachable address is an explicit choice.
+ */
+public class MonitoringServer {
+
+    private static final Log LOG = Log.get(MonitoringServer.class);
+    private static final DatabaseConnection CONFIG = DatabaseConnection.getInstance();
+
+    private static final int PORT = Integer.parseInt(CONFIG.getProperty("MONITORING_PORT", "9404"));
+    private static final String HOST = CONFIG.getProperty("MONITORING_HOST", "127.0.0.1");
+    private static final long HEALTH_CACHE_NANOS = TimeUnit.SECONDS.toNanos(
+            Long.parseLong(CONFIG.getProperty("HEALTH_CACHE_SECONDS", "5")));
+
+    private static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int HANDLER_THREADS = 2;
+
+    // Upper bounds of the exported latency buckets, in seconds
+    private static final double[] BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final CustomerProfileCache profileCache;
+    private final ReentrantLock healthCheck = new ReentrantLock();
+    private volatile Health lastHealth;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MonitoringServer(CustomerProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    public static boolean isEnabled() {
+        return PORT > 0;
+    }
+
+    /**
+     * Start listening unless disabled; a port that cannot be bound is logged, not fatal
+     */
+    public synchronized boolean start() {
+        if (!isEnabled() || server != null) {
+            return server != null;
+        }
+        try {
+            HttpServer http = HttpServer.create(new InetSocketAddress(HOST, PORT), 0);
+            http.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+            http.createContext("/health", exchange -> handle(exchange, this::health));
+            executor = Executors.newFixedThreadPool(HANDLER_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "monitoring-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+            http.setExecutor(executor);
+            http.start();
+            server = http;
+            LOG.info("Monitoring endpoint started", "host", HOST, "port", PORT);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Error starting monitoring endpoint", "port", PORT, "error", e.getMessage());
+            return false;
+        }
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    // ==================== HTTP ====================
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Response respond();
+    }
+
+    private static final class Response {
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            Response response;
+            try {
+                response = endpoint.respond();
+            } catch (RuntimeException e) {
+                LOG.error("Error serving monitoring request", "path", exchange.getRequestURI().getPath(), "error", e);
+                response = new Response(500, "text/plain; charset=utf-8", "internal error\n");
+            }
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(response.status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ==================== HEALTH ====================
+
+    private static final class Health {
+        final boolean up;
+        final long checkedNanos;
+        final LocalDateTime checkedAt;
+
+        Health(boolean up) {
+            this.up = up;
+            this.checkedNanos = System.nanoTime();
+            this.checkedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - checkedNanos < HEALTH_CACHE_NANOS;
+        }
+    }
+
+    private Response health() {
+        Health health = currentHealth();
+        String status = health.up ? "UP" : "DOWN";
+        String body = "{\"status\":\"" + status + "\",\"database\":\"" + status + "\",\"checkedAt\":\"" + health.checkedAt + "\"}\n";
+        return new Response(health.up ? 200 : 503, "application/json", body);
+    }
+
+    // One probe refreshes an expired result while concurrent probes keep getting the previous one
+    private Health currentHealth() {
+        Health health = lastHealth;
+        if (health != null && health.isFresh()) {
+            return health;
+        }
+        if (health == null) {
+            healthCheck.lock();
+        } else if (!healthCheck.tryLock()) {
+            return health;
+        }
+        try {
+            health = lastHealth;
+            if (health == null || !health.isFresh()) {
+                health = new Health(CONFIG.testConnection());
+                lastHealth = health;
+            }
+            return health;
+        } finally {
+            healthCheck.unlock();
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    private Response metrics() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        appendOperations(out);
+        appendDatabase(out);
+        appendCaches(out);
+        return new Response(200, METRICS_CONTENT_TYPE, out.toString());
+    }
+
+    private static void appendOperations(StringBuilder out) {
+        header(out, "banking_operation_duration_seconds", "histogram",
+               "Latency of service operations and DAO methods (DAO: connection checkout to close)");
+        for (OperationMetrics operation : Metrics.all()) {
+            histogram(out, "banking_operation_duration_seconds", operationLabels(operation), operation.getTotalLatency());
+        }
+        header(out, "banking_operation_errors_total", "counter", "Operations that failed or were rejected");
+        for (OperationMetrics operation : Metrics.all()) {
+            sample(out, "banking_operation_errors_total", operationLabels(operation), operation.getErrorCount());
+        }
+        header(out, "banking_sql_calls_total", "counter", "SQL calls made by DAO methods (statements, commits, rollbacks)");
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getLayer() == Metrics.Layer.DAO) {
+                sample(out, "banking_sql_calls_total", operationLabels(operation), operation.getSqlCallCount());
+            }
+        }
+        header(out, "banking_sql_statements_total", "counter", "SQL statements run by service operations");
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getLayer() == Metrics.Layer.SERVICE) {
+                sample(out, "banking_sql_statements_total", operationLabels(operation), operation.getStatementCount());
+            }
+        }
+        header(out, "banking_operation_connections_total", "counter", "Connections checked out by service operations");
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getLayer() == Metrics.Layer.SERVICE) {
+                sample(out, "banking_operation_connections_total", operationLabels(operation), operation.getConnectionCount());
+            }
+        }
+        header(out, "banking_operation_round_trips_total", "counter", "Database round trips made by service operations");
+        for (OperationMetrics operation : Metrics.all()) {
+            if (operation.getLayer() == Metrics.Layer.SERVICE) {
+                sample(out, "banking_operation_round_trips_total", operationLabels(operation), operation.getRoundTripCount());
+            }
+        }
+    }
+
+    private static void appendDatabase(StringBuilder out) {
+        header(out, "banking_db_connections_in_use", "gauge", "Database connections currently checked out");
+        sample(out, "banking_db_connections_in_use", "", Metrics.getConnectionsInUse());
+        header(out, "banking_db_connections_opened_total", "counter", "Database connections opened");
+        sample(out, "banking_db_connections_opened_total", "", Metrics.getConnectionsOpened());
+        header(out, "banking_db_connection_acquire_seconds", "histogram", "Time to open a database connection");
+        histogram(out, "banking_db_connection_acquire_seconds", "", Metrics.getConnectionAcquire());
+        header(out, "banking_sql_errors_total", "counter", "SQL errors raised by the driver, by kind");
+        Metrics.getSqlErrors().forEach((kind, count) ->
+                sample(out, "banking_sql_errors_total", label("kind", kind), count));
+        header(out, "banking_transaction_retries_total", "counter", "Database transactions run again, by reason");
+        Metrics.getRetries().forEach((reason, count) ->
+                sample(out, "banking_transaction_retries_total", label("reason", reason), count));
+    }
+
+    private void appendCaches(StringBuilder out) {
+        List<CacheStats> caches = new ArrayList<>();
+        for (EntityCache<?, ?> cache : EntityCaches.all()) {
+            caches.add(new CacheStats(cache.getName(), cache.getHits(), cache.getMisses(), cache.size(),
+                                      cache.getEvictions(), cache.getMaximumSize()));
+        }
+        if (profileCache.isEnabled()) {
+            // Bounded by its TTL rather than evictions; reported without capacity or evictions
+            caches.add(new CacheStats("customer-profiles", profileCache.getHits(), profileCache.getMisses(),
+                                      profileCache.size(), -1, -1));
+        }
+        header(out, "banking_cache_hits_total", "counter", "Cache lookups answered from memory");
+        caches.forEach(cache -> sample(out, "banking_cache_hits_total", cache.labels, cache.hits));
+        header(out, "banking_cache_misses_total", "counter", "Cache lookups that went to the database");
+        caches.forEach(cache -> sample(out, "banking_cache_misses_total", cache.labels, cache.misses));
+        header(out, "banking_cache_hit_ratio", "gauge", "Hits over lookups since startup");
+        caches.forEach(cache -> sample(out, "banking_cache_hit_ratio", cache.labels, cache.hitRatio()));
+        header(out, "banking_cache_entries", "gauge", "Entries currently cached");
+        caches.forEach(cache -> sample(out, "banking_cache_entries", cache.labels, cache.entries));
+        header(out, "banking_cache_evictions_total", "counter", "Entries evicted to stay within the cache size");
+        caches.stream().filter(cache -> cache.evictions >= 0)
+              .forEach(cache -> sample(out, "banking_cache_evictions_total", cache.labels, cache.evictions));
+        header(out, "banking_cache_capacity", "gauge", "Maximum entries per cache");
+        caches.stream().filter(cache -> cache.capacity >= 0)
+              .forEach(cache -> sample(out, "banking_cache_capacity", cache.labels, cache.capacity));
+    }
+
+    private static final class CacheStats {
+        final String labels;
+        final long hits;
+        final long misses;
+        final long entries;
+        final long evictions;
+        final long capacity;
+
+        CacheStats(String name, long hits, long misses, long entries, long evictions, long capacity) {
+            this.labels = label("cache", name);
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = entries;
+            this.evictions = evictions;
+            this.capacity = capacity;
+        }
+
+        double hitRatio() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    // ==================== TEXT FORMAT ====================
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        // Read the count first so the +Inf bucket is never below a finite one recorded meanwhile
+        long count = histogram.getCount();
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double bound : BUCKETS) {
+            long atOrBelow = Math.min(count, histogram.getCountAtOrBelow((long) (bound * 1e9)));
+            String le = BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString();
+            sample(out, name + "_bucket", labels + separator + "le=\"" + le + "\"", atOrBelow);
+        }
+        sample(out, name + "_bucket", labels + separator + "le=\"+Inf\"", count);
+        sample(out, name + "_sum", labels, histogram.getTotalNanos() / 1e9);
+        sample(out, name + "_count", labels, count);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String operationLabels(OperationMetrics operation) {
+        return label("layer", operation.getLayer().name().toLowerCase(Locale.ROOT)) + "," + label("operation", operation.getName());
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
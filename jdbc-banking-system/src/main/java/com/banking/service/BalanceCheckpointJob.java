@@ -0,0 +1,74 @@
+package com.banking.service;
+
+import com.banking.dao.BalanceCheckpointDAO;
+import com.banking.dao.JobWatermarkDAO;
+import com.banking.util.Log;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Incremental end-of-day balance checkpoint job
+ * Each run processes only the complete days since the last run, one day of postings at a time
+ */
+public class BalanceCheckpointJob {
+
+    private static final Log LOG = Log.get(BalanceCheckpointJob.class);
+
+    static final String JOB_NAME = "balance_checkpoints";
+    // Watermark of a job that has never run
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final BalanceCheckpointDAO checkpointDAO;
+    private final JobWatermarkDAO watermarkDAO;
+
+    public BalanceCheckpointJob() {
+        this(new BalanceCheckpointDAO(), new JobWatermarkDAO());
+    }
+
+    public BalanceCheckpointJob(BalanceCheckpointDAO checkpointDAO, JobWatermarkDAO watermarkDAO) {
+        this.checkpointDAO = checkpointDAO;
+        this.watermarkDAO = watermarkDAO;
+    }
+
+    /**
+     * Checkpoint every complete day after the watermark, up to and including yesterday
+     * A first run starts at the day of the oldest ledger row, so every account is checkpointed
+     * from the day it was opened.
+     *
+     * @return number of days processed
+     */
+    public int runIncremental() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        long lastDone = watermarkDAO.getWatermark(JOB_NAME, NEVER);
+        if (lastDone == NEVER) {
+            Optional<LocalDate> firstDay = checkpointDAO.findFirstLedgerDay();
+            if (firstDay.isEmpty()) {
+                return 0;
+            }
+            lastDone = firstDay.get().toEpochDay() - 1;
+        }
+
+        int daysProcessed = 0;
+        for (long epochDay = lastDone + 1; epochDay <= yesterday.toEpochDay(); epochDay++) {
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            int written = checkpointDAO.checkpointDay(day);
+            if (written < 0 || !watermarkDAO.saveWatermark(JOB_NAME, epochDay)) {
+                LOG.error("Balance checkpoint job stopped", "day", day);
+                break;
+            }
+            LOG.info("Checkpointed accounts", "accounts", written, "day", day);
+            daysProcessed++;
+        }
+
+        return daysProcessed;
+    }
+
+    /**
+     * Last day checkpointed for every account, empty before the first run
+     */
+    public Optional<LocalDate> checkpointedThrough() {
+        long lastDone = watermarkDAO.getWatermark(JOB_NAME, NEVER);
+        return lastDone == NEVER ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(lastDone));
+    }
+}
@@ -1,32 +1,153 @@
 package com.banking.service;
 
+import com.banking.analytics.ColumnarLedger;
+import com.banking.cache.CachedEntity;
+import com.banking.cache.EntityCache;
+import com.banking.cache.EntityCaches;
 import com.banking.dao.AccountDAO;
+import com.banking.dao.BalanceCheckpointDAO;
+import com.banking.dao.ChangeLogDAO;
 import com.banking.dao.CustomerDAO;
+import com.banking.dao.CustomerProfileDAO;
+import com.banking.dao.JobWatermarkDAO;
+import com.banking.dao.SegmentDAO;
+import com.banking.dao.StatisticsDAO;
 import com.banking.dao.TransactionDAO;
+import com.banking.dao.TransactionRollupDAO;
+import com.banking.index.BalanceIndex;
+import com.banking.index.CustomerSearchIndex;
+import com.banking.index.LogHistogram;
+import com.banking.index.RoaringBitmap;
+import com.banking.index.SegmentIndex;
+import com.banking.index.ScalableBloomFilter;
 import com.banking.model.Account;
 import com.banking.model.Customer;
+import com.banking.model.CustomerInput;
+import com.banking.model.CustomerProfile;
+import com.banking.model.Money;
+import com.banking.model.RegistrationOutcome;
+import com.banking.model.SystemStatistics;
+import com.banking.model.TransactionRollup;
 import com.banking.model.Transaction;
+import com.banking.tracing.Span;
+import com.banking.tracing.Tracer;
+import com.banking.util.DatabaseConnection;
 import com.banking.util.InputValidator;
+import com.banking.util.Log;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 /**
  * Banking Service class - Business Logic Layer
  * Demonstrates service layer pattern, business rules, and transaction coordination
  */
 public class BankingService {
+
+    private static final Log LOG = Log.get(BankingService.class);
     
     private final CustomerDAO customerDAO;
     private final AccountDAO accountDAO;
     private final TransactionDAO transactionDAO;
+    private final BalanceCheckpointDAO checkpointDAO;
+    private final BalanceCheckpointJob checkpointJob;
+    private final CustomerProfileDAO profileDAO;
+    private final CustomerProfileCache profileCache;
+    private final StatisticsDAO statisticsDAO;
+    private final SegmentDAO segmentDAO;
+    private final TransactionRollupDAO rollupDAO;
+
+    // Rows per email check and multi-row INSERT during bulk registration
+    private static final int REGISTRATION_CHUNK = 500;
+
+    // Change log polling for cross-node cache invalidation
+    private static final long CHANGE_POLL_MILLIS = 200;
+    private static final long CHANGE_GAP_TIMEOUT_MILLIS = 5_000;
+    private ChangeLogPoller changeLogPoller;
+
+    // Refresh interval for the in-memory ledger replica
+    private static final long LEDGER_REFRESH_MILLIS = 5_000;
+    private ColumnarLedger ledgerReplica;
+
+    // Seconds between background transaction rollup runs; 0 leaves them to the admin panel
+    private static final long ROLLUP_INTERVAL_SECONDS = Long.parseLong(
+            DatabaseConnection.getInstance().getProperty("ROLLUP_INTERVAL_SECONDS", "60"));
+    private ScheduledExecutorService rollupScheduler;
+
+    // Furthest back getBalanceAsOf walks from the current balance when no checkpoint covers the date
+    private static final long BALANCE_WALK_MAX_DAYS = Long.parseLong(
+            DatabaseConnection.getInstance().getProperty("BALANCE_WALK_MAX_DAYS", "31"));
 
     public BankingService() {
         this.customerDAO = new CustomerDAO();
         this.accountDAO = new AccountDAO();
         this.transactionDAO = new TransactionDAO();
+        this.checkpointDAO = new BalanceCheckpointDAO();
+        this.checkpointJob = new BalanceCheckpointJob(checkpointDAO, new JobWatermarkDAO());
+        this.profileDAO = new CustomerProfileDAO();
+        this.profileCache = new CustomerProfileCache();
+        this.statisticsDAO = new StatisticsDAO();
+        this.segmentDAO = new SegmentDAO();
+        this.rollupDAO = new TransactionRollupDAO();
+    }
+
+    // ==================== IN-MEMORY INDEXES ====================
+
+    /**
+     * Load the in-memory lookup structures on a background thread
+     * Until loading finishes, lookups fall back to plain SQL
+     */
+    public void startIndexWarmup() {
+        Thread warmup = new Thread(() -> {
+            customerDAO.buildIndexes();
+            segmentDAO.loadCustomerAges();
+            accountDAO.buildBalanceIndex();
+            segmentDAO.loadRecentActivity();
+        }, "index-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    public CustomerProfileCache getProfileCache() {
+        return profileCache;
+    }
+
+    /**
+     * Start evicting cache entries changed by other nodes, when the change log is enabled
+     */
+    public synchronized void startChangeLogPolling() {
+        if (!ChangeLogDAO.ENABLED || changeLogPoller != null) {
+            return;
+        }
+        changeLogPoller = new ChangeLogPoller(new ChangeLogDAO(), CHANGE_POLL_MILLIS, CHANGE_GAP_TIMEOUT_MILLIS);
+        changeLogPoller.setListener(CachedEntity.CUSTOMER, customerId -> {
+            customerDAO.refreshIndexEntry(customerId);
+            profileCache.invalidate(customerId);
+        });
+        changeLogPoller.setListener(CachedEntity.ACCOUNT, accountDAO::refreshBalanceEntry);
+        changeLogPoller.setListener(CachedEntity.ACCOUNT_POSTING, accountId -> {
+            accountDAO.refreshBalanceEntry(accountId);
+            segmentDAO.recordActivity(accountId);
+        });
+        changeLogPoller.setListener(CachedEntity.CUSTOMER_ACCOUNTS, customerId -> {
+            for (Account account : accountDAO.findByCustomerId(customerId)) {
+                accountDAO.refreshBalanceEntry(account.getId());
+            }
+        });
+        changeLogPoller.start();
     }
 
     // ==================== CUSTOMER MANAGEMENT ====================
@@ -42,9 +163,10 @@ public class BankingService {
             return false;
         }
 
-        // Check if customer already exists
-        if (customerDAO.existsByEmail(email)) {
-            System.out.println("❌ Customer with this email already exists!");
+        // Check if customer already exists; an email the filter proves new goes straight to the
+        // insert, where the unique key still rejects a duplicate
+        if (customerDAO.mayHaveEmail(email) && customerDAO.existsByEmail(email)) {
+            LOG.warn("Customer with this email already exists!");
             return false;
         }
 
@@ -59,12 +181,116 @@ public class BankingService {
         return customerDAO.createCustomer(customer);
     }
 
+    /**
+     * Register a batch of customers
+     * Rows are validated and sanitized in parallel, de-duplicated by email within the batch, checked
+     * against existing customers with one IN query per chunk and inserted with one multi-row INSERT
+     * per chunk. If a chunk insert fails (e.g. an email registered concurrently), its rows are retried
+     * one at a time so every row still gets its own outcome.
+     *
+     * @return one outcome per input row, in input order
+     */
+    public List<RegistrationOutcome> registerCustomers(List<CustomerInput> inputs) {
+        RegistrationOutcome[] outcomes = new RegistrationOutcome[inputs.size()];
+        Customer[] prepared = new Customer[inputs.size()];
+
+        // Validate and sanitize in parallel; each task writes only its own slots
+        IntStream.range(0, inputs.size()).parallel().forEach(i -> {
+            CustomerInput input = inputs.get(i);
+            if (input == null) {
+                outcomes[i] = RegistrationOutcome.rejected(i, RegistrationOutcome.Status.INVALID, "Missing customer data");
+                return;
+            }
+            InputValidator.ValidationResult validation = InputValidator.validateCustomer(
+                    input.getName(), input.getAge(), input.getEmail(), input.getContactNumber());
+            if (!validation.isValid()) {
+                outcomes[i] = RegistrationOutcome.rejected(i, RegistrationOutcome.Status.INVALID, validation.getErrors());
+                return;
+            }
+            prepared[i] = new Customer(
+                    InputValidator.sanitizeName(input.getName()),
+                    input.getAge(),
+                    InputValidator.sanitizeEmail(input.getEmail()),
+                    InputValidator.sanitizeContactNumber(input.getContactNumber()));
+        });
+
+        // First occurrence of an email in the batch wins
+        Map<String, Integer> firstByEmail = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < prepared.length; i++) {
+            if (prepared[i] == null) {
+                continue;
+            }
+            Integer first = firstByEmail.putIfAbsent(prepared[i].getEmail(), i);
+            if (first != null) {
+                outcomes[i] = RegistrationOutcome.rejected(i, RegistrationOutcome.Status.DUPLICATE_IN_BATCH,
+                        "Same email as row " + first);
+            } else {
+                pending.add(i);
+            }
+        }
+
+        for (int start = 0; start < pending.size(); start += REGISTRATION_CHUNK) {
+            registerChunk(pending.subList(start, Math.min(start + REGISTRATION_CHUNK, pending.size())), prepared, outcomes);
+        }
+
+        long created = Arrays.stream(outcomes).filter(RegistrationOutcome::isCreated).count();
+        LOG.info("Registered customers", "registered", created, "submitted", inputs.size());
+        return Arrays.asList(outcomes);
+    }
+
+    private void registerChunk(List<Integer> rows, Customer[] prepared, RegistrationOutcome[] outcomes) {
+        List<String> emails = new ArrayList<>();
+        for (int row : rows) {
+            emails.add(prepared[row].getEmail());
+        }
+
+        Set<String> existing = customerDAO.findExistingEmails(emails);
+        if (existing == null) {
+            for (int row : rows) {
+                outcomes[row] = RegistrationOutcome.rejected(row, RegistrationOutcome.Status.FAILED, "Could not check existing emails");
+            }
+            return;
+        }
+
+        List<Integer> insertRows = new ArrayList<>();
+        List<Customer> insertCustomers = new ArrayList<>();
+        for (int row : rows) {
+            if (existing.contains(prepared[row].getEmail())) {
+                outcomes[row] = RegistrationOutcome.rejected(row, RegistrationOutcome.Status.EMAIL_EXISTS,
+                        "Customer with this email already exists");
+            } else {
+                insertRows.add(row);
+                insertCustomers.add(prepared[row]);
+            }
+        }
+
+        if (customerDAO.createCustomers(insertCustomers)) {
+            for (int row : insertRows) {
+                outcomes[row] = RegistrationOutcome.created(row, prepared[row].getId());
+            }
+            return;
+        }
+
+        // Chunk rejected as a whole; find the offending rows one at a time
+        for (int row : insertRows) {
+            if (customerDAO.createCustomer(prepared[row])) {
+                outcomes[row] = RegistrationOutcome.created(row, prepared[row].getId());
+            } else if (customerDAO.existsByEmail(prepared[row].getEmail())) {
+                outcomes[row] = RegistrationOutcome.rejected(row, RegistrationOutcome.Status.EMAIL_EXISTS,
+                        "Customer with this email already exists");
+            } else {
+                outcomes[row] = RegistrationOutcome.rejected(row, RegistrationOutcome.Status.FAILED, "Insert failed");
+            }
+        }
+    }
+
     /**
      * Get customer by ID
      */
     public Optional<Customer> getCustomer(int customerId) {
         if (!InputValidator.isValidCustomerId(customerId)) {
-            System.out.println("❌ Invalid customer ID!");
+            LOG.warn("Invalid customer ID!");
             return Optional.empty();
         }
         
@@ -76,7 +302,7 @@ public class BankingService {
      */
     public Optional<Customer> getCustomerByEmail(String email) {
         if (!InputValidator.isValidEmail(email)) {
-            System.out.println("❌ Invalid email format!");
+            LOG.warn("Invalid email format!");
             return Optional.empty();
         }
         
@@ -95,7 +321,7 @@ public class BankingService {
      */
     public List<Customer> searchCustomersByName(String name) {
         if (name == null || name.trim().isEmpty()) {
-            System.out.println("❌ Search name cannot be empty!");
+            LOG.warn("Search name cannot be empty!");
             return List.of();
         }
         
@@ -116,14 +342,14 @@ public class BankingService {
         // Check if customer exists
         Optional<Customer> existingCustomer = customerDAO.findById(customerId);
         if (existingCustomer.isEmpty()) {
-            System.out.println("❌ Customer not found!");
+            LOG.warn("Customer not found!");
             return false;
         }
 
         // Check if email is already taken by another customer
         Optional<Customer> customerWithEmail = customerDAO.findByEmail(email);
         if (customerWithEmail.isPresent() && customerWithEmail.get().getId() != customerId) {
-            System.out.println("❌ Email is already taken by another customer!");
+            LOG.warn("Email is already taken by another customer!");
             return false;
         }
 
@@ -134,7 +360,11 @@ public class BankingService {
 
         // Update customer
         Customer customer = new Customer(customerId, sanitizedName, age, sanitizedEmail, sanitizedContact);
-        return customerDAO.updateCustomer(customer);
+        boolean success = customerDAO.updateCustomer(customer);
+        if (success) {
+            profileCache.invalidate(customerId);
+        }
+        return success;
     }
 
     /**
@@ -142,19 +372,42 @@ public class BankingService {
      */
     public boolean deleteCustomer(int customerId) {
         if (!InputValidator.isValidCustomerId(customerId)) {
-            System.out.println("❌ Invalid customer ID!");
+            LOG.warn("Invalid customer ID!");
             return false;
         }
 
         // Check if customer has accounts
         List<Account> customerAccounts = accountDAO.findByCustomerId(customerId);
         if (!customerAccounts.isEmpty()) {
-            System.out.println("❌ Cannot delete customer with existing accounts!");
-            System.out.println("   Customer has " + customerAccounts.size() + " account(s)");
+            LOG.warn("Cannot delete customer with existing accounts!", "customerId", customerId, "accounts", customerAccounts.size());
             return false;
         }
 
-        return customerDAO.deleteCustomer(customerId);
+        boolean success = customerDAO.deleteCustomer(customerId);
+        if (success) {
+            profileCache.invalidate(customerId);
+        }
+        return success;
+    }
+
+    /**
+     * Get a customer's profile: accounts, total balance and per-account activity, in one query
+     */
+    public Optional<CustomerProfile> getCustomerProfile(int customerId) {
+        if (!InputValidator.isValidCustomerId(customerId)) {
+            LOG.warn("Invalid customer ID!");
+            return Optional.empty();
+        }
+
+        Optional<CustomerProfile> cached = profileCache.get(customerId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        long generation = profileCache.generation(customerId);
+        Optional<CustomerProfile> profile = profileDAO.findProfile(customerId);
+        profile.ifPresent(p -> profileCache.put(p, generation));
+        return profile;
     }
 
     // ==================== ACCOUNT MANAGEMENT ====================
@@ -162,7 +415,7 @@ public class BankingService {
     /**
      * Create a new account for a customer
      */
-    public boolean createAccount(int customerId, String accountType, BigDecimal initialBalance) {
+    public boolean createAccount(int customerId, String accountType, Money initialBalance) {
         // Validate input
         InputValidator.ValidationResult validation = InputValidator.validateAccount(customerId, accountType, initialBalance);
         if (!validation.isValid()) {
@@ -173,13 +426,19 @@ public class BankingService {
         // Check if customer exists
         Optional<Customer> customer = customerDAO.findById(customerId);
         if (customer.isEmpty()) {
-            System.out.println("❌ Customer not found!");
+            LOG.warn("Customer not found!");
             return false;
         }
 
-        // Create account
+        // Create account; its opening balance is logged in the same transaction
         Account account = new Account(customerId, accountType, initialBalance);
-        return accountDAO.createAccount(account);
+        boolean success = accountDAO.createAccount(account);
+
+        if (success) {
+            profileCache.invalidate(customerId);
+        }
+
+        return success;
     }
 
     /**
@@ -187,7 +446,7 @@ public class BankingService {
      */
     public Optional<Account> getAccount(int accountId) {
         if (!InputValidator.isValidAccountId(accountId)) {
-            System.out.println("❌ Invalid account ID!");
+            LOG.warn("Invalid account ID!");
             return Optional.empty();
         }
         
@@ -199,7 +458,7 @@ public class BankingService {
      */
     public List<Account> getCustomerAccounts(int customerId) {
         if (!InputValidator.isValidCustomerId(customerId)) {
-            System.out.println("❌ Invalid customer ID!");
+            LOG.warn("Invalid customer ID!");
             return List.of();
         }
         
@@ -218,7 +477,7 @@ public class BankingService {
      */
     public List<Account> getAccountsByType(String accountType) {
         if (!InputValidator.isValidAccountType(accountType)) {
-            System.out.println("❌ Invalid account type!");
+            LOG.warn("Invalid account type!");
             return List.of();
         }
         
@@ -228,120 +487,201 @@ public class BankingService {
     /**
      * Check account balance
      */
-    public Optional<BigDecimal> checkBalance(int accountId) {
+    public Optional<Money> checkBalance(int accountId) {
         Optional<Account> account = getAccount(accountId);
         if (account.isPresent()) {
-            System.out.println("💰 Account Balance: $" + account.get().getBalance());
             return Optional.of(account.get().getBalance());
         }
         return Optional.empty();
     }
 
-    // ==================== TRANSACTION OPERATIONS ====================
-
     /**
-     * Deposit money to account
+     * Get an account's balance as it was at a point in time
+     * Starts from the nearest end-of-day checkpoint and replays only the postings after it.
+     * Without one, an account the checkpoints already cover had no postings before that day, so
+     * its ledger up to asOf is replayed; otherwise it walks back from the current balance, at most
+     * BALANCE_WALK_MAX_DAYS, and is empty beyond that until the checkpoint job catches up.
      */
-    public boolean deposit(int accountId, BigDecimal amount) {
-        // Validate input
-        if (!InputValidator.isValidAmount(amount)) {
-            System.out.println("❌ Invalid amount!");
-            return false;
+    public Optional<Money> getBalanceAsOf(int accountId, LocalDateTime asOf) {
+        Optional<Account> account = getAccount(accountId);
+        if (account.isEmpty() || asOf == null) {
+            return Optional.empty();
         }
 
-        // Check if account exists
-        Optional<Account> account = accountDAO.findById(accountId);
-        if (account.isEmpty()) {
-            System.out.println("❌ Account not found!");
-            return false;
+        if (asOf.isBefore(account.get().getCreatedAt())) {
+            return Optional.of(Money.ZERO);
         }
 
-        // Perform deposit
-        boolean success = accountDAO.deposit(accountId, amount);
-        
-        if (success) {
-            // Log transaction
-            Transaction transaction = new Transaction(accountId, amount, Transaction.DEPOSIT);
-            transactionDAO.createTransaction(transaction);
+        Optional<BalanceCheckpointDAO.Checkpoint> checkpoint = checkpointDAO.findLatestBefore(accountId, asOf.toLocalDate());
+        if (checkpoint.isPresent()) {
+            LocalDateTime replayFrom = checkpoint.get().getDate().plusDays(1).atStartOfDay();
+            return Optional.of(checkpoint.get().getBalance().plus(transactionDAO.getNetChange(accountId, replayFrom, asOf)));
         }
-        
-        return success;
+
+        Optional<LocalDate> checkpointedThrough = checkpointJob.checkpointedThrough();
+        if (checkpointedThrough.isPresent() && !checkpointedThrough.get().isBefore(asOf.toLocalDate().minusDays(1))) {
+            return Optional.of(transactionDAO.getNetChange(accountId, null, asOf));
+        }
+
+        if (ChronoUnit.DAYS.between(asOf, LocalDateTime.now()) > BALANCE_WALK_MAX_DAYS) {
+            LOG.warn("No balance checkpoint covers the date; run the checkpoint job", "accountId", accountId, "asOf", asOf);
+            return Optional.empty();
+        }
+
+        // Ledger timestamps have second precision, so "after asOf" starts at the next whole second
+        LocalDateTime after = asOf.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        return Optional.of(account.get().getBalance().minus(transactionDAO.getNetChange(accountId, after, null)));
     }
 
     /**
-     * Withdraw money from account
+     * Run the end-of-day balance checkpoint job for any complete days not yet processed
      */
-    public boolean withdraw(int accountId, BigDecimal amount) {
-        // Validate input
-        if (!InputValidator.isValidAmount(amount)) {
-            System.out.println("❌ Invalid amount!");
-            return false;
+    public int runBalanceCheckpoints() {
+        return checkpointJob.runIncremental();
+    }
+
+    // ==================== BALANCE QUERIES ====================
+
+    /**
+     * Get the accounts with the highest balances, highest first
+     *
+     * @param accountType only this type, or null for all types
+     */
+    public List<BalanceIndex.Entry> getTopAccountsByBalance(int limit, String accountType) {
+        if (limit <= 0 || (accountType != null && !InputValidator.isValidAccountType(accountType))) {
+            LOG.warn("Invalid top-N query!");
+            return List.of();
         }
 
-        // Check if account exists and has sufficient balance
-        Optional<Account> account = accountDAO.findById(accountId);
-        if (account.isEmpty()) {
-            System.out.println("❌ Account not found!");
-            return false;
+        return accountDAO.findTopByBalance(limit, accountType);
+    }
+
+    /**
+     * Get accounts whose balance lies between min and max (inclusive), lowest first
+     */
+    public List<BalanceIndex.Entry> getAccountsByBalanceRange(Money min, Money max, int limit) {
+        if (min == null || max == null || limit <= 0) {
+            LOG.warn("Invalid balance range!");
+            return List.of();
         }
 
-        if (!account.get().hasSufficientBalance(amount)) {
-            System.out.println("❌ Insufficient balance! Current balance: $" + account.get().getBalance());
-            return false;
+        return accountDAO.findByBalanceRange(min, max, limit);
+    }
+
+    /**
+     * Get the balance histogram for one account type, once the balance index has loaded
+     */
+    public Optional<LogHistogram> getBalanceHistogram(String accountType) {
+        BalanceIndex balanceIndex = accountDAO.getBalanceIndex();
+        if (!balanceIndex.isReady()) {
+            return Optional.empty();
         }
+        return Optional.ofNullable(balanceIndex.getHistogram(accountType));
+    }
 
-        // Perform withdrawal
-        boolean success = accountDAO.withdraw(accountId, amount);
-        
-        if (success) {
-            // Log transaction
-            Transaction transaction = new Transaction(accountId, amount, Transaction.WITHDRAW);
-            transactionDAO.createTransaction(transaction);
+    // ==================== SEGMENTATION ====================
+
+    /**
+     * Get the segmentation bitmaps, once they have loaded
+     * Combine them with and/or/andNot and read the size with getCardinality(); see SegmentIndex.
+     */
+    public Optional<SegmentIndex> getSegmentIndex() {
+        if (!segmentDAO.isReady()) {
+            LOG.info("Segment index is still loading");
+            return Optional.empty();
         }
-        
-        return success;
+        return Optional.of(segmentDAO.getSegmentIndex());
     }
 
     /**
-     * Transfer money between accounts
+     * Load up to limit accounts of a segment, lowest id first
      */
-    public boolean transfer(int fromAccountId, int toAccountId, BigDecimal amount) {
-        // Validate input
-        if (!InputValidator.isValidAmount(amount)) {
-            System.out.println("❌ Invalid amount!");
-            return false;
+    public List<Account> getSegmentAccounts(RoaringBitmap accountIds, int limit) {
+        return accountDAO.findByIds(toIdList(accountIds, limit));
+    }
+
+    /**
+     * Load up to limit customers of a segment, lowest id first
+     */
+    public List<Customer> getSegmentCustomers(RoaringBitmap customerIds, int limit) {
+        return customerDAO.findByIds(toIdList(customerIds, limit));
+    }
+
+    private static List<Integer> toIdList(RoaringBitmap ids, int limit) {
+        List<Integer> list = new ArrayList<>();
+        for (int id : ids.toArray(Math.max(0, limit))) {
+            list.add(id);
         }
+        return list;
+    }
 
-        if (fromAccountId == toAccountId) {
-            System.out.println("❌ Cannot transfer to the same account!");
-            return false;
+    // ==================== TRANSACTION OPERATIONS ====================
+
+    /**
+     * Deposit money to account
+     */
+    public boolean deposit(int accountId, Money amount) {
+        // Validate input
+        try (Span validation = Tracer.span("validate")) {
+            if (!InputValidator.isValidAmount(amount)) {
+                LOG.warn("Invalid amount!");
+                validation.setFailed(true);
+                return false;
+            }
         }
 
-        // Check if both accounts exist
-        Optional<Account> fromAccount = accountDAO.findById(fromAccountId);
-        Optional<Account> toAccount = accountDAO.findById(toAccountId);
-        
-        if (fromAccount.isEmpty() || toAccount.isEmpty()) {
-            System.out.println("❌ One or both accounts not found!");
-            return false;
+        // Perform deposit; the account row is checked and updated, and the deposit logged, in one transaction
+        Optional<Account> account = accountDAO.deposit(accountId, amount);
+        account.ifPresent(updated -> profileCache.invalidate(updated.getCustomerId()));
+        return account.isPresent();
+    }
+
+    /**
+     * Withdraw money from account
+     */
+    public boolean withdraw(int accountId, Money amount) {
+        // Validate input
+        try (Span validation = Tracer.span("validate")) {
+            if (!InputValidator.isValidAmount(amount)) {
+                LOG.warn("Invalid amount!");
+                validation.setFailed(true);
+                return false;
+            }
         }
 
-        // Check sufficient balance
-        if (!fromAccount.get().hasSufficientBalance(amount)) {
-            System.out.println("❌ Insufficient balance in source account!");
-            return false;
+        // Perform withdrawal; the balance is checked on the locked account row and the withdrawal
+        // logged in the same transaction
+        Optional<Account> account = accountDAO.withdraw(accountId, amount);
+        account.ifPresent(updated -> profileCache.invalidate(updated.getCustomerId()));
+        return account.isPresent();
+    }
+
+    /**
+     * Transfer money between accounts
+     */
+    public boolean transfer(int fromAccountId, int toAccountId, Money amount) {
+        // Validate input
+        try (Span validation = Tracer.span("validate")) {
+            if (!InputValidator.isValidAmount(amount)) {
+                LOG.warn("Invalid amount!");
+                validation.setFailed(true);
+                return false;
+            }
+
+            if (fromAccountId == toAccountId) {
+                LOG.warn("Cannot transfer to the same account!");
+                validation.setFailed(true);
+                return false;
+            }
         }
 
-        // Perform transfer
-        boolean success = accountDAO.transfer(fromAccountId, toAccountId, amount);
-        
-        if (success) {
-            // Log transaction
-            Transaction transaction = new Transaction(fromAccountId, toAccountId, amount);
-            transactionDAO.createTransaction(transaction);
+        // Perform transfer; both account rows are checked and updated, and the transfer logged, in
+        // one transaction
+        List<Account> accounts = accountDAO.transfer(fromAccountId, toAccountId, amount);
+        for (Account updated : accounts) {
+            profileCache.invalidate(updated.getCustomerId());
         }
-        
-        return success;
+        return !accounts.isEmpty();
     }
 
     // ==================== TRANSACTION HISTORY ====================
@@ -351,7 +691,7 @@ public class BankingService {
      */
     public List<Transaction> getAccountTransactionHistory(int accountId) {
         if (!InputValidator.isValidAccountId(accountId)) {
-            System.out.println("❌ Invalid account ID!");
+            LOG.warn("Invalid account ID!");
             return List.of();
         }
         
@@ -370,7 +710,7 @@ public class BankingService {
      */
     public List<Transaction> getRecentTransactions(int limit) {
         if (limit <= 0 || limit > 100) {
-            System.out.println("❌ Invalid limit! Must be between 1 and 100");
+            LOG.warn("Invalid limit! Must be between 1 and 100");
             return List.of();
         }
         
@@ -382,35 +722,130 @@ public class BankingService {
      */
     public TransactionDAO.TransactionSummary getAccountTransactionSummary(int accountId) {
         if (!InputValidator.isValidAccountId(accountId)) {
-            System.out.println("❌ Invalid account ID!");
-            return new TransactionDAO.TransactionSummary(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+            LOG.warn("Invalid account ID!");
+            return new TransactionDAO.TransactionSummary(0, Money.ZERO, Money.ZERO, Money.ZERO, Money.ZERO);
         }
         
         return transactionDAO.getTransactionSummary(accountId);
     }
 
+    // ==================== LEDGER ANALYTICS ====================
+
+    /**
+     * Get the in-memory ledger replica used for reports
+     * Loaded on first use and then kept current in the background
+     */
+    public synchronized ColumnarLedger getLedgerReplica() {
+        if (ledgerReplica == null) {
+            ledgerReplica = new ColumnarLedger(transactionDAO, ForkJoinPool.commonPool());
+            ledgerReplica.refresh();
+            ledgerReplica.startAutoRefresh(LEDGER_REFRESH_MILLIS);
+        }
+        return ledgerReplica;
+    }
+
+    /**
+     * Fold ledger rows added since the last run into the daily rollup table
+     *
+     * @return number of ledger ids covered, or -1 on error
+     */
+    public long runTransactionRollup() {
+        return new TransactionRollupJob(rollupDAO).runIncremental();
+    }
+
+    /**
+     * Run the transaction rollup every ROLLUP_INTERVAL_SECONDS on a background daemon thread
+     * Nodes sharing a database take turns through the job's watermark lock.
+     */
+    public synchronized void startTransactionRollups() {
+        if (ROLLUP_INTERVAL_SECONDS <= 0 || rollupScheduler != null) {
+            return;
+        }
+        rollupScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transaction-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rollupScheduler.scheduleWithFixedDelay(this::runTransactionRollup, 0, ROLLUP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get transaction count and volume per period, transaction type and account type
+     * Read-only: served from the daily rollup table as of its last run (scheduled, or from the
+     * admin panel), so reports never aggregate or write the transactions table themselves.
+     */
+    public List<TransactionRollup> getTransactionReport(TransactionRollupDAO.Period period, LocalDate from, LocalDate to) {
+        if (period == null || from == null || to == null || from.isAfter(to)) {
+            LOG.warn("Invalid report period!");
+            return List.of();
+        }
+
+        return rollupDAO.findRollups(period, from, to);
+    }
+
+    // ==================== RECONCILIATION ====================
+
+    /**
+     * Verify stored balances against the ledger, resuming any interrupted pass
+     *
+     * @param rebuild overwrite mismatched balances with their ledger values
+     */
+    public ReconciliationEngine.ReconciliationReport reconcileLedger(boolean rebuild) {
+        return new ReconciliationEngine().run(rebuild);
+    }
+
+    /**
+     * Whether accounts opened before opening balances were logged have been backfilled; until
+     * then reconcileLedger refuses to rebuild
+     */
+    public boolean isOpeningBalanceBackfillDone() {
+        return new ReconciliationEngine().isOpeningBalanceBackfillDone();
+    }
+
+    /**
+     * Log the opening balances of accounts with ids up to lastLegacyAccountId
+     *
+     * @return number of opening balances logged, or -1 on error
+     */
+    public int backfillOpeningBalances(int lastLegacyAccountId) {
+        if (lastLegacyAccountId < 0) {
+            LOG.warn("Invalid account ID!");
+            return -1;
+        }
+        return new ReconciliationEngine().backfillOpeningBalances(lastLegacyAccountId);
+    }
+
     // ==================== SYSTEM STATISTICS ====================
 
     /**
-     * Get system statistics
+     * Get customer, account and transaction counts, including accounts per type
+     * Counted once in a single query and then kept current by the write paths, so this is O(1)
+     */
+    public SystemStatistics getSystemStatistics() {
+        return statisticsDAO.getStatistics();
+    }
+
+    /**
+     * Display system statistics
      */
     public void displaySystemStatistics() {
         System.out.println("\n📊 SYSTEM STATISTICS");
         System.out.println("====================");
-        System.out.println("👥 Total Customers: " + customerDAO.getCustomerCount());
-        System.out.println("💳 Total Accounts: " + accountDAO.getAccountCount());
-        System.out.println("📝 Total Transactions: " + transactionDAO.getTransactionCount());
-        
-        // Account type distribution
-        System.out.println("\n📈 Account Distribution:");
-        List<Account> savingsAccounts = accountDAO.findByAccountType(Account.SAVINGS);
-        List<Account> currentAccounts = accountDAO.findByAccountType(Account.CURRENT);
-        List<Account> fixedDepositAccounts = accountDAO.findByAccountType(Account.FIXED_DEPOSIT);
-        
-        System.out.println("   💰 Savings Accounts: " + savingsAccounts.size());
-        System.out.println("   🏦 Current Accounts: " + currentAccounts.size());
-        System.out.println("   📅 Fixed Deposit Accounts: " + fixedDepositAccounts.size());
-        
+        SystemStatistics stats = getSystemStatistics();
+        if (stats == null) {
+            LOG.warn("Statistics unavailable!");
+        } else {
+            System.out.println("👥 Total Customers: " + stats.getCustomerCount());
+            System.out.println("💳 Total Accounts: " + stats.getAccountCount());
+            System.out.println("📝 Total Transactions: " + stats.getTransactionCount());
+
+            // Account type distribution
+            System.out.println("\n📈 Account Distribution:");
+            System.out.println("   💰 Savings Accounts: " + stats.getAccountCount(Account.SAVINGS));
+            System.out.println("   🏦 Current Accounts: " + stats.getAccountCount(Account.CURRENT));
+            System.out.println("   📅 Fixed Deposit Accounts: " + stats.getAccountCount(Account.FIXED_DEPOSIT));
+        }
+
         // Recent activity
         System.out.println("\n🕒 Recent Activity:");
         List<Transaction> recentTransactions = transactionDAO.findRecentTransactions(5);
@@ -421,18 +856,63 @@ public class BankingService {
                 System.out.println("   " + transaction.getDescription() + " at " + transaction.getTimestamp());
             }
         }
+
+        // In-memory lookup structures
+        System.out.println("\n🧠 In-Memory Indexes:");
+        CustomerSearchIndex searchIndex = customerDAO.getSearchIndex();
+        if (searchIndex.isReady()) {
+            System.out.printf("   🔍 Customer search: %d customers, %d trigrams, %.1f MB postings%n",
+                    searchIndex.getIndexedCount(), searchIndex.getTrigramCount(),
+                    searchIndex.getPostingBytes() / (1024.0 * 1024.0));
+        } else {
+            System.out.println("   🔍 Customer search: loading");
+        }
+        BalanceIndex balanceIndex = accountDAO.getBalanceIndex();
+        if (balanceIndex.isReady()) {
+            System.out.println("   ⚖️  Balance index: " + balanceIndex.getIndexedCount() + " accounts");
+        } else {
+            System.out.println("   ⚖️  Balance index: loading");
+        }
+        if (segmentDAO.isReady()) {
+            System.out.printf("   🧩 Segment bitmaps: %d accounts, %d customers, %.1f MB%n",
+                    segmentDAO.getSegmentIndex().allAccounts().getCardinality(),
+                    segmentDAO.getSegmentIndex().allCustomers().getCardinality(),
+                    segmentDAO.getSegmentIndex().getSizeInBytes() / (1024.0 * 1024.0));
+        } else {
+            System.out.println("   🧩 Segment bitmaps: loading");
+        }
+        ScalableBloomFilter emailFilter = customerDAO.getEmailFilter();
+        if (emailFilter.isReady()) {
+            System.out.printf("   📧 Email filter: %d emails, %d stage(s), %.1f MB, estimated FP rate %.3f%%, observed %.3f%% (%d skipped lookups)%n",
+                    emailFilter.getElementCount(), emailFilter.getStageCount(),
+                    emailFilter.getByteSize() / (1024.0 * 1024.0),
+                    emailFilter.getEstimatedFalsePositiveRate() * 100,
+                    emailFilter.getObservedFalsePositiveRate() * 100,
+                    emailFilter.getDefiniteNegatives());
+        } else {
+            System.out.println("   📧 Email filter: loading");
+        }
+        if (EntityCaches.ENABLED) {
+            for (EntityCache<?, ?> cache : EntityCaches.all()) {
+                System.out.println("   🗃️  " + cache);
+            }
+        }
+        if (changeLogPoller != null) {
+            System.out.println("   🔄 " + changeLogPoller);
+        }
     }
 
     /**
      * Display customer details with accounts
      */
     public void displayCustomerDetails(int customerId) {
-        Optional<Customer> customer = getCustomer(customerId);
-        if (customer.isEmpty()) {
+        Optional<CustomerProfile> profile = getCustomerProfile(customerId);
+        if (profile.isEmpty()) {
+            LOG.warn("Customer not found!");
             return;
         }
 
-        Customer c = customer.get();
+        Customer c = profile.get().getCustomer();
         System.out.println("\n👤 CUSTOMER DETAILS");
         System.out.println("===================");
         System.out.println("ID: " + c.getId());
@@ -441,20 +921,25 @@ public class BankingService {
         System.out.println("Email: " + c.getEmail());
         System.out.println("Contact: " + c.getContactNumber());
 
-        List<Account> accounts = getCustomerAccounts(customerId);
+        List<CustomerProfile.AccountSummary> accounts = profile.get().getAccounts();
         System.out.println("\n💳 ACCOUNTS (" + accounts.size() + ")");
         System.out.println("===============");
         
         if (accounts.isEmpty()) {
             System.out.println("No accounts found");
         } else {
-            for (Account account : accounts) {
+            for (CustomerProfile.AccountSummary summary : accounts) {
+                Account account = summary.getAccount();
                 System.out.println("Account ID: " + account.getId());
                 System.out.println("Type: " + account.getAccountType());
                 System.out.println("Balance: $" + account.getBalance());
                 System.out.println("Created: " + account.getCreatedAt());
+                System.out.println("Transactions: " + summary.getTotalTransactions() +
+                                   " (in $" + summary.getTotalDeposits().plus(summary.getTotalReceived()) +
+                                   ", out $" + summary.getTotalWithdrawals().plus(summary.getTotalSent()) + ")");
                 System.out.println("---");
             }
+            System.out.println("Total Balance: $" + profile.get().getTotalBalance());
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.banking.service;
+
+import com.banking.cache.CachedEntity;
+import com.banking.dao.ChangeLogDAO;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Tails the entity_changes table and evicts the matching entries from this node's caches
+ *
+ * Sequence numbers are assigned at insert time but become visible at commit, so a lower number can
+ * appear after a higher one. Each poll reads past the highest number seen so far, and numbers it
+ * skipped are kept as gaps: they are looked up again on every poll until their change shows up,
+ * or dropped after gapTimeoutMillis (a rolled-back insert leaves a permanent one). An open gap
+ * never holds back the changes after it, and every change is applied exactly once.
+ *
+ * Staleness is bounded by the poll interval plus query time; the observed lag between a change's
+ * commit and its eviction here is tracked for the statistics screen.
+ */
+public class ChangeLogPoller {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int RETENTION_HOURS = 24;
+    private static final long PURGE_EVERY_POLLS = 10_000;
+
+    private final ChangeLogDAO changeLogDAO;
+    private final long pollMillis;
+    private final long gapTimeoutMillis;
+    private final Map<CachedEntity, IntConsumer> listeners = new EnumMap<>(CachedEntity.class);
+
+    private ScheduledExecutorService poller;
+    private long highestSeen = -1;
+    // Skipped sequence numbers, with the time they were first skipped
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong gapsSkipped = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public ChangeLogPoller(ChangeLogDAO changeLogDAO, long pollMillis, long gapTimeoutMillis) {
+        this.changeLogDAO = changeLogDAO;
+        this.pollMillis = pollMillis;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+    }
+
+    /**
+     * Called with the id of every change to the given entity, after its cache entries are evicted
+     */
+    public synchronized void setListener(CachedEntity entity, IntConsumer listener) {
+        listeners.put(entity, listener);
+    }
+
+    /**
+     * Start tailing from the current end of the log on a background daemon thread
+     * Caches start empty, so older changes need no replay.
+     */
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-log-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollOnce, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * Apply the changes that filled earlier gaps, then one batch of new changes
+     *
+     * @return number of changes applied
+     */
+    synchronized int pollOnce() {
+        if (highestSeen < 0) {
+            highestSeen = changeLogDAO.getLatestSeq();
+            return 0;
+        }
+
+        int count = fillGaps();
+        List<ChangeLogDAO.Change> changes = changeLogDAO.readSince(highestSeen, BATCH_SIZE);
+        if (changes == null) {
+            applied.addAndGet(count);
+            return count;
+        }
+        if (polls.incrementAndGet() % PURGE_EVERY_POLLS == 0) {
+            changeLogDAO.purgeOlderThan(RETENTION_HOURS);
+        }
+
+        long now = System.currentTimeMillis();
+        for (ChangeLogDAO.Change change : changes) {
+            for (long skipped = highestSeen + 1; skipped < change.getSeq(); skipped++) {
+                gaps.put(skipped, now);
+            }
+            highestSeen = change.getSeq();
+            apply(change);
+            count++;
+        }
+
+        applied.addAndGet(count);
+        return count;
+    }
+
+    // Look up the open gaps; expired ones are given up on
+    private int fillGaps() {
+        long expired = System.currentTimeMillis() - gapTimeoutMillis;
+        int before = gaps.size();
+        gaps.values().removeIf(firstSkipped -> firstSkipped < expired);
+        gapsSkipped.addAndGet(before - gaps.size());
+
+        int count = 0;
+        List<Long> pending = new ArrayList<>(gaps.keySet());
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            List<ChangeLogDAO.Change> late = changeLogDAO.readSeqs(pending.subList(from, Math.min(from + BATCH_SIZE, pending.size())));
+            if (late == null) {
+                break;
+            }
+            for (ChangeLogDAO.Change change : late) {
+                if (gaps.remove(change.getSeq()) != null) {
+                    apply(change);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void apply(ChangeLogDAO.Change change) {
+        if (change.getEntity() != null) {
+            change.getEntity().evict(change.getEntityId());
+            IntConsumer listener = listeners.get(change.getEntity());
+            if (listener != null) {
+                listener.accept(change.getEntityId());
+            }
+        }
+        lastLagMillis = change.getLagMillis();
+        maxLagMillis = Math.max(maxLagMillis, change.getLagMillis());
+    }
+
+    public synchronized int getOpenGaps() {
+        return gaps.size();
+    }
+
+    // ==================== STATISTICS ====================
+
+    public long getPolls() {
+        return polls.get();
+    }
+
+    public long getApplied() {
+        return applied.get();
+    }
+
+    public long getGapsSkipped() {
+        return gapsSkipped.get();
+    }
+
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("change log: %d polls, %d changes applied, lag %d ms (max %d ms), %d gap(s) skipped",
+                           getPolls(), getApplied(), getLastLagMillis(), getMaxLagMillis(), getGapsSkipped());
+    }
+}
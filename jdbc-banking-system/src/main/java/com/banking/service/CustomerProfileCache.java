@@ -0,0 +1,144 @@
+package com.banking.service;
+
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.CustomerProfile;
+import com.banking.util.DatabaseConnection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Optional LRU cache of customer profiles
+ * BankingService evicts a customer's entry after every write that touches the customer or one
+ * of their accounts; the TTL bounds staleness from writes made by other processes. Customer and
+ * Account objects are mutable, so profiles are copied on the way in and on the way out.
+ *
+ * Enabled with PROFILE_CACHE_ENABLED=true in config.properties.
+ */
+public class CustomerProfileCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 30;
+    // Invalidation counters per customer id stripe
+    private static final int STRIPES = 1024;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Map<Integer, Entry> entries;
+    // Bumped by every invalidation of a customer in the stripe, so a profile loaded before a write
+    // is never cached after it while loads of other customers are unaffected
+    private final long[] generations = new long[STRIPES];
+    private long hits;
+    private long misses;
+
+    public CustomerProfileCache() {
+        this(Boolean.parseBoolean(DatabaseConnection.getInstance().getProperty("PROFILE_CACHE_ENABLED", "false")),
+             DEFAULT_MAX_ENTRIES,
+             Long.parseLong(DatabaseConnection.getInstance().getProperty("PROFILE_CACHE_TTL_SECONDS",
+                                                                        String.valueOf(DEFAULT_TTL_SECONDS))) * 1000);
+    }
+
+    public CustomerProfileCache(boolean enabled, int maxEntries, long ttlMillis) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized Optional<CustomerProfile> get(int customerId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(customerId);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+            entries.remove(customerId);
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(copyOf(entry.profile));
+    }
+
+    /**
+     * Generation of the customer to pass to put(), read before loading the profile
+     */
+    public synchronized long generation(int customerId) {
+        return generations[stripe(customerId)];
+    }
+
+    public synchronized void put(CustomerProfile profile, long loadedGeneration) {
+        int customerId = profile.getCustomer().getId();
+        if (enabled && loadedGeneration == generations[stripe(customerId)]) {
+            entries.put(customerId, new Entry(copyOf(profile), System.currentTimeMillis()));
+        }
+    }
+
+    public synchronized void invalidate(int customerId) {
+        generations[stripe(customerId)]++;
+        entries.remove(customerId);
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations[i]++;
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static int stripe(int customerId) {
+        return (customerId ^ (customerId >>> 16)) & (STRIPES - 1);
+    }
+
+    private static CustomerProfile copyOf(CustomerProfile profile) {
+        Customer customer = profile.getCustomer();
+        List<CustomerProfile.AccountSummary> accounts = new ArrayList<>(profile.getAccountCount());
+        for (CustomerProfile.AccountSummary summary : profile.getAccounts()) {
+            Account account = summary.getAccount();
+            accounts.add(new CustomerProfile.AccountSummary(
+                    new Account(account.getId(), account.getCustomerId(), account.getAccountType(),
+                                account.getBalance(), account.getCreatedAt()),
+                    summary.getTotalTransactions(), summary.getTotalDeposits(), summary.getTotalWithdrawals(),
+                    summary.getTotalSent(), summary.getTotalReceived()));
+        }
+        return new CustomerProfile(new Customer(customer.getId(), customer.getName(), customer.getAge(),
+                                                customer.getEmail(), customer.getContactNumber()), accounts);
+    }
+
+    private static final class Entry {
+        final CustomerProfile profile;
+        final long loadedAt;
+
+        Entry(CustomerProfile profile, long loadedAt) {
+            this.profile = profile;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
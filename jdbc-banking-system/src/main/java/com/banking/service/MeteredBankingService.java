@@ -0,0 +1,308 @@
+package com.banking.service;
+
+import com.banking.analytics.ColumnarLedger;
+import com.banking.dao.TransactionDAO;
+import com.banking.dao.TransactionRollupDAO;
+import com.banking.index.BalanceIndex;
+import com.banking.index.LogHistogram;
+import com.banking.index.RoaringBitmap;
+import com.banking.index.SegmentIndex;
+import com.banking.metrics.AccountOperationEvent;
+import com.banking.metrics.CallCost;
+import com.banking.metrics.DepositEvent;
+import com.banking.metrics.Metrics;
+import com.banking.metrics.OperationMetrics;
+import com.banking.metrics.TransferEvent;
+import com.banking.metrics.WithdrawEvent;
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.CustomerInput;
+import com.banking.model.CustomerProfile;
+import com.banking.model.Money;
+import com.banking.model.RegistrationOutcome;
+import com.banking.model.SystemStatistics;
+import com.banking.model.Transaction;
+import com.banking.model.TransactionRollup;
+import com.banking.tracing.Span;
+import com.banking.tracing.Tracer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Banking service that records latency and outcome of every operation
+ * Each call is timed into Metrics.service(operation); a call counts as an error if it throws or
+ * returns false, and its connections, statements and round trips are counted. Only the outermost
+ * call on a thread is recorded: an operation the service calls internally (checkBalance reading
+ * getAccount) is part of its caller's work, not a call of its own. With METRICS_ENABLED=false the
+ * calls go straight through. Each call is also the root span of a trace when the Tracer samples it.
+ *
+ * Deposits, withdrawals and transfers are also reported to Flight Recorder.
+ */
+public class MeteredBankingService extends BankingService {
+
+    // Set while a recorded call runs on this thread
+    private static final ThreadLocal<Boolean> IN_CALL = new ThreadLocal<>();
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        if (IN_CALL.get() != null) {
+            return call.get();
+        }
+        IN_CALL.set(Boolean.TRUE);
+        try {
+            return timedOutermost(operation, call);
+        } finally {
+            IN_CALL.remove();
+        }
+    }
+
+    private <T> T timedOutermost(String operation, Supplier<T> call) {
+        Span span = Tracer.startTrace(operation);
+        if (!Metrics.ENABLED && !span.isSampled()) {
+            return call.get();
+        }
+        OperationMetrics metrics = Metrics.ENABLED ? Metrics.service(operation) : null;
+        CallCost cost = metrics != null ? CallCost.begin() : null;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = Boolean.FALSE.equals(result);
+            return result;
+        } finally {
+            if (metrics != null) {
+                metrics.record(System.nanoTime() - start, failed);
+                metrics.recordCost(cost.end());
+            }
+            span.setFailed(failed);
+            span.close();
+        }
+    }
+
+    // ==================== CUSTOMER MANAGEMENT ====================
+
+    @Override
+    public boolean registerCustomer(String name, int age, String email, String contactNumber) {
+        return timed("registerCustomer", () -> super.registerCustomer(name, age, email, contactNumber));
+    }
+
+    @Override
+    public List<RegistrationOutcome> registerCustomers(List<CustomerInput> inputs) {
+        return timed("registerCustomers", () -> super.registerCustomers(inputs));
+    }
+
+    @Override
+    public Optional<Customer> getCustomer(int customerId) {
+        return timed("getCustomer", () -> super.getCustomer(customerId));
+    }
+
+    @Override
+    public Optional<Customer> getCustomerByEmail(String email) {
+        return timed("getCustomerByEmail", () -> super.getCustomerByEmail(email));
+    }
+
+    @Override
+    public List<Customer> getAllCustomers() {
+        return timed("getAllCustomers", super::getAllCustomers);
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String name) {
+        return timed("searchCustomersByName", () -> super.searchCustomersByName(name));
+    }
+
+    @Override
+    public boolean updateCustomer(int customerId, String name, int age, String email, String contactNumber) {
+        return timed("updateCustomer", () -> super.updateCustomer(customerId, name, age, email, contactNumber));
+    }
+
+    @Override
+    public boolean deleteCustomer(int customerId) {
+        return timed("deleteCustomer", () -> super.deleteCustomer(customerId));
+    }
+
+    @Override
+    public Optional<CustomerProfile> getCustomerProfile(int customerId) {
+        return timed("getCustomerProfile", () -> super.getCustomerProfile(customerId));
+    }
+
+    // ==================== ACCOUNT MANAGEMENT ====================
+
+    @Override
+    public boolean createAccount(int customerId, String accountType, Money initialBalance) {
+        return timed("createAccount", () -> super.createAccount(customerId, accountType, initialBalance));
+    }
+
+    @Override
+    public Optional<Account> getAccount(int accountId) {
+        return timed("getAccount", () -> super.getAccount(accountId));
+    }
+
+    @Override
+    public List<Account> getCustomerAccounts(int customerId) {
+        return timed("getCustomerAccounts", () -> super.getCustomerAccounts(customerId));
+    }
+
+    @Override
+    public List<Account> getAllAccounts() {
+        return timed("getAllAccounts", super::getAllAccounts);
+    }
+
+    @Override
+    public List<Account> getAccountsByType(String accountType) {
+        return timed("getAccountsByType", () -> super.getAccountsByType(accountType));
+    }
+
+    @Override
+    public Optional<Money> checkBalance(int accountId) {
+        return timed("checkBalance", () -> super.checkBalance(accountId));
+    }
+
+    @Override
+    public Optional<Money> getBalanceAsOf(int accountId, LocalDateTime asOf) {
+        return timed("getBalanceAsOf", () -> super.getBalanceAsOf(accountId, asOf));
+    }
+
+    @Override
+    public int runBalanceCheckpoints() {
+        return timed("runBalanceCheckpoints", super::runBalanceCheckpoints);
+    }
+
+    // ==================== BALANCE QUERIES ====================
+
+    @Override
+    public List<BalanceIndex.Entry> getTopAccountsByBalance(int limit, String accountType) {
+        return timed("getTopAccountsByBalance", () -> super.getTopAccountsByBalance(limit, accountType));
+    }
+
+    @Override
+    public List<BalanceIndex.Entry> getAccountsByBalanceRange(Money min, Money max, int limit) {
+        return timed("getAccountsByBalanceRange", () -> super.getAccountsByBalanceRange(min, max, limit));
+    }
+
+    @Override
+    public Optional<LogHistogram> getBalanceHistogram(String accountType) {
+        return timed("getBalanceHistogram", () -> super.getBalanceHistogram(accountType));
+    }
+
+    // ==================== SEGMENTATION ====================
+
+    @Override
+    public Optional<SegmentIndex> getSegmentIndex() {
+        return timed("getSegmentIndex", super::getSegmentIndex);
+    }
+
+    @Override
+    public List<Account> getSegmentAccounts(RoaringBitmap accountIds, int limit) {
+        return timed("getSegmentAccounts", () -> super.getSegmentAccounts(accountIds, limit));
+    }
+
+    @Override
+    public List<Customer> getSegmentCustomers(RoaringBitmap customerIds, int limit) {
+        return timed("getSegmentCustomers", () -> super.getSegmentCustomers(customerIds, limit));
+    }
+
+    // ==================== TRANSACTION OPERATIONS ====================
+
+    @Override
+    public boolean deposit(int accountId, Money amount) {
+        DepositEvent event = new DepositEvent();
+        event.accountId = accountId;
+        return recorded(event, amount, () -> timed("deposit", () -> super.deposit(accountId, amount)));
+    }
+
+    @Override
+    public boolean withdraw(int accountId, Money amount) {
+        WithdrawEvent event = new WithdrawEvent();
+        event.accountId = accountId;
+        return recorded(event, amount, () -> timed("withdraw", () -> super.withdraw(accountId, amount)));
+    }
+
+    @Override
+    public boolean transfer(int fromAccountId, int toAccountId, Money amount) {
+        TransferEvent event = new TransferEvent();
+        event.fromAccountId = fromAccountId;
+        event.toAccountId = toAccountId;
+        return recorded(event, amount, () -> timed("transfer", () -> super.transfer(fromAccountId, toAccountId, amount)));
+    }
+
+    // Report a money movement to Flight Recorder if it passes the event's threshold
+    private boolean recorded(AccountOperationEvent event, Money amount, BooleanSupplier call) {
+        event.begin();
+        String outcome = AccountOperationEvent.ERROR;
+        try {
+            boolean success = call.getAsBoolean();
+            outcome = success ? AccountOperationEvent.SUCCESS : AccountOperationEvent.REJECTED;
+            return success;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.amountCents = amount != null ? amount.getCents() : 0;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    // ==================== TRANSACTION HISTORY ====================
+
+    @Override
+    public List<Transaction> getAccountTransactionHistory(int accountId) {
+        return timed("getAccountTransactionHistory", () -> super.getAccountTransactionHistory(accountId));
+    }
+
+    @Override
+    public List<Transaction> getAllTransactions() {
+        return timed("getAllTransactions", super::getAllTransactions);
+    }
+
+    @Override
+    public List<Transaction> getRecentTransactions(int limit) {
+        return timed("getRecentTransactions", () -> super.getRecentTransactions(limit));
+    }
+
+    @Override
+    public TransactionDAO.TransactionSummary getAccountTransactionSummary(int accountId) {
+        return timed("getAccountTransactionSummary", () -> super.getAccountTransactionSummary(accountId));
+    }
+
+    // ==================== LEDGER ANALYTICS ====================
+
+    @Override
+    public ColumnarLedger getLedgerReplica() {
+        return timed("getLedgerReplica", super::getLedgerReplica);
+    }
+
+    @Override
+    public long runTransactionRollup() {
+        return timed("runTransactionRollup", super::runTransactionRollup);
+    }
+
+    @Override
+    public List<TransactionRollup> getTransactionReport(TransactionRollupDAO.Period period, LocalDate from, LocalDate to) {
+        return timed("getTransactionReport", () -> super.getTransactionReport(period, from, to));
+    }
+
+    // ==================== RECONCILIATION ====================
+
+    @Override
+    public ReconciliationEngine.ReconciliationReport reconcileLedger(boolean rebuild) {
+        return timed("reconcileLedger", () -> super.reconcileLedger(rebuild));
+    }
+
+    @Override
+    public int backfillOpeningBalances(int lastLegacyAccountId) {
+        return timed("backfillOpeningBalances", () -> super.backfillOpeningBalances(lastLegacyAccountId));
+    }
+
+    // ==================== SYSTEM STATISTICS ====================
+
+    @Override
+    public SystemStatistics getSystemStatistics() {
+        return timed("getSystemStatistics", super::getSystemStatistics);
+    }
+}
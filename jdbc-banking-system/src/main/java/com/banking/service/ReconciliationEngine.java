@@ -0,0 +1,362 @@
+package com.banking.service;
+
+import com.banking.dao.JobWatermarkDAO;
+import com.banking.dao.ReconciliationDAO;
+import com.banking.dao.ReconciliationDAO.BalanceCheck;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ledger reconciliation and balance rebuild engine
+ * Splits the account id space into fixed ranges, checks them in parallel on a dedicated
+ * fork/join pool, and records the completed prefix so an interrupted run resumes where it stopped.
+ *
+ * Throttling comes from the pool size and an optional pause after each range.
+ *
+ * Accounts opened before createAccount logged opening balances have no OPENING row, so
+ * rebuilding them would wipe that balance. Rebuild is refused until backfillOpeningBalances
+ * has run, and never touches an account without an OPENING row in its ledger.
+ */
+public class ReconciliationEngine {
+
+    static final String JOB_NAME = "reconciliation";
+    // Position is the highest account id whose opening balance was backfilled; absent until run
+    static final String BACKFILL_JOB_NAME = "opening_balance_backfill";
+
+    private final ReconciliationDAO reconciliationDAO;
+    private final JobWatermarkDAO watermarkDAO;
+    private final int rangeSize;
+    private final int parallelism;
+    private final long pauseMillis;
+
+    private volatile boolean stopRequested;
+
+    public ReconciliationEngine() {
+        this(new ReconciliationDAO(), new JobWatermarkDAO(), 10_000, 2, 50);
+    }
+
+    /**
+     * @param rangeSize    account ids per range
+     * @param parallelism  ranges checked concurrently
+     * @param pauseMillis  pause after each range, to leave room for daytime traffic
+     */
+    public ReconciliationEngine(ReconciliationDAO reconciliationDAO, JobWatermarkDAO watermarkDAO,
+                                int rangeSize, int parallelism, long pauseMillis) {
+        this.reconciliationDAO = reconciliationDAO;
+        this.watermarkDAO = watermarkDAO;
+        this.rangeSize = Math.max(1, rangeSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    /**
+     * Reconcile every account after the stored watermark
+     *
+     * @param rebuild overwrite mismatched balances with their ledger values
+     */
+    public ReconciliationReport run(boolean rebuild) {
+        stopRequested = false;
+        long started = System.currentTimeMillis();
+        ReconciliationReport report = new ReconciliationReport();
+        if (rebuild && !isOpeningBalanceBackfillDone()) {
+            report.rebuildRefused = true;
+            rebuild = false;
+        }
+
+        // Mismatches found by earlier runs of a resumed pass are reported again
+        int resumeAfter = (int) watermarkDAO.getWatermark(JOB_NAME, 0);
+        if (resumeAfter > 0) {
+            List<BalanceCheck> earlier = reconciliationDAO.findSavedMismatches(resumeAfter);
+            if (earlier == null) {
+                return report.finish(started);
+            }
+            report.mismatches.addAll(earlier);
+        } else if (!reconciliationDAO.clearSavedMismatches()) {
+            return report.finish(started);
+        }
+
+        int[] idRange = reconciliationDAO.getAccountIdRange();
+        if (idRange == null) {
+            report.complete = true;
+            return report.finish(started);
+        }
+
+        int firstId = Math.max(idRange[0], resumeAfter + 1);
+        int lastId = idRange[1];
+        if (firstId > lastId) {
+            watermarkDAO.saveWatermark(JOB_NAME, 0);
+            report.complete = true;
+            return report.finish(started);
+        }
+
+        int rangeCount = (int) (((long) lastId - firstId) / rangeSize + 1);
+        Progress progress = new Progress(firstId, rangeCount);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RangeTask(0, rangeCount, firstId, lastId, rebuild, report, progress));
+        } finally {
+            pool.shutdown();
+        }
+
+        report.complete = progress.isComplete();
+        if (report.complete) {
+            watermarkDAO.saveWatermark(JOB_NAME, 0); // next run starts a fresh pass
+        }
+        return report.finish(started);
+    }
+
+    /**
+     * Whether the opening balances of accounts opened before they were logged are in the ledger
+     */
+    public boolean isOpeningBalanceBackfillDone() {
+        return watermarkDAO.getWatermark(BACKFILL_JOB_NAME, -1) >= 0;
+    }
+
+    /**
+     * Log the opening balance of every account opened before createAccount logged it
+     *
+     * Only an account with no ledger rows at all gets one: its stored balance is written as an
+     * OPENING row dated when the account was opened. An account with postings but no OPENING row
+     * cannot be split into opening balance and drift, so it is left for reconciliation to report.
+     * Running it again writes nothing for accounts already backfilled.
+     *
+     * @param lastLegacyAccountId highest account id opened before the upgrade, 0 if there is none
+     * @return number of opening balances logged, or -1 on error
+     */
+    public int backfillOpeningBalances(int lastLegacyAccountId) {
+        int[] idRange = lastLegacyAccountId > 0 ? reconciliationDAO.getAccountIdRange() : null;
+        int logged = 0;
+        if (idRange != null) {
+            int lastId = Math.min(lastLegacyAccountId, idRange[1]);
+            for (long fromId = idRange[0]; fromId <= lastId; fromId += rangeSize) {
+                int toId = (int) Math.min(fromId + rangeSize - 1, lastId);
+                int rangeLogged = backfillRange((int) fromId, toId);
+                if (rangeLogged < 0) {
+                    return -1;
+                }
+                logged += rangeLogged;
+                sleep(pauseMillis);
+            }
+        }
+        return watermarkDAO.saveWatermark(BACKFILL_JOB_NAME, lastLegacyAccountId) ? logged : -1;
+    }
+
+    private int backfillRange(int fromId, int toId) {
+        List<BalanceCheck> checks = reconciliationDAO.findBalanceChecks(fromId, toId);
+        if (checks == null) {
+            return -1;
+        }
+        List<BalanceCheck> ledgerless = new ArrayList<>();
+        for (BalanceCheck check : checks) {
+            if (check.getLedgerRows() == 0) {
+                ledgerless.add(check);
+            }
+        }
+        return ledgerless.isEmpty() ? 0 : reconciliationDAO.logOpeningBalances(ledgerless);
+    }
+
+    /**
+     * Ask a running pass to stop after the ranges already in flight
+     */
+    public void requestStop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Forget saved progress so the next run starts from the first account
+     */
+    public boolean resetProgress() {
+        return watermarkDAO.saveWatermark(JOB_NAME, 0);
+    }
+
+    // Check one range, then optionally rebuild its mismatches
+    private boolean reconcileRange(int fromId, int toId, boolean rebuild, ReconciliationReport report) {
+        List<BalanceCheck> checks = reconciliationDAO.findBalanceChecks(fromId, toId);
+        if (checks == null) {
+            return false;
+        }
+
+        // Each posting commits its balance change and ledger row together, so one consistent read
+        // shows only real mismatches
+        List<BalanceCheck> mismatches = unbalanced(checks);
+
+        if (!reconciliationDAO.saveMismatches(fromId, toId, mismatches)) {
+            return false;
+        }
+
+        int rebuilt = 0;
+        int skipped = 0;
+        if (rebuild && !mismatches.isEmpty()) {
+            List<BalanceCheck> rebuildable = new ArrayList<>();
+            for (BalanceCheck check : mismatches) {
+                if (check.isOpeningLogged()) {
+                    rebuildable.add(check);
+                }
+            }
+            skipped = mismatches.size() - rebuildable.size();
+            rebuilt = rebuildable.isEmpty() ? 0 : reconciliationDAO.rebuildBalances(rebuildable);
+            if (rebuilt < 0) {
+                return false;
+            }
+        }
+
+        report.record(checks.size(), mismatches, rebuilt, skipped);
+        return true;
+    }
+
+    private static List<BalanceCheck> unbalanced(List<BalanceCheck> checks) {
+        List<BalanceCheck> result = new ArrayList<>();
+        for (BalanceCheck check : checks) {
+            if (!check.isBalanced()) {
+                result.add(check);
+            }
+        }
+        return result;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== FORK/JOIN ====================
+
+    /**
+     * Splits the range index space in halves and reconciles single ranges at the leaves
+     */
+    private class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRange;
+        private final int toRange;
+        private final int firstId;
+        private final int lastId;
+        private final boolean rebuild;
+        private final ReconciliationReport report;
+        private final Progress progress;
+
+        RangeTask(int fromRange, int toRange, int firstId, int lastId, boolean rebuild,
+                  ReconciliationReport report, Progress progress) {
+            this.fromRange = fromRange;
+            this.toRange = toRange;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.rebuild = rebuild;
+            this.report = report;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRange - fromRange > 1) {
+                int mid = (fromRange + toRange) >>> 1;
+                invokeAll(new RangeTask(fromRange, mid, firstId, lastId, rebuild, report, progress),
+                          new RangeTask(mid, toRange, firstId, lastId, rebuild, report, progress));
+                return;
+            }
+            if (stopRequested) {
+                return;
+            }
+            int fromId = (int) Math.min((long) firstId + (long) fromRange * rangeSize, lastId);
+            int toId = (int) Math.min((long) fromId + rangeSize - 1, lastId);
+            if (reconcileRange(fromId, toId, rebuild, report)) {
+                progress.completed(fromRange);
+            } else {
+                report.failedRanges.incrementAndGet();
+            }
+            sleep(pauseMillis);
+        }
+    }
+
+    /**
+     * Tracks finished ranges and persists the highest id below which everything is done
+     */
+    private class Progress {
+        private final int firstId;
+        private final int rangeCount;
+        private final BitSet done = new BitSet();
+        private int contiguous;
+
+        Progress(int firstId, int rangeCount) {
+            this.firstId = firstId;
+            this.rangeCount = rangeCount;
+        }
+
+        synchronized void completed(int range) {
+            done.set(range);
+            int before = contiguous;
+            while (done.get(contiguous)) {
+                contiguous++;
+            }
+            if (contiguous > before && contiguous < rangeCount) {
+                watermarkDAO.saveWatermark(JOB_NAME, (long) firstId + (long) contiguous * rangeSize - 1);
+            }
+        }
+
+        synchronized boolean isComplete() {
+            return contiguous == rangeCount;
+        }
+    }
+
+    // ==================== REPORT ====================
+
+    /**
+     * Outcome of one reconciliation pass
+     */
+    public static class ReconciliationReport {
+        private final AtomicInteger accountsChecked = new AtomicInteger();
+        private final AtomicInteger rangesChecked = new AtomicInteger();
+        private final AtomicInteger balancesRebuilt = new AtomicInteger();
+        private final AtomicInteger rebuildsSkipped = new AtomicInteger();
+        private final AtomicInteger failedRanges = new AtomicInteger();
+        private final List<BalanceCheck> mismatches = Collections.synchronizedList(new ArrayList<>());
+        private boolean complete;
+        private boolean rebuildRefused;
+        private long elapsedMillis;
+
+        void record(int checked, List<BalanceCheck> rangeMismatches, int rebuilt, int skipped) {
+            rangesChecked.incrementAndGet();
+            accountsChecked.addAndGet(checked);
+            balancesRebuilt.addAndGet(rebuilt);
+            rebuildsSkipped.addAndGet(skipped);
+            mismatches.addAll(rangeMismatches);
+        }
+
+        ReconciliationReport finish(long started) {
+            elapsedMillis = System.currentTimeMillis() - started;
+            return this;
+        }
+
+        public int getAccountsChecked() { return accountsChecked.get(); }
+        public int getRangesChecked() { return rangesChecked.get(); }
+        public int getBalancesRebuilt() { return balancesRebuilt.get(); }
+        // Mismatched accounts left alone because their ledger has no OPENING row
+        public int getRebuildsSkipped() { return rebuildsSkipped.get(); }
+        // Rebuild was asked for before the opening balance backfill ran, so nothing was rebuilt
+        public boolean isRebuildRefused() { return rebuildRefused; }
+        public int getFailedRanges() { return failedRanges.get(); }
+        public List<BalanceCheck> getMismatches() { return List.copyOf(mismatches); }
+        public boolean isComplete() { return complete; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("ReconciliationReport{accounts=%d, ranges=%d, mismatches=%d, rebuilt=%d, rebuildsSkipped=%d, rebuildRefused=%s, failedRanges=%d, complete=%s, elapsedMs=%d}",
+                               getAccountsChecked(), getRangesChecked(), mismatches.size(), getBalancesRebuilt(),
+                               getRebuildsSkipped(), rebuildRefused, getFailedRanges(), complete, elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.banking.tools;
+
+import com.banking.cache.EntityCaches;
+import com.banking.dao.AccountDAO;
+import com.banking.dao.TransactionDAO;
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.Money;
+import com.banking.service.BankingService;
+import com.banking.util.DatabaseConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs concurrent deposits, withdrawals and transfers over a few shared accounts and then checks
+ * that no money was created or destroyed
+ *
+ * Creates a throwaway customer with a handful of accounts, so many threads contend for the same
+ * rows and balances are regularly driven close to zero. Afterwards, reading balances from the
+ * database rather than the caches, it checks:
+ *   - the sum of the balances equals the opening total plus the deposits and minus the
+ *     withdrawals that reported success
+ *   - no balance is negative
+ *   - every balance equals the net of its ledger rows (the opening balance is an OPENING row)
+ * Exits with status 1 on any violation and leaves the fixture in place to inspect; a passing run
+ * deletes it. The check writes rows, so it only runs against a schema named with -DDB_URL, never
+ * the one in config.properties.
+ *
+ * Usage: java -DDB_URL=jdbc:mysql://localhost:3306/banking_budget ... ConcurrencyStressCheck
+ *            [threads=32] [operations=20000] [accounts=10] [opening=1000.00]
+ *            [maxAmount=250.00] [mix=deposit:20,withdraw:30,transfer:50]
+ */
+public class ConcurrencyStressCheck {
+
+    private static final String[] OPERATIONS = {"deposit", "withdraw", "transfer"};
+
+    private final BankingService bankingService;
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+
+    private int threads = 32;
+    private int operations = 20_000;
+    private int accountCount = 10;
+    private Money openingBalance = Money.ofCents(100_000);
+    private Money maxAmount = Money.ofCents(25_000);
+    private int[] weights = {20, 30, 50};
+
+    private int customerId;
+    private int[] accountIds;
+    private final LongAdder depositedCents = new LongAdder();
+    private final LongAdder withdrawnCents = new LongAdder();
+    private final LongAdder[] succeeded = newAdders();
+    private final LongAdder[] rejected = newAdders();
+    private final LongAdder[] errors = newAdders();
+
+    public ConcurrencyStressCheck(BankingService bankingService) {
+        this.bankingService = bankingService;
+    }
+
+    public static void main(String[] args) {
+        ConcurrencyStressCheck check = new ConcurrencyStressCheck(new BankingService());
+        try {
+            check.configure(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            System.out.println("Usage: ConcurrencyStressCheck [threads=32] [operations=20000] [accounts=10] " +
+                               "[opening=1000.00] [maxAmount=250.00] [mix=deposit:20,withdraw:30,transfer:50]");
+            System.exit(1);
+            return;
+        }
+        DatabaseConnection database = DatabaseConnection.getInstance();
+        if (!database.isOverridden("DB_URL")) {
+            System.out.println("❌ Name the test schema with -DDB_URL (loaded with sql/schema.sql); the check writes test rows");
+            System.exit(1);
+        }
+        if (!database.testConnection()) {
+            System.out.println("❌ Database connection failed! Check " + database.getUrl());
+            System.exit(1);
+        }
+
+        try {
+            check.createFixture();
+        } catch (IllegalStateException e) {
+            System.out.println("❌ " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long openingTotal = check.totalBalanceCents();
+        check.run();
+        int violations = check.verify(openingTotal);
+        if (violations > 0) {
+            System.out.println("❌ " + violations + " invariant violation(s); test customer " + check.customerId + " left in place");
+            System.exit(1);
+        }
+        check.removeFixture();
+        System.out.println("✅ Money conserved, no negative balances, ledger matches balances");
+    }
+
+    // ==================== RUN ====================
+
+    /**
+     * Run the operations on the configured number of threads, all released at once
+     */
+    public void run() {
+        System.out.printf("Stress: %d operations on %d threads over %d accounts (opening %s, amounts up to %s)%n",
+                          operations, threads, accountIds.length, openingBalance, maxAmount);
+        AtomicInteger remaining = new AtomicInteger(operations);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (remaining.getAndDecrement() > 0) {
+                    execute(ThreadLocalRandom.current());
+                }
+            }, "stress-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%-10s %10s %10s %10s%n", "Operation", "Succeeded", "Rejected", "Errors");
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            System.out.printf("%-10s %10d %10d %10d%n", OPERATIONS[i], succeeded[i].sum(), rejected[i].sum(), errors[i].sum());
+        }
+        System.out.printf("Throughput: %.1f operations/s (%.2f s)%n", operations / seconds, seconds);
+    }
+
+    private void execute(ThreadLocalRandom random) {
+        int operation = pickOperation(random);
+        int accountId = accountIds[random.nextInt(accountIds.length)];
+        Money amount = Money.ofCents(1 + random.nextLong(maxAmount.getCents()));
+        try {
+            boolean ok;
+            switch (operation) {
+                case 0:
+                    ok = bankingService.deposit(accountId, amount);
+                    if (ok) {
+                        depositedCents.add(amount.getCents());
+                    }
+                    break;
+                case 1:
+                    ok = bankingService.withdraw(accountId, amount);
+                    if (ok) {
+                        withdrawnCents.add(amount.getCents());
+                    }
+                    break;
+                default:
+                    int toAccountId = accountIds[random.nextInt(accountIds.length)];
+                    while (toAccountId == accountId) {
+                        toAccountId = accountIds[random.nextInt(accountIds.length)];
+                    }
+                    ok = bankingService.transfer(accountId, toAccountId, amount);
+                    break;
+            }
+            (ok ? succeeded : rejected)[operation].increment();
+        } catch (RuntimeException e) {
+            errors[operation].increment();
+        }
+    }
+
+    private int pickOperation(ThreadLocalRandom random) {
+        int roll = random.nextInt(weights[0] + weights[1] + weights[2]);
+        for (int i = 0; i < weights.length; i++) {
+            if (roll < weights[i]) {
+                return i;
+            }
+            roll -= weights[i];
+        }
+        return weights.length - 1;
+    }
+
+    // ==================== INVARIANTS ====================
+
+    /**
+     * Check the invariants against the database and print each violation
+     *
+     * @return the number of violations
+     */
+    public int verify(long openingTotalCents) {
+        int violations = 0;
+        long total = 0;
+        for (int accountId : accountIds) {
+            Optional<Money> balance = freshBalance(accountId);
+            if (balance.isEmpty()) {
+                System.out.println("❌ Account " + accountId + " could not be read");
+                violations++;
+                continue;
+            }
+            long cents = balance.get().getCents();
+            total += cents;
+            if (cents < 0) {
+                System.out.println("❌ Account " + accountId + " has a negative balance: " + balance.get());
+                violations++;
+            }
+            Money ledger = transactionDAO.getNetChange(accountId, null, null);
+            if (ledger.getCents() != cents) {
+                System.out.println("❌ Account " + accountId + " balance " + balance.get() + " but ledger nets to " + ledger);
+                violations++;
+            }
+        }
+
+        long expected = openingTotalCents + depositedCents.sum() - withdrawnCents.sum();
+        if (total != expected) {
+            System.out.println("❌ Balances sum to " + Money.ofCents(total) + ", expected " + Money.ofCents(expected) +
+                               " (difference " + Money.ofCents(total - expected) + ")");
+            violations++;
+        } else {
+            System.out.println("Balances sum to " + Money.ofCents(total) + " = opening " + Money.ofCents(openingTotalCents) +
+                               " + deposits " + Money.ofCents(depositedCents.sum()) +
+                               " - withdrawals " + Money.ofCents(withdrawnCents.sum()));
+        }
+        return violations;
+    }
+
+    long totalBalanceCents() {
+        long total = 0;
+        for (int accountId : accountIds) {
+            total += freshBalance(accountId).map(Money::getCents).orElse(0L);
+        }
+        return total;
+    }
+
+    // Bypasses the entity cache so the check sees what the database holds
+    private Optional<Money> freshBalance(int accountId) {
+        EntityCaches.ACCOUNTS.invalidate(accountId);
+        return accountDAO.findById(accountId).map(Account::getBalance);
+    }
+
+    // ==================== SETUP ====================
+
+    private void createFixture() {
+        String email = "stress-check-" + System.currentTimeMillis() + "@example.com";
+        if (!bankingService.registerCustomer("Stress Check", 30, email, "5550000000")) {
+            throw new IllegalStateException("Could not create the test customer");
+        }
+        Optional<Customer> customer = bankingService.getCustomerByEmail(email);
+        if (customer.isEmpty()) {
+            throw new IllegalStateException("Test customer not found after registration");
+        }
+        customerId = customer.get().getId();
+        for (int i = 0; i < accountCount; i++) {
+            bankingService.createAccount(customerId, Account.SAVINGS, openingBalance);
+        }
+        accountIds = bankingService.getCustomerAccounts(customerId).stream().mapToInt(Account::getId).toArray();
+        if (accountIds.length < 2) {
+            throw new IllegalStateException("Could not create the test accounts");
+        }
+    }
+
+    /**
+     * Delete the test transactions, accounts and customer
+     * Deleting an account only detaches its transactions, so they are removed first.
+     */
+    private void removeFixture() {
+        if (transactionDAO.deleteByAccountIds(accountIds) < 0) {
+            System.out.println("❌ Could not delete the test transactions of customer " + customerId);
+            return;
+        }
+        for (int accountId : accountIds) {
+            accountDAO.deleteAccount(accountId);
+        }
+        if (!bankingService.deleteCustomer(customerId)) {
+            System.out.println("❌ Could not delete the test customer " + customerId);
+        }
+    }
+
+    private void configure(String[] args) {
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            try {
+                switch (key) {
+                    case "threads":
+                        threads = Math.max(1, Integer.parseInt(value));
+                        break;
+                    case "operations":
+                        operations = Math.max(1, Integer.parseInt(value));
+                        break;
+                    case "accounts":
+                        accountCount = Math.max(2, Integer.parseInt(value));
+                        break;
+                    case "opening":
+                        openingBalance = Money.parse(value);
+                        break;
+                    case "maxAmount":
+                        maxAmount = Money.parse(value);
+                        break;
+                    case "mix":
+                        weights = parseMix(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown setting: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad number for " + key + ": " + value);
+            }
+        }
+        if (!maxAmount.isPositive()) {
+            throw new IllegalArgumentException("maxAmount must be positive");
+        }
+    }
+
+    // "deposit:20,withdraw:30,transfer:50" -> weights in OPERATIONS order; missing ones are 0
+    private static int[] parseMix(String text) {
+        int[] parsed = new int[OPERATIONS.length];
+        for (String part : text.split(",")) {
+            String[] pair = part.trim().split(":");
+            int index = pair.length == 2 ? List.of(OPERATIONS).indexOf(pair[0].trim()) : -1;
+            if (index < 0) {
+                throw new IllegalArgumentException("Bad mix entry: " + part);
+            }
+            parsed[index] = Math.max(0, Integer.parseInt(pair[1].trim()));
+        }
+        if (parsed[0] + parsed[1] + parsed[2] == 0) {
+            throw new IllegalArgumentException("mix has no weight");
+        }
+        return parsed;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[OPERATIONS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
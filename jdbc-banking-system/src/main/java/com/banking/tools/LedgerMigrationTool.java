@@ -0,0 +1,208 @@
+package com.banking.tools;
+
+import com.banking.dao.JobWatermarkDAO;
+import com.banking.dao.LedgerMigrationDAO;
+import com.banking.util.Log;
+
+/**
+ * Online migration of the transactions table to the compact format
+ *
+ * Steps:
+ *   1. prepare  - create the compact shadow table
+ *   2. run every application node with LEDGER_FORMAT=DUAL_WRITE so new rows are mirrored
+ *   3. copy     - copy history in id chunks (resumable, throttled with a pause between chunks)
+ *   4. verify   - compare counts and totals chunk by chunk; for a chunk that differs, run
+ *                 rewind to its first id minus one and copy again
+ *   5. cutover  - catch up, then lock both tables, copy and verify the last rows and swap the
+ *                 tables in one rename, so a row from a node that is not dual-writing cannot
+ *                 slip in after the copy. Nodes keep running: their next ledger write fails on
+ *                 the legacy columns, they see the swap and retry it in the compact layout.
+ *                 Restart them with LEDGER_FORMAT=COMPACT at leisure. Needs MySQL 8.0.13+.
+ *
+ * Usage: LedgerMigrationTool prepare|copy|verify|cutover|status [chunkSize] [pauseMillis]
+ *        LedgerMigrationTool rewind afterId
+ */
+public class LedgerMigrationTool {
+
+    static final String JOB_NAME = "ledger_migration";
+
+    private final LedgerMigrationDAO migrationDAO;
+    private final JobWatermarkDAO watermarkDAO;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    public LedgerMigrationTool(LedgerMigrationDAO migrationDAO, JobWatermarkDAO watermarkDAO, int chunkSize, long pauseMillis) {
+        this.migrationDAO = migrationDAO;
+        this.watermarkDAO = watermarkDAO;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    public static void main(String[] args) {
+        // Run by an operator: show the DAO messages as they happen
+        Log.setInteractive(true);
+        if (args.length == 0) {
+            System.out.println("Usage: LedgerMigrationTool prepare|copy|verify|cutover|status [chunkSize] [pauseMillis]");
+            System.out.println("       LedgerMigrationTool rewind afterId");
+            return;
+        }
+
+        if (args[0].equals("rewind")) {
+            if (args.length < 2) {
+                System.out.println("❌ rewind needs the id to copy again after");
+                System.exit(1);
+            }
+            LedgerMigrationTool tool = new LedgerMigrationTool(new LedgerMigrationDAO(), new JobWatermarkDAO(), 1, 0);
+            if (!tool.rewind(Integer.parseInt(args[1]))) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        long pauseMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        LedgerMigrationTool tool = new LedgerMigrationTool(new LedgerMigrationDAO(), new JobWatermarkDAO(), chunkSize, pauseMillis);
+
+        boolean ok;
+        switch (args[0]) {
+            case "prepare":
+                ok = tool.prepare();
+                break;
+            case "copy":
+                ok = tool.copy();
+                break;
+            case "verify":
+                ok = tool.verify();
+                break;
+            case "cutover":
+                ok = tool.cutover();
+                break;
+            case "status":
+                tool.status();
+                ok = true;
+                break;
+            default:
+                System.out.println("❌ Unknown command: " + args[0]);
+                ok = false;
+        }
+
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    public boolean prepare() {
+        return migrationDAO.createShadowTable();
+    }
+
+    /**
+     * Copy every chunk after the watermark up to the current end of the ledger
+     */
+    public boolean copy() {
+        int maxId = migrationDAO.getMaxLegacyId();
+        if (maxId < 0) {
+            return false;
+        }
+
+        long copiedId = watermarkDAO.getWatermark(JOB_NAME, 0);
+        long rows = 0;
+        while (copiedId < maxId) {
+            int upTo = (int) Math.min(copiedId + chunkSize, maxId);
+            int copied = migrationDAO.copyChunk((int) copiedId, upTo);
+            if (copied < 0 || !watermarkDAO.saveWatermark(JOB_NAME, upTo)) {
+                System.err.println("❌ Copy stopped after id " + copiedId + "; run copy again to resume");
+                return false;
+            }
+            rows += copied;
+            copiedId = upTo;
+            pause();
+        }
+
+        System.out.println("✅ Copied " + rows + " row(s); ledger copied up to id " + copiedId);
+        return true;
+    }
+
+    /**
+     * Verify every copied chunk
+     */
+    public boolean verify() {
+        long copiedId = watermarkDAO.getWatermark(JOB_NAME, 0);
+        int mismatches = 0;
+        for (long from = 0; from < copiedId; from += chunkSize) {
+            int upTo = (int) Math.min(from + chunkSize, copiedId);
+            if (!migrationDAO.verifyChunk((int) from, upTo)) {
+                System.out.println("❌ Chunk " + (from + 1) + "-" + upTo + " differs; run 'rewind " + from + "' and then copy");
+                mismatches++;
+            }
+            pause();
+        }
+
+        if (mismatches == 0) {
+            System.out.println("✅ Verified ledger up to id " + copiedId);
+        }
+        return mismatches == 0;
+    }
+
+    /**
+     * Final catch-up copy and tail verification, then the locked tail copy and table swap
+     */
+    public boolean cutover() {
+        long before = watermarkDAO.getWatermark(JOB_NAME, 0);
+        if (!copy()) {
+            return false;
+        }
+        long after = watermarkDAO.getWatermark(JOB_NAME, 0);
+        if (after > before && !migrationDAO.verifyChunk((int) before, (int) after)) {
+            System.err.println("❌ Tail verification failed; not swapping tables");
+            return false;
+        }
+        int tail = migrationDAO.cutover((int) after);
+        if (tail < 0) {
+            System.err.println("❌ Tables not swapped; see the log");
+            return false;
+        }
+        System.out.println("✅ Swapped tables after copying " + tail + " more row(s) under the lock");
+        System.out.println("➡️  Running nodes switch to the compact layout on their next ledger write;");
+        System.out.println("   restart every node with LEDGER_FORMAT=COMPACT");
+        return true;
+    }
+
+    /**
+     * Move the copy watermark back to afterId and drop the shadow rows after it, so the next copy
+     * rewrites them from the legacy table
+     */
+    public boolean rewind(int afterId) {
+        long copiedId = watermarkDAO.getWatermark(JOB_NAME, 0);
+        if (afterId < 0 || afterId >= copiedId) {
+            System.out.println("❌ Nothing to rewind: copied up to id " + copiedId);
+            return false;
+        }
+        // Lower the watermark first, so a failure below leaves rows that copy will overwrite
+        if (!watermarkDAO.saveWatermark(JOB_NAME, afterId)) {
+            return false;
+        }
+        int deleted = migrationDAO.deleteShadowRange(afterId, (int) copiedId);
+        if (deleted < 0) {
+            System.out.println("❌ Could not delete the shadow rows; run rewind again");
+            return false;
+        }
+        System.out.println("✅ Rewound to id " + afterId + " (" + deleted + " shadow row(s) removed); run copy next");
+        return true;
+    }
+
+    public void status() {
+        System.out.println("Legacy ledger max id: " + migrationDAO.getMaxLegacyId());
+        System.out.println("Copied up to id:      " + watermarkDAO.getWatermark(JOB_NAME, 0));
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.banking.tools;
+
+import com.banking.metrics.CallCost;
+import com.banking.metrics.LatencyHistogram;
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.Money;
+import com.banking.service.BankingService;
+import com.banking.util.DatabaseConnection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives BankingService with a mix of operations against the accounts already in the database
+ *
+ * Accounts are picked from a Zipf distribution (zipf=0 picks uniformly), with the hot ranks
+ * shuffled over the account ids. Two modes:
+ *   closed - each thread starts its next call as soon as the previous one returns; latency is
+ *            the service time, and the offered load drops whenever the system slows down
+ *   open   - calls are scheduled at a fixed rate whether or not earlier ones have finished;
+ *            latency runs from the scheduled start, so time spent waiting behind a slow call is
+ *            counted (corrected for coordinated omission). Service time is reported next to it.
+ * Calls in the warmup period are not recorded.
+ *
+ * The report gives per operation: throughput, latency percentiles, calls that returned false
+ * (e.g. insufficient balance), calls that threw, and deadlocks and lock wait timeouts hit (which
+ * the DAOs log and turn into false; counted with METRICS_ENABLED=true).
+ *
+ * Usage: LoadGenerator [mode=closed|open] [threads=16] [rate=500] [duration=60] [warmup=10]
+ *                      [zipf=0.99] [maxAmount=100.00]
+ *                      [mix=deposit:30,withdraw:20,transfer:30,history:15,search:5]
+ */
+public class LoadGenerator {
+
+    public enum Operation {
+        DEPOSIT, WITHDRAW, TRANSFER, HISTORY, SEARCH;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final BankingService bankingService;
+    private final Settings settings;
+    private final int[] accountIds;
+    private final String[] searchTerms;
+    private final ZipfSampler accountSampler;
+    private final Operation[] mixTable;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(BankingService bankingService, Settings settings, int[] accountIds, String[] searchTerms) {
+        this.bankingService = bankingService;
+        this.settings = settings;
+        this.accountIds = accountIds;
+        this.searchTerms = searchTerms;
+        this.accountSampler = new ZipfSampler(accountIds.length, settings.zipf, new Random(42));
+        this.mixTable = buildMixTable(settings.mix);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) {
+        Settings settings;
+        try {
+            settings = Settings.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            System.out.println("Usage: LoadGenerator [mode=closed|open] [threads=16] [rate=500] [duration=60] [warmup=10] " +
+                               "[zipf=0.99] [maxAmount=100.00] [mix=deposit:30,withdraw:20,transfer:30,history:15,search:5]");
+            System.exit(1);
+            return;
+        }
+        if (!DatabaseConnection.getInstance().testConnection()) {
+            System.out.println("❌ Database connection failed! Check config.properties.");
+            System.exit(1);
+        }
+
+        BankingService bankingService = new BankingService();
+        int[] accountIds = bankingService.getAllAccounts().stream().mapToInt(Account::getId).toArray();
+        if (accountIds.length < 2) {
+            System.out.println("❌ At least two accounts are needed; seed the database first");
+            System.exit(1);
+        }
+        String[] searchTerms = bankingService.getAllCustomers().stream()
+                                             .map(Customer::getName)
+                                             .filter(name -> name != null && name.length() >= 3)
+                                             .map(name -> name.substring(0, 3))
+                                             .distinct()
+                                             .toArray(String[]::new);
+
+        System.out.printf("Load: %s loop, %d threads%s, %ds + %ds warmup, %d accounts, zipf=%.2f, mix=%s%n",
+                          settings.mode, settings.threads, settings.open() ? ", " + settings.rate + " calls/s" : "",
+                          settings.durationSeconds, settings.warmupSeconds, accountIds.length, settings.zipf, settings.mix);
+        LoadGenerator generator = new LoadGenerator(bankingService, settings, accountIds, searchTerms);
+        generator.run();
+        generator.printReport();
+    }
+
+    // ==================== RUN ====================
+
+    public void run() {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        AtomicLong nextSlot = new AtomicLong();
+        long intervalNanos = settings.open() ? Math.max(1, (long) (1e9 / settings.rate)) : 0;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < settings.threads; i++) {
+            Runnable loop = settings.open()
+                    ? () -> openLoop(start, measureFrom, end, intervalNanos, nextSlot)
+                    : () -> closedLoop(start, measureFrom, end);
+            Thread worker = new Thread(loop, "load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void closedLoop(long start, long measureFrom, long end) {
+        waitUntil(start);
+        while (true) {
+            long callStart = System.nanoTime();
+            if (callStart - end >= 0) {
+                return;
+            }
+            execute(callStart, callStart, callStart - measureFrom >= 0);
+        }
+    }
+
+    // Each call takes the next slot of a fixed schedule; a call that starts late is charged the delay
+    private void openLoop(long start, long measureFrom, long end, long intervalNanos, AtomicLong nextSlot) {
+        while (true) {
+            long intended = start + nextSlot.getAndIncrement() * intervalNanos;
+            if (intended - end >= 0) {
+                return;
+            }
+            waitUntil(intended);
+            execute(intended, System.nanoTime(), intended - measureFrom >= 0);
+        }
+    }
+
+    private void execute(long intendedStart, long actualStart, boolean record) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Operation operation = mixTable[random.nextInt(mixTable.length)];
+        boolean succeeded = false;
+        boolean threw = false;
+        CallCost cost = CallCost.begin();
+        try {
+            succeeded = call(operation, random);
+        } catch (RuntimeException e) {
+            threw = true;
+        } finally {
+            cost.end();
+        }
+        long finished = System.nanoTime();
+        if (record) {
+            stats.get(operation).record(finished - intendedStart, finished - actualStart, succeeded, threw, cost);
+        }
+    }
+
+    private boolean call(Operation operation, ThreadLocalRandom random) {
+        int accountId = accountIds[accountSampler.sample(random)];
+        switch (operation) {
+            case DEPOSIT:
+                return bankingService.deposit(accountId, randomAmount(random));
+            case WITHDRAW:
+                return bankingService.withdraw(accountId, randomAmount(random));
+            case TRANSFER:
+                int toAccountId = accountId;
+                while (toAccountId == accountId) {
+                    toAccountId = accountIds[accountSampler.sample(random)];
+                }
+                return bankingService.transfer(accountId, toAccountId, randomAmount(random));
+            case HISTORY:
+                bankingService.getAccountTransactionHistory(accountId);
+                return true;
+            default:
+                if (searchTerms.length > 0) {
+                    bankingService.searchCustomersByName(searchTerms[random.nextInt(searchTerms.length)]);
+                }
+                return true;
+        }
+    }
+
+    private Money randomAmount(ThreadLocalRandom random) {
+        return Money.ofCents(1 + random.nextLong(settings.maxAmount.getCents()));
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // One entry per percent of the mix, so picking an operation is one array read
+    private static Operation[] buildMixTable(Map<Operation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        List<Operation> table = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            int slots = (int) Math.round(100.0 * entry.getValue() / total);
+            table.addAll(Collections.nCopies(Math.max(slots, entry.getValue() > 0 ? 1 : 0), entry.getKey()));
+        }
+        return table.toArray(new Operation[0]);
+    }
+
+    // ==================== REPORT ====================
+
+    public void printReport() {
+        double seconds = settings.durationSeconds;
+        System.out.println();
+        System.out.printf("%-9s %9s %9s %9s %9s %9s %9s %9s %8s %7s %9s %9s%n", "Operation", "Calls", "Calls/s",
+                          "P50 ms", "P90 ms", "P99 ms", "P99.9 ms", "Max ms", "Failed", "Errors", "Deadlocks", "LockWaits");
+        LatencyHistogram all = new LatencyHistogram();
+        long calls = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            LatencyHistogram latency = operation.response;
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            all.add(latency);
+            calls += latency.getCount();
+            System.out.printf("%-9s %9d %9.1f %9s %9s %9s %9s %9s %7.2f%% %7d %9d %9d%n", entry.getKey().label(),
+                              latency.getCount(), latency.getCount() / seconds,
+                              millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                              millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                              millis(latency.getMaxNanos()), 100.0 * operation.failures.sum() / latency.getCount(),
+                              operation.errors.sum(), operation.deadlocks.sum(), operation.lockWaitTimeouts.sum());
+        }
+        System.out.printf("%-9s %9d %9.1f %9s %9s %9s %9s %9s%n", "all", calls, calls / seconds,
+                          millis(all.getValueAtPercentile(50)), millis(all.getValueAtPercentile(90)),
+                          millis(all.getValueAtPercentile(99)), millis(all.getValueAtPercentile(99.9)), millis(all.getMaxNanos()));
+
+        if (settings.open()) {
+            System.out.println();
+            System.out.println("Latency above is measured from each call's scheduled start. Service time alone:");
+            System.out.printf("%-9s %9s %9s %9s %9s%n", "Operation", "P50 ms", "P99 ms", "P99.9 ms", "Max ms");
+            stats.forEach((operation, operationStats) -> {
+                LatencyHistogram service = operationStats.service;
+                if (service.getCount() > 0) {
+                    System.out.printf("%-9s %9s %9s %9s %9s%n", operation.label(),
+                                      millis(service.getValueAtPercentile(50)), millis(service.getValueAtPercentile(99)),
+                                      millis(service.getValueAtPercentile(99.9)), millis(service.getMaxNanos()));
+                }
+            });
+            double achieved = calls / seconds;
+            if (achieved < settings.rate * 0.95) {
+                System.out.printf("❌ Achieved %.1f calls/s of the %.1f scheduled: the system (or threads=%d) cannot keep up%n",
+                                  achieved, settings.rate, settings.threads);
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private static final class OperationStats {
+        final LatencyHistogram response = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder deadlocks = new LongAdder();
+        final LongAdder lockWaitTimeouts = new LongAdder();
+
+        void record(long responseNanos, long serviceNanos, boolean succeeded, boolean threw, CallCost cost) {
+            response.record(responseNanos);
+            service.record(serviceNanos);
+            if (threw) {
+                errors.increment();
+            } else if (!succeeded) {
+                failures.increment();
+            }
+            deadlocks.add(cost.getDeadlocks());
+            lockWaitTimeouts.add(cost.getLockWaitTimeouts());
+        }
+    }
+
+    // ==================== ACCOUNT SELECTION ====================
+
+    /**
+     * Zipf-distributed index in [0, size): rank k is drawn with weight 1 / (k + 1)^exponent
+     * Ranks are mapped to indexes through a fixed shuffle, so the hottest accounts are spread over
+     * the id range rather than being the oldest ones.
+     */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+        private final int[] indexOfRank;
+
+        ZipfSampler(int size, double exponent, Random shuffleRandom) {
+            cumulative = new double[size];
+            double total = 0;
+            for (int rank = 0; rank < size; rank++) {
+                total += exponent == 0 ? 1 : 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < size; rank++) {
+                cumulative[rank] /= total;
+            }
+            indexOfRank = new int[size];
+            for (int i = 0; i < size; i++) {
+                indexOfRank[i] = i;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int j = shuffleRandom.nextInt(i + 1);
+                int swap = indexOfRank[i];
+                indexOfRank[i] = indexOfRank[j];
+                indexOfRank[j] = swap;
+            }
+        }
+
+        int sample(ThreadLocalRandom random) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            rank = rank >= 0 ? rank : Math.min(-rank - 1, cumulative.length - 1);
+            return indexOfRank[rank];
+        }
+    }
+
+    // ==================== SETTINGS ====================
+
+    public static final class Settings {
+        String mode = "closed";
+        int threads = 16;
+        double rate = 500;
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        double zipf = 0.99;
+        Money maxAmount = Money.ofCents(10_000);
+        Map<Operation, Integer> mix = parseMix("deposit:30,withdraw:20,transfer:30,history:15,search:5");
+
+        boolean open() {
+            return mode.equals("open");
+        }
+
+        static Settings parse(String[] args) {
+            Settings settings = new Settings();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value: " + arg);
+                }
+                String key = arg.substring(0, eq);
+                String value = arg.substring(eq + 1);
+                try {
+                    switch (key) {
+                        case "mode":
+                            if (!value.equals("closed") && !value.equals("open")) {
+                                throw new IllegalArgumentException("mode must be closed or open");
+                            }
+                            settings.mode = value;
+                            break;
+                        case "threads":
+                            settings.threads = Math.max(1, Integer.parseInt(value));
+                            break;
+                        case "rate":
+                            settings.rate = Double.parseDouble(value);
+                            break;
+                        case "duration":
+                            settings.durationSeconds = Math.max(1, Integer.parseInt(value));
+                            break;
+                        case "warmup":
+                            settings.warmupSeconds = Math.max(0, Integer.parseInt(value));
+                            break;
+                        case "zipf":
+                            settings.zipf = Math.max(0, Double.parseDouble(value));
+                            break;
+                        case "maxAmount":
+                            settings.maxAmount = Money.parse(value);
+                            break;
+                        case "mix":
+                            settings.mix = parseMix(value);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown setting: " + key);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad number for " + key + ": " + value);
+                }
+            }
+            if (settings.open() && settings.rate <= 0) {
+                throw new IllegalArgumentException("rate must be positive in open mode");
+            }
+            if (!settings.maxAmount.isPositive()) {
+                throw new IllegalArgumentException("maxAmount must be positive");
+            }
+            return settings;
+        }
+
+        // "deposit:30,withdraw:20" -> weights by operation
+        static Map<Operation, Integer> parseMix(String text) {
+            Map<Operation, Integer> mix = new LinkedHashMap<>();
+            for (String part : text.split(",")) {
+                String[] pair = part.trim().split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Bad mix entry: " + part);
+                }
+                Operation operation;
+                try {
+                    operation = Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown operation in mix: " + pair[0]);
+                }
+                mix.put(operation, Math.max(0, Integer.parseInt(pair[1].trim())));
+            }
+            if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+                throw new IllegalArgumentException("mix has no weight");
+            }
+            return mix;
+        }
+
+        @Override
+        public String toString() {
+            return mode;
+        }
+    }
+}
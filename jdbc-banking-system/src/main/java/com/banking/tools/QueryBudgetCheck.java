@@ -0,0 +1,279 @@
+package com.banking.tools;
+
+import com.banking.cache.EntityCaches;
+import com.banking.dao.AccountDAO;
+import com.banking.dao.ChangeLogDAO;
+import com.banking.dao.LedgerFormat;
+import com.banking.dao.TransactionDAO;
+import com.banking.metrics.CallCost;
+import com.banking.metrics.Metrics;
+import com.banking.model.Account;
+import com.banking.model.Customer;
+import com.banking.model.Money;
+import com.banking.model.Transaction;
+import com.banking.service.BankingService;
+import com.banking.util.DatabaseConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks the database work of service operations against per-operation budgets
+ *
+ * Creates a throwaway customer with two accounts, runs each operation twice and measures the
+ * second call (the customer, accounts and their transactions are deleted afterwards), so entity
+ * caches are in their steady state: a write evicts the rows it touched and the next call reads
+ * them again. The connections, statements and round trips of that call are compared with the
+ * budgets file, which holds lines such as
+ *
+ *   transfer.connections=1
+ *   transfer.statements=4
+ *
+ * Exits with status 1 if any operation is over budget, so the query-budget Maven profile fails
+ * the build. With --record the measured values are written to the file instead.
+ *
+ * The check writes rows, so it only runs against a schema named with -DDB_URL, never the one in
+ * config.properties. The budgets hold for METRICS_ENABLED=true, CHANGE_LOG_ENABLED=false, entity
+ * caches off and the compact ledger; the check refuses to run under any other configuration.
+ *
+ * Usage: java -DDB_URL=jdbc:mysql://localhost:3306/banking_budget ... QueryBudgetCheck [budgetFile] [--record]
+ *        (default query-budgets.properties)
+ */
+public class QueryBudgetCheck {
+
+    private static final String[] MEASURES = {"connections", "statements", "roundTrips"};
+    private static final Money OPENING_BALANCE = Money.ofCents(1_000_000);
+    private static final Money AMOUNT = Money.ofCents(100);
+
+    private final BankingService bankingService;
+    private int customerId;
+    private int accountId;
+    private int otherAccountId;
+
+    public QueryBudgetCheck(BankingService bankingService) {
+        this.bankingService = bankingService;
+    }
+
+    public static void main(String[] args) {
+        Path budgetFile = Path.of("query-budgets.properties");
+        boolean record = false;
+        for (String arg : args) {
+            if (arg.equals("--record")) {
+                record = true;
+            } else {
+                budgetFile = Path.of(arg);
+            }
+        }
+        String problem = configurationProblem();
+        if (problem != null) {
+            System.out.println("❌ " + problem);
+            System.exit(1);
+        }
+
+        QueryBudgetCheck check = new QueryBudgetCheck(new BankingService());
+        Map<String, CallCost> measured;
+        try {
+            measured = check.measure();
+        } catch (IllegalStateException e) {
+            System.out.println("❌ " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        try {
+            if (record) {
+                writeBudgets(budgetFile, measured);
+                System.out.println("✅ Budgets recorded in " + budgetFile);
+                return;
+            }
+            int violations = compare(readBudgets(budgetFile), measured);
+            if (violations > 0) {
+                System.out.println("❌ " + violations + " budget(s) exceeded");
+                System.exit(1);
+            }
+            System.out.println("✅ All operations within budget");
+        } catch (IOException e) {
+            System.out.println("❌ Error reading or writing " + budgetFile + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Why the budgets cannot be checked under the current configuration, or null if they can
+     */
+    private static String configurationProblem() {
+        if (!DatabaseConnection.getInstance().isOverridden("DB_URL")) {
+            return "Name the budget schema with -DDB_URL (loaded with sql/schema.sql); the check writes test rows";
+        }
+        if (!Metrics.ENABLED) {
+            return "METRICS_ENABLED=false: connections are not wrapped, so nothing can be counted";
+        }
+        if (ChangeLogDAO.ENABLED) {
+            return "CHANGE_LOG_ENABLED=true: the budgets are for writes without change log rows";
+        }
+        if (EntityCaches.ENABLED) {
+            return "Entity caches are on (ENTITY_CACHE_SIZE > 0): the budgets are for reads that hit the database";
+        }
+        if (LedgerFormat.current() != LedgerFormat.COMPACT) {
+            return "LEDGER_FORMAT is " + LedgerFormat.current() + ": the budgets are for the compact ledger";
+        }
+        return null;
+    }
+
+    // ==================== MEASUREMENT ====================
+
+    /**
+     * Cost of the second of two calls of each operation, in the order run
+     */
+    public Map<String, CallCost> measure() {
+        createFixture();
+        try {
+            Map<String, CallCost> costs = new LinkedHashMap<>();
+            costs.put("deposit", steadyState(() -> bankingService.deposit(accountId, AMOUNT)));
+            costs.put("withdraw", steadyState(() -> bankingService.withdraw(accountId, AMOUNT)));
+            costs.put("transfer", steadyState(() -> bankingService.transfer(accountId, otherAccountId, AMOUNT)));
+            costs.put("checkBalance", steadyState(() -> bankingService.checkBalance(accountId)));
+            costs.put("getAccount", steadyState(() -> bankingService.getAccount(accountId)));
+            costs.put("getCustomerAccounts", steadyState(() -> bankingService.getCustomerAccounts(customerId)));
+            costs.put("getAccountTransactionHistory", steadyState(() -> bankingService.getAccountTransactionHistory(accountId)));
+            return costs;
+        } finally {
+            removeFixture();
+        }
+    }
+
+    private static CallCost steadyState(Runnable operation) {
+        operation.run();
+        CallCost cost = CallCost.begin();
+        try {
+            operation.run();
+        } finally {
+            cost.end();
+        }
+        return cost;
+    }
+
+    private void createFixture() {
+        String email = "budget-check-" + System.currentTimeMillis() + "@example.com";
+        if (!bankingService.registerCustomer("Budget Check", 30, email, "5550000000")) {
+            throw new IllegalStateException("Could not create the test customer");
+        }
+        Optional<Customer> customer = bankingService.getCustomerByEmail(email);
+        if (customer.isEmpty()) {
+            throw new IllegalStateException("Test customer not found after registration");
+        }
+        customerId = customer.get().getId();
+        bankingService.createAccount(customerId, Account.SAVINGS, OPENING_BALANCE);
+        bankingService.createAccount(customerId, Account.SAVINGS, OPENING_BALANCE);
+        List<Account> accounts = bankingService.getCustomerAccounts(customerId);
+        if (accounts.size() < 2) {
+            accounts.forEach(account -> new AccountDAO().deleteAccount(account.getId()));
+            bankingService.deleteCustomer(customerId);
+            throw new IllegalStateException("Could not create the test accounts");
+        }
+        accountId = accounts.get(0).getId();
+        otherAccountId = accounts.get(1).getId();
+    }
+
+    /**
+     * Delete the test transactions, accounts and customer
+     * Customers with accounts cannot be deleted through the service, and deleting an account only
+     * detaches its transactions, so each is removed explicitly.
+     */
+    private void removeFixture() {
+        TransactionDAO transactionDAO = new TransactionDAO();
+        AccountDAO accountDAO = new AccountDAO();
+        Set<Integer> transactionIds = new LinkedHashSet<>();
+        for (int id : new int[] {accountId, otherAccountId}) {
+            for (Transaction transaction : transactionDAO.findByAccountId(id)) {
+                transactionIds.add(transaction.getId());
+            }
+        }
+        transactionIds.forEach(transactionDAO::deleteTransaction);
+        accountDAO.deleteAccount(accountId);
+        accountDAO.deleteAccount(otherAccountId);
+        if (!bankingService.deleteCustomer(customerId)) {
+            System.out.println("❌ Could not delete the test customer " + customerId);
+        }
+    }
+
+    // ==================== BUDGETS ====================
+
+    private static int compare(Properties budgets, Map<String, CallCost> measured) {
+        int violations = 0;
+        System.out.printf("%-30s %-12s %8s %8s%n", "Operation", "Measure", "Actual", "Budget");
+        for (Map.Entry<String, CallCost> entry : measured.entrySet()) {
+            for (String measure : MEASURES) {
+                int actual = valueOf(entry.getValue(), measure);
+                String budget = budgets.getProperty(entry.getKey() + "." + measure);
+                boolean over = budget != null && actual > Integer.parseInt(budget.trim());
+                System.out.printf("%-30s %-12s %8d %8s%s%n", entry.getKey(), measure, actual,
+                                  budget != null ? budget.trim() : "-", over ? "  ❌ over budget" : "");
+                if (over) {
+                    violations++;
+                }
+            }
+        }
+        for (String key : new TreeSet<>(budgets.stringPropertyNames())) {
+            if (!measured.containsKey(key.substring(0, Math.max(0, key.lastIndexOf('.'))))) {
+                System.out.println("❌ Budget for an operation that is not measured: " + key);
+                violations++;
+            }
+        }
+        return violations;
+    }
+
+    private static int valueOf(CallCost cost, String measure) {
+        switch (measure) {
+            case "connections":
+                return cost.getConnections();
+            case "statements":
+                return cost.getStatements();
+            default:
+                return cost.getRoundTrips();
+        }
+    }
+
+    private static Properties readBudgets(Path file) throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            budgets.load(in);
+        }
+        return budgets;
+    }
+
+    /**
+     * Write the measured values, keeping the comment block at the top of an existing file
+     */
+    private static void writeBudgets(Path file, Map<String, CallCost> measured) throws IOException {
+        StringBuilder text = new StringBuilder();
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file)) {
+                if (!line.startsWith("#")) {
+                    break;
+                }
+                text.append(line).append('\n');
+            }
+        }
+        if (text.length() == 0) {
+            text.append("# Maximum database work per call, checked by QueryBudgetCheck\n");
+        }
+        measured.forEach((operation, cost) -> {
+            text.append('\n');
+            for (String measure : MEASURES) {
+                text.append(operation).append('.').append(measure).append('=').append(valueOf(cost, measure)).append('\n');
+            }
+        });
+        Files.writeString(file, text);
+    }
+}
@@ -0,0 +1,137 @@
+package com.banking.tracing;
+
+import java.util.function.Supplier;
+
+/**
+ * One timed step of a sampled request, e.g. a service operation, a DAO method or a statement
+ * Spans nest on the thread that opened them: closing a span makes its parent current again.
+ * Requests that are not sampled get NOOP, on which every method does nothing.
+ */
+public class Span implements AutoCloseable, Supplier<String> {
+
+    static final Span NOOP = new Span();
+
+    private static final int MAX_TAGS = 8;
+
+    private final String name;
+    private final String category;
+    private final long traceId;
+    private final long spanId;
+    private final Span parent;
+    private final long threadId;
+    private final long startNanos;
+    private long endNanos;
+    private boolean failed;
+    private boolean closed;
+    private Object[] tags;
+    private int tagCount;
+
+    private Span() {
+        this.name = null;
+        this.category = null;
+        this.traceId = 0;
+        this.spanId = 0;
+        this.parent = null;
+        this.threadId = 0;
+        this.startNanos = 0;
+        this.closed = true;
+    }
+
+    Span(String name, String category, long traceId, long spanId, Span parent) {
+        this.name = name;
+        this.category = category;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parent = parent;
+        this.threadId = Thread.currentThread().getId();
+        this.startNanos = System.nanoTime();
+    }
+
+    public boolean isSampled() {
+        return this != NOOP;
+    }
+
+    /**
+     * Attach a value shown with the span, e.g. an account id or the SQL text
+     */
+    public Span tag(String key, Object value) {
+        if (this == NOOP || closed || tagCount == MAX_TAGS) {
+            return this;
+        }
+        if (tags == null) {
+            tags = new Object[4];
+        } else if (tagCount * 2 == tags.length) {
+            Object[] grown = new Object[tags.length * 2];
+            System.arraycopy(tags, 0, grown, 0, tags.length);
+            tags = grown;
+        }
+        tags[tagCount * 2] = key;
+        tags[tagCount * 2 + 1] = value;
+        tagCount++;
+        return this;
+    }
+
+    public void setFailed(boolean failed) {
+        if (this != NOOP) {
+            this.failed = failed;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        endNanos = System.nanoTime();
+        Tracer.finished(this);
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    long getTraceId() {
+        return traceId;
+    }
+
+    long getSpanId() {
+        return spanId;
+    }
+
+    // ==================== EXPORT (writer thread) ====================
+
+    // One Chrome trace "complete" event, e.g.
+    // {"name":"AccountDAO.findById","cat":"dao","ph":"X","ts":...,"dur":...,"pid":1,"tid":12,"args":{...}},
+    @Override
+    public String get() {
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"name\":");
+        Tracer.appendJsonString(json, name);
+        json.append(",\"cat\":\"").append(category)
+            .append("\",\"ph\":\"X\",\"ts\":").append(Tracer.toEpochMicros(startNanos))
+            .append(",\"dur\":").append((endNanos - startNanos) / 1_000)
+            .append(",\"pid\":").append(Tracer.PROCESS_ID)
+            .append(",\"tid\":").append(threadId)
+            .append(",\"args\":{\"traceId\":\"").append(Long.toHexString(traceId))
+            .append("\",\"spanId\":\"").append(Long.toHexString(spanId)).append('"');
+        if (parent != null) {
+            json.append(",\"parentId\":\"").append(Long.toHexString(parent.spanId)).append('"');
+        }
+        if (failed) {
+            json.append(",\"error\":true");
+        }
+        for (int i = 0; i < tagCount; i++) {
+            json.append(',');
+            Tracer.appendJsonString(json, String.valueOf(tags[i * 2]));
+            json.append(':');
+            Object value = tags[i * 2 + 1];
+            if (value instanceof Number || value instanceof Boolean) {
+                json.append(value);
+            } else {
+                Tracer.appendJsonString(json, String.valueOf(value));
+            }
+        }
+        return json.append("}},").toString();
+    }
+}
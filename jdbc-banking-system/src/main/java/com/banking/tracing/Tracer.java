@@ -0,0 +1,134 @@
+package com.banking.tracing;
+
+import com.banking.util.AsyncRotatingFile;
+import com.banking.util.DatabaseConnection;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal request tracing
+ *
+ * MeteredBankingService opens a root span per service call for a TRACE_SAMPLE_RATE fraction of
+ * calls (default 0.01). Inside a sampled call, span() opens a child of the current span on this
+ * thread; connection checkouts and their statements become spans the same way, so a trace shows
+ * validation, each DAO method, each statement and the commit. Outside a sampled
+ * call span() returns Span.NOOP after one thread-local read.
+ *
+ * Finished spans go to TRACE_FILE (default logs/trace.json) through a background writer, as
+ * Chrome trace events that chrome://tracing, Perfetto or Speedscope can open. The file is a JSON
+ * array left open at the end, which those viewers accept; it rotates every TRACE_FILE_MAX_MB.
+ */
+public final class Tracer {
+
+    private static final DatabaseConnection CONFIG = DatabaseConnection.getInstance();
+
+    private static final double SAMPLE_RATE = Double.parseDouble(CONFIG.getProperty("TRACE_SAMPLE_RATE", "0.01"));
+
+    public static final boolean ENABLED = SAMPLE_RATE > 0;
+
+    private static final AsyncRotatingFile FILE = ENABLED ? new AsyncRotatingFile(
+            Path.of(CONFIG.getProperty("TRACE_FILE", "logs/trace.json")),
+            Long.parseLong(CONFIG.getProperty("TRACE_FILE_MAX_MB", "50")) * 1024 * 1024, 5, "[") : null;
+
+    static final long PROCESS_ID = ProcessHandle.current().pid();
+
+    // Wall clock at a System.nanoTime() reading, so span timestamps line up with other traces
+    private static final long BASE_NANOS = System.nanoTime();
+    private static final long BASE_EPOCH_MICROS = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private Tracer() {
+    }
+
+    /**
+     * Span for a service call: a child when called inside a sampled span, otherwise a new trace if
+     * this call is picked by the sample rate
+     */
+    public static Span startTrace(String name) {
+        if (!ENABLED) {
+            return Span.NOOP;
+        }
+        Span parent = CURRENT.get();
+        if (parent == null && ThreadLocalRandom.current().nextDouble() >= SAMPLE_RATE) {
+            return Span.NOOP;
+        }
+        return open(name, "service", parent);
+    }
+
+    /**
+     * Child of the current span, or NOOP when this thread is not in a sampled request
+     *
+     * @param category grouping shown by trace viewers, e.g. "service", "dao" or "sql"
+     */
+    public static Span span(String name, String category) {
+        if (!ENABLED) {
+            return Span.NOOP;
+        }
+        Span parent = CURRENT.get();
+        return parent == null ? Span.NOOP : open(name, category, parent);
+    }
+
+    public static Span span(String name) {
+        return span(name, "service");
+    }
+
+    private static Span open(String name, String category, Span parent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long traceId = parent != null ? parent.getTraceId() : random.nextLong();
+        Span span = new Span(name, category, traceId, random.nextLong(), parent);
+        CURRENT.set(span);
+        return span;
+    }
+
+    // Called once per sampled span on close: restore its parent and queue it for the file
+    static void finished(Span span) {
+        if (CURRENT.get() == span) {
+            if (span.getParent() != null) {
+                CURRENT.set(span.getParent());
+            } else {
+                CURRENT.remove();
+            }
+        }
+        FILE.append(span);
+    }
+
+    // ==================== JSON ====================
+
+    static long toEpochMicros(long nanos) {
+        return BASE_EPOCH_MICROS + (nanos - BASE_NANOS) / 1_000;
+    }
+
+    static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
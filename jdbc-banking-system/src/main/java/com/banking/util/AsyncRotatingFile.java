@@ -0,0 +1,204 @@
+package com.banking.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Log file written by a background thread, rotated by size
+ *
+ * append() only puts the line on a bounded lock-free queue and never waits: when the queue is
+ * full the line is dropped and counted. Lines are supplied lazily, so formatting also happens on
+ * the writer thread, which polls the queue and parks briefly while it is empty. When the file passes maxBytes it is renamed to name.1 (name.1 to name.2, and
+ * so on) and the oldest of maxFiles is deleted. An optional header line starts every new file.
+ */
+public class AsyncRotatingFile {
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int DRAIN_BATCH = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final Path path;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final String header;
+    private final ConcurrentLinkedQueue<Supplier<String>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+
+    private BufferedWriter writer;
+    private long bytesWritten;
+    private long reportedDrops;
+    private volatile boolean closed;
+
+    public AsyncRotatingFile(Path path, long maxBytes, int maxFiles) {
+        this(path, maxBytes, maxFiles, null);
+    }
+
+    public AsyncRotatingFile(Path path, long maxBytes, int maxFiles, String header) {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.header = header;
+        this.writerThread = new Thread(this::writeLoop, "log-writer-" + path.getFileName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    /**
+     * Queue one line; returns false if it was dropped because the writer is behind
+     */
+    public boolean append(Supplier<String> line) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        if (queued.incrementAndGet() > QUEUE_CAPACITY) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(line);
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Write out what is queued and stop the writer thread
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        // Not interrupted: an interrupt during a write would close the file channel
+        closed = true;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== WRITER THREAD ====================
+
+    private void writeLoop() {
+        List<Supplier<String>> batch = new ArrayList<>(DRAIN_BATCH);
+        while (true) {
+            // Read before draining, so nothing appended before close() is left behind
+            boolean closing = closed;
+            Supplier<String> line;
+            while (batch.size() < DRAIN_BATCH && (line = queue.poll()) != null) {
+                batch.add(line);
+            }
+            queued.addAndGet(-batch.size());
+            long drops = dropped.sum();
+            if (drops > reportedDrops) {
+                long newDrops = drops - reportedDrops;
+                batch.add(() -> "(" + newDrops + " line(s) dropped while the writer was behind)");
+                reportedDrops = drops;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            } else if (closing) {
+                closeWriter();
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void write(List<Supplier<String>> lines) {
+        try {
+            for (Supplier<String> supplier : lines) {
+                String line = render(supplier);
+                if (writer == null || bytesWritten >= maxBytes) {
+                    openNext();
+                }
+                writer.write(line);
+                writer.newLine();
+                bytesWritten += line.length() + 1;
+            }
+            if (writer != null && queue.isEmpty()) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error writing " + path + ": " + e.getMessage());
+            dropped.add(lines.size());
+            closeWriter();
+        }
+    }
+
+    private static String render(Supplier<String> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            return "(unformattable log line: " + e + ")";
+        }
+    }
+
+    private void openNext() throws IOException {
+        if (writer != null) {
+            closeWriter();
+            rotate();
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        bytesWritten = Files.size(path);
+        if (header != null && bytesWritten == 0) {
+            writer.write(header);
+            writer.newLine();
+            bytesWritten = header.length() + 1;
+        }
+    }
+
+    private void rotate() throws IOException {
+        Files.deleteIfExists(sibling(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            if (Files.exists(sibling(i))) {
+                Files.move(sibling(i), sibling(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(path, sibling(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private Path sibling(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("❌ Error closing " + path + ": " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
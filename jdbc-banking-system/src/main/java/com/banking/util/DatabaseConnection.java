@@ -1,5 +1,10 @@
 package com.banking.util;
 
+import com.banking.metrics.MeteredConnection;
+import com.banking.metrics.Metrics;
+import com.banking.metrics.SlowQueryLog;
+import com.banking.tracing.Tracer;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
@@ -15,6 +20,8 @@ public class DatabaseConnection {
     private static DatabaseConnection instance;
     private static final Properties properties = new Properties();
     private static final String CONFIG_FILE = "config.properties";
+    // Declared after the configuration fields: Log reads its settings through this class
+    private static final Log LOG = Log.get(DatabaseConnection.class);
     
     private String url;
     private String username;
@@ -41,6 +48,13 @@ public class DatabaseConnection {
                 throw new RuntimeException("Could not find " + CONFIG_FILE);
             }
             properties.load(input);
+            // -DKEY=value on the java command line overrides the file, e.g. to point a tool at
+            // its own schema
+            for (String key : System.getProperties().stringPropertyNames()) {
+                if (key.matches("[A-Z][A-Z0-9_]*")) {
+                    properties.setProperty(key, System.getProperty(key));
+                }
+            }
             
             this.url = properties.getProperty("DB_URL");
             this.username = properties.getProperty("DB_USER");
@@ -63,8 +77,11 @@ public class DatabaseConnection {
             // Load the JDBC driver
             Class.forName(driver);
             
-            // Create and return connection
-            return DriverManager.getConnection(url, username, password);
+            // Create and return connection, wrapped for metrics, the slow query log and tracing unless all are off
+            if (!Metrics.ENABLED && !SlowQueryLog.ENABLED && !Tracer.ENABLED) {
+                return DriverManager.getConnection(url, username, password);
+            }
+            return MeteredConnection.open(() -> DriverManager.getConnection(url, username, password));
             
         } catch (ClassNotFoundException e) {
             throw new SQLException("Database driver not found: " + driver, e);
@@ -76,7 +93,7 @@ public class DatabaseConnection {
         try (Connection connection = getConnection()) {
             return connection != null && !connection.isClosed();
         } catch (SQLException e) {
-            System.err.println("Database connection test failed: " + e.getMessage());
+            LOG.error("Database connection test failed", "error", e.getMessage());
             return false;
         }
     }
@@ -87,7 +104,7 @@ public class DatabaseConnection {
             try {
                 connection.close();
             } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
+                LOG.error("Error closing database connection", "error", e.getMessage());
             }
         }
     }
@@ -105,6 +122,17 @@ public class DatabaseConnection {
         return driver;
     }
 
+    // Optional settings from the same configuration file
+    public String getProperty(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+
+    // Whether a setting came from a -D system property rather than config.properties
+    public boolean isOverridden(String key) {
+        return System.getProperty(key) != null;
+    }
+
     // Override toString for debugging
     @Override
     public String toString() {
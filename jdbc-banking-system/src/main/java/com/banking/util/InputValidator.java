@@ -1,8 +1,8 @@
 package com.banking.util;
 
-import java.math.BigDecimal;
 import java.util.regex.Pattern;
 import com.banking.model.Account;
+import com.banking.model.Money;
 import com.banking.model.Transaction;
 
 /**
@@ -10,6 +10,8 @@ import com.banking.model.Transaction;
  * Demonstrates utility methods and input validation best practices
  */
 public class InputValidator {
+
+    private static final Log LOG = Log.get(InputValidator.class);
     
     // Regex patterns for validation
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
@@ -24,6 +26,9 @@ public class InputValidator {
         "^[a-zA-Z\\s]{2,100}$"
     );
 
+    // Largest single amount accepted, in cents (999,999,999.99)
+    private static final long MAX_AMOUNT_CENTS = 99_999_999_999L;
+
     // Validation methods
     public static boolean isValidName(String name) {
         return name != null && 
@@ -47,10 +52,12 @@ public class InputValidator {
                PHONE_PATTERN.matcher(contactNumber.trim()).matches();
     }
 
-    public static boolean isValidAmount(BigDecimal amount) {
-        return amount != null && 
-               amount.compareTo(BigDecimal.ZERO) > 0 && 
-               amount.compareTo(new BigDecimal("999999999.99")) <= 0;
+    public static boolean isValidAmount(Money amount) {
+        return amount != null && isValidAmountCents(amount.getCents());
+    }
+
+    public static boolean isValidAmountCents(long cents) {
+        return cents > 0 && cents <= MAX_AMOUNT_CENTS;
     }
 
     public static boolean isValidAccountId(int accountId) {
@@ -138,7 +145,7 @@ public class InputValidator {
         return result;
     }
 
-    public static ValidationResult validateAccount(int customerId, String accountType, BigDecimal balance) {
+    public static ValidationResult validateAccount(int customerId, String accountType, Money balance) {
         ValidationResult result = new ValidationResult();
         
         if (!isValidCustomerId(customerId)) {
@@ -156,7 +163,7 @@ public class InputValidator {
         return result;
     }
 
-    public static ValidationResult validateTransaction(Integer fromAccountId, Integer toAccountId, BigDecimal amount, String type) {
+    public static ValidationResult validateTransaction(int fromAccountId, int toAccountId, Money amount, String type) {
         ValidationResult result = new ValidationResult();
         
         if (!isValidTransactionType(type)) {
@@ -185,7 +192,7 @@ public class InputValidator {
                 if (!isValidAccountId(toAccountId)) {
                     result.addError("Invalid destination account ID");
                 }
-                if (fromAccountId != null && toAccountId != null && fromAccountId.equals(toAccountId)) {
+                if (fromAccountId == toAccountId) {
                     result.addError("Source and destination accounts cannot be the same");
                 }
                 break;
@@ -217,8 +224,7 @@ public class InputValidator {
 
         public void printErrors() {
             if (!valid) {
-                System.err.println("Validation errors:");
-                System.err.println(errors.toString());
+                LOG.warn("Validation errors", "errors", errors.toString().replace("\n", "; "));
             }
         }
     }
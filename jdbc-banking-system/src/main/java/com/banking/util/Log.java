@@ -0,0 +1,229 @@
+package com.banking.util;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Application log for the DAOs and services
+ *
+ * A call captures the message and up to three key/value fields in one record and hands it to the
+ * background writer of LOG_FILE (default logs/banking.log) through a lock-free queue; the record
+ * is only formatted there, as one logfmt line. Records below LOG_LEVEL (default INFO) cost a
+ * level check.
+ *
+ * The interactive console application also echoes records to the terminal, as it always has; that
+ * echo is synchronous so it stays in order with the menus. It is off for everything else unless
+ * LOG_CONSOLE=true (LOG_CONSOLE=false silences it everywhere).
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final DatabaseConnection CONFIG = DatabaseConnection.getInstance();
+
+    private static final Level LEVEL = Level.valueOf(CONFIG.getProperty("LOG_LEVEL", "INFO").toUpperCase(Locale.ROOT));
+    private static final String CONSOLE = CONFIG.getProperty("LOG_CONSOLE", "auto").toLowerCase(Locale.ROOT);
+    private static final AsyncRotatingFile FILE = Boolean.parseBoolean(CONFIG.getProperty("LOG_FILE_ENABLED", "true"))
+            ? new AsyncRotatingFile(Path.of(CONFIG.getProperty("LOG_FILE", "logs/banking.log")), 10L * 1024 * 1024, 5)
+            : null;
+
+    private static volatile boolean console = CONSOLE.equals("true");
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    /**
+     * Called by the interactive console application; echoes records to the terminal unless
+     * LOG_CONSOLE=false
+     */
+    public static void setInteractive(boolean interactive) {
+        if (CONSOLE.equals("auto")) {
+            console = interactive;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    // ==================== LOGGING ====================
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null, null, null, null, null, null);
+    }
+
+    public void debug(String message, String key, Object value) {
+        log(Level.DEBUG, message, key, value, null, null, null, null);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null, null, null, null, null, null);
+    }
+
+    public void info(String message, String key, Object value) {
+        log(Level.INFO, message, key, value, null, null, null, null);
+    }
+
+    public void info(String message, String key1, Object value1, String key2, Object value2) {
+        log(Level.INFO, message, key1, value1, key2, value2, null, null);
+    }
+
+    public void info(String message, String key1, Object value1, String key2, Object value2, String key3, Object value3) {
+        log(Level.INFO, message, key1, value1, key2, value2, key3, value3);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null, null, null, null, null, null);
+    }
+
+    public void warn(String message, String key, Object value) {
+        log(Level.WARN, message, key, value, null, null, null, null);
+    }
+
+    public void warn(String message, String key1, Object value1, String key2, Object value2) {
+        log(Level.WARN, message, key1, value1, key2, value2, null, null);
+    }
+
+    public void warn(String message, String key1, Object value1, String key2, Object value2, String key3, Object value3) {
+        log(Level.WARN, message, key1, value1, key2, value2, key3, value3);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null, null, null, null, null, null);
+    }
+
+    public void error(String message, String key, Object value) {
+        log(Level.ERROR, message, key, value, null, null, null, null);
+    }
+
+    public void error(String message, String key1, Object value1, String key2, Object value2) {
+        log(Level.ERROR, message, key1, value1, key2, value2, null, null);
+    }
+
+    public void error(String message, String key1, Object value1, String key2, Object value2, String key3, Object value3) {
+        log(Level.ERROR, message, key1, value1, key2, value2, key3, value3);
+    }
+
+    private void log(Level level, String message, String key1, Object value1, String key2, Object value2,
+                     String key3, Object value3) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        Record record = new Record(System.currentTimeMillis(), level, name, message, key1, value1, key2, value2, key3, value3);
+        if (console) {
+            record.printToConsole();
+        }
+        if (FILE != null) {
+            FILE.append(record);
+        }
+    }
+
+    /**
+     * One log call, formatted on the writer thread
+     */
+    private static final class Record implements Supplier<String> {
+        private final long timestampMillis;
+        private final Level level;
+        private final String logger;
+        private final String message;
+        private final String key1;
+        private final Object value1;
+        private final String key2;
+        private final Object value2;
+        private final String key3;
+        private final Object value3;
+
+        Record(long timestampMillis, Level level, String logger, String message, String key1, Object value1,
+               String key2, Object value2, String key3, Object value3) {
+            this.timestampMillis = timestampMillis;
+            this.level = level;
+            this.logger = logger;
+            this.message = message;
+            this.key1 = key1;
+            this.value1 = value1;
+            this.key2 = key2;
+            this.value2 = value2;
+            this.key3 = key3;
+            this.value3 = value3;
+        }
+
+        // ts=2024-01-31T12:00:00.123 level=INFO logger=AccountDAO msg="Deposit successful" accountId=7
+        @Override
+        public String get() {
+            StringBuilder line = new StringBuilder(128);
+            line.append("ts=").append(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault())
+                                                   .truncatedTo(ChronoUnit.MILLIS))
+                .append(" level=").append(level)
+                .append(" logger=").append(logger)
+                .append(" msg=");
+            appendValue(line, message);
+            appendField(line, key1, value1);
+            appendField(line, key2, value2);
+            appendField(line, key3, value3);
+            return line.toString();
+        }
+
+        // The terminal keeps the application's familiar "✅ ..." / "❌ ..." lines
+        void printToConsole() {
+            StringBuilder line = new StringBuilder(level == Level.INFO ? "✅ " : level == Level.DEBUG ? "   " : "❌ ");
+            line.append(message);
+            if (key1 != null) {
+                line.append(" [");
+                appendPlain(line, key1, value1);
+                if (key2 != null) {
+                    line.append(", ");
+                    appendPlain(line, key2, value2);
+                }
+                if (key3 != null) {
+                    line.append(", ");
+                    appendPlain(line, key3, value3);
+                }
+                line.append(']');
+            }
+            (level == Level.ERROR ? System.err : System.out).println(line);
+        }
+
+        private static void appendPlain(StringBuilder line, String key, Object value) {
+            line.append(key).append('=').append(value);
+        }
+
+        private static void appendField(StringBuilder line, String key, Object value) {
+            if (key != null) {
+                line.append(' ').append(key).append('=');
+                appendValue(line, value);
+            }
+        }
+
+        private static void appendValue(StringBuilder line, Object value) {
+            String text = String.valueOf(value);
+            boolean quote = text.isEmpty() || text.chars().anyMatch(c -> c == ' ' || c == '"' || c == '=');
+            if (!quote) {
+                line.append(text);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\');
+                }
+                line.append(c == '\n' ? ' ' : c);
+            }
+            line.append('"');
+        }
+    }
+}